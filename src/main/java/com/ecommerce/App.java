@@ -6,16 +6,15 @@ import io.javalin.http.Handler;
 import io.javalin.http.HttpStatus;
 import io.javalin.http.staticfiles.Location;
 import com.ecommerce.config.DatabaseConfig;
+import com.ecommerce.config.RequestPersistenceContext;
 import com.ecommerce.config.TransactionFilter;
 import com.ecommerce.controller.*;
 import com.ecommerce.service.*;
 import com.ecommerce.repository.*;
 import com.ecommerce.mapper.*;
-import com.ecommerce.mapper.CarrinhoMapperImpl;
 import com.ecommerce.mapper.CategoriaMapperImpl;
 import com.ecommerce.mapper.ClienteMapperImpl;
 import com.ecommerce.mapper.EnderecoMapperImpl;
-import com.ecommerce.mapper.ItemCarrinhoMapperImpl;
 import com.ecommerce.mapper.ItemPedidoMapperImpl;
 import com.ecommerce.mapper.NotificacaoMapperImpl;
 import com.ecommerce.mapper.PagamentoMapperImpl;
@@ -47,6 +46,9 @@ public class App {
             // Vincula a todas as interfaces
             config.jetty.defaultHost = "0.0.0.0";
             
+            // Modo opcional: um virtual thread por request (requer JDK 21+ em tempo de execução)
+            config.useVirtualThreads = isVirtualThreadsEnabled();
+            
             // Serve arquivos estáticos de /static no classpath
             config.staticFiles.add(s -> { 
                 s.hostedPath = "/"; 
@@ -65,6 +67,7 @@ public class App {
                 cors.addRule(corsRule -> {
                     corsRule.anyHost();
                     corsRule.allowCredentials = true;
+                    corsRule.exposeHeader("X-Total-Count");
                 });
             });
             
@@ -78,6 +81,17 @@ public class App {
         return app;
     }
     
+    /**
+     * Indica se o servidor deve rodar os requests em virtual threads.
+     * 
+     * Ativado por VIRTUAL_THREADS=true (ou -Decommerce.virtualThreads=true). Em JDKs sem
+     * virtual threads o Javalin mantém o pool de platform threads do Jetty.
+     */
+    static boolean isVirtualThreadsEnabled() {
+        String value = System.getProperty("ecommerce.virtualThreads", System.getenv("VIRTUAL_THREADS"));
+        return Boolean.parseBoolean(value);
+    }
+    
     public static void main(String[] args) {
         System.out.println("🚀 E-commerce API iniciando...");
         System.out.println("📅 " + java.time.LocalDateTime.now());
@@ -103,6 +117,9 @@ public class App {
             // Vincula a todas as interfaces
             config.jetty.defaultHost = "0.0.0.0";
             
+            // Modo opcional: um virtual thread por request (requer JDK 21+ em tempo de execução)
+            config.useVirtualThreads = isVirtualThreadsEnabled();
+            
             // Serve arquivos estáticos de /static no classpath
             config.staticFiles.add(s -> { 
                 s.hostedPath = "/"; 
@@ -121,6 +138,7 @@ public class App {
                 cors.addRule(corsRule -> {
                     corsRule.anyHost();
                     corsRule.allowCredentials = true;
+                    corsRule.exposeHeader("X-Total-Count");
                 });
             });
             
@@ -135,9 +153,16 @@ public class App {
         app.start("0.0.0.0", PORT);
         
         // Hook de desligamento
-        Runtime.getRuntime().addShutdownHook(new Thread(DatabaseConfig::shutdown));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            carrinhosEmMemoria.encerrar();
+            metricasPedidos.encerrar();
+            retencaoNotificacoes.encerrar();
+            eventosClientes.encerrar();
+            DatabaseConfig.shutdown();
+        }));
         
         System.out.println("✅ E-commerce API iniciada na porta " + PORT);
+        System.out.println("🧵 Threads: " + (isVirtualThreadsEnabled() ? "virtual threads" : "platform threads (pool do Jetty)"));
         System.out.println("🌐 Acesse: http://localhost:" + PORT);
         System.out.println("❤️ Health Check: http://localhost:" + PORT + "/health");
         System.out.println("📊 H2 Console: http://localhost:" + PORT + "/h2-console");
@@ -149,6 +174,7 @@ public class App {
         System.out.println("   📄 Pedidos: POST /pedidos/{clienteId} | GET /pedidos/cliente/{clienteId}");
         System.out.println("   💳 Pagamentos: POST /pagamentos/{pedidoId}/pix|cartao|boleto");
         System.out.println("   🔔 Notificações: GET /notificacoes/cliente/{clienteId}");
+        System.out.println("   📡 Eventos (SSE): GET /api/eventos");
     }
     
     // Controladores - serão inicializados em initializeServicesAndControllers
@@ -162,7 +188,39 @@ public class App {
     private static PagamentoController pagamentoController;
     private static NotificacaoController notificacaoController;
     private static AdminController adminController;
+    private static EventosController eventosController;
     private static OwnershipValidator ownershipValidator;
+    // Carrinhos ativos: gravados no banco ao desligar
+    private static CarrinhosEmMemoria carrinhosEmMemoria;
+    private static MetricasPedidos metricasPedidos;
+    private static RetencaoNotificacoes retencaoNotificacoes;
+    // Conexões SSE abertas: fechadas ao desligar
+    private static EventosClientes eventosClientes;
+    
+    /**
+     * Migração do índice único itens_carrinho (carrinho_id, produto_id), sem o qual todo upsert de
+     * CarrinhoRepository.gravarEstados falha: o hbm2ddl não consegue criá-lo se já houver itens
+     * duplicados, então eles são mesclados antes. Sem o índice a aplicação não sobe.
+     */
+    private static void garantirIndiceItensCarrinho(ItemCarrinhoRepository itemCarrinhoRepository) {
+        System.out.println("🧹 Verificando índice único de itens do carrinho...");
+        boolean existe = DatabaseConfig.executeInNewContext(RequestPersistenceContext.Modo.ESCRITA,
+            "índice único de itens do carrinho", () -> {
+                if (!itemCarrinhoRepository.existeIndiceUnicoProduto()) {
+                    int removidos = itemCarrinhoRepository.mesclarDuplicados();
+                    if (removidos > 0) {
+                        System.out.println("🧹 " + removidos + " itens de carrinho duplicados mesclados");
+                    }
+                    itemCarrinhoRepository.criarIndiceUnicoProduto();
+                }
+                return itemCarrinhoRepository.existeIndiceUnicoProduto();
+            });
+        if (!existe) {
+            throw new IllegalStateException("Índice único " + ItemCarrinhoRepository.INDICE_UNICO_PRODUTO
+                + " ausente ou inválido em itens_carrinho");
+        }
+        System.out.println("✅ Índice único de itens do carrinho OK");
+    }
     
     private static void initializeServicesAndControllers(EntityManager entityManager) {
         System.out.println("📊 Inicializando mapeadores...");
@@ -172,8 +230,6 @@ public class App {
         ProdutoMapper produtoMapper = new ProdutoMapperImpl();
         ClienteMapper clienteMapper = new ClienteMapperImpl();
         EnderecoMapper enderecoMapper = new EnderecoMapperImpl();
-        CarrinhoMapper carrinhoMapper = new CarrinhoMapperImpl();
-        ItemCarrinhoMapper itemCarrinhoMapper = new ItemCarrinhoMapperImpl();
         PedidoMapper pedidoMapper = new PedidoMapperImpl();
         PagamentoMapper pagamentoMapper = new PagamentoMapperImpl();
         NotificacaoMapper notificacaoMapper = new NotificacaoMapperImpl();
@@ -190,48 +246,87 @@ public class App {
         ItemCarrinhoRepository itemCarrinhoRepository = new ItemCarrinhoRepository(entityManager);
         PedidoRepository pedidoRepository = new PedidoRepository(entityManager);
         ItemPedidoRepository itemPedidoRepository = new ItemPedidoRepository(entityManager);
+        PedidoItemRepository pedidoItemRepository = new PedidoItemRepository(entityManager);
         PagamentoRepository pagamentoRepository = new PagamentoRepository(entityManager);
         NotificacaoRepository notificacaoRepository = new NotificacaoRepository(entityManager);
+        NotificacaoParticaoRepository notificacaoParticaoRepository = new NotificacaoParticaoRepository(entityManager);
+        NumeracaoPedidoRepository numeracaoPedidoRepository = new NumeracaoPedidoRepository(entityManager);
+        VendaAgregadaRepository vendaAgregadaRepository = new VendaAgregadaRepository(entityManager);
         System.out.println("✅ Repositórios inicializados");
         
+        garantirIndiceItensCarrinho(itemCarrinhoRepository);
+        
         System.out.println("🔧 Inicializando serviços...");
         // Initialize services
         System.out.println("  🔐 Criando JwtService...");
         jwtService = new JwtService();
         System.out.println("  👤 Criando UserService...");
-        UserService userService = new UserService(userRepository, userMapper, jwtService, clienteRepository);
+        ClienteResolver clienteResolver = new ClienteResolver(userRepository, clienteRepository);
+        UserService userService = new UserService(userRepository, userMapper, jwtService, clienteRepository, clienteResolver);
+        System.out.println("  📚 Criando CatalogoService...");
+        CatalogoService catalogoService = new CatalogoService(produtoRepository, categoriaRepository, produtoMapper, categoriaMapper);
+        catalogoService.recarregar();
+        System.out.println("  🔎 Criando índices de busca e sugestões...");
+        IndiceBuscaProdutos indiceBusca = new IndiceBuscaProdutos();
+        catalogoService.adicionarListener(indiceBusca);
+        IndiceCodigoBarras indiceCodigos = new IndiceCodigoBarras();
+        catalogoService.adicionarListener(indiceCodigos);
+        SugestoesService sugestoesService = new SugestoesService(pedidoItemRepository);
+        catalogoService.adicionarListener(sugestoesService);
+        sugestoesService.reconstruirAgora();
         System.out.println("  📂 Criando CategoriaService...");
-        CategoriaService categoriaService = new CategoriaService(categoriaRepository, produtoRepository, categoriaMapper);
+        CategoriaService categoriaService = new CategoriaService(categoriaRepository, produtoRepository, categoriaMapper, catalogoService);
         System.out.println("  📦 Criando ProdutoService...");
-        ProdutoService produtoService = new ProdutoService(produtoRepository, categoriaRepository, produtoMapper);
+        ProdutoService produtoService = new ProdutoService(produtoRepository, categoriaRepository, produtoMapper, catalogoService, indiceBusca, sugestoesService, indiceCodigos);
         System.out.println("  👥 Criando ClienteService...");
-        ClienteService clienteService = new ClienteService(clienteRepository, clienteMapper);
+        ClienteService clienteService = new ClienteService(clienteRepository, clienteMapper, clienteResolver);
         System.out.println("  🏠 Criando EnderecoService...");
-        EnderecoService enderecoService = new EnderecoService(enderecoRepository, clienteRepository, userRepository, pedidoRepository, enderecoMapper);
+        EnderecoService enderecoService = new EnderecoService(enderecoRepository, clienteRepository, clienteResolver, pedidoRepository, enderecoMapper);
         System.out.println("  🛒 Criando CarrinhoService...");
-        CarrinhoService carrinhoService = new CarrinhoService(carrinhoRepository, itemCarrinhoRepository, clienteRepository, produtoRepository, userRepository, carrinhoMapper, itemCarrinhoMapper);
+        if (carrinhosEmMemoria != null) {
+            // Reinicialização (testes): grava e encerra o armazenamento anterior
+            carrinhosEmMemoria.encerrar();
+        }
+        carrinhosEmMemoria = new CarrinhosEmMemoria(carrinhoRepository, catalogoService);
+        CarrinhoService carrinhoService = new CarrinhoService(carrinhosEmMemoria, produtoRepository, produtoMapper, catalogoService, clienteResolver);
         System.out.println("  🔔 Criando NotificacaoService...");
-        NotificacaoService notificacaoService = new NotificacaoService(notificacaoRepository, notificacaoMapper);
+        if (retencaoNotificacoes != null) {
+            retencaoNotificacoes.encerrar();
+        }
+        ParticoesNotificacoes particoesNotificacoes = new ParticoesNotificacoes(notificacaoParticaoRepository);
+        retencaoNotificacoes = new RetencaoNotificacoes(notificacaoRepository, particoesNotificacoes);
+        if (eventosClientes != null) {
+            eventosClientes.encerrar();
+        }
+        eventosClientes = new EventosClientes();
+        NotificacaoService notificacaoService = new NotificacaoService(notificacaoRepository, notificacaoMapper, retencaoNotificacoes, eventosClientes);
         System.out.println("  📄 Criando PedidoService...");
-        PedidoItemRepository pedidoItemRepository = new PedidoItemRepository(entityManager);
-        PedidoService pedidoService = new PedidoService(pedidoRepository, clienteRepository, enderecoRepository, carrinhoRepository, itemCarrinhoRepository, itemPedidoRepository, pedidoItemRepository, userRepository, pedidoMapper, notificacaoService, carrinhoService, produtoRepository);
+        NumeradorPedidos numeradorPedidos = new NumeradorPedidos(numeracaoPedidoRepository);
+        IdempotenciaPedidos idempotenciaPedidos = new IdempotenciaPedidos(pedidoRepository, pedidoMapper);
+        if (metricasPedidos != null) {
+            metricasPedidos.encerrar();
+        }
+        metricasPedidos = new MetricasPedidos(pedidoRepository, vendaAgregadaRepository);
+        PedidoService pedidoService = new PedidoService(pedidoRepository, clienteRepository, enderecoRepository, carrinhoRepository, itemCarrinhoRepository, itemPedidoRepository, pedidoItemRepository, clienteResolver, pedidoMapper, notificacaoService, carrinhoService, carrinhosEmMemoria, produtoRepository, numeradorPedidos, idempotenciaPedidos, metricasPedidos, eventosClientes);
         System.out.println("  💳 Criando PagamentoService...");
-        PagamentoService pagamentoService = new PagamentoService(pagamentoRepository, pedidoRepository, pagamentoMapper, notificacaoService);
+        PagamentoService pagamentoService = new PagamentoService(pagamentoRepository, pedidoRepository, pagamentoMapper, notificacaoService, metricasPedidos, eventosClientes);
         
         // Inicializa validador de segurança
         ownershipValidator = new OwnershipValidator(pedidoRepository, clienteRepository, enderecoRepository, carrinhoRepository);
         
         // Inicializa controladores
         authController = new AuthController(userService);
-        categoriaController = new CategoriaController(categoriaService);
-        produtoController = new ProdutoController(produtoService);
+        CatalogoResponseCache catalogoResponseCache = new CatalogoResponseCache(catalogoService);
+        categoriaController = new CategoriaController(categoriaService, catalogoResponseCache);
+        produtoController = new ProdutoController(produtoService, catalogoResponseCache);
         clienteController = new ClienteController(clienteService);
         enderecoController = new EnderecoController(enderecoService);
         carrinhoController = new CarrinhoController(carrinhoService);
         pedidoController = new PedidoController(pedidoService);
         pagamentoController = new PagamentoController(pagamentoService);
         notificacaoController = new NotificacaoController(notificacaoService);
-        adminController = new AdminController(pedidoService, produtoService, clienteService);
+        adminController = new AdminController(pedidoService, produtoService, clienteService, catalogoService, metricasPedidos);
+        eventosController = new EventosController(eventosClientes, clienteResolver);
     }
     
     private static void configureRoutes(Javalin app) {
@@ -292,11 +387,15 @@ public class App {
         
         // Rotas de produtos (leitura pública)
         app.get("/produtos", produtoController::findAll);
+        // Rotas fixas antes de /produtos/{id}, que casaria com qualquer segmento
+        app.get("/produtos/sugestoes", produtoController::sugestoes);
+        app.get("/produtos/facetas", produtoController::facetas);
         app.get("/produtos/{id}", produtoController::findById);
         app.get("/produtos/codigo/{codigo}", produtoController::findByCodigoBarras);
         app.get("/produtos/categoria/{categoriaId}", produtoController::findByCategoria);
         app.get("/produtos/buscar/{nome}", produtoController::findByNome);
         app.get("/produtos/preco", produtoController::findByPrecoRange);
+        app.post("/produtos/codigos", produtoController::findByCodigosBarras);  // consulta em lote, não altera dados
         
         // ==== ROTAS PROTEGIDAS (Requer autenticação) ====
         
@@ -471,27 +570,28 @@ public class App {
         app.before("/api/enderecos", jwtMiddleware);
         app.before("/api/enderecos/*", jwtMiddleware);
         
-        app.get("/api/enderecos", enderecoController::listarEnderecos);
-        app.get("/api/enderecos/{id}", enderecoController::buscarEnderecoPorId);
+        app.get("/api/enderecos", TransactionFilter.comCriacao(enderecoController::listarEnderecos));
+        app.get("/api/enderecos/{id}", TransactionFilter.comCriacao(enderecoController::buscarEnderecoPorId));
         app.post("/api/enderecos", enderecoController::criarEndereco);
         app.patch("/api/enderecos/{id}", enderecoController::atualizarEndereco);
         app.delete("/api/enderecos/{id}", enderecoController::removerEndereco);
         
         // Cart routes
-        app.get("/carrinho/{clienteId}", carrinhoController::getCarrinho);
+        app.get("/carrinho/{clienteId}", TransactionFilter.comCriacao(carrinhoController::getCarrinho));
         app.post("/carrinho/{clienteId}/itens", carrinhoController::addItem);
         app.put("/carrinho/{clienteId}/itens/{itemId}", carrinhoController::updateItem);
         app.delete("/carrinho/{clienteId}/itens/{itemId}", carrinhoController::removeItem);
         app.delete("/carrinho/{clienteId}", carrinhoController::clearCarrinho);
-        app.get("/carrinho/{clienteId}/itens", carrinhoController::getItens);
-        app.get("/carrinho/{clienteId}/total", carrinhoController::calcularTotal);
-        app.get("/carrinho/{clienteId}/count", carrinhoController::contarItens);
+        app.get("/carrinho/{clienteId}/itens", TransactionFilter.comCriacao(carrinhoController::getItens));
+        app.get("/carrinho/{clienteId}/total", TransactionFilter.comCriacao(carrinhoController::calcularTotal));
+        app.get("/carrinho/{clienteId}/count", TransactionFilter.comCriacao(carrinhoController::contarItens));
         // New Cart API routes with JWT authentication
         app.before("/api/carrinho", jwtMiddleware);
         app.before("/api/carrinho/*", jwtMiddleware);
         
-        app.get("/api/carrinho", carrinhoController::getCarrinho);
+        app.get("/api/carrinho", TransactionFilter.comCriacao(carrinhoController::getCarrinho));
         app.post("/api/carrinho/item", carrinhoController::addItem);
+        app.put("/api/carrinho/itens", carrinhoController::upsertItens);
         app.delete("/api/carrinho/item/{produtoId}", carrinhoController::removeItem);
         app.delete("/api/carrinho", carrinhoController::clearCarrinho);
         
@@ -510,10 +610,12 @@ public class App {
         app.post("/api/pedidos", pedidoController::criarPedido);
         app.post("/api/pedidos/checkout", pedidoController::checkout);
         app.post("/api/pedidos/confirmar", pedidoController::confirmarPedido);  // New checkout confirmation endpoint
-        app.get("/api/pedidos/me", pedidoController::getMeusPedidos);
+        app.get("/api/pedidos/me", TransactionFilter.comCriacao(pedidoController::getMeusPedidos));
         app.get("/api/admin/pedidos", pedidoController::getPedidosAdmin);
         // Admin metrics route
         app.get("/api/admin/metricas", adminController::getMetricas);
+        app.get("/api/admin/metricas/serie", adminController::getSerieVendas);
+        app.get("/api/admin/catalogo", adminController::getCatalogo);
         // Admin update order status
         app.patch("/api/admin/pedidos/{id}/status", adminController::updateOrderStatus);
         // Client API route
@@ -551,6 +653,10 @@ public class App {
         app.get("/notificacoes/count/cliente/{clienteId}", notificacaoController::countByCliente);
         app.get("/notificacoes/count/tipo/{tipo}", notificacaoController::countByTipo);
         app.delete("/notificacoes/cleanup/{days}", notificacaoController::removeOldNotifications);
+        app.get("/notificacoes/cleanup/status", notificacaoController::getCleanupStatus);
+        
+        // Stream de eventos do cliente (SSE, autenticado pelo middleware de /api/*)
+        app.get("/api/eventos", eventosController::conectar);
     }
     
     /**
@@ -2,6 +2,7 @@ package com.ecommerce.config;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import io.javalin.http.Context;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.Persistence;
@@ -9,6 +10,7 @@ import jakarta.persistence.Persistence;
 import javax.sql.DataSource;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Supplier;
 
 /**
  * Configuração do banco de dados PostgreSQL com Hibernate e HikariCP
@@ -22,12 +24,20 @@ public class DatabaseConfig {
      * Inicializa a configuração do banco de dados
      */
     public static void initialize() {
+        initialize(null);
+    }
+    
+    /**
+     * Inicializa a configuração do banco de dados usando um schema próprio (criado se não
+     * existir) em vez do padrão: testes que alteram a estrutura das tabelas rodam isolados.
+     */
+    public static void initialize(String schema) {
         try {
             // Configurar HikariCP
-            setupDataSource();
+            setupDataSource(schema);
             
             // Configurar Hibernate/JPA
-            setupJPA();
+            setupJPA(schema);
             
             System.out.println("✅ Banco de dados PostgreSQL configurado com sucesso");
             System.out.println("📊 Database: " + System.getenv("PGDATABASE"));
@@ -42,7 +52,7 @@ public class DatabaseConfig {
     /**
      * Configura o HikariCP DataSource
      */
-    private static void setupDataSource() {
+    private static void setupDataSource(String schema) {
         HikariConfig config = new HikariConfig();
         
         // Configurações do PostgreSQL usando variáveis individuais
@@ -66,25 +76,48 @@ public class DatabaseConfig {
         config.setDriverClassName("org.postgresql.Driver");
         
         // Configurações do pool de conexões (OTIMIZADO para Replit)
-        config.setMaximumPoolSize(10); // Reduzido para evitar sobrecarga
+        // Pode ser aumentado via DB_POOL_SIZE (ex.: modo virtual threads com muitos requests simultâneos)
+        config.setMaximumPoolSize(getPoolSize()); // Reduzido para evitar sobrecarga
         config.setMinimumIdle(2); // Menor número de conexões idle
         config.setConnectionTimeout(30000);
         config.setIdleTimeout(300000); // 5 minutos
         config.setMaxLifetime(600000); // 10 minutos - mais curto para evitar conexões velhas
         config.setLeakDetectionThreshold(120000); // 2 minutos - mais tolerante
+        if (schema != null) {
+            // search_path de cada conexão: SQL nativo sem schema também cai no schema próprio
+            config.setSchema(schema);
+        }
         
         // Configurações de performance
         config.addDataSourceProperty("cachePrepStmts", "true");
         config.addDataSourceProperty("prepStmtCacheSize", "250");
         config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+        // Lotes JDBC viram um único INSERT multi-valores no driver (itens do pedido no checkout)
+        config.addDataSourceProperty("reWriteBatchedInserts", "true");
         
         dataSource = new HikariDataSource(config);
     }
     
+    /**
+     * Tamanho máximo do pool de conexões (padrão 10)
+     */
+    private static int getPoolSize() {
+        String poolSize = System.getenv("DB_POOL_SIZE");
+        if (poolSize == null || poolSize.isBlank()) {
+            return 10;
+        }
+        try {
+            return Math.max(2, Integer.parseInt(poolSize.trim()));
+        } catch (NumberFormatException e) {
+            System.err.println("⚠️ DB_POOL_SIZE inválido (" + poolSize + "), usando 10");
+            return 10;
+        }
+    }
+    
     /**
      * Configura o JPA/Hibernate
      */
-    private static void setupJPA() {
+    private static void setupJPA(String schema) {
         Map<String, Object> properties = new HashMap<>();
         
         // Configurações do Hibernate
@@ -94,9 +127,15 @@ public class DatabaseConfig {
         properties.put("hibernate.show_sql", "true");
         properties.put("hibernate.format_sql", "true");
         properties.put("hibernate.use_sql_comments", "true");
+        // notificacoes vira tabela particionada: sem isto o hbm2ddl não a enxerga e tenta recriá-la
+        properties.put("hibernate.hbm2ddl.extra_physical_table_types", "PARTITIONED TABLE");
+        if (schema != null) {
+            properties.put("hibernate.default_schema", schema);
+            properties.put("hibernate.hbm2ddl.create_namespaces", "true");
+        }
         
         // Configurações de performance
-        properties.put("hibernate.jdbc.batch_size", "20");
+        properties.put("hibernate.jdbc.batch_size", "50");
         properties.put("hibernate.order_inserts", "true");
         properties.put("hibernate.order_updates", "true");
         properties.put("hibernate.jdbc.batch_versioned_data", "true");
@@ -111,19 +150,54 @@ public class DatabaseConfig {
         entityManagerFactory = Persistence.createEntityManagerFactory("ecommerce-pu", properties);
     }
     
-    private static final ThreadLocal<EntityManager> requestEntityManager = new ThreadLocal<>();
+    /**
+     * Atributo do Context do Javalin que guarda o contexto de persistência do request.
+     * 
+     * O Context é a fonte de verdade do ciclo de vida (commit/rollback/close): ele acompanha
+     * o request mesmo quando o Jetty roda em virtual threads. O ThreadLocal abaixo é apenas
+     * a visão da thread que está executando o request, usada pelos repositórios.
+     */
+    public static final String PERSISTENCE_CONTEXT_ATTRIBUTE = "ecommerce.persistenceContext";
+    
+    private static final ThreadLocal<RequestPersistenceContext> requestContext = new ThreadLocal<>();
     
     /**
-     * Obtém o EntityManager do request atual
+     * Obtém o EntityManager do request atual (abrindo-o na primeira chamada)
      */
     public static EntityManager getEntityManager() {
-        EntityManager em = requestEntityManager.get();
-        if (em == null) {
+        RequestPersistenceContext context = requestContext.get();
+        if (context == null) {
             throw new IllegalStateException("Nenhum EntityManager ativo para este request. Use createEntityManager() diretamente.");
         }
-        return em;
+        return context.getEntityManager();
     }
     
+    /**
+     * Obtém o EntityManager do request atual ou, fora de um request (inicialização, jobs),
+     * o EntityManager padrão informado pelo repositório.
+     *
+     * Os repositórios são singletons compartilhados entre as threads do Jetty, por isso
+     * nunca devem usar um EntityManager fixo enquanto houver um request ativo.
+     */
+    public static EntityManager getEntityManagerOrDefault(EntityManager defaultEntityManager) {
+        RequestPersistenceContext context = requestContext.get();
+        return context != null ? context.getEntityManager() : defaultEntityManager;
+    }
+
+    /**
+     * Obtém o EntityManager para gravações do contexto atual, com transação garantida.
+     * 
+     * Fora de um request ou de executeInNewContext não há quem faça o commit (os repositórios
+     * não fazem mais flush nem controlam transações), então a gravação é recusada.
+     */
+    public static EntityManager getEntityManagerParaEscrita() {
+        RequestPersistenceContext context = requestContext.get();
+        if (context == null) {
+            throw new IllegalStateException("Nenhum contexto de persistência para gravar. Use executeInNewContext(ESCRITA, ...).");
+        }
+        return context.getEntityManagerParaEscrita();
+    }
+
     /**
      * Cria um novo EntityManager (usado pelo TransactionFilter)
      */
@@ -135,17 +209,86 @@ public class DatabaseConfig {
     }
     
     /**
-     * Define o EntityManager para o request atual (usado pelo TransactionFilter)
+     * Associa o contexto de persistência ao request (Context) e à thread que o executa
+     * (usado pelo TransactionFilter). Nenhum EntityManager é criado aqui.
+     */
+    public static void bindRequestContext(Context ctx, RequestPersistenceContext context) {
+        ctx.attribute(PERSISTENCE_CONTEXT_ATTRIBUTE, context);
+        requestContext.set(context);
+    }
+    
+    /**
+     * Obtém o contexto de persistência associado ao request, ou null se não houver
      */
-    public static void setRequestEntityManager(EntityManager em) {
-        requestEntityManager.set(em);
+    public static RequestPersistenceContext getRequestContext(Context ctx) {
+        return ctx.attribute(PERSISTENCE_CONTEXT_ATTRIBUTE);
     }
     
     /**
-     * Limpa o EntityManager do request atual (usado pelo TransactionFilter)
+     * Desassocia o contexto de persistência do request e da thread atual (usado pelo TransactionFilter).
+     * 
+     * Sempre limpa o ThreadLocal: threads do pool do Jetty são reaproveitadas e não podem
+     * carregar a sessão de um request anterior. Virtual threads não são reaproveitadas,
+     * mas a limpeza continua sendo feita pelo mesmo caminho.
      */
-    public static void clearRequestEntityManager() {
-        requestEntityManager.remove();
+    public static RequestPersistenceContext unbindRequestContext(Context ctx) {
+        RequestPersistenceContext context = ctx.attribute(PERSISTENCE_CONTEXT_ATTRIBUTE);
+        ctx.attribute(PERSISTENCE_CONTEXT_ATTRIBUTE, null);
+        requestContext.remove();
+        return context;
+    }
+    
+    /**
+     * Executa uma ação depois do commit da transação do request atual (ex.: atualizar caches
+     * em memória só com dados efetivamente gravados). Fora de um request, ou sem transação
+     * ativa, a ação é executada imediatamente.
+     */
+    public static void runAfterCommit(Runnable acao) {
+        RequestPersistenceContext context = requestContext.get();
+        if (context == null) {
+            acao.run();
+            return;
+        }
+        context.afterCommit(acao);
+    }
+    
+    /**
+     * Executa uma ação se a transação do request atual for desfeita (rollback ou falha no
+     * commit). Fora de um request, ou sem transação ativa, a ação é descartada.
+     */
+    public static void runAfterRollback(Runnable acao) {
+        RequestPersistenceContext context = requestContext.get();
+        if (context != null) {
+            context.afterRollback(acao);
+        }
+    }
+    
+    /**
+     * Executa um trabalho em um contexto de persistência próprio (EntityManager e transação
+     * novos), independente do request que eventualmente esteja em andamento na thread.
+     * Usado por rotinas de inicialização, ações pós-commit e jobs em background: os
+     * repositórios chamados dentro do trabalho enxergam este contexto.
+     */
+    public static <T> T executeInNewContext(RequestPersistenceContext.Modo modo, String descricao, Supplier<T> trabalho) {
+        RequestPersistenceContext anterior = requestContext.get();
+        RequestPersistenceContext context = new RequestPersistenceContext(modo, descricao);
+        requestContext.set(context);
+        boolean sucesso = false;
+        try {
+            T resultado = trabalho.get();
+            sucesso = true;
+            return resultado;
+        } finally {
+            try {
+                context.finalizar(sucesso);
+            } finally {
+                if (anterior != null) {
+                    requestContext.set(anterior);
+                } else {
+                    requestContext.remove();
+                }
+            }
+        }
     }
     
     /**
@@ -0,0 +1,236 @@
+package com.ecommerce.config;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityTransaction;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Contexto de persistência de um request.
+ *
+ * O EntityManager (e a conexão JDBC do pool) só é criado quando um repositório pede
+ * o primeiro acesso. Requests que nunca tocam o banco - arquivos estáticos, /health,
+ * requests barrados pelo JWT - não ocupam conexão nem fazem flush.
+ *
+ * Funciona como unidade de trabalho: os repositórios apenas registram as alterações
+ * (persist/merge/remove) e tudo vai ao banco em um único flush no commit, o que permite ao
+ * Hibernate ordenar os INSERTs/UPDATEs e enviá-los em lotes JDBC.
+ */
+public class RequestPersistenceContext {
+
+    /**
+     * Como o EntityManager deve ser preparado ao ser aberto
+     */
+    public enum Modo {
+        /** POST/PUT/PATCH/DELETE - transação de escrita iniciada na abertura */
+        ESCRITA,
+        /** GET - sessão read-only, sem dirty checking, e conexão com hint read-only */
+        SOMENTE_LEITURA,
+        /** GET que cria dados sob demanda (cliente/carrinho) - transação iniciada na primeira gravação */
+        LEITURA_COM_CRIACAO
+    }
+
+    private Modo modo;
+    private final String descricao;
+    private EntityManager entityManager;
+    private List<Runnable> afterCommit;
+    private List<Runnable> afterRollback;
+    private boolean finalizado;
+
+    public RequestPersistenceContext(Modo modo, String descricao) {
+        this.modo = modo;
+        this.descricao = descricao;
+    }
+
+    /**
+     * Obtém o EntityManager do request, criando-o no primeiro acesso
+     */
+    public EntityManager getEntityManager() {
+        if (finalizado) {
+            // Ações pós-commit que precisam do banco devem usar DatabaseConfig.executeInNewContext
+            throw new IllegalStateException("Contexto de persistência já finalizado: " + descricao);
+        }
+        if (entityManager == null) {
+            entityManager = abrir();
+        }
+        return entityManager;
+    }
+
+    /**
+     * EntityManager para gravações: garante a transação do contexto, iniciando-a na primeira
+     * gravação quando o modo não a abre na criação (LEITURA_COM_CRIACAO). A transação é
+     * concluída por finalizar, junto com as demais alterações do contexto.
+     */
+    public EntityManager getEntityManagerParaEscrita() {
+        if (modo == Modo.SOMENTE_LEITURA) {
+            throw new IllegalStateException("Gravação em contexto somente leitura: " + descricao);
+        }
+        EntityManager em = getEntityManager();
+        if (!em.getTransaction().isActive()) {
+            em.getTransaction().begin();
+            System.out.println("🔄 Transação iniciada na primeira gravação: " + descricao);
+        }
+        return em;
+    }
+
+    /**
+     * Indica se algum repositório chegou a abrir o EntityManager neste request
+     */
+    public boolean isAberto() {
+        return entityManager != null;
+    }
+
+    public Modo getModo() {
+        return modo;
+    }
+    
+    /**
+     * Troca SOMENTE_LEITURA por LEITURA_COM_CRIACAO (rotas GET que criam dados sob demanda).
+     * Só vale antes da abertura: a conexão read-only já entregue não aceita gravações.
+     */
+    public void permitirCriacao() {
+        if (modo != Modo.SOMENTE_LEITURA) {
+            return;
+        }
+        if (entityManager != null) {
+            throw new IllegalStateException("Contexto já aberto como somente leitura: " + descricao);
+        }
+        modo = Modo.LEITURA_COM_CRIACAO;
+    }
+
+    /**
+     * Indica se há uma transação ativa, ou seja, se gravações ainda podem ser desfeitas
+     */
+    public boolean isTransacaoAtiva() {
+        return entityManager != null && entityManager.isOpen() && entityManager.getTransaction().isActive();
+    }
+
+    /**
+     * Agenda uma ação para depois do commit da transação deste contexto.
+     * Se não houver transação ativa a ação é executada imediatamente.
+     */
+    public void afterCommit(Runnable acao) {
+        if (!isTransacaoAtiva()) {
+            acao.run();
+            return;
+        }
+        if (afterCommit == null) {
+            afterCommit = new ArrayList<>();
+        }
+        afterCommit.add(acao);
+    }
+
+    /**
+     * Agenda uma ação para quando a transação deste contexto for desfeita (rollback ou falha
+     * no commit). Sem transação ativa não há o que desfazer e a ação é descartada.
+     */
+    public void afterRollback(Runnable acao) {
+        if (!isTransacaoAtiva()) {
+            return;
+        }
+        if (afterRollback == null) {
+            afterRollback = new ArrayList<>();
+        }
+        afterRollback.add(acao);
+    }
+
+    /**
+     * Finaliza o contexto: commit (sucesso) ou rollback, fecha o EntityManager e executa
+     * as ações agendadas com afterCommit ou afterRollback, conforme o desfecho.
+     *
+     * Erros de commit são propagados; o EntityManager é fechado em qualquer caso.
+     */
+    public void finalizar(boolean sucesso) {
+        finalizado = true;
+        if (entityManager == null) {
+            return;
+        }
+        EntityManager em = entityManager;
+        entityManager = null;
+        List<Runnable> acoes = afterCommit;
+        List<Runnable> acoesRollback = afterRollback;
+        afterCommit = null;
+        afterRollback = null;
+        boolean commitado = false;
+
+        try {
+            if (em.isOpen()) {
+                EntityTransaction transaction = em.getTransaction();
+                if (transaction.isActive()) {
+                    if (sucesso) {
+                        transaction.commit();
+                        commitado = true;
+                    } else {
+                        transaction.rollback();
+                    }
+                } else {
+                    // Sem transação própria (ex.: GET com criação sob demanda): nada a desfazer
+                    commitado = sucesso;
+                }
+            }
+        } catch (RuntimeException e) {
+            if (em.isOpen() && em.getTransaction().isActive()) {
+                try {
+                    em.getTransaction().rollback();
+                } catch (RuntimeException rollbackEx) {
+                    System.err.println("❌ Erro ao fazer rollback: " + rollbackEx.getMessage());
+                }
+            }
+            executarAcoes(acoesRollback, "rollback");
+            throw e;
+        } finally {
+            if (em.isOpen()) {
+                em.close();
+            }
+        }
+
+        executarAcoes(commitado ? acoes : acoesRollback, commitado ? "pós-commit" : "rollback");
+    }
+
+    private void executarAcoes(List<Runnable> acoes, String fase) {
+        if (acoes == null) {
+            return;
+        }
+        for (Runnable acao : acoes) {
+            try {
+                acao.run();
+            } catch (RuntimeException e) {
+                System.err.println("⚠️ Erro em ação de " + fase + " (" + descricao + "): " + e.getMessage());
+            }
+        }
+    }
+
+    private EntityManager abrir() {
+        EntityManager em = DatabaseConfig.createEntityManager();
+        try {
+            switch (modo) {
+                case ESCRITA -> {
+                    em.getTransaction().begin();
+                    System.out.println("🔄 Transação iniciada para: " + descricao);
+                }
+                case SOMENTE_LEITURA -> {
+                    Session session = em.unwrap(Session.class);
+                    session.setDefaultReadOnly(true);
+                    session.setHibernateFlushMode(FlushMode.MANUAL);
+                    em.getTransaction().begin();
+                    // Hint para o driver: a transação é aberta como READ ONLY no PostgreSQL.
+                    // O HikariCP restaura o estado da conexão quando ela volta ao pool.
+                    session.doWork(connection -> connection.setReadOnly(true));
+                }
+                case LEITURA_COM_CRIACAO -> {
+                    // Sem transação: getEntityManagerParaEscrita inicia uma na primeira gravação
+                }
+            }
+            return em;
+        } catch (RuntimeException e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            em.close();
+            throw e;
+        }
+    }
+}
@@ -1,9 +1,10 @@
 package com.ecommerce.config;
 
+import com.ecommerce.controller.AuthController;
 import io.javalin.http.Context;
 import io.javalin.http.Handler;
-import jakarta.persistence.EntityManager;
-import jakarta.persistence.EntityTransaction;
+import io.javalin.http.HttpStatus;
+import org.hibernate.exception.ConstraintViolationException;
 
 /**
  * Filtro para gerenciamento automático de transações por request
@@ -14,21 +15,40 @@ import jakarta.persistence.EntityTransaction;
 public class TransactionFilter {
     
     /**
-     * Before handler - cria EntityManager e inicia transação
+     * Marca a rota GET como "cria dados sob demanda" (cliente/carrinho): o contexto do request
+     * passa a LEITURA_COM_CRIACAO antes do handler, em vez da conexão read-only dos GETs.
+     * Usado no registro da rota: app.get(path, TransactionFilter.comCriacao(handler)).
+     */
+    public static Handler comCriacao(Handler handler) {
+        return ctx -> {
+            RequestPersistenceContext context = DatabaseConfig.getRequestContext(ctx);
+            if (context != null) {
+                context.permitirCriacao();
+            }
+            handler.handle(ctx);
+        };
+    }
+    
+    /**
+     * Before handler - registra o contexto de persistência do request.
+     * 
+     * O EntityManager e a transação só são abertos quando um repositório
+     * acessa o banco pela primeira vez (ver RequestPersistenceContext).
+     * GETs ficam somente leitura, salvo as rotas registradas com comCriacao.
      */
     public static class BeforeHandler implements Handler {
         @Override
         public void handle(Context ctx) throws Exception {
-            // Criar EntityManager para este request
-            EntityManager em = DatabaseConfig.createEntityManager();
-            DatabaseConfig.setRequestEntityManager(em);
-            
-            // Iniciar transação para requests que modificam dados
+            RequestPersistenceContext context = new RequestPersistenceContext(
+                resolveModo(ctx), ctx.method() + " " + ctx.path());
+            DatabaseConfig.bindRequestContext(ctx, context);
+        }
+        
+        private RequestPersistenceContext.Modo resolveModo(Context ctx) {
             if (isModifyingRequest(ctx)) {
-                EntityTransaction transaction = em.getTransaction();
-                transaction.begin();
-                System.out.println("🔄 Transação iniciada para: " + ctx.method() + " " + ctx.path());
+                return RequestPersistenceContext.Modo.ESCRITA;
             }
+            return RequestPersistenceContext.Modo.SOMENTE_LEITURA;
         }
         
         private boolean isModifyingRequest(Context ctx) {
@@ -44,52 +64,56 @@ public class TransactionFilter {
     public static class AfterHandler implements Handler {
         @Override
         public void handle(Context ctx) throws Exception {
-            EntityManager em = null;
-            EntityTransaction transaction = null;
+            // Obter o contexto do request (guardado no Context, não na thread)
+            RequestPersistenceContext context = DatabaseConfig.getRequestContext(ctx);
             
             try {
-                // Obter EntityManager do request
-                try {
-                    em = DatabaseConfig.getEntityManager();
-                } catch (IllegalStateException ex) {
-                    // Se não tiver EntityManager ativo, não há o que fazer
+                if (context == null || !context.isAberto()) {
+                    // Nenhum repositório acessou o banco: não há conexão nem transação
                     return;
                 }
-                if (em != null && em.isOpen()) {
-                    transaction = em.getTransaction();
-                    
-                    // Se tiver transação ativa, fazer commit
-                    if (transaction != null && transaction.isActive()) {
-                        // Verificar se houve erro no contexto
-                        if (ctx.status().getCode() >= 400) {
-                            // Se houve erro HTTP, fazer rollback
-                            transaction.rollback();
-                            System.out.println("❌ Rollback realizado devido ao status HTTP: " + ctx.status().getCode());
-                        } else {
-                            // Sucesso - fazer commit
-                            transaction.commit();
-                            System.out.println("✅ Transação commitada para: " + ctx.method() + " " + ctx.path());
-                        }
-                    }
+                
+                // Verificar se houve erro no contexto
+                boolean sucesso = ctx.status().getCode() < 400;
+                boolean tinhaTransacao = context.isTransacaoAtiva();
+                
+                // Commit (ou rollback em caso de erro HTTP), fechamento e ações pós-commit
+                context.finalizar(sucesso);
+                
+                if (tinhaTransacao && !sucesso) {
+                    System.out.println("❌ Rollback realizado devido ao status HTTP: " + ctx.status().getCode());
+                } else if (tinhaTransacao && context.getModo() != RequestPersistenceContext.Modo.SOMENTE_LEITURA) {
+                    System.out.println("✅ Transação commitada para: " + ctx.method() + " " + ctx.path());
                 }
             } catch (Exception e) {
-                // Em caso de erro no commit/rollback
+                // Em caso de erro no commit/rollback (o contexto já desfez e fechou o EntityManager).
+                // Como o flush só acontece no commit, é aqui que aparecem violações de restrição:
+                // a resposta de sucesso preparada pelo controller não pode ser enviada.
                 System.err.println("❌ Erro ao finalizar transação: " + e.getMessage());
-                if (transaction != null && transaction.isActive()) {
-                    try {
-                        transaction.rollback();
-                    } catch (Exception rollbackEx) {
-                        System.err.println("❌ Erro ao fazer rollback: " + rollbackEx.getMessage());
-                    }
+                if (!ctx.res().isCommitted()) {
+                    ctx.status(isViolacaoDeRestricao(e) ? HttpStatus.CONFLICT : HttpStatus.INTERNAL_SERVER_ERROR);
+                    ctx.header("Cache-Control", "no-store, no-cache, must-revalidate");
+                    ctx.header("Pragma", "no-cache");
+                    ctx.header("Expires", "0");
+                    ctx.json(new AuthController.ErrorResponse("Erro ao gravar alterações", e.getMessage()));
                 }
             } finally {
                 // Limpar recursos
-                DatabaseConfig.clearRequestEntityManager();
-                if (em != null && em.isOpen()) {
-                    em.close();
-                }
+                DatabaseConfig.unbindRequestContext(ctx);
+            }
+        }
+    }
+    
+    /**
+     * Indica se o erro de commit veio de uma restrição do banco (unique, FK, not null)
+     */
+    private static boolean isViolacaoDeRestricao(Throwable e) {
+        for (Throwable causa = e; causa != null; causa = causa.getCause()) {
+            if (causa instanceof ConstraintViolationException) {
+                return true;
             }
         }
+        return false;
     }
     
     /**
@@ -98,31 +122,23 @@ public class TransactionFilter {
     public static class ExceptionHandler implements io.javalin.http.ExceptionHandler<Exception> {
         @Override
         public void handle(Exception e, Context ctx) {
-            EntityManager em = null;
-            EntityTransaction transaction = null;
+            RequestPersistenceContext context = DatabaseConfig.getRequestContext(ctx);
             
             try {
-                try {
-                    em = DatabaseConfig.getEntityManager();
-                } catch (IllegalStateException ex) {
+                if (context == null || !context.isAberto()) {
                     // Se não tiver EntityManager ativo, não há o que fazer
                     return;
                 }
-                if (em != null && em.isOpen()) {
-                    transaction = em.getTransaction();
-                    if (transaction != null && transaction.isActive()) {
-                        transaction.rollback();
-                        System.out.println("❌ Rollback realizado devido a exceção: " + e.getMessage());
-                    }
+                boolean tinhaTransacao = context.isTransacaoAtiva();
+                context.finalizar(false);
+                if (tinhaTransacao) {
+                    System.out.println("❌ Rollback realizado devido a exceção: " + e.getMessage());
                 }
             } catch (Exception rollbackEx) {
                 System.err.println("❌ Erro ao fazer rollback após exceção: " + rollbackEx.getMessage());
             } finally {
                 // Limpar recursos
-                DatabaseConfig.clearRequestEntityManager();
-                if (em != null && em.isOpen()) {
-                    em.close();
-                }
+                DatabaseConfig.unbindRequestContext(ctx);
             }
             
             // Re-lançar a exceção para o Javalin tratar
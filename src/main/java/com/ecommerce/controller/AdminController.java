@@ -1,14 +1,24 @@
 package com.ecommerce.controller;
 
 import com.ecommerce.domain.StatusPedido;
+import com.ecommerce.domain.VendaAgregada;
+import com.ecommerce.dto.response.SerieVendasResponseDTO;
+import com.ecommerce.service.CatalogoService;
+import com.ecommerce.service.CatalogoSnapshot;
+import com.ecommerce.service.MetricasPedidos;
 import com.ecommerce.service.PedidoService;
 import com.ecommerce.service.ProdutoService;
 import com.ecommerce.service.ClienteService;
 import io.javalin.http.Context;
 import io.javalin.http.HttpStatus;
 
-import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -17,11 +27,16 @@ public class AdminController {
     private final PedidoService pedidoService;
     private final ProdutoService produtoService;
     private final ClienteService clienteService;
+    private final CatalogoService catalogoService;
+    private final MetricasPedidos metricasPedidos;
     
-    public AdminController(PedidoService pedidoService, ProdutoService produtoService, ClienteService clienteService) {
+    public AdminController(PedidoService pedidoService, ProdutoService produtoService, ClienteService clienteService,
+                           CatalogoService catalogoService, MetricasPedidos metricasPedidos) {
         this.pedidoService = pedidoService;
         this.produtoService = produtoService;
         this.clienteService = clienteService;
+        this.catalogoService = catalogoService;
+        this.metricasPedidos = metricasPedidos;
     }
     
     public void getMetricas(Context ctx) {
@@ -39,14 +54,12 @@ public class AdminController {
             long totalProdutos = produtoService.count();
             metricas.put("totalProdutos", totalProdutos);
             
-            long totalPedidos = pedidoService.countPedidos();
-            metricas.put("totalPedidos", totalPedidos);
-            
-            long totalClientes = pedidoService.countClientesPagos();
-            metricas.put("totalClientes", totalClientes);
-            
-            BigDecimal faturamento = pedidoService.getTotalFaturamento();
-            metricas.put("faturamento", faturamento != null ? faturamento : BigDecimal.ZERO);
+            // Pedidos, clientes pagantes e faturamento vêm dos contadores em memória (sem consulta)
+            MetricasPedidos.Resumo resumo = metricasPedidos.resumo();
+            metricas.put("totalPedidos", resumo.pedidos());
+            metricas.put("totalClientes", resumo.clientesPagantes());
+            metricas.put("faturamento", resumo.faturamento());
+            metricas.put("metricasReconciliadasEm", resumo.reconciliadoEm() != null ? resumo.reconciliadoEm().toString() : null);
             
             ctx.header("Cache-Control", "no-store, no-cache, must-revalidate");
             ctx.header("Pragma", "no-cache");
@@ -60,6 +73,106 @@ public class AdminController {
         }
     }
     
+    /**
+     * GET /api/admin/metricas/serie - Série de vendas por hora ou dia (linhas pré-agregadas)
+     * Query params: de, ate (ISO-8601, ex.: 2024-05-01T00:00:00Z, ou só a data yyyy-MM-dd),
+     * granularidade (hora ou dia; padrão hora). Padrão do intervalo: últimos 7 dias.
+     */
+    public void getSerieVendas(Context ctx) {
+        try {
+            String userRole = ctx.attribute("userRole");
+            
+            if (!"MANAGER".equals(userRole)) {
+                ctx.status(HttpStatus.FORBIDDEN);
+                ctx.json(new AuthController.ErrorResponse("Acesso negado", "Apenas administradores podem acessar"));
+                return;
+            }
+            
+            VendaAgregada.Granularidade granularidade;
+            Instant de;
+            Instant ate;
+            try {
+                String granularidadeStr = ctx.queryParam("granularidade");
+                granularidade = granularidadeStr == null || granularidadeStr.isBlank()
+                    ? VendaAgregada.Granularidade.HORA
+                    : VendaAgregada.Granularidade.valueOf(granularidadeStr.trim().toUpperCase());
+                ate = parseInstante(ctx.queryParam("ate"), Instant.now());
+                de = parseInstante(ctx.queryParam("de"), ate.minus(Duration.ofDays(7)));
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                ctx.status(HttpStatus.BAD_REQUEST);
+                ctx.json(new AuthController.ErrorResponse("Parâmetros inválidos",
+                    "Use granularidade=hora|dia e de/ate em ISO-8601 (yyyy-MM-dd ou yyyy-MM-ddTHH:mm:ssZ)"));
+                return;
+            }
+            
+            List<SerieVendasResponseDTO.Ponto> pontos = metricasPedidos.serie(granularidade, de, ate).stream()
+                .map(ponto -> new SerieVendasResponseDTO.Ponto(ponto.inicio().toString(), ponto.status().name(),
+                    ponto.metodoPagamento(), ponto.pedidos(), ponto.receita(), ponto.itens()))
+                .toList();
+            
+            ctx.header("Cache-Control", "no-store, no-cache, must-revalidate");
+            ctx.header("Pragma", "no-cache");
+            ctx.header("Expires", "0");
+            ctx.status(HttpStatus.OK);
+            ctx.json(new SerieVendasResponseDTO(granularidade.name().toLowerCase(), de.toString(), ate.toString(), pontos));
+            
+        } catch (IllegalArgumentException e) {
+            ctx.status(HttpStatus.BAD_REQUEST);
+            ctx.json(new AuthController.ErrorResponse("Parâmetros inválidos", e.getMessage()));
+        } catch (Exception e) {
+            ctx.status(HttpStatus.INTERNAL_SERVER_ERROR);
+            ctx.json(new AuthController.ErrorResponse("Erro ao buscar série de vendas", e.getMessage()));
+        }
+    }
+    
+    /**
+     * Instante ISO-8601 ou data (início do dia no fuso do servidor); vazio = valor padrão
+     */
+    private static Instant parseInstante(String valor, Instant padrao) {
+        if (valor == null || valor.isBlank()) {
+            return padrao;
+        }
+        String texto = valor.trim();
+        if (texto.length() == 10) {
+            return LocalDate.parse(texto).atStartOfDay(ZoneId.systemDefault()).toInstant();
+        }
+        return Instant.parse(texto);
+    }
+    
+    /**
+     * GET /api/admin/catalogo - Versão e tempo de construção do snapshot do catálogo
+     */
+    public void getCatalogo(Context ctx) {
+        try {
+            String userRole = ctx.attribute("userRole");
+            
+            if (!"MANAGER".equals(userRole)) {
+                ctx.status(HttpStatus.FORBIDDEN);
+                ctx.json(new AuthController.ErrorResponse("Acesso negado", "Apenas administradores podem acessar"));
+                return;
+            }
+            
+            CatalogoSnapshot snapshot = catalogoService.getSnapshot();
+            
+            Map<String, Object> catalogo = new HashMap<>();
+            catalogo.put("versao", snapshot.getVersao());
+            catalogo.put("construidoEm", snapshot.getConstruidoEm().toString());
+            catalogo.put("duracaoConstrucaoMs", snapshot.getDuracaoConstrucaoMs());
+            catalogo.put("totalProdutos", snapshot.getTotalProdutos());
+            catalogo.put("totalCategorias", snapshot.getTotalCategorias());
+            
+            ctx.header("Cache-Control", "no-store, no-cache, must-revalidate");
+            ctx.header("Pragma", "no-cache");
+            ctx.header("Expires", "0");
+            ctx.status(HttpStatus.OK);
+            ctx.json(catalogo);
+            
+        } catch (Exception e) {
+            ctx.status(HttpStatus.INTERNAL_SERVER_ERROR);
+            ctx.json(new AuthController.ErrorResponse("Erro ao buscar catálogo", e.getMessage()));
+        }
+    }
+    
     /**
      * PATCH /api/admin/pedidos/{id}/status - Atualizar status do pedido (ENVIADO ou ENTREGUE)
      */
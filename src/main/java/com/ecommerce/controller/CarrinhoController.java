@@ -1,6 +1,7 @@
 package com.ecommerce.controller;
 
 import com.ecommerce.dto.request.ItemCarrinhoRequestDTO;
+import com.ecommerce.dto.request.ItensCarrinhoRequestDTO;
 import com.ecommerce.dto.response.CarrinhoResponseDTO;
 import com.ecommerce.dto.response.ItemCarrinhoResponseDTO;
 import com.ecommerce.service.CarrinhoService;
@@ -39,9 +40,8 @@ public class CarrinhoController {
             // Busca ou cria carrinho - nunca retorna null
             CarrinhoResponseDTO carrinho = carrinhoService.findOrCreateByUserId(userUuid);
             
-            ctx.status(HttpStatus.OK);
-            setAntiCacheHeaders(ctx);
-            ctx.json(carrinho);
+            // Carrinho não tem coluna de versão: ETag pelo hash do conteúdo (304 poupa a transferência)
+            RespostaCondicional.jsonComHash(ctx, carrinho, RespostaCondicional.CACHE_PRIVADO);
             
         } catch (Exception e) {
             ctx.status(HttpStatus.INTERNAL_SERVER_ERROR);
@@ -101,6 +101,42 @@ public class CarrinhoController {
         }
     }
     
+    /**
+     * PUT /api/carrinho/itens - Definir a quantidade de vários itens de uma vez
+     * Body: {"itens": [{"produtoId": "...", "quantidade": 2}, ...]} (máximo 100; quantidade 0 remove)
+     */
+    public void upsertItens(Context ctx) {
+        try {
+            // Extrair userId do JWT
+            String userId = ctx.attribute("userId");
+            if (userId == null) {
+                ctx.status(HttpStatus.UNAUTHORIZED);
+                setAntiCacheHeaders(ctx);
+                ctx.json(new AuthController.ErrorResponse("Não autenticado", "Token JWT inválido ou ausente"));
+                return;
+            }
+            
+            UUID userUuid = UUID.fromString(userId);
+            ItensCarrinhoRequestDTO request = ctx.bodyAsClass(ItensCarrinhoRequestDTO.class);
+            
+            // Aplica todos os itens juntos e retorna o carrinho recalculado
+            CarrinhoResponseDTO carrinho = carrinhoService.upsertItens(userUuid, request.getItens());
+            
+            ctx.status(HttpStatus.OK);
+            setAntiCacheHeaders(ctx);
+            ctx.json(carrinho);
+            
+        } catch (IllegalArgumentException e) {
+            ctx.status(HttpStatus.BAD_REQUEST);
+            setAntiCacheHeaders(ctx);
+            ctx.json(new AuthController.ErrorResponse("Dados inválidos", e.getMessage()));
+        } catch (Exception e) {
+            ctx.status(HttpStatus.INTERNAL_SERVER_ERROR);
+            setAntiCacheHeaders(ctx);
+            ctx.json(new AuthController.ErrorResponse("Erro ao atualizar itens", e.getMessage()));
+        }
+    }
+    
     /**
      * DELETE /api/carrinho/item/:produtoId - Remover item do carrinho
      */
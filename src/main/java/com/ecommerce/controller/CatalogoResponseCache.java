@@ -0,0 +1,184 @@
+package com.ecommerce.controller;
+
+import com.ecommerce.service.CatalogoService;
+import io.javalin.http.Context;
+import io.javalin.http.HttpStatus;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cache de respostas JSON já codificadas para as rotas públicas do catálogo.
+ *
+ * Guarda, por rota + parâmetros de query, os bytes JSON (e a versão gzip, quando vale a pena)
+ * junto com a versão do catálogo usada para gerá-los. Uma escrita em produtos ou categorias
+ * incrementa a versão do catálogo e invalida todas as entradas de uma vez: a próxima leitura
+ * de cada rota serializa novamente e substitui a entrada.
+ *
+ * A mesma versão serve de ETag: um If-None-Match com a versão atual recebe 304 antes
+ * de qualquer consulta ao snapshot ou serialização. Só a versão atual serve: como a existência
+ * do recurso não é conferida antes, "If-None-Match: *" não recebe 304 (a rota responde 200 ou 404).
+ */
+public class CatalogoResponseCache {
+
+    private static final int MAX_ENTRADAS = 1000;
+    private static final int TAMANHO_MINIMO_GZIP = 1024;
+
+    private final CatalogoService catalogoService;
+    // As versões do catálogo recomeçam a cada inicialização; o prefixo evita reaproveitar ETags antigas
+    private final String prefixoEtag = "c" + Long.toString(System.currentTimeMillis(), 36) + "-";
+    private final ConcurrentHashMap<String, Entrada> entradas = new ConcurrentHashMap<>();
+
+    public CatalogoResponseCache(CatalogoService catalogoService) {
+        this.catalogoService = catalogoService;
+    }
+
+    /**
+     * Resposta serializada para uma versão do catálogo
+     */
+    static final class Entrada {
+        final long versao;
+        final byte[] json;
+        final byte[] gzip;
+
+        Entrada(long versao, byte[] json, byte[] gzip) {
+            this.versao = versao;
+            this.json = json;
+            this.gzip = gzip;
+        }
+    }
+
+    /**
+     * Responde 304 se o cliente já tem a versão atual; senão 200 com o JSON do cache
+     * (serializando via corpo na primeira vez ou quando o catálogo mudou de versão).
+     *
+     * @param corpo fornece o objeto a serializar; null ou Optional vazio significa "não encontrado"
+     * @return false se não havia o que responder (o controller decide o 404)
+     */
+    public boolean responder(Context ctx, Supplier<?> corpo) {
+        // Versão lida antes dos dados: no pior caso a entrada fica marcada com versão antiga
+        // e é serializada de novo na próxima leitura, nunca o contrário
+        long versao = catalogoService.getVersao();
+        String etag = RespostaCondicional.etag(prefixoEtag + versao);
+        String etagGzip = RespostaCondicional.etag(prefixoEtag + versao + "-gz");
+        String chave = chave(ctx);
+        Entrada entrada = entradas.get(chave);
+
+        boolean comGzip = aceitaGzip(ctx) && (entrada == null || entrada.gzip != null);
+        if (RespostaCondicional.naoModificado(ctx, RespostaCondicional.CACHE_PUBLICO,
+                comGzip ? etagGzip : etag, etag, etagGzip)) {
+            ctx.header("Vary", "Accept-Encoding");
+            return true;
+        }
+
+        if (entrada == null || entrada.versao != versao) {
+            Object valor = corpo.get();
+            if (valor instanceof Optional<?> opcional) {
+                valor = opcional.orElse(null);
+            }
+            if (valor == null) {
+                return false;
+            }
+            entrada = codificar(ctx, versao, valor);
+            guardar(chave, entrada);
+        }
+
+        escrever(ctx, entrada, etag, etagGzip);
+        return true;
+    }
+
+    /**
+     * Quantidade de respostas em cache (para diagnóstico)
+     */
+    public int size() {
+        return entradas.size();
+    }
+
+    private Entrada codificar(Context ctx, long versao, Object valor) {
+        byte[] json = ctx.jsonMapper().toJsonString(valor, valor.getClass()).getBytes(StandardCharsets.UTF_8);
+        byte[] gzip = json.length >= TAMANHO_MINIMO_GZIP ? gzip(json) : null;
+        return new Entrada(versao, json, gzip);
+    }
+
+    private void guardar(String chave, Entrada entrada) {
+        if (entradas.size() >= MAX_ENTRADAS && !entradas.containsKey(chave)) {
+            // Primeiro descarta entradas de versões antigas; se ainda estiver cheio, recomeça
+            entradas.values().removeIf(e -> e.versao != entrada.versao);
+            if (entradas.size() >= MAX_ENTRADAS) {
+                entradas.clear();
+            }
+        }
+        entradas.put(chave, entrada);
+    }
+
+    /**
+     * Escreve os bytes direto na resposta do servlet, sem passar pela serialização nem
+     * pela compressão dinâmica do Javalin.
+     */
+    private void escrever(Context ctx, Entrada entrada, String etag, String etagGzip) {
+        boolean usarGzip = entrada.gzip != null && aceitaGzip(ctx);
+        byte[] corpo = usarGzip ? entrada.gzip : entrada.json;
+
+        ctx.status(HttpStatus.OK);
+        ctx.header("Cache-Control", RespostaCondicional.CACHE_PUBLICO);
+        // ETag forte: a representação gzip tem bytes diferentes, portanto ETag própria
+        ctx.header("ETag", usarGzip ? etagGzip : etag);
+        ctx.header("Vary", "Accept-Encoding");
+        HttpServletResponse response = ctx.res();
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        if (usarGzip) {
+            response.setHeader("Content-Encoding", "gzip");
+        }
+        response.setContentLength(corpo.length);
+        try {
+            OutputStream out = response.getOutputStream();
+            out.write(corpo);
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao escrever resposta do catálogo", e);
+        }
+    }
+
+    private static boolean aceitaGzip(Context ctx) {
+        String acceptEncoding = ctx.header("Accept-Encoding");
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+    }
+
+    /**
+     * Chave = caminho + parâmetros de query em ordem alfabética (ignorando parâmetros de cache-busting)
+     */
+    private static String chave(Context ctx) {
+        Map<String, java.util.List<String>> params = ctx.queryParamMap();
+        if (params.isEmpty()) {
+            return ctx.path();
+        }
+        StringBuilder chave = new StringBuilder(ctx.path()).append('?');
+        new TreeMap<>(params).forEach((nome, valores) -> {
+            if (!"retry".equals(nome) && !"_".equals(nome)) {
+                chave.append(nome).append('=').append(String.join(",", valores)).append('&');
+            }
+        });
+        return chave.toString();
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao compactar resposta do catálogo", e);
+        }
+        return buffer.toByteArray();
+    }
+}
@@ -13,9 +13,11 @@ import java.util.UUID;
 public class CategoriaController {
     
     private final CategoriaService categoriaService;
+    private final CatalogoResponseCache responseCache;
     
-    public CategoriaController(CategoriaService categoriaService) {
+    public CategoriaController(CategoriaService categoriaService, CatalogoResponseCache responseCache) {
         this.categoriaService = categoriaService;
+        this.responseCache = responseCache;
     }
     
     /**
@@ -47,13 +49,7 @@ public class CategoriaController {
      */
     public void findAll(Context ctx) {
         try {
-            var categorias = categoriaService.findAll();
-            
-            ctx.status(HttpStatus.OK);
-            ctx.header("Cache-Control", "no-store, no-cache, must-revalidate");
-            ctx.header("Pragma", "no-cache");
-            ctx.header("Expires", "0");
-            ctx.json(categorias);
+            responseCache.responder(ctx, categoriaService::findAll);
             
         } catch (Exception e) {
             ctx.status(HttpStatus.INTERNAL_SERVER_ERROR);
@@ -71,22 +67,14 @@ public class CategoriaController {
         try {
             UUID id = UUID.fromString(ctx.pathParam("id"));
             
-            var categoriaOpt = categoriaService.findById(id);
-            if (categoriaOpt.isEmpty()) {
+            if (!responseCache.responder(ctx, () -> categoriaService.findById(id))) {
                 ctx.status(HttpStatus.NOT_FOUND);
                 ctx.header("Cache-Control", "no-store, no-cache, must-revalidate");
                 ctx.header("Pragma", "no-cache");
                 ctx.header("Expires", "0");
                 ctx.json(new AuthController.ErrorResponse("Categoria não encontrada", "ID: " + id));
-                return;
             }
             
-            ctx.status(HttpStatus.OK);
-            ctx.header("Cache-Control", "no-store, no-cache, must-revalidate");
-            ctx.header("Pragma", "no-cache");
-            ctx.header("Expires", "0");
-            ctx.json(categoriaOpt.get());
-            
         } catch (IllegalArgumentException e) {
             ctx.status(HttpStatus.BAD_REQUEST);
             ctx.header("Cache-Control", "no-store, no-cache, must-revalidate");
@@ -109,22 +97,14 @@ public class CategoriaController {
         try {
             String nome = ctx.pathParam("nome");
             
-            var categoriaOpt = categoriaService.findByNome(nome);
-            if (categoriaOpt.isEmpty()) {
+            if (!responseCache.responder(ctx, () -> categoriaService.findByNome(nome))) {
                 ctx.status(HttpStatus.NOT_FOUND);
                 ctx.header("Cache-Control", "no-store, no-cache, must-revalidate");
                 ctx.header("Pragma", "no-cache");
                 ctx.header("Expires", "0");
                 ctx.json(new AuthController.ErrorResponse("Categoria não encontrada", "Nome: " + nome));
-                return;
             }
             
-            ctx.status(HttpStatus.OK);
-            ctx.header("Cache-Control", "no-store, no-cache, must-revalidate");
-            ctx.header("Pragma", "no-cache");
-            ctx.header("Expires", "0");
-            ctx.json(categoriaOpt.get());
-            
         } catch (Exception e) {
             ctx.status(HttpStatus.INTERNAL_SERVER_ERROR);
             ctx.header("Cache-Control", "no-store, no-cache, must-revalidate");
@@ -196,13 +176,7 @@ public class CategoriaController {
      */
     public void count(Context ctx) {
         try {
-            long count = categoriaService.count();
-            
-            ctx.status(HttpStatus.OK);
-            ctx.header("Cache-Control", "no-store, no-cache, must-revalidate");
-            ctx.header("Pragma", "no-cache");
-            ctx.header("Expires", "0");
-            ctx.json(new CountResponse(count));
+            responseCache.responder(ctx, () -> new CountResponse(categoriaService.count()));
             
         } catch (Exception e) {
             ctx.status(HttpStatus.INTERNAL_SERVER_ERROR);
@@ -0,0 +1,49 @@
+package com.ecommerce.controller;
+
+import com.ecommerce.config.DatabaseConfig;
+import com.ecommerce.config.RequestPersistenceContext;
+import com.ecommerce.service.ClienteResolver;
+import com.ecommerce.service.EventosClientes;
+import io.javalin.http.Context;
+import io.javalin.http.HttpStatus;
+import io.javalin.http.sse.SseHandler;
+import java.util.UUID;
+
+/**
+ * Controller do stream de eventos do cliente autenticado (Server-Sent Events)
+ */
+public class EventosController {
+    
+    private final EventosClientes eventos;
+    private final ClienteResolver clienteResolver;
+    
+    public EventosController(EventosClientes eventos, ClienteResolver clienteResolver) {
+        this.eventos = eventos;
+        this.clienteResolver = clienteResolver;
+    }
+    
+    /**
+     * GET /api/eventos - Stream SSE com as notificações novas ("notificacao") e as mudanças de
+     * status dos pedidos ("status-pedido") do cliente, substituindo o polling das listagens
+     */
+    public void conectar(Context ctx) {
+        try {
+            String userId = ctx.attribute("userId");
+            if (userId == null) {
+                ctx.status(HttpStatus.UNAUTHORIZED);
+                ctx.json(new AuthController.ErrorResponse("Não autorizado", "Usuário não autenticado"));
+                return;
+            }
+            
+            // Contexto próprio: a conexão fica aberta por horas e não pode segurar uma conexão do banco
+            UUID clienteId = DatabaseConfig.executeInNewContext(RequestPersistenceContext.Modo.LEITURA_COM_CRIACAO,
+                "assinatura de eventos", () -> clienteResolver.resolver(UUID.fromString(userId)).getId());
+            
+            new SseHandler(client -> eventos.assinar(clienteId, client)).handle(ctx);
+            
+        } catch (Exception e) {
+            ctx.status(HttpStatus.INTERNAL_SERVER_ERROR);
+            ctx.json(new AuthController.ErrorResponse("Erro ao abrir stream de eventos", e.getMessage()));
+        }
+    }
+}
@@ -3,10 +3,13 @@ package com.ecommerce.controller;
 import com.ecommerce.domain.Notificacao;
 import com.ecommerce.dto.response.NotificacaoResponseDTO;
 import com.ecommerce.service.NotificacaoService;
+import com.ecommerce.service.RetencaoNotificacoes;
 import io.javalin.http.Context;
 import io.javalin.http.HttpStatus;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -233,10 +236,20 @@ public class NotificacaoController {
     }
     
     /**
-     * DELETE /notificacoes/cleanup/{days} - Remover notificações antigas
+     * DELETE /notificacoes/cleanup/{days} - Solicitar remoção de notificações antigas
+     * A remoção roda em segundo plano, em lotes; responde 202 com o progresso
+     * (acompanhar em GET /notificacoes/cleanup/status)
      */
     public void removeOldNotifications(Context ctx) {
         try {
+            String userRole = ctx.attribute("userRole");
+            
+            if (!"MANAGER".equals(userRole)) {
+                ctx.status(HttpStatus.FORBIDDEN);
+                ctx.json(new AuthController.ErrorResponse("Acesso negado", "Apenas administradores podem acessar"));
+                return;
+            }
+            
             int days = Integer.parseInt(ctx.pathParam("days"));
             
             if (days <= 0 || days > 365) {
@@ -245,10 +258,11 @@ public class NotificacaoController {
                 return;
             }
             
-            notificacaoService.removeOldNotifications(days);
+            RetencaoNotificacoes.Progresso progresso = notificacaoService.removeOldNotifications(days);
             
-            ctx.status(HttpStatus.OK);
-            ctx.json(new AuthController.SuccessResponse("Notificações antigas removidas"));
+            ctx.status(HttpStatus.ACCEPTED);
+            ctx.header("Location", "/notificacoes/cleanup/status");
+            ctx.json(toProgressoResponse(progresso));
             
         } catch (NumberFormatException e) {
             ctx.status(HttpStatus.BAD_REQUEST);
@@ -258,4 +272,49 @@ public class NotificacaoController {
             ctx.json(new AuthController.ErrorResponse("Erro ao remover notificações", e.getMessage()));
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * GET /notificacoes/cleanup/status - Progresso da limpeza de notificações em andamento ou da última
+     */
+    public void getCleanupStatus(Context ctx) {
+        try {
+            String userRole = ctx.attribute("userRole");
+            
+            if (!"MANAGER".equals(userRole)) {
+                ctx.status(HttpStatus.FORBIDDEN);
+                ctx.json(new AuthController.ErrorResponse("Acesso negado", "Apenas administradores podem acessar"));
+                return;
+            }
+            
+            RetencaoNotificacoes.Progresso progresso = notificacaoService.getProgressoLimpeza();
+            if (progresso == null) {
+                ctx.status(HttpStatus.NOT_FOUND);
+                ctx.json(new AuthController.ErrorResponse("Não encontrado", "Nenhuma limpeza executada ainda"));
+                return;
+            }
+            
+            ctx.header("Cache-Control", "no-store");
+            ctx.status(HttpStatus.OK);
+            ctx.json(toProgressoResponse(progresso));
+            
+        } catch (Exception e) {
+            ctx.status(HttpStatus.INTERNAL_SERVER_ERROR);
+            ctx.json(new AuthController.ErrorResponse("Erro ao buscar progresso da limpeza", e.getMessage()));
+        }
+    }
+    
+    private Map<String, Object> toProgressoResponse(RetencaoNotificacoes.Progresso progresso) {
+        Map<String, Object> resposta = new LinkedHashMap<>();
+        resposta.put("estado", progresso.estado().name());
+        resposta.put("dias", progresso.dias());
+        resposta.put("limite", progresso.limite().toString());
+        resposta.put("particoesRemovidas", progresso.particoesRemovidas());
+        resposta.put("removidas", progresso.removidas());
+        resposta.put("lotes", progresso.lotes());
+        resposta.put("iniciadaEm", progresso.iniciadaEm().toString());
+        resposta.put("concluidaEm", progresso.concluidaEm() != null ? progresso.concluidaEm().toString() : null);
+        resposta.put("erro", progresso.erro());
+        resposta.put("totalRemovidas", notificacaoService.getTotalRemovidasLimpeza());
+        return resposta;
+    }
+}
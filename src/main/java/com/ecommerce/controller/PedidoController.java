@@ -1,9 +1,11 @@
 package com.ecommerce.controller;
 
+import com.ecommerce.domain.Identificadores;
 import com.ecommerce.domain.StatusPedido;
 import com.ecommerce.dto.ConfirmarPedidoRequestDTO;
 import com.ecommerce.dto.request.PedidoRequestDTO;
 import com.ecommerce.dto.response.PedidoResponseDTO;
+import com.ecommerce.service.IdempotenciaPedidos;
 import com.ecommerce.service.PedidoService;
 import io.javalin.http.Context;
 import io.javalin.http.HttpStatus;
@@ -35,7 +37,7 @@ public class PedidoController {
             
             String idempotencyKey = ctx.header("Idempotency-Key");
             if (idempotencyKey == null || idempotencyKey.isEmpty()) {
-                idempotencyKey = UUID.randomUUID().toString();
+                idempotencyKey = Identificadores.novo().toString();
             }
             request.setIdempotencyKey(idempotencyKey);
             
@@ -134,7 +136,7 @@ public class PedidoController {
             if (idempotencyKey == null || idempotencyKey.isEmpty()) {
                 idempotencyKey = request.getIdempotencyKey();
                 if (idempotencyKey == null || idempotencyKey.isEmpty()) {
-                    idempotencyKey = UUID.randomUUID().toString();
+                    idempotencyKey = Identificadores.novo().toString();
                 }
             }
             request.setIdempotencyKey(idempotencyKey);
@@ -246,6 +248,15 @@ public class PedidoController {
         try {
             UUID id = UUID.fromString(ctx.pathParam("id"));
             
+            // Revalidação: compara só a coluna version (@Version) antes de carregar pedido e itens
+            if (ctx.header("If-None-Match") != null) {
+                var versao = pedidoService.findVersion(id);
+                if (versao.isPresent() && RespostaCondicional.naoModificado(ctx, RespostaCondicional.CACHE_PRIVADO,
+                        etagPedido(id, versao.get()), etagPedido(id, versao.get()))) {
+                    return;
+                }
+            }
+            
             var pedidoOpt = pedidoService.findById(id);
             if (pedidoOpt.isEmpty()) {
                 ctx.status(HttpStatus.NOT_FOUND);
@@ -253,7 +264,8 @@ public class PedidoController {
                 return;
             }
             
-            ctx.header("Cache-Control", "no-store, no-cache, must-revalidate");
+            ctx.header("Cache-Control", RespostaCondicional.CACHE_PRIVADO);
+            ctx.header("ETag", etagPedido(id, pedidoOpt.get().getVersion()));
             ctx.status(HttpStatus.OK);
             ctx.json(pedidoOpt.get());
             
@@ -266,6 +278,10 @@ public class PedidoController {
         }
     }
     
+    private static String etagPedido(UUID id, long versao) {
+        return RespostaCondicional.etag("p" + id + "-" + versao);
+    }
+    
     /**
      * GET /pedidos/cliente/{clienteId} - Listar pedidos do cliente
      */
@@ -450,20 +466,15 @@ public class PedidoController {
                 idempotencyKey = (String) body.get("idempotencyKey");
             }
             
-            // Verificar se já existe pedido com essa idempotency key
-            boolean pedidoExistente = false;
-            if (idempotencyKey != null && !idempotencyKey.isEmpty()) {
-                pedidoExistente = pedidoService.existePedidoComIdempotencyKey(idempotencyKey);
-            }
-            
-            // Chamar finalizarCarrinho do serviço
-            PedidoResponseDTO response = pedidoService.finalizarCarrinho(
+            // Chamar finalizarCarrinho do serviço (retentativas com a mesma chave devolvem o pedido existente)
+            IdempotenciaPedidos.Resultado resultado = pedidoService.finalizarCarrinho(
                 UUID.fromString(userId), 
                 idempotencyKey
             );
+            PedidoResponseDTO response = resultado.pedido();
             
             // Retornar 200 se pedido já existia (idempotência), 201 se novo
-            if (pedidoExistente) {
+            if (resultado.repetido()) {
                 ctx.status(HttpStatus.OK); // 200 para pedido existente
             } else {
                 ctx.status(HttpStatus.CREATED); // 201 para pedido novo
@@ -1,11 +1,13 @@
 package com.ecommerce.controller;
 
+import com.ecommerce.dto.request.CodigosBarrasRequestDTO;
 import com.ecommerce.dto.request.ProdutoRequestDTO;
 import com.ecommerce.dto.response.ProdutoResponseDTO;
 import com.ecommerce.service.ProdutoService;
 import io.javalin.http.Context;
 import io.javalin.http.HttpStatus;
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -14,9 +16,11 @@ import java.util.UUID;
 public class ProdutoController {
     
     private final ProdutoService produtoService;
+    private final CatalogoResponseCache responseCache;
     
-    public ProdutoController(ProdutoService produtoService) {
+    public ProdutoController(ProdutoService produtoService, CatalogoResponseCache responseCache) {
         this.produtoService = produtoService;
+        this.responseCache = responseCache;
     }
     
     /**
@@ -48,13 +52,7 @@ public class ProdutoController {
      */
     public void findAll(Context ctx) {
         try {
-            var produtos = produtoService.findAll();
-            
-            ctx.status(HttpStatus.OK);
-            ctx.header("Cache-Control", "no-store, no-cache, must-revalidate");
-            ctx.header("Pragma", "no-cache");
-            ctx.header("Expires", "0");
-            ctx.json(produtos);
+            responseCache.responder(ctx, produtoService::findAll);
             
         } catch (Exception e) {
             ctx.status(HttpStatus.INTERNAL_SERVER_ERROR);
@@ -72,22 +70,14 @@ public class ProdutoController {
         try {
             UUID id = UUID.fromString(ctx.pathParam("id"));
             
-            var produtoOpt = produtoService.findById(id);
-            if (produtoOpt.isEmpty()) {
+            if (!responseCache.responder(ctx, () -> produtoService.findById(id))) {
                 ctx.status(HttpStatus.NOT_FOUND);
                 ctx.header("Cache-Control", "no-store, no-cache, must-revalidate");
                 ctx.header("Pragma", "no-cache");
                 ctx.header("Expires", "0");
                 ctx.json(new AuthController.ErrorResponse("Produto não encontrado", "ID: " + id));
-                return;
             }
             
-            ctx.status(HttpStatus.OK);
-            ctx.header("Cache-Control", "no-store, no-cache, must-revalidate");
-            ctx.header("Pragma", "no-cache");
-            ctx.header("Expires", "0");
-            ctx.json(produtoOpt.get());
-            
         } catch (IllegalArgumentException e) {
             ctx.status(HttpStatus.BAD_REQUEST);
             ctx.header("Cache-Control", "no-store, no-cache, must-revalidate");
@@ -110,28 +100,51 @@ public class ProdutoController {
         try {
             String codigoBarras = ctx.pathParam("codigo");
             
-            var produtoOpt = produtoService.findByCodigoBarras(codigoBarras);
-            if (produtoOpt.isEmpty()) {
+            if (!responseCache.responder(ctx, () -> produtoService.findByCodigoBarras(codigoBarras))) {
                 ctx.status(HttpStatus.NOT_FOUND);
                 ctx.header("Cache-Control", "no-store, no-cache, must-revalidate");
                 ctx.header("Pragma", "no-cache");
                 ctx.header("Expires", "0");
                 ctx.json(new AuthController.ErrorResponse("Produto não encontrado", "Código: " + codigoBarras));
-                return;
             }
             
+        } catch (Exception e) {
+            ctx.status(HttpStatus.INTERNAL_SERVER_ERROR);
+            ctx.header("Cache-Control", "no-store, no-cache, must-revalidate");
+            ctx.header("Pragma", "no-cache");
+            ctx.header("Expires", "0");
+            ctx.json(new AuthController.ErrorResponse("Erro ao buscar produto", e.getMessage()));
+        }
+    }
+    
+    /**
+     * POST /produtos/codigos - Buscar produtos por vários códigos de barras (lote do scanner)
+     * Body: {"codigos": ["7891234567895", ...]} (máximo 500)
+     */
+    public void findByCodigosBarras(Context ctx) {
+        try {
+            CodigosBarrasRequestDTO request = ctx.bodyAsClass(CodigosBarrasRequestDTO.class);
+            
+            var resultado = produtoService.findByCodigosBarras(request.getCodigos());
+            
             ctx.status(HttpStatus.OK);
             ctx.header("Cache-Control", "no-store, no-cache, must-revalidate");
             ctx.header("Pragma", "no-cache");
             ctx.header("Expires", "0");
-            ctx.json(produtoOpt.get());
+            ctx.json(resultado);
             
+        } catch (IllegalArgumentException e) {
+            ctx.status(HttpStatus.BAD_REQUEST);
+            ctx.header("Cache-Control", "no-store, no-cache, must-revalidate");
+            ctx.header("Pragma", "no-cache");
+            ctx.header("Expires", "0");
+            ctx.json(new AuthController.ErrorResponse("Códigos inválidos", e.getMessage()));
         } catch (Exception e) {
-            ctx.status(HttpStatus.INTERNAL_SERVER_ERROR);
+            ctx.status(HttpStatus.BAD_REQUEST);
             ctx.header("Cache-Control", "no-store, no-cache, must-revalidate");
             ctx.header("Pragma", "no-cache");
             ctx.header("Expires", "0");
-            ctx.json(new AuthController.ErrorResponse("Erro ao buscar produto", e.getMessage()));
+            ctx.json(new AuthController.ErrorResponse("Erro ao buscar produtos", e.getMessage()));
         }
     }
     
@@ -142,13 +155,7 @@ public class ProdutoController {
         try {
             UUID categoriaId = UUID.fromString(ctx.pathParam("categoriaId"));
             
-            var produtos = produtoService.findByCategoria(categoriaId);
-            
-            ctx.status(HttpStatus.OK);
-            ctx.header("Cache-Control", "no-store, no-cache, must-revalidate");
-            ctx.header("Pragma", "no-cache");
-            ctx.header("Expires", "0");
-            ctx.json(produtos);
+            responseCache.responder(ctx, () -> produtoService.findByCategoria(categoriaId));
             
         } catch (IllegalArgumentException e) {
             ctx.status(HttpStatus.BAD_REQUEST);
@@ -167,19 +174,32 @@ public class ProdutoController {
     
     /**
      * GET /produtos/buscar/{nome} - Buscar produtos por nome
+     * Query params: pagina (default: 1), tamanho (default: 20)
+     * O total de resultados vai no header X-Total-Count
      */
     public void findByNome(Context ctx) {
         try {
             String nome = ctx.pathParam("nome");
+            String paginaStr = ctx.queryParam("pagina");
+            String tamanhoStr = ctx.queryParam("tamanho");
+            int pagina = paginaStr != null ? Integer.parseInt(paginaStr) : 1;
+            int tamanho = tamanhoStr != null ? Integer.parseInt(tamanhoStr) : 20;
             
-            var produtos = produtoService.findByNome(nome);
+            var resultado = produtoService.buscar(nome, pagina, tamanho);
             
             ctx.status(HttpStatus.OK);
             ctx.header("Cache-Control", "no-store, no-cache, must-revalidate");
             ctx.header("Pragma", "no-cache");
             ctx.header("Expires", "0");
-            ctx.json(produtos);
+            ctx.header("X-Total-Count", String.valueOf(resultado.getTotal()));
+            ctx.json(resultado.getItens());
             
+        } catch (IllegalArgumentException e) {
+            ctx.status(HttpStatus.BAD_REQUEST);
+            ctx.header("Cache-Control", "no-store, no-cache, must-revalidate");
+            ctx.header("Pragma", "no-cache");
+            ctx.header("Expires", "0");
+            ctx.json(new AuthController.ErrorResponse("Paginação inválida", e.getMessage()));
         } catch (Exception e) {
             ctx.status(HttpStatus.INTERNAL_SERVER_ERROR);
             ctx.header("Cache-Control", "no-store, no-cache, must-revalidate");
@@ -189,6 +209,80 @@ public class ProdutoController {
         }
     }
     
+    /**
+     * GET /produtos/sugestoes - Autocompletar nomes de produtos e categorias
+     * Query params: prefixo, limite (default: 8, máximo: 10)
+     */
+    public void sugestoes(Context ctx) {
+        try {
+            String prefixo = ctx.queryParam("prefixo");
+            if (prefixo == null || prefixo.isBlank()) {
+                ctx.status(HttpStatus.BAD_REQUEST);
+                ctx.json(new AuthController.ErrorResponse("Parâmetro obrigatório", "prefixo é obrigatório"));
+                return;
+            }
+            String limiteStr = ctx.queryParam("limite");
+            int limite = limiteStr != null ? Integer.parseInt(limiteStr) : 8;
+            
+            var sugestoes = produtoService.sugerir(prefixo, limite);
+            
+            ctx.status(HttpStatus.OK);
+            ctx.header("Cache-Control", "no-store, no-cache, must-revalidate");
+            ctx.header("Pragma", "no-cache");
+            ctx.header("Expires", "0");
+            ctx.json(sugestoes);
+            
+        } catch (IllegalArgumentException e) {
+            ctx.status(HttpStatus.BAD_REQUEST);
+            ctx.header("Cache-Control", "no-store, no-cache, must-revalidate");
+            ctx.header("Pragma", "no-cache");
+            ctx.header("Expires", "0");
+            ctx.json(new AuthController.ErrorResponse("Limite inválido", e.getMessage()));
+        } catch (Exception e) {
+            ctx.status(HttpStatus.INTERNAL_SERVER_ERROR);
+            ctx.header("Cache-Control", "no-store, no-cache, must-revalidate");
+            ctx.header("Pragma", "no-cache");
+            ctx.header("Expires", "0");
+            ctx.json(new AuthController.ErrorResponse("Erro ao buscar sugestões", e.getMessage()));
+        }
+    }
+    
+    /**
+     * GET /produtos/facetas - Navegação facetada com contagens por categoria e faixa de preço
+     * Query params (opcionais): categoriaId (pode repetir), min, max, nome, pagina (default: 1), tamanho (default: 20)
+     */
+    public void facetas(Context ctx) {
+        try {
+            List<UUID> categoriaIds = ctx.queryParams("categoriaId").stream()
+                .map(UUID::fromString)
+                .toList();
+            String minStr = ctx.queryParam("min");
+            String maxStr = ctx.queryParam("max");
+            BigDecimal precoMin = minStr != null ? new BigDecimal(minStr) : null;
+            BigDecimal precoMax = maxStr != null ? new BigDecimal(maxStr) : null;
+            String nome = ctx.queryParam("nome");
+            String paginaStr = ctx.queryParam("pagina");
+            String tamanhoStr = ctx.queryParam("tamanho");
+            int pagina = paginaStr != null ? Integer.parseInt(paginaStr) : 1;
+            int tamanho = tamanhoStr != null ? Integer.parseInt(tamanhoStr) : 20;
+            
+            responseCache.responder(ctx, () -> produtoService.navegar(categoriaIds, precoMin, precoMax, nome, pagina, tamanho));
+            
+        } catch (IllegalArgumentException e) {
+            ctx.status(HttpStatus.BAD_REQUEST);
+            ctx.header("Cache-Control", "no-store, no-cache, must-revalidate");
+            ctx.header("Pragma", "no-cache");
+            ctx.header("Expires", "0");
+            ctx.json(new AuthController.ErrorResponse("Filtros inválidos", e.getMessage()));
+        } catch (Exception e) {
+            ctx.status(HttpStatus.INTERNAL_SERVER_ERROR);
+            ctx.header("Cache-Control", "no-store, no-cache, must-revalidate");
+            ctx.header("Pragma", "no-cache");
+            ctx.header("Expires", "0");
+            ctx.json(new AuthController.ErrorResponse("Erro ao navegar no catálogo", e.getMessage()));
+        }
+    }
+    
     /**
      * GET /produtos/preco - Buscar produtos por faixa de preço
      * Query params: min, max
@@ -207,13 +301,7 @@ public class ProdutoController {
             BigDecimal precoMin = new BigDecimal(minStr);
             BigDecimal precoMax = new BigDecimal(maxStr);
             
-            var produtos = produtoService.findByPrecoRange(precoMin, precoMax);
-            
-            ctx.status(HttpStatus.OK);
-            ctx.header("Cache-Control", "no-store, no-cache, must-revalidate");
-            ctx.header("Pragma", "no-cache");
-            ctx.header("Expires", "0");
-            ctx.json(produtos);
+            responseCache.responder(ctx, () -> produtoService.findByPrecoRange(precoMin, precoMax));
             
         } catch (NumberFormatException e) {
             ctx.status(HttpStatus.BAD_REQUEST);
@@ -0,0 +1,93 @@
+package com.ecommerce.controller;
+
+import io.javalin.http.Context;
+import io.javalin.http.HttpStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * GET condicional (ETag / If-None-Match / 304) para as rotas de leitura.
+ *
+ * As rotas que usam estes helpers respondem com Cache-Control: no-cache em vez de no-store:
+ * o cliente pode guardar a resposta, mas sempre revalida com If-None-Match.
+ */
+final class RespostaCondicional {
+
+    static final String CACHE_PUBLICO = "no-cache";
+    static final String CACHE_PRIVADO = "private, no-cache";
+
+    private RespostaCondicional() {
+    }
+
+    /**
+     * ETag forte a partir de um valor opaco (versão, hash...)
+     */
+    static String etag(String valor) {
+        return "\"" + valor + "\"";
+    }
+
+    /**
+     * Se o If-None-Match do request corresponde a alguma das ETags, responde 304 sem corpo
+     *
+     * @return true se a resposta 304 foi enviada e o handler deve parar
+     */
+    static boolean naoModificado(Context ctx, String cacheControl, String etagResposta, String... etagsAceitas) {
+        String ifNoneMatch = ctx.header("If-None-Match");
+        if (ifNoneMatch == null || !corresponde(ifNoneMatch, etagsAceitas)) {
+            return false;
+        }
+        ctx.status(HttpStatus.NOT_MODIFIED);
+        ctx.header("Cache-Control", cacheControl);
+        ctx.header("ETag", etagResposta);
+        return true;
+    }
+
+    /**
+     * Responde o objeto em JSON com ETag derivada do hash do conteúdo (ou 304 se o cliente já o tem).
+     * Usado quando não existe uma versão barata para consultar antes de montar o DTO.
+     */
+    static void jsonComHash(Context ctx, Object corpo, String cacheControl) {
+        byte[] json = ctx.jsonMapper().toJsonString(corpo, corpo.getClass()).getBytes(StandardCharsets.UTF_8);
+        String etag = etag(hash(json));
+        if (naoModificado(ctx, cacheControl, etag, etag)) {
+            return;
+        }
+        ctx.status(HttpStatus.OK);
+        ctx.header("Cache-Control", cacheControl);
+        ctx.header("ETag", etag);
+        ctx.contentType("application/json");
+        ctx.result(json);
+    }
+
+    /**
+     * Comparação fraca (RFC 9110 §13.1.2): ignora o prefixo W/. "*" não corresponde: em um GET ele
+     * só vale se o recurso existe, e os helpers são chamados antes de se saber disso (o cache do
+     * catálogo responde 304 sem consultar o produto); sem o 304 o cliente recebe 200 ou 404.
+     */
+    private static boolean corresponde(String ifNoneMatch, String... etags) {
+        for (String candidata : ifNoneMatch.split(",")) {
+            String valor = candidata.trim();
+            if (valor.startsWith("W/")) {
+                valor = valor.substring(2);
+            }
+            for (String etag : etags) {
+                if (valor.equals(etag)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static String hash(byte[] conteudo) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(conteudo);
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+}
@@ -21,7 +21,7 @@ import java.util.UUID;
 public class Carrinho {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @IdentificadorGerado
     private UUID id;
     
     @OneToOne(fetch = FetchType.LAZY)
@@ -33,4 +33,14 @@ public class Carrinho {
     @OneToMany(mappedBy = "carrinho", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @EqualsAndHashCode.Exclude
     private List<ItemCarrinho> itens;
+    
+    // Totais desnormalizados, mantidos a cada alteração de item (ver CarrinhosEmMemoria)
+    @Column(name = "total_itens")
+    private Integer totalItens;
+    
+    @Column(name = "total_quantidade")
+    private Integer totalQuantidade;
+    
+    @Column(name = "subtotal", precision = 12, scale = 2)
+    private Money subtotal;
 }
\ No newline at end of file
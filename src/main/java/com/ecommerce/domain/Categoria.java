@@ -21,7 +21,7 @@ import java.util.UUID;
 public class Categoria {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @IdentificadorGerado
     private UUID id;
     
     @Column(name = "nome", length = 120, nullable = false, unique = true)
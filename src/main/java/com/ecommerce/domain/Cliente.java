@@ -11,7 +11,10 @@ import java.util.List;
 import java.util.UUID;
 
 /**
- * Cliente da plataforma de e-commerce
+ * Cliente da plataforma de e-commerce.
+ *
+ * O ID é atribuído pela aplicação, não gerado: o Cliente de um usuário usa o mesmo UUID do
+ * usuário (UserService, ClienteResolver), que é o que o OwnershipValidator compara com o JWT.
  */
 @Entity
 @Table(name = "clientes")
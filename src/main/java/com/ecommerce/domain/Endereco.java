@@ -21,7 +21,7 @@ import java.util.UUID;
 public class Endereco {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @IdentificadorGerado
     private UUID id;
     
     @ManyToOne(fetch = FetchType.LAZY)
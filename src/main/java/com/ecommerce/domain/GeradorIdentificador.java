@@ -0,0 +1,21 @@
+package com.ecommerce.domain;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.factory.spi.CustomIdGeneratorCreationContext;
+
+import java.lang.reflect.Member;
+
+/**
+ * Gerador de identificadores do Hibernate ligado a @IdentificadorGerado
+ */
+public class GeradorIdentificador implements IdentifierGenerator {
+
+    public GeradorIdentificador(IdentificadorGerado anotacao, Member membro, CustomIdGeneratorCreationContext contexto) {
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object entidade) {
+        return Identificadores.novo();
+    }
+}
@@ -0,0 +1,18 @@
+package com.ecommerce.domain;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marca o @Id de uma entidade para receber, no persist, um UUID de Identificadores.novo()
+ * (UUIDv7 por padrão). O valor é gerado na aplicação, sem ida ao banco.
+ */
+@IdGeneratorType(GeradorIdentificador.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface IdentificadorGerado {
+}
@@ -0,0 +1,76 @@
+package com.ecommerce.domain;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Fonte única de UUIDs para entidades (via @IdentificadorGerado) e serviços.
+ *
+ * O padrão é UUIDv7 (RFC 9562): os 48 bits mais altos são o instante em milissegundos, então
+ * chaves novas entram sempre no fim do índice B-tree da chave primária em vez de espalhadas
+ * por ele como no v4 aleatório. Dentro do mesmo milissegundo os 12 bits seguintes funcionam
+ * como contador, o que mantém os IDs gerados por esta JVM estritamente crescentes.
+ *
+ * O gerador pode ser trocado (variável UUID_VERSAO=4 ou usar(...)), por exemplo para comparar
+ * as duas versões no benchmark de inserção.
+ */
+public final class Identificadores {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    // Último valor emitido: milissegundos << 12 | contador
+    private static final AtomicLong ultimo = new AtomicLong();
+
+    private static volatile Supplier<UUID> gerador = "4".equals(System.getenv("UUID_VERSAO"))
+        ? Identificadores::uuidV4
+        : Identificadores::uuidV7;
+
+    private Identificadores() {
+    }
+
+    /**
+     * Novo identificador do gerador configurado
+     */
+    public static UUID novo() {
+        return gerador.get();
+    }
+
+    /**
+     * Troca o gerador usado por novo() e pelas entidades
+     */
+    public static void usar(Supplier<UUID> novoGerador) {
+        if (novoGerador == null) {
+            throw new IllegalArgumentException("Gerador de identificadores é obrigatório");
+        }
+        gerador = novoGerador;
+    }
+
+    /**
+     * UUID aleatório (versão 4)
+     */
+    public static UUID uuidV4() {
+        return UUID.randomUUID();
+    }
+
+    /**
+     * UUID ordenado por tempo (versão 7), monotônico dentro desta JVM
+     */
+    public static UUID uuidV7() {
+        long agora = System.currentTimeMillis() << 12;
+        long anterior;
+        long atual;
+        do {
+            anterior = ultimo.get();
+            // Mesmo milissegundo (ou relógio voltando): incrementa o contador; se ele estourar,
+            // avança para o milissegundo seguinte sem quebrar a ordem
+            atual = Math.max(agora, anterior + 1);
+        } while (!ultimo.compareAndSet(anterior, atual));
+
+        long milissegundos = atual >>> 12;
+        long msb = (milissegundos << 16) | 0x7000L | (atual & 0xFFFL);
+        long lsb = (RANDOM.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+}
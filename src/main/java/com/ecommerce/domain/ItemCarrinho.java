@@ -13,14 +13,18 @@ import java.util.UUID;
  * Item dentro do carrinho de compras
  */
 @Entity
-@Table(name = "itens_carrinho")
+@Table(name = "itens_carrinho", indexes = {
+    // Um item por produto em cada carrinho: chave do upsert em CarrinhoRepository.gravarEstados.
+    // Criado (após mesclar duplicados) e verificado na subida por App.garantirIndiceItensCarrinho
+    @Index(name = "idx_item_carrinho_carrinho_produto", columnList = "carrinho_id, produto_id", unique = true)
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class ItemCarrinho {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @IdentificadorGerado
     private UUID id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,113 @@
+package com.ecommerce.domain;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Valor monetário em centavos (long), para as contas de preço e total nos caminhos quentes.
+ *
+ * Os métodos estáticos operam direto sobre centavos em long e não alocam: o carrinho, o
+ * checkout e as métricas somam e multiplicam assim e só convertem para BigDecimal na borda
+ * (DTO, coluna numeric). Estouro de long lança ArithmeticException em vez de dar a volta.
+ *
+ * No banco vira numeric(…, 2) pelo MoneyConverter; em JSON é o mesmo número decimal que um
+ * BigDecimal de escala 2 produziria (ex.: 10.50).
+ */
+@JsonSerialize(using = Money.Serializador.class)
+@JsonDeserialize(using = Money.Desserializador.class)
+public record Money(long centavos) implements Comparable<Money> {
+    
+    public static final Money ZERO = new Money(0);
+    
+    private static final int ESCALA = 2;
+    
+    /**
+     * Valor em reais (BigDecimal) convertido para Money, arredondando meio centavo para cima.
+     * Nulo continua nulo (ex.: produto sem preço), não vira ZERO.
+     */
+    public static Money of(BigDecimal valor) {
+        return valor == null ? null : new Money(centavos(valor));
+    }
+    
+    /**
+     * Centavos de um valor em reais, sem criar Money (para acumular em long)
+     */
+    public static long centavos(BigDecimal valor) {
+        BigDecimal ajustado = valor.scale() == ESCALA ? valor : valor.setScale(ESCALA, RoundingMode.HALF_UP);
+        return ajustado.unscaledValue().longValueExact();
+    }
+    
+    /**
+     * Preço unitário × quantidade, em centavos
+     */
+    public static long multiplicar(long centavos, int quantidade) {
+        return Math.multiplyExact(centavos, (long) quantidade);
+    }
+    
+    public static long somar(long centavos, long outros) {
+        return Math.addExact(centavos, outros);
+    }
+    
+    /**
+     * Centavos como BigDecimal de escala 2 (borda com DTOs e entidades)
+     */
+    public static BigDecimal toBigDecimal(long centavos) {
+        return BigDecimal.valueOf(centavos, ESCALA);
+    }
+    
+    public Money somar(Money outro) {
+        return new Money(somar(centavos, outro.centavos));
+    }
+    
+    public Money multiplicar(int quantidade) {
+        return new Money(multiplicar(centavos, quantidade));
+    }
+    
+    public BigDecimal toBigDecimal() {
+        return toBigDecimal(centavos);
+    }
+    
+    public boolean isPositivo() {
+        return centavos > 0;
+    }
+    
+    @Override
+    public int compareTo(Money outro) {
+        return Long.compare(centavos, outro.centavos);
+    }
+    
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+    
+    /**
+     * Escreve como número decimal, no mesmo formato de antes com BigDecimal
+     */
+    public static final class Serializador extends JsonSerializer<Money> {
+        @Override
+        public void serialize(Money valor, JsonGenerator gerador, SerializerProvider provider) throws IOException {
+            gerador.writeNumber(valor.toBigDecimal());
+        }
+    }
+    
+    /**
+     * Aceita o que o BigDecimal aceitava (número ou texto numérico)
+     */
+    public static final class Desserializador extends JsonDeserializer<Money> {
+        @Override
+        public Money deserialize(JsonParser parser, DeserializationContext contexto) throws IOException {
+            return Money.of(contexto.readValue(parser, BigDecimal.class));
+        }
+    }
+}
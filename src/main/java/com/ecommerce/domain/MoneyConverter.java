@@ -0,0 +1,23 @@
+package com.ecommerce.domain;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+
+/**
+ * Grava Money como numeric de escala 2 (mesmo tipo de coluna dos valores em BigDecimal)
+ */
+@Converter(autoApply = true)
+public class MoneyConverter implements AttributeConverter<Money, BigDecimal> {
+    
+    @Override
+    public BigDecimal convertToDatabaseColumn(Money valor) {
+        return valor == null ? null : valor.toBigDecimal();
+    }
+    
+    @Override
+    public Money convertToEntityAttribute(BigDecimal valor) {
+        return Money.of(valor);
+    }
+}
@@ -11,26 +11,32 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 /**
- * Notificação enviada ao cliente
+ * Notificação enviada ao cliente. A tabela é convertida em particionada por criado_em
+ * (NotificacaoParticaoRepository): os nomes das chaves estrangeiras e dos índices daqui são os
+ * mesmos da DDL da conversão, para o hbm2ddl reconhecê-los e não criar duplicatas.
  */
 @Entity
-@Table(name = "notificacoes")
+@Table(name = "notificacoes", indexes = {
+    @Index(name = "idx_notificacao_criado_em", columnList = "criado_em"),
+    @Index(name = "idx_notificacao_cliente_criado_em", columnList = "cliente_id, criado_em"),
+    @Index(name = "idx_notificacao_pedido", columnList = "pedido_id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Notificacao {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @IdentificadorGerado
     private UUID id;
     
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "pedido_id", nullable = false)
+    @JoinColumn(name = "pedido_id", nullable = false, foreignKey = @ForeignKey(name = "fk_notificacao_pedido"))
     @NotNull(message = "Pedido é obrigatório")
     private Pedido pedido;
     
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "cliente_id", nullable = false)
+    @JoinColumn(name = "cliente_id", nullable = false, foreignKey = @ForeignKey(name = "fk_notificacao_cliente"))
     @NotNull(message = "Cliente é obrigatório")
     private Cliente cliente;
     
@@ -0,0 +1,27 @@
+package com.ecommerce.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Contador diário da numeração de pedidos (PED-YYYYMMDD-NNNN).
+ * Guarda o próximo número ainda não reservado do dia; cada nó reserva blocos avançando-o.
+ */
+@Entity
+@Table(name = "numeracao_pedidos")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NumeracaoPedido {
+
+    @Id
+    @Column(name = "dia")
+    private LocalDate dia;
+
+    @Column(name = "proximo", nullable = false)
+    private Long proximo;
+}
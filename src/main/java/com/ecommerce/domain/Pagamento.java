@@ -23,7 +23,7 @@ import java.util.UUID;
 public abstract class Pagamento {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @IdentificadorGerado
     private UUID id;
     
     @OneToOne(fetch = FetchType.LAZY)
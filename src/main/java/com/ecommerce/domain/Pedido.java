@@ -25,7 +25,7 @@ import java.util.UUID;
 public class Pedido {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @IdentificadorGerado
     private UUID id;
     
     @Column(name = "cliente_id", nullable = false)
@@ -93,14 +93,14 @@ public class Pedido {
     
     @PrePersist
     protected void onCreate() {
-        // NÃO definir ID - deixar @GeneratedValue fazer isso
+        // NÃO definir ID - deixar @IdentificadorGerado fazer isso
         if (createdAt == null) createdAt = Instant.now();
         if (updatedAt == null) updatedAt = Instant.now();
         if (dataPedido == null) dataPedido = LocalDateTime.now();
         if (status == null) status = StatusPedido.NOVO;
         if (numero == null) {
-            // Generate unique order number based on timestamp and random suffix
-            numero = "PED" + System.currentTimeMillis() + "-" + (int)(Math.random() * 1000);
+            // O número vem sempre do NumeradorPedidos (PedidoService); gerar outro aqui esconderia o erro
+            throw new IllegalStateException("Pedido sem número: use NumeradorPedidos antes de gravar");
         }
     }
     
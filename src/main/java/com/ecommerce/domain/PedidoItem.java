@@ -10,7 +10,7 @@ import java.util.UUID;
 @Data
 public class PedidoItem {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @IdentificadorGerado
     private UUID id;
     
     @Column(name = "produto_id", nullable = false)
@@ -20,7 +20,7 @@ import java.util.UUID;
 public class Produto {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @IdentificadorGerado
     private UUID id;
     
     @Column(name = "codigo_barras", length = 13, nullable = false, unique = true)
@@ -20,7 +20,7 @@ import java.util.UUID;
 public class UserModel {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @IdentificadorGerado
     private UUID id;
     
     @Column(name = "email", length = 160, nullable = false, unique = true)
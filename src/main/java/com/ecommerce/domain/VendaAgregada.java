@@ -0,0 +1,61 @@
+package com.ecommerce.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Vendas pré-agregadas por período (hora ou dia de criação do pedido), status e método de
+ * pagamento: quantidade de pedidos, receita e itens. Mantida de forma incremental a partir das
+ * criações e mudanças de status de pedido, gravadas em lote após o commit (ver MetricasPedidos).
+ */
+@Entity
+@Table(name = "vendas_agregadas", indexes = {
+    @Index(name = "idx_venda_agregada_chave", columnList = "granularidade, inicio, status, metodo_pagamento", unique = true)
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VendaAgregada {
+    
+    /**
+     * Método de pagamento gravado quando o pedido ainda não tem um (a coluna faz parte da chave)
+     */
+    public static final String SEM_METODO = "NENHUM";
+    
+    public enum Granularidade {
+        HORA,
+        DIA
+    }
+    
+    @Id
+    private UUID id;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "granularidade", nullable = false, length = 10)
+    private Granularidade granularidade;
+    
+    @Column(name = "inicio", nullable = false)
+    private Instant inicio;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private StatusPedido status;
+    
+    @Column(name = "metodo_pagamento", nullable = false, length = 20)
+    private String metodoPagamento;
+    
+    @Column(name = "pedidos", nullable = false)
+    private Long pedidos;
+    
+    @Column(name = "receita", nullable = false, precision = 19, scale = 2)
+    private BigDecimal receita;
+    
+    @Column(name = "itens", nullable = false)
+    private Long itens;
+}
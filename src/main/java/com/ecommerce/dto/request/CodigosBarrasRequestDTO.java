@@ -0,0 +1,17 @@
+package com.ecommerce.dto.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+import java.util.List;
+
+/**
+ * DTO para consulta em lote de produtos por código de barras (leituras de scanner)
+ */
+@Data
+public class CodigosBarrasRequestDTO {
+    
+    @NotEmpty(message = "Lista de códigos é obrigatória")
+    @Size(max = 500, message = "Máximo de 500 códigos por consulta")
+    private List<String> codigos;
+}
@@ -0,0 +1,17 @@
+package com.ecommerce.dto.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+import java.util.List;
+
+/**
+ * DTO para definir em lote as quantidades de vários itens do carrinho (quantidade 0 remove o item)
+ */
+@Data
+public class ItensCarrinhoRequestDTO {
+    
+    @NotEmpty(message = "Lista de itens é obrigatória")
+    @Size(max = 100, message = "Máximo de 100 itens por requisição")
+    private List<ItemCarrinhoRequestDTO> itens;
+}
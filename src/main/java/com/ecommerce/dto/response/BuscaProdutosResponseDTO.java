@@ -0,0 +1,18 @@
+package com.ecommerce.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.util.List;
+
+/**
+ * DTO para resultado paginado da busca de produtos por nome
+ */
+@Data
+@AllArgsConstructor
+public class BuscaProdutosResponseDTO {
+
+    private int total;
+    private int pagina;
+    private int tamanho;
+    private List<ProdutoResponseDTO> itens;
+}
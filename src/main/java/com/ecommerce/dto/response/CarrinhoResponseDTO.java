@@ -1,7 +1,7 @@
 package com.ecommerce.dto.response;
 
+import com.ecommerce.domain.Money;
 import lombok.Data;
-import java.math.BigDecimal;
 import java.util.List;
 import java.util.UUID;
 
@@ -15,8 +15,9 @@ public class CarrinhoResponseDTO {
     private UUID userId;
     private UUID clienteId;
     private List<ItemCarrinhoResponseDTO> itens;
-    private BigDecimal valorTotal;
+    // Money: em JSON sai como o número decimal de antes (ex.: 10.50)
+    private Money valorTotal;
     private Integer totalItens;
-    private BigDecimal totalValor;
+    private Money totalValor;
     private Integer totalQuantidade;
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.ecommerce.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.util.List;
+
+/**
+ * DTO para resposta da consulta em lote por código de barras
+ */
+@Data
+@AllArgsConstructor
+public class CodigosBarrasResponseDTO {
+
+    private List<ProdutoResponseDTO> encontrados;
+    private List<String> naoEncontrados;
+}
@@ -0,0 +1,44 @@
+package com.ecommerce.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * DTO para navegação facetada do catálogo: página de produtos filtrados e contagens por faceta
+ */
+@Data
+@AllArgsConstructor
+public class FacetasResponseDTO {
+
+    private int total;
+    private int pagina;
+    private int tamanho;
+    private List<ProdutoResponseDTO> itens;
+    private List<Categoria> categorias;
+    private List<FaixaPreco> faixasPreco;
+
+    /**
+     * Quantidade de produtos por categoria (considerando os demais filtros)
+     */
+    @Data
+    @AllArgsConstructor
+    public static class Categoria {
+        private UUID id;
+        private String nome;
+        private int quantidade;
+    }
+
+    /**
+     * Quantidade de produtos por faixa de preço [min, max); max nulo = sem limite
+     */
+    @Data
+    @AllArgsConstructor
+    public static class FaixaPreco {
+        private BigDecimal min;
+        private BigDecimal max;
+        private int quantidade;
+    }
+}
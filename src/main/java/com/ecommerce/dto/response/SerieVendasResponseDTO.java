@@ -0,0 +1,33 @@
+package com.ecommerce.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * DTO da série de vendas pré-agregadas: um ponto por período, status e método de pagamento
+ */
+@Data
+@AllArgsConstructor
+public class SerieVendasResponseDTO {
+    
+    private String granularidade;
+    private String de;
+    private String ate;
+    private List<Ponto> pontos;
+    
+    /**
+     * Totais de um período (início em ISO-8601) para um status e método de pagamento
+     */
+    @Data
+    @AllArgsConstructor
+    public static class Ponto {
+        private String inicio;
+        private String status;
+        private String metodoPagamento;
+        private long pedidos;
+        private BigDecimal receita;
+        private long itens;
+    }
+}
@@ -0,0 +1,18 @@
+package com.ecommerce.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.util.UUID;
+
+/**
+ * DTO para sugestão de autocompletar (produto ou categoria)
+ */
+@Data
+@AllArgsConstructor
+public class SugestaoResponseDTO {
+
+    private String texto;
+    private String tipo;
+    private UUID id;
+    private long vendas;
+}
@@ -2,6 +2,7 @@ package com.ecommerce.mapper;
 
 import com.ecommerce.domain.Carrinho;
 import com.ecommerce.domain.ItemCarrinho;
+import com.ecommerce.domain.Money;
 import com.ecommerce.dto.response.CarrinhoResponseDTO;
 import com.ecommerce.dto.response.ItemCarrinhoResponseDTO;
 import com.ecommerce.dto.response.ProdutoResponseDTO;
@@ -71,14 +72,14 @@ public interface CarrinhoMapper {
             }
             
             dto.setItens(itensMapeados);
-            dto.setValorTotal(valorTotal);
-            dto.setTotalValor(valorTotal);
+            dto.setValorTotal(Money.of(valorTotal));
+            dto.setTotalValor(Money.of(valorTotal));
             dto.setTotalItens(totalQuantidade);
             dto.setTotalQuantidade(totalQuantidade);
         } else {
             dto.setItens(new ArrayList<>());
-            dto.setValorTotal(BigDecimal.ZERO);
-            dto.setTotalValor(BigDecimal.ZERO);
+            dto.setValorTotal(Money.ZERO);
+            dto.setTotalValor(Money.ZERO);
             dto.setTotalItens(0);
             dto.setTotalQuantidade(0);
         }
@@ -2,10 +2,15 @@ package com.ecommerce.repository;
 
 import com.ecommerce.domain.Carrinho;
 import com.ecommerce.domain.Cliente;
+import com.ecommerce.domain.Money;
+import com.ecommerce.config.DatabaseConfig;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.NoResultException;
 import jakarta.persistence.TypedQuery;
+import org.hibernate.Session;
 
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -15,49 +20,59 @@ import java.util.UUID;
  */
 public class CarrinhoRepository {
     
-    private final EntityManager entityManager;
+    // Não armazena mais EntityManager fixo - usa o do request atual
+    private final EntityManager defaultEntityManager;
     
-    public CarrinhoRepository(EntityManager entityManager) {
-        this.entityManager = entityManager;
+    public CarrinhoRepository(EntityManager defaultEntityManager) {
+        this.defaultEntityManager = defaultEntityManager;
+    }
+    
+    /**
+     * Estado completo de um carrinho mantido em memória (ver CarrinhosEmMemoria)
+     */
+    public record EstadoCarrinho(UUID id, UUID clienteId, List<ItemEstado> itens,
+                                 int totalItens, int totalQuantidade, long subtotalCentavos) {
+    }
+    
+    public record ItemEstado(UUID id, UUID produtoId, int quantidade) {
+    }
+    
+    /**
+     * Obtém o EntityManager apropriado (do request atual se disponível)
+     */
+    private EntityManager getEntityManager() {
+        return DatabaseConfig.getEntityManagerOrDefault(defaultEntityManager);
+    }
+    
+    /**
+     * Obtém o EntityManager para gravações (transação do request garantida, flush só no commit)
+     */
+    private EntityManager getEntityManagerParaEscrita() {
+        return DatabaseConfig.getEntityManagerParaEscrita();
     }
     
     /**
      * Salva ou atualiza um carrinho
      */
     public Carrinho save(Carrinho carrinho) {
-        boolean needsTransaction = !entityManager.getTransaction().isActive();
-        if (needsTransaction) {
-            entityManager.getTransaction().begin();
+        EntityManager em = getEntityManagerParaEscrita();
+        // CRÍTICO: Reattach Cliente ao EntityManager local para evitar detached entity
+        if (carrinho.getCliente() != null && carrinho.getCliente().getId() != null) {
+            carrinho.setCliente(em.getReference(Cliente.class, carrinho.getCliente().getId()));
         }
         
-        try {
-            // CRÍTICO: Reattach Cliente ao EntityManager local para evitar detached entity
-            if (carrinho.getCliente() != null && carrinho.getCliente().getId() != null) {
-                carrinho.setCliente(entityManager.getReference(Cliente.class, carrinho.getCliente().getId()));
-            }
-            
-            // Use merge for both new and existing entities - more flexible than persist
-            carrinho = entityManager.merge(carrinho);
-            entityManager.flush(); // Force INSERT/UPDATE to show in logs
-            
-            if (needsTransaction) {
-                entityManager.getTransaction().commit();
-            }
-            
+        if (carrinho.getId() == null) {
+            em.persist(carrinho);
             return carrinho;
-        } catch (Exception e) {
-            if (needsTransaction && entityManager.getTransaction().isActive()) {
-                entityManager.getTransaction().rollback();
-            }
-            throw e;
         }
+        return em.merge(carrinho);
     }
     
     /**
      * Busca carrinho por ID
      */
     public Optional<Carrinho> findById(UUID id) {
-        Carrinho carrinho = entityManager.find(Carrinho.class, id);
+        Carrinho carrinho = getEntityManager().find(Carrinho.class, id);
         return Optional.ofNullable(carrinho);
     }
     
@@ -66,7 +81,7 @@ public class CarrinhoRepository {
      */
     public Optional<Carrinho> findByCliente(Cliente cliente) {
         try {
-            TypedQuery<Carrinho> query = entityManager.createQuery(
+            TypedQuery<Carrinho> query = getEntityManager().createQuery(
                 "SELECT c FROM Carrinho c WHERE c.cliente = :cliente", Carrinho.class);
             query.setParameter("cliente", cliente);
             Carrinho carrinho = query.getSingleResult();
@@ -81,7 +96,7 @@ public class CarrinhoRepository {
      */
     public Optional<Carrinho> findByClienteId(UUID clienteId) {
         try {
-            TypedQuery<Carrinho> query = entityManager.createQuery(
+            TypedQuery<Carrinho> query = getEntityManager().createQuery(
                 "SELECT c FROM Carrinho c WHERE c.cliente.id = :clienteId", Carrinho.class);
             query.setParameter("clienteId", clienteId);
             Carrinho carrinho = query.getSingleResult();
@@ -95,12 +110,17 @@ public class CarrinhoRepository {
      * Busca carrinho com itens carregados (incluindo produtos para cálculo de preço)
      */
     public Optional<Carrinho> findByIdWithItens(UUID id) {
+        EntityManager em = getEntityManager();
         try {
             // CORREÇÃO DO ARQUITETO: Clear cache antes de join-fetch para evitar cache stale
             System.out.println("🧹 DEBUG: Limpando cache do EntityManager antes de consulta");
-            entityManager.clear();
+            // Com o EntityManager do request, alterações pendentes precisam ir ao banco antes do clear
+            if (em.getTransaction().isActive()) {
+                em.flush();
+            }
+            em.clear();
             
-            TypedQuery<Carrinho> query = entityManager.createQuery(
+            TypedQuery<Carrinho> query = em.createQuery(
                 "SELECT c FROM Carrinho c LEFT JOIN FETCH c.itens i LEFT JOIN FETCH i.produto WHERE c.id = :id", Carrinho.class);
             query.setParameter("id", id);
             Carrinho carrinho = query.getSingleResult();
@@ -114,12 +134,17 @@ public class CarrinhoRepository {
      * Busca carrinho por cliente com itens carregados (incluindo produtos para cálculo de preço)
      */
     public Optional<Carrinho> findByClienteIdWithItens(UUID clienteId) {
+        EntityManager em = getEntityManager();
         try {
             // CORREÇÃO DO ARQUITETO: Clear cache antes de join-fetch para evitar cache stale
             System.out.println("🧹 DEBUG: Limpando cache do EntityManager antes de consulta por clienteId");
-            entityManager.clear();
+            // Com o EntityManager do request, alterações pendentes precisam ir ao banco antes do clear
+            if (em.getTransaction().isActive()) {
+                em.flush();
+            }
+            em.clear();
             
-            TypedQuery<Carrinho> query = entityManager.createQuery(
+            TypedQuery<Carrinho> query = em.createQuery(
                 "SELECT c FROM Carrinho c LEFT JOIN FETCH c.itens i LEFT JOIN FETCH i.produto WHERE c.cliente.id = :clienteId", Carrinho.class);
             query.setParameter("clienteId", clienteId);
             Carrinho carrinho = query.getSingleResult();
@@ -133,7 +158,7 @@ public class CarrinhoRepository {
      * Lista todos os carrinhos
      */
     public List<Carrinho> findAll() {
-        TypedQuery<Carrinho> query = entityManager.createQuery(
+        TypedQuery<Carrinho> query = getEntityManager().createQuery(
             "SELECT c FROM Carrinho c ORDER BY c.id", Carrinho.class);
         return query.getResultList();
     }
@@ -142,7 +167,7 @@ public class CarrinhoRepository {
      * Conta total de carrinhos
      */
     public long count() {
-        TypedQuery<Long> query = entityManager.createQuery(
+        TypedQuery<Long> query = getEntityManager().createQuery(
             "SELECT COUNT(c) FROM Carrinho c", Long.class);
         return query.getSingleResult();
     }
@@ -151,9 +176,10 @@ public class CarrinhoRepository {
      * Remove carrinho por ID
      */
     public void deleteById(UUID id) {
-        Carrinho carrinho = entityManager.find(Carrinho.class, id);
+        EntityManager em = getEntityManagerParaEscrita();
+        Carrinho carrinho = em.find(Carrinho.class, id);
         if (carrinho != null) {
-            entityManager.remove(carrinho);
+            em.remove(carrinho);
         }
     }
     
@@ -161,14 +187,104 @@ public class CarrinhoRepository {
      * Remove carrinho por cliente
      */
     public void deleteByClienteId(UUID clienteId) {
-        TypedQuery<Carrinho> query = entityManager.createQuery(
+        EntityManager em = getEntityManagerParaEscrita();
+        TypedQuery<Carrinho> query = em.createQuery(
             "SELECT c FROM Carrinho c WHERE c.cliente.id = :clienteId", Carrinho.class);
         query.setParameter("clienteId", clienteId);
         try {
             Carrinho carrinho = query.getSingleResult();
-            entityManager.remove(carrinho);
+            em.remove(carrinho);
         } catch (NoResultException e) {
             // Carrinho não existe, nada a fazer
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * Carrega o estado do carrinho do cliente (IDs e quantidades), sem montar entidades
+     */
+    public Optional<EstadoCarrinho> carregarEstado(UUID clienteId) {
+        List<Object[]> linhas = getEntityManager().createQuery(
+            "SELECT c.id, i.id, i.produto.id, i.quantidade, c.totalItens, c.totalQuantidade, c.subtotal " +
+            "FROM Carrinho c LEFT JOIN c.itens i " +
+            "WHERE c.cliente.id = :clienteId ORDER BY i.id", Object[].class)
+            .setParameter("clienteId", clienteId)
+            .getResultList();
+        if (linhas.isEmpty()) {
+            return Optional.empty();
+        }
+        List<ItemEstado> itens = new ArrayList<>();
+        for (Object[] linha : linhas) {
+            if (linha[1] != null) {
+                itens.add(new ItemEstado((UUID) linha[1], (UUID) linha[2], (Integer) linha[3]));
+            }
+        }
+        Object[] primeira = linhas.get(0);
+        return Optional.of(new EstadoCarrinho((UUID) primeira[0], clienteId, itens,
+            primeira[4] != null ? (Integer) primeira[4] : 0,
+            primeira[5] != null ? (Integer) primeira[5] : 0,
+            primeira[6] != null ? ((Money) primeira[6]).centavos() : 0L));
+    }
+    
+    /**
+     * Grava o estado completo de vários carrinhos: cria os carrinhos que ainda não existem e
+     * atualiza seus totais (lote JDBC), apaga os itens que saíram e faz um único upsert de
+     * conjunto (unnest dos arrays) na chave única (carrinho_id, produto_id). Itens inalterados
+     * não são reescritos.
+     */
+    public void gravarEstados(List<EstadoCarrinho> estados) {
+        EntityManager em = getEntityManagerParaEscrita();
+        em.unwrap(Session.class).doWork(connection -> {
+            List<UUID> ids = new ArrayList<>();
+            List<UUID> itemIds = new ArrayList<>();
+            List<UUID> itemCarrinhos = new ArrayList<>();
+            List<UUID> itemProdutos = new ArrayList<>();
+            List<Integer> itemQuantidades = new ArrayList<>();
+            try (PreparedStatement carrinhos = connection.prepareStatement(
+                     "INSERT INTO carrinhos (id, cliente_id, total_itens, total_quantidade, subtotal) " +
+                     "VALUES (?, ?, ?, ?, ?) ON CONFLICT (id) DO UPDATE SET total_itens = EXCLUDED.total_itens, " +
+                     "total_quantidade = EXCLUDED.total_quantidade, subtotal = EXCLUDED.subtotal")) {
+                for (EstadoCarrinho estado : estados) {
+                    ids.add(estado.id());
+                    carrinhos.setObject(1, estado.id());
+                    carrinhos.setObject(2, estado.clienteId());
+                    carrinhos.setInt(3, estado.totalItens());
+                    carrinhos.setInt(4, estado.totalQuantidade());
+                    carrinhos.setBigDecimal(5, Money.toBigDecimal(estado.subtotalCentavos()));
+                    carrinhos.addBatch();
+                    for (ItemEstado item : estado.itens()) {
+                        itemIds.add(item.id());
+                        itemCarrinhos.add(estado.id());
+                        itemProdutos.add(item.produtoId());
+                        itemQuantidades.add(item.quantidade());
+                    }
+                }
+                carrinhos.executeBatch();
+            }
+            
+            try (PreparedStatement limpar = connection.prepareStatement(
+                     "DELETE FROM itens_carrinho i WHERE i.carrinho_id = ANY (?) AND NOT EXISTS (" +
+                     "SELECT 1 FROM unnest(?::uuid[], ?::uuid[]) AS s(carrinho_id, produto_id) " +
+                     "WHERE s.carrinho_id = i.carrinho_id AND s.produto_id = i.produto_id)")) {
+                limpar.setArray(1, connection.createArrayOf("uuid", ids.toArray()));
+                limpar.setArray(2, connection.createArrayOf("uuid", itemCarrinhos.toArray()));
+                limpar.setArray(3, connection.createArrayOf("uuid", itemProdutos.toArray()));
+                limpar.executeUpdate();
+            }
+            
+            if (itemIds.isEmpty()) {
+                return;
+            }
+            try (PreparedStatement upsert = connection.prepareStatement(
+                     "INSERT INTO itens_carrinho (id, carrinho_id, produto_id, quantidade) " +
+                     "SELECT * FROM unnest(?::uuid[], ?::uuid[], ?::uuid[], ?::int[]) " +
+                     "ON CONFLICT (carrinho_id, produto_id) DO UPDATE SET quantidade = EXCLUDED.quantidade " +
+                     "WHERE itens_carrinho.quantidade <> EXCLUDED.quantidade")) {
+                upsert.setArray(1, connection.createArrayOf("uuid", itemIds.toArray()));
+                upsert.setArray(2, connection.createArrayOf("uuid", itemCarrinhos.toArray()));
+                upsert.setArray(3, connection.createArrayOf("uuid", itemProdutos.toArray()));
+                upsert.setArray(4, connection.createArrayOf("integer", itemQuantidades.toArray()));
+                upsert.executeUpdate();
+            }
+        });
+    }
+}
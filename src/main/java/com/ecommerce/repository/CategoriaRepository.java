@@ -1,6 +1,7 @@
 package com.ecommerce.repository;
 
 import com.ecommerce.domain.Categoria;
+import com.ecommerce.config.DatabaseConfig;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.NoResultException;
 import jakarta.persistence.TypedQuery;
@@ -14,44 +15,45 @@ import java.util.UUID;
  */
 public class CategoriaRepository {
     
-    private final EntityManager entityManager;
+    // Não armazena mais EntityManager fixo - usa o do request atual
+    private final EntityManager defaultEntityManager;
     
-    public CategoriaRepository(EntityManager entityManager) {
-        this.entityManager = entityManager;
+    public CategoriaRepository(EntityManager defaultEntityManager) {
+        this.defaultEntityManager = defaultEntityManager;
+    }
+    
+    /**
+     * Obtém o EntityManager apropriado (do request atual se disponível)
+     */
+    private EntityManager getEntityManager() {
+        return DatabaseConfig.getEntityManagerOrDefault(defaultEntityManager);
+    }
+    
+    /**
+     * Obtém o EntityManager para gravações (transação do request garantida, flush só no commit)
+     */
+    private EntityManager getEntityManagerParaEscrita() {
+        return DatabaseConfig.getEntityManagerParaEscrita();
     }
     
     /**
      * Salva ou atualiza uma categoria
      */
     public Categoria save(Categoria categoria) {
-        boolean needsTransaction = !entityManager.getTransaction().isActive();
-        if (needsTransaction) {
-            entityManager.getTransaction().begin();
-        }
-        
-        try {
-            // Use merge for both new and existing entities - more flexible than persist
-            categoria = entityManager.merge(categoria);
-            entityManager.flush(); // Force INSERT/UPDATE to show in logs
-            
-            if (needsTransaction) {
-                entityManager.getTransaction().commit();
-            }
-            
+        EntityManager em = getEntityManagerParaEscrita();
+        if (categoria.getId() == null) {
+            // O UUID é gerado no persist, sem ida ao banco; o INSERT sai no flush do commit
+            em.persist(categoria);
             return categoria;
-        } catch (Exception e) {
-            if (needsTransaction && entityManager.getTransaction().isActive()) {
-                entityManager.getTransaction().rollback();
-            }
-            throw e;
         }
+        return em.merge(categoria);
     }
     
     /**
      * Busca categoria por ID
      */
     public Optional<Categoria> findById(UUID id) {
-        Categoria categoria = entityManager.find(Categoria.class, id);
+        Categoria categoria = getEntityManager().find(Categoria.class, id);
         return Optional.ofNullable(categoria);
     }
     
@@ -60,7 +62,7 @@ public class CategoriaRepository {
      */
     public Optional<Categoria> findByNome(String nome) {
         try {
-            TypedQuery<Categoria> query = entityManager.createQuery(
+            TypedQuery<Categoria> query = getEntityManager().createQuery(
                 "SELECT c FROM Categoria c WHERE c.nome = :nome", Categoria.class);
             query.setParameter("nome", nome);
             Categoria categoria = query.getSingleResult();
@@ -74,7 +76,7 @@ public class CategoriaRepository {
      * Lista todas as categorias ordenadas por nome
      */
     public List<Categoria> findAll() {
-        TypedQuery<Categoria> query = entityManager.createQuery(
+        TypedQuery<Categoria> query = getEntityManager().createQuery(
             "SELECT c FROM Categoria c ORDER BY c.nome", Categoria.class);
         return query.getResultList();
     }
@@ -83,7 +85,7 @@ public class CategoriaRepository {
      * Verifica se existe categoria com nome
      */
     public boolean existsByNome(String nome) {
-        TypedQuery<Long> query = entityManager.createQuery(
+        TypedQuery<Long> query = getEntityManager().createQuery(
             "SELECT COUNT(c) FROM Categoria c WHERE c.nome = :nome", Long.class);
         query.setParameter("nome", nome);
         return query.getSingleResult() > 0;
@@ -93,7 +95,7 @@ public class CategoriaRepository {
      * Conta total de categorias
      */
     public long count() {
-        TypedQuery<Long> query = entityManager.createQuery(
+        TypedQuery<Long> query = getEntityManager().createQuery(
             "SELECT COUNT(c) FROM Categoria c", Long.class);
         return query.getSingleResult();
     }
@@ -102,25 +104,10 @@ public class CategoriaRepository {
      * Remove categoria por ID
      */
     public void deleteById(UUID id) {
-        boolean needsTransaction = !entityManager.getTransaction().isActive();
-        if (needsTransaction) {
-            entityManager.getTransaction().begin();
-        }
-        
-        try {
-            Categoria categoria = entityManager.find(Categoria.class, id);
-            if (categoria != null) {
-                entityManager.remove(categoria);
-            }
-            
-            if (needsTransaction) {
-                entityManager.getTransaction().commit();
-            }
-        } catch (Exception e) {
-            if (needsTransaction && entityManager.getTransaction().isActive()) {
-                entityManager.getTransaction().rollback();
-            }
-            throw e;
+        EntityManager em = getEntityManagerParaEscrita();
+        Categoria categoria = em.find(Categoria.class, id);
+        if (categoria != null) {
+            em.remove(categoria);
         }
     }
 }
\ No newline at end of file
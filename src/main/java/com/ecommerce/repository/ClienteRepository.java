@@ -1,6 +1,8 @@
 package com.ecommerce.repository;
 
 import com.ecommerce.domain.Cliente;
+import com.ecommerce.domain.Identificadores;
+import com.ecommerce.config.DatabaseConfig;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.NoResultException;
 import jakarta.persistence.TypedQuery;
@@ -14,53 +16,62 @@ import java.util.UUID;
  */
 public class ClienteRepository {
     
-    private final EntityManager entityManager;
+    // Não armazena mais EntityManager fixo - usa o do request atual
+    private final EntityManager defaultEntityManager;
     
-    public ClienteRepository(EntityManager entityManager) {
-        this.entityManager = entityManager;
+    public ClienteRepository(EntityManager defaultEntityManager) {
+        this.defaultEntityManager = defaultEntityManager;
+    }
+    
+    /**
+     * Obtém o EntityManager apropriado (do request atual se disponível)
+     */
+    private EntityManager getEntityManager() {
+        return DatabaseConfig.getEntityManagerOrDefault(defaultEntityManager);
+    }
+    
+    /**
+     * Obtém o EntityManager para gravações (transação do request garantida, flush só no commit)
+     */
+    private EntityManager getEntityManagerParaEscrita() {
+        return DatabaseConfig.getEntityManagerParaEscrita();
     }
     
     /**
      * Salva ou atualiza um cliente
      */
     public Cliente save(Cliente cliente) {
-        boolean needsTransaction = !entityManager.getTransaction().isActive();
-        if (needsTransaction) {
-            entityManager.getTransaction().begin();
-        }
-        
-        try {
-            // Use merge for both new and existing entities - let @GeneratedValue handle IDs
-            cliente = entityManager.merge(cliente);
-            entityManager.flush(); // Force INSERT/UPDATE to show in logs
-            
-            if (needsTransaction) {
-                entityManager.getTransaction().commit();
-            }
-            
+        EntityManager em = getEntityManagerParaEscrita();
+        if (cliente.getId() == null) {
+            // Cliente sem usuário (POST /clientes): ID novo; com usuário o chamador já passa o ID dele
+            cliente.setId(Identificadores.novo());
+            em.persist(cliente);
             return cliente;
-        } catch (Exception e) {
-            if (needsTransaction && entityManager.getTransaction().isActive()) {
-                entityManager.getTransaction().rollback();
-            }
-            throw e;
         }
+        return em.merge(cliente);
     }
     
     /**
      * Busca cliente por ID
      */
     public Optional<Cliente> findById(UUID id) {
-        Cliente cliente = entityManager.find(Cliente.class, id);
+        Cliente cliente = getEntityManager().find(Cliente.class, id);
         return Optional.ofNullable(cliente);
     }
     
+    /**
+     * Referência para um cliente de ID conhecido, sem consulta (carregada só se um campo for lido)
+     */
+    public Cliente getReference(UUID id) {
+        return getEntityManager().getReference(Cliente.class, id);
+    }
+    
     /**
      * Busca cliente por email
      */
     public Optional<Cliente> findByEmail(String email) {
         try {
-            TypedQuery<Cliente> query = entityManager.createQuery(
+            TypedQuery<Cliente> query = getEntityManager().createQuery(
                 "SELECT c FROM Cliente c WHERE c.email = :email", Cliente.class);
             query.setParameter("email", email);
             Cliente cliente = query.getSingleResult();
@@ -74,7 +85,7 @@ public class ClienteRepository {
      * Busca clientes por nome (busca parcial)
      */
     public List<Cliente> findByNomeContaining(String nome) {
-        TypedQuery<Cliente> query = entityManager.createQuery(
+        TypedQuery<Cliente> query = getEntityManager().createQuery(
             "SELECT c FROM Cliente c WHERE LOWER(c.nome) LIKE LOWER(:nome) ORDER BY c.nome", Cliente.class);
         query.setParameter("nome", "%" + nome + "%");
         return query.getResultList();
@@ -84,7 +95,7 @@ public class ClienteRepository {
      * Lista todos os clientes
      */
     public List<Cliente> findAll() {
-        TypedQuery<Cliente> query = entityManager.createQuery(
+        TypedQuery<Cliente> query = getEntityManager().createQuery(
             "SELECT c FROM Cliente c ORDER BY c.nome", Cliente.class);
         return query.getResultList();
     }
@@ -93,7 +104,7 @@ public class ClienteRepository {
      * Verifica se existe cliente com email
      */
     public boolean existsByEmail(String email) {
-        TypedQuery<Long> query = entityManager.createQuery(
+        TypedQuery<Long> query = getEntityManager().createQuery(
             "SELECT COUNT(c) FROM Cliente c WHERE c.email = :email", Long.class);
         query.setParameter("email", email);
         return query.getSingleResult() > 0;
@@ -103,7 +114,7 @@ public class ClienteRepository {
      * Conta total de clientes
      */
     public long count() {
-        TypedQuery<Long> query = entityManager.createQuery(
+        TypedQuery<Long> query = getEntityManager().createQuery(
             "SELECT COUNT(c) FROM Cliente c", Long.class);
         return query.getSingleResult();
     }
@@ -113,7 +124,7 @@ public class ClienteRepository {
      */
     public Optional<Cliente> findByIdWithEnderecos(UUID id) {
         try {
-            TypedQuery<Cliente> query = entityManager.createQuery(
+            TypedQuery<Cliente> query = getEntityManager().createQuery(
                 "SELECT c FROM Cliente c LEFT JOIN FETCH c.enderecos WHERE c.id = :id", Cliente.class);
             query.setParameter("id", id);
             Cliente cliente = query.getSingleResult();
@@ -128,7 +139,7 @@ public class ClienteRepository {
      */
     public Optional<Cliente> findByIdWithCarrinho(UUID id) {
         try {
-            TypedQuery<Cliente> query = entityManager.createQuery(
+            TypedQuery<Cliente> query = getEntityManager().createQuery(
                 "SELECT c FROM Cliente c LEFT JOIN FETCH c.carrinho WHERE c.id = :id", Cliente.class);
             query.setParameter("id", id);
             Cliente cliente = query.getSingleResult();
@@ -142,9 +153,10 @@ public class ClienteRepository {
      * Remove cliente por ID
      */
     public void deleteById(UUID id) {
-        Cliente cliente = entityManager.find(Cliente.class, id);
+        EntityManager em = getEntityManagerParaEscrita();
+        Cliente cliente = em.find(Cliente.class, id);
         if (cliente != null) {
-            entityManager.remove(cliente);
+            em.remove(cliente);
         }
     }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.ecommerce.repository;
 
 import com.ecommerce.domain.Cliente;
 import com.ecommerce.domain.Endereco;
+import com.ecommerce.config.DatabaseConfig;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.TypedQuery;
 
@@ -14,49 +15,44 @@ import java.util.UUID;
  */
 public class EnderecoRepository {
     
-    private final EntityManager entityManager;
+    // Não armazena mais EntityManager fixo - usa o do request atual
+    private final EntityManager defaultEntityManager;
     
-    public EnderecoRepository(EntityManager entityManager) {
-        this.entityManager = entityManager;
+    public EnderecoRepository(EntityManager defaultEntityManager) {
+        this.defaultEntityManager = defaultEntityManager;
+    }
+    
+    /**
+     * Obtém o EntityManager apropriado (do request atual se disponível)
+     */
+    private EntityManager getEntityManager() {
+        return DatabaseConfig.getEntityManagerOrDefault(defaultEntityManager);
+    }
+    
+    /**
+     * Obtém o EntityManager para gravações (transação do request garantida, flush só no commit)
+     */
+    private EntityManager getEntityManagerParaEscrita() {
+        return DatabaseConfig.getEntityManagerParaEscrita();
     }
     
     /**
      * Salva ou atualiza um endereço
      */
     public Endereco save(Endereco endereco) {
-        boolean needsTransaction = !entityManager.getTransaction().isActive();
-        if (needsTransaction) {
-            entityManager.getTransaction().begin();
-        }
-        
-        try {
-            if (endereco.getId() == null) {
-                endereco.setId(UUID.randomUUID());
-                entityManager.persist(endereco);
-                entityManager.flush();
-            } else {
-                endereco = entityManager.merge(endereco);
-                entityManager.flush();
-            }
-            
-            if (needsTransaction) {
-                entityManager.getTransaction().commit();
-            }
-            
+        EntityManager em = getEntityManagerParaEscrita();
+        if (endereco.getId() == null) {
+            em.persist(endereco);
             return endereco;
-        } catch (Exception e) {
-            if (needsTransaction && entityManager.getTransaction().isActive()) {
-                entityManager.getTransaction().rollback();
-            }
-            throw e;
         }
+        return em.merge(endereco);
     }
     
     /**
      * Busca endereço por ID
      */
     public Optional<Endereco> findById(UUID id) {
-        Endereco endereco = entityManager.find(Endereco.class, id);
+        Endereco endereco = getEntityManager().find(Endereco.class, id);
         return Optional.ofNullable(endereco);
     }
     
@@ -66,7 +62,7 @@ public class EnderecoRepository {
      */
     public Optional<Endereco> findByIdAndClienteId(UUID id, UUID clienteId) {
         try {
-            TypedQuery<Endereco> query = entityManager.createQuery(
+            TypedQuery<Endereco> query = getEntityManager().createQuery(
                 "SELECT e FROM Endereco e WHERE e.id = :id AND e.cliente.id = :clienteId", Endereco.class);
             query.setParameter("id", id);
             query.setParameter("clienteId", clienteId);
@@ -82,7 +78,7 @@ public class EnderecoRepository {
      * Alternativa mais explícita ao findByClienteId
      */
     public List<Endereco> findAllByClienteId(UUID clienteId) {
-        TypedQuery<Endereco> query = entityManager.createQuery(
+        TypedQuery<Endereco> query = getEntityManager().createQuery(
             "SELECT e FROM Endereco e WHERE e.cliente.id = :clienteId ORDER BY e.id", Endereco.class);
         query.setParameter("clienteId", clienteId);
         return query.getResultList();
@@ -92,7 +88,7 @@ public class EnderecoRepository {
      * Lista endereços por cliente
      */
     public List<Endereco> findByCliente(Cliente cliente) {
-        TypedQuery<Endereco> query = entityManager.createQuery(
+        TypedQuery<Endereco> query = getEntityManager().createQuery(
             "SELECT e FROM Endereco e WHERE e.cliente = :cliente ORDER BY e.id", Endereco.class);
         query.setParameter("cliente", cliente);
         return query.getResultList();
@@ -102,7 +98,7 @@ public class EnderecoRepository {
      * Lista endereços por cliente ID
      */
     public List<Endereco> findByClienteId(UUID clienteId) {
-        TypedQuery<Endereco> query = entityManager.createQuery(
+        TypedQuery<Endereco> query = getEntityManager().createQuery(
             "SELECT e FROM Endereco e WHERE e.cliente.id = :clienteId ORDER BY e.id", Endereco.class);
         query.setParameter("clienteId", clienteId);
         return query.getResultList();
@@ -113,7 +109,7 @@ public class EnderecoRepository {
      */
     public Optional<Endereco> findByClienteIdAndEhPadrao(UUID clienteId, Boolean ehPadrao) {
         try {
-            TypedQuery<Endereco> query = entityManager.createQuery(
+            TypedQuery<Endereco> query = getEntityManager().createQuery(
                 "SELECT e FROM Endereco e WHERE e.cliente.id = :clienteId AND e.ehPadrao = :ehPadrao", Endereco.class);
             query.setParameter("clienteId", clienteId);
             query.setParameter("ehPadrao", ehPadrao);
@@ -128,7 +124,7 @@ public class EnderecoRepository {
      * Busca endereços por cidade
      */
     public List<Endereco> findByCidade(String cidade) {
-        TypedQuery<Endereco> query = entityManager.createQuery(
+        TypedQuery<Endereco> query = getEntityManager().createQuery(
             "SELECT e FROM Endereco e WHERE LOWER(e.cidade) = LOWER(:cidade) ORDER BY e.rua", Endereco.class);
         query.setParameter("cidade", cidade);
         return query.getResultList();
@@ -138,7 +134,7 @@ public class EnderecoRepository {
      * Busca endereços por CEP
      */
     public List<Endereco> findByCep(String cep) {
-        TypedQuery<Endereco> query = entityManager.createQuery(
+        TypedQuery<Endereco> query = getEntityManager().createQuery(
             "SELECT e FROM Endereco e WHERE e.cep = :cep ORDER BY e.rua", Endereco.class);
         query.setParameter("cep", cep);
         return query.getResultList();
@@ -148,7 +144,7 @@ public class EnderecoRepository {
      * Conta endereços por cliente
      */
     public long countByCliente(UUID clienteId) {
-        TypedQuery<Long> query = entityManager.createQuery(
+        TypedQuery<Long> query = getEntityManager().createQuery(
             "SELECT COUNT(e) FROM Endereco e WHERE e.cliente.id = :clienteId", Long.class);
         query.setParameter("clienteId", clienteId);
         return query.getSingleResult();
@@ -158,7 +154,7 @@ public class EnderecoRepository {
      * Verifica se cliente possui endereço específico
      */
     public boolean existsByClienteAndId(UUID clienteId, UUID enderecoId) {
-        TypedQuery<Long> query = entityManager.createQuery(
+        TypedQuery<Long> query = getEntityManager().createQuery(
             "SELECT COUNT(e) FROM Endereco e WHERE e.cliente.id = :clienteId AND e.id = :enderecoId", Long.class);
         query.setParameter("clienteId", clienteId);
         query.setParameter("enderecoId", enderecoId);
@@ -169,38 +165,20 @@ public class EnderecoRepository {
      * Desmarca endereço padrão de um cliente
      */
     public void desmarcarEnderecoPadrao(UUID clienteId) {
-        boolean needsTransaction = !entityManager.getTransaction().isActive();
-        if (needsTransaction) {
-            entityManager.getTransaction().begin();
+        EntityManager em = getEntityManagerParaEscrita();
+        // Busca todos os endereços do cliente que estão marcados como padrão
+        TypedQuery<Endereco> query = em.createQuery(
+            "SELECT e FROM Endereco e WHERE e.cliente.id = :clienteId AND e.ehPadrao = true", Endereco.class);
+        query.setParameter("clienteId", clienteId);
+        List<Endereco> enderecosPadrao = query.getResultList();
+        
+        // Entidades gerenciadas: o dirty checking gera os UPDATEs no flush do commit
+        for (Endereco endereco : enderecosPadrao) {
+            endereco.setEhPadrao(false);
         }
         
-        try {
-            // Busca todos os endereços do cliente que estão marcados como padrão
-            TypedQuery<Endereco> query = entityManager.createQuery(
-                "SELECT e FROM Endereco e WHERE e.cliente.id = :clienteId AND e.ehPadrao = true", Endereco.class);
-            query.setParameter("clienteId", clienteId);
-            List<Endereco> enderecosPadrao = query.getResultList();
-            
-            // Atualiza cada endereço individualmente
-            for (Endereco endereco : enderecosPadrao) {
-                endereco.setEhPadrao(false);
-                entityManager.merge(endereco);
-            }
-            
-            // Força flush para garantir que as mudanças sejam aplicadas
-            if (!enderecosPadrao.isEmpty()) {
-                entityManager.flush();
-                System.out.println("Desmarcados " + enderecosPadrao.size() + " endereços padrão para cliente: " + clienteId);
-            }
-            
-            if (needsTransaction) {
-                entityManager.getTransaction().commit();
-            }
-        } catch (Exception e) {
-            if (needsTransaction && entityManager.getTransaction().isActive()) {
-                entityManager.getTransaction().rollback();
-            }
-            throw e;
+        if (!enderecosPadrao.isEmpty()) {
+            System.out.println("Desmarcados " + enderecosPadrao.size() + " endereços padrão para cliente: " + clienteId);
         }
     }
     
@@ -208,9 +186,10 @@ public class EnderecoRepository {
      * Remove endereço por ID
      */
     public void deleteById(UUID id) {
-        Endereco endereco = entityManager.find(Endereco.class, id);
+        EntityManager em = getEntityManagerParaEscrita();
+        Endereco endereco = em.find(Endereco.class, id);
         if (endereco != null) {
-            entityManager.remove(endereco);
+            em.remove(endereco);
         }
     }
     
@@ -218,12 +197,13 @@ public class EnderecoRepository {
      * Remove endereço
      */
     public void delete(Endereco endereco) {
-        if (endereco != null && entityManager.contains(endereco)) {
-            entityManager.remove(endereco);
+        EntityManager em = getEntityManagerParaEscrita();
+        if (endereco != null && em.contains(endereco)) {
+            em.remove(endereco);
         } else if (endereco != null && endereco.getId() != null) {
-            Endereco managed = entityManager.find(Endereco.class, endereco.getId());
+            Endereco managed = em.find(Endereco.class, endereco.getId());
             if (managed != null) {
-                entityManager.remove(managed);
+                em.remove(managed);
             }
         }
     }
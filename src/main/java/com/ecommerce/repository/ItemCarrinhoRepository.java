@@ -3,6 +3,7 @@ package com.ecommerce.repository;
 import com.ecommerce.domain.Carrinho;
 import com.ecommerce.domain.ItemCarrinho;
 import com.ecommerce.domain.Produto;
+import com.ecommerce.config.DatabaseConfig;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.NoResultException;
 import jakarta.persistence.TypedQuery;
@@ -16,6 +17,9 @@ import java.util.UUID;
  */
 public class ItemCarrinhoRepository {
     
+    // Mesmo nome do @Index de ItemCarrinho
+    public static final String INDICE_UNICO_PRODUTO = "idx_item_carrinho_carrinho_produto";
+    
     private final EntityManager defaultEntityManager;
     
     public ItemCarrinhoRepository(EntityManager defaultEntityManager) {
@@ -26,26 +30,27 @@ public class ItemCarrinhoRepository {
      * Obtém o EntityManager apropriado (do request atual se disponível)
      */
     private EntityManager getEntityManager() {
-        try {
-            // Tenta obter o EntityManager do request atual (com transação ativa)
-            return com.ecommerce.config.DatabaseConfig.getEntityManager();
-        } catch (IllegalStateException e) {
-            // Se não houver request ativo, usa o default
-            return defaultEntityManager;
-        }
+        return DatabaseConfig.getEntityManagerOrDefault(defaultEntityManager);
+    }
+    
+    /**
+     * Obtém o EntityManager para gravações (transação do request garantida, flush só no commit)
+     */
+    private EntityManager getEntityManagerParaEscrita() {
+        return DatabaseConfig.getEntityManagerParaEscrita();
     }
     
     /**
      * Salva ou atualiza um item do carrinho
      */
     public ItemCarrinho save(ItemCarrinho item) {
-        EntityManager em = getEntityManager();
-        // Transação já deve estar ativa pelo TransactionFilter
+        EntityManager em = getEntityManagerParaEscrita();
         try {
-            // Use merge for both new and existing entities - more flexible than persist
-            item = em.merge(item);
-            em.flush(); // Force INSERT/UPDATE to show in logs
-            return item;
+            if (item.getId() == null) {
+                em.persist(item);
+                return item;
+            }
+            return em.merge(item);
         } catch (Exception e) {
             throw new RuntimeException("Erro ao salvar item do carrinho: " + e.getMessage(), e);
         }
@@ -122,13 +127,14 @@ public class ItemCarrinhoRepository {
     }
     
     /**
-     * Calcula quantidade total de itens no carrinho
+     * Quantidade total de itens no carrinho (total desnormalizado em carrinhos, sem agregação)
      */
     public int sumQuantidadeByCarrinho(UUID carrinhoId) {
-        TypedQuery<Long> query = getEntityManager().createQuery(
-            "SELECT COALESCE(SUM(i.quantidade), 0) FROM ItemCarrinho i WHERE i.carrinho.id = :carrinhoId", Long.class);
-        query.setParameter("carrinhoId", carrinhoId);
-        return query.getSingleResult().intValue();
+        List<Integer> total = getEntityManager().createQuery(
+            "SELECT c.totalQuantidade FROM Carrinho c WHERE c.id = :carrinhoId", Integer.class)
+            .setParameter("carrinhoId", carrinhoId)
+            .getResultList();
+        return total.isEmpty() || total.get(0) == null ? 0 : total.get(0);
     }
     
     /**
@@ -146,7 +152,7 @@ public class ItemCarrinhoRepository {
      * Remove item do carrinho por ID
      */
     public void deleteById(UUID id) {
-        EntityManager em = getEntityManager();
+        EntityManager em = getEntityManagerParaEscrita();
         // Transação já deve estar ativa pelo TransactionFilter
         try {
             // Usar query DELETE diretamente para garantir que funciona
@@ -163,7 +169,7 @@ public class ItemCarrinhoRepository {
      * Remove todos os itens do carrinho
      */
     public void deleteByCarrinhoId(UUID carrinhoId) {
-        EntityManager em = getEntityManager();
+        EntityManager em = getEntityManagerParaEscrita();
         // Transação já deve estar ativa pelo TransactionFilter
         try {
             // Usar query DELETE em massa para melhor performance
@@ -177,4 +183,65 @@ public class ItemCarrinhoRepository {
             throw new RuntimeException("Erro ao limpar carrinho", e);
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * Remove todos os itens do carrinho do cliente com um único DELETE, sem carregar o carrinho
+     */
+    public void deleteByClienteId(UUID clienteId) {
+        EntityManager em = getEntityManagerParaEscrita();
+        try {
+            int deletedCount = em.createQuery(
+                "DELETE FROM ItemCarrinho i WHERE i.carrinho.id IN (SELECT c.id FROM Carrinho c WHERE c.cliente.id = :clienteId)")
+                .setParameter("clienteId", clienteId)
+                .executeUpdate();
+            
+            System.out.println("✅ Removidos " + deletedCount + " itens do carrinho do cliente: " + clienteId);
+        } catch (Exception e) {
+            throw new RuntimeException("Erro ao limpar carrinho", e);
+        }
+    }
+    
+    /**
+     * Mescla itens duplicados do mesmo produto no mesmo carrinho (criados antes do índice único):
+     * fica uma linha por (carrinho_id, produto_id), com a soma das quantidades. Os totais do
+     * carrinho são recalculados quando ele é carregado de novo (CarrinhosEmMemoria).
+     *
+     * @return Quantidade de linhas duplicadas removidas
+     */
+    public int mesclarDuplicados() {
+        EntityManager em = getEntityManagerParaEscrita();
+        // Sem inserções concorrentes (outra instância subindo) entre a mescla e a criação do índice
+        em.createNativeQuery("LOCK TABLE itens_carrinho IN SHARE ROW EXCLUSIVE MODE").executeUpdate();
+        return em.createNativeQuery(
+            "WITH grupos AS (" +
+            "  SELECT carrinho_id, produto_id, MIN(id::text)::uuid AS manter, SUM(quantidade) AS total " +
+            "  FROM itens_carrinho GROUP BY carrinho_id, produto_id HAVING COUNT(*) > 1), " +
+            "mesclados AS (" +
+            "  UPDATE itens_carrinho i SET quantidade = LEAST(g.total, 2147483647) FROM grupos g WHERE i.id = g.manter) " +
+            "DELETE FROM itens_carrinho i USING grupos g " +
+            "WHERE i.carrinho_id = g.carrinho_id AND i.produto_id = g.produto_id AND i.id <> g.manter")
+            .executeUpdate();
+    }
+    
+    /**
+     * Cria o índice único (carrinho_id, produto_id), chave do ON CONFLICT de
+     * CarrinhoRepository.gravarEstados, se ainda não existir
+     */
+    public void criarIndiceUnicoProduto() {
+        getEntityManagerParaEscrita().createNativeQuery(
+            "CREATE UNIQUE INDEX IF NOT EXISTS " + INDICE_UNICO_PRODUTO + " ON itens_carrinho (carrinho_id, produto_id)")
+            .executeUpdate();
+    }
+    
+    /**
+     * Verifica se o índice único (carrinho_id, produto_id) existe, é único e está válido
+     */
+    public boolean existeIndiceUnicoProduto() {
+        List<?> resultado = getEntityManager().createNativeQuery(
+            "SELECT 1 FROM pg_index x JOIN pg_class c ON c.oid = x.indexrelid " +
+            "WHERE x.indrelid = to_regclass('itens_carrinho') AND c.relname = :nome AND x.indisunique AND x.indisvalid")
+            .setParameter("nome", INDICE_UNICO_PRODUTO)
+            .getResultList();
+        return !resultado.isEmpty();
+    }
+}
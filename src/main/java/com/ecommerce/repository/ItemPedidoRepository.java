@@ -3,6 +3,7 @@ package com.ecommerce.repository;
 import com.ecommerce.domain.ItemPedido;
 import com.ecommerce.domain.Pedido;
 import com.ecommerce.domain.Produto;
+import com.ecommerce.config.DatabaseConfig;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.TypedQuery;
 
@@ -15,22 +16,37 @@ import java.util.UUID;
  */
 public class ItemPedidoRepository {
     
-    private final EntityManager entityManager;
+    // Não armazena mais EntityManager fixo - usa o do request atual
+    private final EntityManager defaultEntityManager;
     
-    public ItemPedidoRepository(EntityManager entityManager) {
-        this.entityManager = entityManager;
+    public ItemPedidoRepository(EntityManager defaultEntityManager) {
+        this.defaultEntityManager = defaultEntityManager;
+    }
+    
+    /**
+     * Obtém o EntityManager apropriado (do request atual se disponível)
+     */
+    private EntityManager getEntityManager() {
+        return DatabaseConfig.getEntityManagerOrDefault(defaultEntityManager);
+    }
+    
+    /**
+     * Obtém o EntityManager para gravações (transação do request garantida, flush só no commit)
+     */
+    private EntityManager getEntityManagerParaEscrita() {
+        return DatabaseConfig.getEntityManagerParaEscrita();
     }
     
     /**
      * Salva ou atualiza um item do pedido
      */
     public ItemPedido save(ItemPedido item) {
+        EntityManager em = getEntityManagerParaEscrita();
         if (item.getId() == null) {
-            item.setId(UUID.randomUUID());
-            entityManager.persist(item);
+            em.persist(item);
             return item;
         } else {
-            return entityManager.merge(item);
+            return em.merge(item);
         }
     }
     
@@ -38,7 +54,7 @@ public class ItemPedidoRepository {
      * Busca item do pedido por ID
      */
     public Optional<ItemPedido> findById(UUID id) {
-        ItemPedido item = entityManager.find(ItemPedido.class, id);
+        ItemPedido item = getEntityManager().find(ItemPedido.class, id);
         return Optional.ofNullable(item);
     }
     
@@ -46,7 +62,7 @@ public class ItemPedidoRepository {
      * Lista itens por pedido
      */
     public List<ItemPedido> findByPedido(Pedido pedido) {
-        TypedQuery<ItemPedido> query = entityManager.createQuery(
+        TypedQuery<ItemPedido> query = getEntityManager().createQuery(
             "SELECT i FROM ItemPedido i WHERE i.pedido = :pedido ORDER BY i.id", ItemPedido.class);
         query.setParameter("pedido", pedido);
         return query.getResultList();
@@ -56,7 +72,7 @@ public class ItemPedidoRepository {
      * Lista itens por pedido ID
      */
     public List<ItemPedido> findByPedidoId(UUID pedidoId) {
-        TypedQuery<ItemPedido> query = entityManager.createQuery(
+        TypedQuery<ItemPedido> query = getEntityManager().createQuery(
             "SELECT i FROM ItemPedido i WHERE i.pedido.id = :pedidoId ORDER BY i.id", ItemPedido.class);
         query.setParameter("pedidoId", pedidoId);
         return query.getResultList();
@@ -66,7 +82,7 @@ public class ItemPedidoRepository {
      * Lista itens por produto
      */
     public List<ItemPedido> findByProduto(Produto produto) {
-        TypedQuery<ItemPedido> query = entityManager.createQuery(
+        TypedQuery<ItemPedido> query = getEntityManager().createQuery(
             "SELECT i FROM ItemPedido i WHERE i.produto = :produto ORDER BY i.pedido.dataPedido DESC", ItemPedido.class);
         query.setParameter("produto", produto);
         return query.getResultList();
@@ -76,7 +92,7 @@ public class ItemPedidoRepository {
      * Lista itens por produto ID
      */
     public List<ItemPedido> findByProdutoId(UUID produtoId) {
-        TypedQuery<ItemPedido> query = entityManager.createQuery(
+        TypedQuery<ItemPedido> query = getEntityManager().createQuery(
             "SELECT i FROM ItemPedido i WHERE i.produto.id = :produtoId ORDER BY i.pedido.dataPedido DESC", ItemPedido.class);
         query.setParameter("produtoId", produtoId);
         return query.getResultList();
@@ -86,7 +102,7 @@ public class ItemPedidoRepository {
      * Conta itens no pedido
      */
     public long countByPedido(UUID pedidoId) {
-        TypedQuery<Long> query = entityManager.createQuery(
+        TypedQuery<Long> query = getEntityManager().createQuery(
             "SELECT COUNT(i) FROM ItemPedido i WHERE i.pedido.id = :pedidoId", Long.class);
         query.setParameter("pedidoId", pedidoId);
         return query.getSingleResult();
@@ -96,7 +112,7 @@ public class ItemPedidoRepository {
      * Calcula quantidade total vendida de um produto
      */
     public int sumQuantidadeByProduto(UUID produtoId) {
-        TypedQuery<Long> query = entityManager.createQuery(
+        TypedQuery<Long> query = getEntityManager().createQuery(
             "SELECT COALESCE(SUM(i.quantidade), 0) FROM ItemPedido i WHERE i.produto.id = :produtoId", Long.class);
         query.setParameter("produtoId", produtoId);
         return query.getSingleResult().intValue();
@@ -106,7 +122,7 @@ public class ItemPedidoRepository {
      * Lista produtos mais vendidos
      */
     public List<Object[]> findTopSellingProducts(int limit) {
-        TypedQuery<Object[]> query = entityManager.createQuery(
+        TypedQuery<Object[]> query = getEntityManager().createQuery(
             "SELECT i.produto, SUM(i.quantidade) as totalVendido " +
             "FROM ItemPedido i " +
             "GROUP BY i.produto " +
@@ -119,9 +135,10 @@ public class ItemPedidoRepository {
      * Remove item do pedido por ID
      */
     public void deleteById(UUID id) {
-        ItemPedido item = entityManager.find(ItemPedido.class, id);
+        EntityManager em = getEntityManagerParaEscrita();
+        ItemPedido item = em.find(ItemPedido.class, id);
         if (item != null) {
-            entityManager.remove(item);
+            em.remove(item);
         }
     }
     
@@ -129,12 +146,13 @@ public class ItemPedidoRepository {
      * Remove todos os itens do pedido
      */
     public void deleteByPedidoId(UUID pedidoId) {
-        TypedQuery<ItemPedido> query = entityManager.createQuery(
+        EntityManager em = getEntityManagerParaEscrita();
+        TypedQuery<ItemPedido> query = em.createQuery(
             "SELECT i FROM ItemPedido i WHERE i.pedido.id = :pedidoId", ItemPedido.class);
         query.setParameter("pedidoId", pedidoId);
         List<ItemPedido> itens = query.getResultList();
         for (ItemPedido item : itens) {
-            entityManager.remove(item);
+            em.remove(item);
         }
     }
 }
\ No newline at end of file
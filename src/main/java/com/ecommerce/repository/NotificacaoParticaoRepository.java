@@ -0,0 +1,180 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.config.DatabaseConfig;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Repositório das partições da tabela notificacoes (particionamento por intervalo de criado_em,
+ * uma partição por mês). Só DDL e catálogo do PostgreSQL; as consultas das notificações ficam em
+ * NotificacaoRepository.
+ */
+public class NotificacaoParticaoRepository {
+    
+    public static final String TABELA = "notificacoes";
+    public static final String PARTICAO_LEGADO = "notificacoes_legado";
+    public static final String PARTICAO_PADRAO = "notificacoes_padrao";
+    
+    private static final DateTimeFormatter LIMITE = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    // Limites como o pg_get_expr devolve: FOR VALUES FROM ('2024-05-01 00:00:00') TO ('2024-06-01 00:00:00')
+    private static final Pattern INTERVALO = Pattern.compile("FROM \\((?:'([^']+)'|MINVALUE)\\) TO \\((?:'([^']+)'|MAXVALUE)\\)");
+    
+    private final EntityManager defaultEntityManager;
+    
+    public NotificacaoParticaoRepository(EntityManager defaultEntityManager) {
+        this.defaultEntityManager = defaultEntityManager;
+    }
+    
+    /**
+     * Partição da tabela: [inicio, fim) em criado_em; inicio/fim nulos = sem limite; padrao = partição DEFAULT
+     */
+    public record Particao(String nome, LocalDateTime inicio, LocalDateTime fim, boolean padrao) {
+    }
+    
+    /**
+     * Obtém o EntityManager apropriado (do request atual se disponível)
+     */
+    private EntityManager getEntityManager() {
+        return DatabaseConfig.getEntityManagerOrDefault(defaultEntityManager);
+    }
+    
+    /**
+     * Obtém o EntityManager para gravações (transação do request garantida, flush só no commit)
+     */
+    private EntityManager getEntityManagerParaEscrita() {
+        return DatabaseConfig.getEntityManagerParaEscrita();
+    }
+    
+    /**
+     * Verifica se a tabela notificacoes já é particionada (false também se ela não existir)
+     */
+    public boolean isParticionada() {
+        List<?> resultado = getEntityManager().createNativeQuery(
+            "SELECT c.relkind = 'p' FROM pg_class c WHERE c.oid = to_regclass(:tabela)")
+            .setParameter("tabela", TABELA)
+            .getResultList();
+        return !resultado.isEmpty() && Boolean.TRUE.equals(resultado.get(0));
+    }
+    
+    /**
+     * Converte a tabela comum criada pelo Hibernate em tabela particionada por criado_em sem copiar
+     * linhas: a tabela atual vira a partição notificacoes_legado, com as linhas anteriores a
+     * limiteLegado (o início do próximo mês). A chave primária passa a ser (id, criado_em), como o
+     * PostgreSQL exige em tabelas particionadas, na tabela nova e também na partição legado (o
+     * índice da chave é reconstruído nela); os índices e chaves estrangeiras são recriados na
+     * tabela nova e valem para todas as partições. Os nomes são os declarados em Notificacao:
+     * mudar um lado exige mudar o outro, senão o hbm2ddl cria uma segunda constraint/índice.
+     */
+    public void converterParaParticionada(LocalDateTime limiteLegado) {
+        getEntityManagerParaEscrita().unwrap(Session.class).doWork(connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("LOCK TABLE " + TABELA + " IN ACCESS EXCLUSIVE MODE");
+                statement.execute("ALTER TABLE " + TABELA + " RENAME TO " + PARTICAO_LEGADO);
+                
+                // Nomes de índices são únicos no schema: os da tabela antiga ganham o sufixo _legado
+                List<String> indices = new ArrayList<>();
+                try (ResultSet resultado = statement.executeQuery(
+                         "SELECT indexname FROM pg_indexes WHERE schemaname = current_schema() AND tablename = '" + PARTICAO_LEGADO + "'")) {
+                    while (resultado.next()) {
+                        indices.add(resultado.getString(1));
+                    }
+                }
+                for (String indice : indices) {
+                    statement.execute("ALTER INDEX \"" + indice + "\" RENAME TO \"" + indice + "_legado\"");
+                }
+                
+                // O ATTACH exige na partição a mesma chave primária da tabela nova: a PK (id) criada
+                // pelo Hibernate é trocada por (id, criado_em), senão o PostgreSQL tenta criar uma segunda
+                String chaveLegado = null;
+                try (ResultSet resultado = statement.executeQuery(
+                         "SELECT conname FROM pg_constraint WHERE conrelid = '" + PARTICAO_LEGADO + "'::regclass AND contype = 'p'")) {
+                    if (resultado.next()) {
+                        chaveLegado = resultado.getString(1);
+                    }
+                }
+                if (chaveLegado != null) {
+                    statement.execute("ALTER TABLE " + PARTICAO_LEGADO + " DROP CONSTRAINT \"" + chaveLegado + "\"");
+                }
+                statement.execute("ALTER TABLE " + PARTICAO_LEGADO + " ADD CONSTRAINT " + PARTICAO_LEGADO + "_pkey PRIMARY KEY (id, criado_em)");
+                
+                statement.execute("CREATE TABLE " + TABELA + " (LIKE " + PARTICAO_LEGADO + " INCLUDING DEFAULTS INCLUDING CONSTRAINTS) " +
+                    "PARTITION BY RANGE (criado_em)");
+                statement.execute("ALTER TABLE " + TABELA + " ADD CONSTRAINT notificacoes_pkey PRIMARY KEY (id, criado_em)");
+                statement.execute("ALTER TABLE " + TABELA + " ADD CONSTRAINT fk_notificacao_pedido FOREIGN KEY (pedido_id) REFERENCES pedidos (id)");
+                statement.execute("ALTER TABLE " + TABELA + " ADD CONSTRAINT fk_notificacao_cliente FOREIGN KEY (cliente_id) REFERENCES clientes (id)");
+                statement.execute("CREATE INDEX idx_notificacao_criado_em ON " + TABELA + " (criado_em)");
+                statement.execute("CREATE INDEX idx_notificacao_cliente_criado_em ON " + TABELA + " (cliente_id, criado_em)");
+                statement.execute("CREATE INDEX idx_notificacao_pedido ON " + TABELA + " (pedido_id)");
+                
+                statement.execute("ALTER TABLE " + TABELA + " ATTACH PARTITION " + PARTICAO_LEGADO +
+                    " FOR VALUES FROM (MINVALUE) TO ('" + LIMITE.format(limiteLegado) + "')");
+            }
+        });
+    }
+    
+    /**
+     * Lista as partições com seus limites, em ordem de nome
+     */
+    public List<Particao> listarParticoes() {
+        List<Object[]> linhas = getEntityManager().createNativeQuery(
+            "SELECT c.relname, pg_get_expr(c.relpartbound, c.oid) FROM pg_inherits i " +
+            "JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = to_regclass(:tabela) ORDER BY c.relname", Object[].class)
+            .setParameter("tabela", TABELA)
+            .getResultList();
+        List<Particao> particoes = new ArrayList<>();
+        for (Object[] linha : linhas) {
+            String nome = (String) linha[0];
+            String limites = (String) linha[1];
+            if ("DEFAULT".equals(limites)) {
+                particoes.add(new Particao(nome, null, null, true));
+                continue;
+            }
+            Matcher matcher = INTERVALO.matcher(limites);
+            if (matcher.find()) {
+                particoes.add(new Particao(nome, parseLimite(matcher.group(1)), parseLimite(matcher.group(2)), false));
+            }
+        }
+        return particoes;
+    }
+    
+    /**
+     * Cria a partição [inicio, fim) se ainda não existir
+     */
+    public void criarParticao(String nome, LocalDateTime inicio, LocalDateTime fim) {
+        getEntityManagerParaEscrita().createNativeQuery(
+            "CREATE TABLE IF NOT EXISTS " + nome + " PARTITION OF " + TABELA +
+            " FOR VALUES FROM ('" + LIMITE.format(inicio) + "') TO ('" + LIMITE.format(fim) + "')")
+            .executeUpdate();
+    }
+    
+    /**
+     * Cria a partição DEFAULT, que recebe linhas fora das partições mensais (ex.: job atrasado)
+     */
+    public void criarParticaoPadrao() {
+        getEntityManagerParaEscrita().createNativeQuery(
+            "CREATE TABLE IF NOT EXISTS " + PARTICAO_PADRAO + " PARTITION OF " + TABELA + " DEFAULT")
+            .executeUpdate();
+    }
+    
+    /**
+     * Desanexa a partição da tabela e a apaga (remoção de todas as suas linhas sem DELETE)
+     */
+    public void removerParticao(String nome) {
+        EntityManager em = getEntityManagerParaEscrita();
+        em.createNativeQuery("ALTER TABLE " + TABELA + " DETACH PARTITION " + nome).executeUpdate();
+        em.createNativeQuery("DROP TABLE " + nome).executeUpdate();
+    }
+    
+    private static LocalDateTime parseLimite(String limite) {
+        return limite == null ? null : LocalDateTime.parse(limite, LIMITE);
+    }
+}
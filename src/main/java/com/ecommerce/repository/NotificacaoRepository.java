@@ -4,35 +4,60 @@ import com.ecommerce.domain.Cliente;
 import com.ecommerce.domain.Notificacao;
 import com.ecommerce.domain.Pedido;
 import com.ecommerce.domain.Notificacao.TipoNotificacao;
+import com.ecommerce.config.DatabaseConfig;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.TypedQuery;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 /**
  * Repositório para operações com notificações
+ *
+ * A tabela notificacoes é particionada por mês em criado_em (ver NotificacaoParticaoRepository):
+ * consultas que filtram criado_em por intervalo leem só as partições do intervalo; as demais
+ * percorrem o índice correspondente de cada partição.
  */
 public class NotificacaoRepository {
     
-    private final EntityManager entityManager;
+    // Folga antes da criação do pedido ao procurar suas notificações (relógios de instâncias diferentes)
+    private static final long FOLGA_PEDIDO_HORAS = 24;
     
-    public NotificacaoRepository(EntityManager entityManager) {
-        this.entityManager = entityManager;
+    // Não armazena mais EntityManager fixo - usa o do request atual
+    private final EntityManager defaultEntityManager;
+    
+    public NotificacaoRepository(EntityManager defaultEntityManager) {
+        this.defaultEntityManager = defaultEntityManager;
+    }
+    
+    /**
+     * Obtém o EntityManager apropriado (do request atual se disponível)
+     */
+    private EntityManager getEntityManager() {
+        return DatabaseConfig.getEntityManagerOrDefault(defaultEntityManager);
+    }
+    
+    /**
+     * Obtém o EntityManager para gravações (transação do request garantida, flush só no commit)
+     */
+    private EntityManager getEntityManagerParaEscrita() {
+        return DatabaseConfig.getEntityManagerParaEscrita();
     }
     
     /**
      * Salva ou atualiza uma notificação
      */
     public Notificacao save(Notificacao notificacao) {
+        EntityManager em = getEntityManagerParaEscrita();
         if (notificacao.getId() == null) {
-            notificacao.setId(UUID.randomUUID());
-            entityManager.persist(notificacao);
+            em.persist(notificacao);
             return notificacao;
         } else {
-            return entityManager.merge(notificacao);
+            return em.merge(notificacao);
         }
     }
     
@@ -40,7 +65,7 @@ public class NotificacaoRepository {
      * Busca notificação por ID
      */
     public Optional<Notificacao> findById(UUID id) {
-        Notificacao notificacao = entityManager.find(Notificacao.class, id);
+        Notificacao notificacao = getEntityManager().find(Notificacao.class, id);
         return Optional.ofNullable(notificacao);
     }
     
@@ -48,7 +73,7 @@ public class NotificacaoRepository {
      * Lista notificações por cliente
      */
     public List<Notificacao> findByCliente(Cliente cliente) {
-        TypedQuery<Notificacao> query = entityManager.createQuery(
+        TypedQuery<Notificacao> query = getEntityManager().createQuery(
             "SELECT n FROM Notificacao n WHERE n.cliente = :cliente ORDER BY n.criadoEm DESC", Notificacao.class);
         query.setParameter("cliente", cliente);
         return query.getResultList();
@@ -58,29 +83,38 @@ public class NotificacaoRepository {
      * Lista notificações por cliente ID
      */
     public List<Notificacao> findByClienteId(UUID clienteId) {
-        TypedQuery<Notificacao> query = entityManager.createQuery(
+        TypedQuery<Notificacao> query = getEntityManager().createQuery(
             "SELECT n FROM Notificacao n WHERE n.cliente.id = :clienteId ORDER BY n.criadoEm DESC", Notificacao.class);
         query.setParameter("clienteId", clienteId);
         return query.getResultList();
     }
     
     /**
-     * Lista notificações por pedido
+     * Lista notificações por pedido (só as partições a partir da criação do pedido são lidas)
      */
     public List<Notificacao> findByPedido(Pedido pedido) {
-        TypedQuery<Notificacao> query = entityManager.createQuery(
-            "SELECT n FROM Notificacao n WHERE n.pedido = :pedido ORDER BY n.criadoEm DESC", Notificacao.class);
+        TypedQuery<Notificacao> query = getEntityManager().createQuery(
+            "SELECT n FROM Notificacao n WHERE n.pedido = :pedido AND n.criadoEm >= :desde ORDER BY n.criadoEm DESC", Notificacao.class);
         query.setParameter("pedido", pedido);
+        query.setParameter("desde", inicioNotificacoes(pedido.getCreatedAt()));
         return query.getResultList();
     }
     
     /**
-     * Lista notificações por pedido ID
+     * Lista notificações por pedido ID (só as partições a partir da criação do pedido são lidas)
      */
     public List<Notificacao> findByPedidoId(UUID pedidoId) {
-        TypedQuery<Notificacao> query = entityManager.createQuery(
-            "SELECT n FROM Notificacao n WHERE n.pedido.id = :pedidoId ORDER BY n.criadoEm DESC", Notificacao.class);
+        List<Instant> criacao = getEntityManager().createQuery(
+            "SELECT p.createdAt FROM Pedido p WHERE p.id = :pedidoId", Instant.class)
+            .setParameter("pedidoId", pedidoId)
+            .getResultList();
+        if (criacao.isEmpty()) {
+            return List.of();
+        }
+        TypedQuery<Notificacao> query = getEntityManager().createQuery(
+            "SELECT n FROM Notificacao n WHERE n.pedido.id = :pedidoId AND n.criadoEm >= :desde ORDER BY n.criadoEm DESC", Notificacao.class);
         query.setParameter("pedidoId", pedidoId);
+        query.setParameter("desde", inicioNotificacoes(criacao.get(0)));
         return query.getResultList();
     }
     
@@ -88,7 +122,7 @@ public class NotificacaoRepository {
      * Lista notificações por tipo
      */
     public List<Notificacao> findByTipo(TipoNotificacao tipo) {
-        TypedQuery<Notificacao> query = entityManager.createQuery(
+        TypedQuery<Notificacao> query = getEntityManager().createQuery(
             "SELECT n FROM Notificacao n WHERE n.tipo = :tipo ORDER BY n.criadoEm DESC", Notificacao.class);
         query.setParameter("tipo", tipo);
         return query.getResultList();
@@ -98,7 +132,7 @@ public class NotificacaoRepository {
      * Lista notificações por cliente e tipo
      */
     public List<Notificacao> findByClienteIdAndTipo(UUID clienteId, TipoNotificacao tipo) {
-        TypedQuery<Notificacao> query = entityManager.createQuery(
+        TypedQuery<Notificacao> query = getEntityManager().createQuery(
             "SELECT n FROM Notificacao n WHERE n.cliente.id = :clienteId AND n.tipo = :tipo ORDER BY n.criadoEm DESC", Notificacao.class);
         query.setParameter("clienteId", clienteId);
         query.setParameter("tipo", tipo);
@@ -106,10 +140,10 @@ public class NotificacaoRepository {
     }
     
     /**
-     * Lista notificações por período
+     * Lista notificações por período (só as partições do período são lidas)
      */
     public List<Notificacao> findByCriadoEmBetween(LocalDateTime inicio, LocalDateTime fim) {
-        TypedQuery<Notificacao> query = entityManager.createQuery(
+        TypedQuery<Notificacao> query = getEntityManager().createQuery(
             "SELECT n FROM Notificacao n WHERE n.criadoEm BETWEEN :inicio AND :fim ORDER BY n.criadoEm DESC", Notificacao.class);
         query.setParameter("inicio", inicio);
         query.setParameter("fim", fim);
@@ -117,10 +151,11 @@ public class NotificacaoRepository {
     }
     
     /**
-     * Lista notificações recentes por cliente (últimas 30)
+     * Lista notificações recentes por cliente (últimas 30). Com o índice (cliente_id, criado_em) o
+     * PostgreSQL lê as partições da mais nova para a mais antiga e para ao atingir o limite.
      */
     public List<Notificacao> findRecentByClienteId(UUID clienteId, int limit) {
-        TypedQuery<Notificacao> query = entityManager.createQuery(
+        TypedQuery<Notificacao> query = getEntityManager().createQuery(
             "SELECT n FROM Notificacao n WHERE n.cliente.id = :clienteId ORDER BY n.criadoEm DESC", Notificacao.class);
         query.setParameter("clienteId", clienteId);
         query.setMaxResults(limit);
@@ -131,7 +166,7 @@ public class NotificacaoRepository {
      * Lista todas as notificações
      */
     public List<Notificacao> findAll() {
-        TypedQuery<Notificacao> query = entityManager.createQuery(
+        TypedQuery<Notificacao> query = getEntityManager().createQuery(
             "SELECT n FROM Notificacao n ORDER BY n.criadoEm DESC", Notificacao.class);
         return query.getResultList();
     }
@@ -140,7 +175,7 @@ public class NotificacaoRepository {
      * Conta notificações por cliente
      */
     public long countByCliente(UUID clienteId) {
-        TypedQuery<Long> query = entityManager.createQuery(
+        TypedQuery<Long> query = getEntityManager().createQuery(
             "SELECT COUNT(n) FROM Notificacao n WHERE n.cliente.id = :clienteId", Long.class);
         query.setParameter("clienteId", clienteId);
         return query.getSingleResult();
@@ -150,7 +185,7 @@ public class NotificacaoRepository {
      * Conta notificações por tipo
      */
     public long countByTipo(TipoNotificacao tipo) {
-        TypedQuery<Long> query = entityManager.createQuery(
+        TypedQuery<Long> query = getEntityManager().createQuery(
             "SELECT COUNT(n) FROM Notificacao n WHERE n.tipo = :tipo", Long.class);
         query.setParameter("tipo", tipo);
         return query.getSingleResult();
@@ -160,7 +195,7 @@ public class NotificacaoRepository {
      * Conta total de notificações
      */
     public long count() {
-        TypedQuery<Long> query = entityManager.createQuery(
+        TypedQuery<Long> query = getEntityManager().createQuery(
             "SELECT COUNT(n) FROM Notificacao n", Long.class);
         return query.getSingleResult();
     }
@@ -169,22 +204,36 @@ public class NotificacaoRepository {
      * Remove notificação por ID
      */
     public void deleteById(UUID id) {
-        Notificacao notificacao = entityManager.find(Notificacao.class, id);
+        EntityManager em = getEntityManagerParaEscrita();
+        Notificacao notificacao = em.find(Notificacao.class, id);
         if (notificacao != null) {
-            entityManager.remove(notificacao);
+            em.remove(notificacao);
         }
     }
     
     /**
-     * Remove notificações antigas (mais de X dias)
+     * Remove um lote de até "tamanho" notificações criadas antes do limite, as mais antigas
+     * primeiro, com um único DELETE (sem carregar entidades). Linhas travadas por outra
+     * transação são puladas e ficam para o próximo lote. O limite se repete no DELETE externo
+     * para o planner podar as partições recentes também ali, não só na subconsulta.
+     *
+     * @return Quantidade de notificações removidas (menor que tamanho = não há mais o que remover)
      */
-    public void deleteOlderThan(LocalDateTime cutoffDate) {
-        TypedQuery<Notificacao> query = entityManager.createQuery(
-            "SELECT n FROM Notificacao n WHERE n.criadoEm < :cutoffDate", Notificacao.class);
-        query.setParameter("cutoffDate", cutoffDate);
-        List<Notificacao> notificacoes = query.getResultList();
-        for (Notificacao notificacao : notificacoes) {
-            entityManager.remove(notificacao);
-        }
+    public int deleteLoteCriadasAntesDe(LocalDateTime limite, int tamanho) {
+        return getEntityManagerParaEscrita().createNativeQuery(
+            "DELETE FROM notificacoes WHERE criado_em < :limite AND id IN (" +
+            "SELECT id FROM notificacoes WHERE criado_em < :limite ORDER BY criado_em LIMIT :tamanho " +
+            "FOR UPDATE SKIP LOCKED)")
+            .setParameter("limite", limite)
+            .setParameter("tamanho", tamanho)
+            .executeUpdate();
+    }
+    
+    /**
+     * Limite inferior de criado_em das notificações de um pedido (criação do pedido menos a folga)
+     */
+    private static LocalDateTime inicioNotificacoes(Instant criacaoPedido) {
+        Instant referencia = criacaoPedido != null ? criacaoPedido : Instant.EPOCH;
+        return LocalDateTime.ofInstant(referencia, ZoneId.systemDefault()).minusHours(FOLGA_PEDIDO_HORAS);
     }
 }
\ No newline at end of file
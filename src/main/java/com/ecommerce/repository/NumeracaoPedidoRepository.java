@@ -0,0 +1,61 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.config.DatabaseConfig;
+import jakarta.persistence.EntityManager;
+
+import java.time.LocalDate;
+
+/**
+ * Repositório do contador diário de números de pedido
+ */
+public class NumeracaoPedidoRepository {
+
+    private final EntityManager defaultEntityManager;
+
+    public NumeracaoPedidoRepository(EntityManager defaultEntityManager) {
+        this.defaultEntityManager = defaultEntityManager;
+    }
+    
+    /**
+     * Obtém o EntityManager para gravações (transação do request garantida, flush só no commit)
+     */
+    private EntityManager getEntityManagerParaEscrita() {
+        return DatabaseConfig.getEntityManagerParaEscrita();
+    }
+
+    /**
+     * Cria o contador do dia, se ainda não existir, a partir do maior número do dia já gravado em
+     * pedidos (números "prefixo" + dígitos). Evita repetir números de pedidos gravados antes do
+     * contador existir (ex.: no dia da implantação). Roda uma vez por dia em cada nó.
+     */
+    public void iniciarDia(LocalDate dia, String prefixo) {
+        getEntityManagerParaEscrita().createNativeQuery(
+            "INSERT INTO numeracao_pedidos (dia, proximo) " +
+            "SELECT :dia, COALESCE(MAX(CAST(substring(numero from :inicio) AS bigint)), 0) + 1 FROM pedidos " +
+            "WHERE numero LIKE :padrao AND substring(numero from :inicio) ~ '^[0-9]{1,18}$' " +
+            "ON CONFLICT (dia) DO NOTHING")
+            .setParameter("dia", dia)
+            .setParameter("inicio", prefixo.length() + 1)
+            .setParameter("padrao", prefixo + "%")
+            .executeUpdate();
+    }
+    
+    /**
+     * Reserva os próximos "tamanho" números do dia com um único UPSERT atômico: a primeira
+     * reserva do dia cria a linha, as seguintes avançam o contador. Vários nós podem reservar
+     * ao mesmo tempo; o PostgreSQL serializa as atualizações da linha.
+     *
+     * @return O primeiro número do bloco reservado (o bloco vai até primeiro + tamanho - 1)
+     */
+    public long reservarBloco(LocalDate dia, int tamanho) {
+        EntityManager em = getEntityManagerParaEscrita();
+        Number proximo = (Number) em.createNativeQuery(
+            "INSERT INTO numeracao_pedidos (dia, proximo) VALUES (:dia, 1 + :tamanho) " +
+            "ON CONFLICT (dia) DO UPDATE SET proximo = numeracao_pedidos.proximo + :tamanho " +
+            "RETURNING proximo")
+            .setParameter("dia", dia)
+            .setParameter("tamanho", tamanho)
+            .getSingleResult();
+        return proximo.longValue() - tamanho;
+    }
+}
@@ -5,6 +5,7 @@ import com.ecommerce.domain.PagamentoBoleto;
 import com.ecommerce.domain.PagamentoCartao;
 import com.ecommerce.domain.PagamentoPix;
 import com.ecommerce.domain.Pedido;
+import com.ecommerce.config.DatabaseConfig;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.NoResultException;
 import jakarta.persistence.TypedQuery;
@@ -19,22 +20,37 @@ import java.util.UUID;
  */
 public class PagamentoRepository {
     
-    private final EntityManager entityManager;
+    // Não armazena mais EntityManager fixo - usa o do request atual
+    private final EntityManager defaultEntityManager;
     
-    public PagamentoRepository(EntityManager entityManager) {
-        this.entityManager = entityManager;
+    public PagamentoRepository(EntityManager defaultEntityManager) {
+        this.defaultEntityManager = defaultEntityManager;
+    }
+    
+    /**
+     * Obtém o EntityManager apropriado (do request atual se disponível)
+     */
+    private EntityManager getEntityManager() {
+        return DatabaseConfig.getEntityManagerOrDefault(defaultEntityManager);
+    }
+    
+    /**
+     * Obtém o EntityManager para gravações (transação do request garantida, flush só no commit)
+     */
+    private EntityManager getEntityManagerParaEscrita() {
+        return DatabaseConfig.getEntityManagerParaEscrita();
     }
     
     /**
      * Salva ou atualiza um pagamento
      */
     public Pagamento save(Pagamento pagamento) {
+        EntityManager em = getEntityManagerParaEscrita();
         if (pagamento.getId() == null) {
-            pagamento.setId(UUID.randomUUID());
-            entityManager.persist(pagamento);
+            em.persist(pagamento);
             return pagamento;
         } else {
-            return entityManager.merge(pagamento);
+            return em.merge(pagamento);
         }
     }
     
@@ -42,7 +58,7 @@ public class PagamentoRepository {
      * Busca pagamento por ID
      */
     public Optional<Pagamento> findById(UUID id) {
-        Pagamento pagamento = entityManager.find(Pagamento.class, id);
+        Pagamento pagamento = getEntityManager().find(Pagamento.class, id);
         return Optional.ofNullable(pagamento);
     }
     
@@ -51,7 +67,7 @@ public class PagamentoRepository {
      */
     public Optional<Pagamento> findByPedido(Pedido pedido) {
         try {
-            TypedQuery<Pagamento> query = entityManager.createQuery(
+            TypedQuery<Pagamento> query = getEntityManager().createQuery(
                 "SELECT p FROM Pagamento p WHERE p.pedido = :pedido", Pagamento.class);
             query.setParameter("pedido", pedido);
             Pagamento pagamento = query.getSingleResult();
@@ -66,7 +82,7 @@ public class PagamentoRepository {
      */
     public Optional<Pagamento> findByPedidoId(UUID pedidoId) {
         try {
-            TypedQuery<Pagamento> query = entityManager.createQuery(
+            TypedQuery<Pagamento> query = getEntityManager().createQuery(
                 "SELECT p FROM Pagamento p WHERE p.pedido.id = :pedidoId", Pagamento.class);
             query.setParameter("pedidoId", pedidoId);
             Pagamento pagamento = query.getSingleResult();
@@ -80,7 +96,7 @@ public class PagamentoRepository {
      * Lista todos os pagamentos
      */
     public List<Pagamento> findAll() {
-        TypedQuery<Pagamento> query = entityManager.createQuery(
+        TypedQuery<Pagamento> query = getEntityManager().createQuery(
             "SELECT p FROM Pagamento p ORDER BY p.id", Pagamento.class);
         return query.getResultList();
     }
@@ -89,7 +105,7 @@ public class PagamentoRepository {
      * Lista pagamentos por valor mínimo
      */
     public List<Pagamento> findByValorGreaterThan(BigDecimal valor) {
-        TypedQuery<Pagamento> query = entityManager.createQuery(
+        TypedQuery<Pagamento> query = getEntityManager().createQuery(
             "SELECT p FROM Pagamento p WHERE p.valor > :valor ORDER BY p.valor DESC", Pagamento.class);
         query.setParameter("valor", valor);
         return query.getResultList();
@@ -99,7 +115,7 @@ public class PagamentoRepository {
      * Conta total de pagamentos
      */
     public long count() {
-        TypedQuery<Long> query = entityManager.createQuery(
+        TypedQuery<Long> query = getEntityManager().createQuery(
             "SELECT COUNT(p) FROM Pagamento p", Long.class);
         return query.getSingleResult();
     }
@@ -108,7 +124,7 @@ public class PagamentoRepository {
      * Soma total de pagamentos
      */
     public BigDecimal sumTotal() {
-        TypedQuery<BigDecimal> query = entityManager.createQuery(
+        TypedQuery<BigDecimal> query = getEntityManager().createQuery(
             "SELECT COALESCE(SUM(p.valor), 0) FROM Pagamento p", BigDecimal.class);
         return query.getSingleResult();
     }
@@ -119,7 +135,7 @@ public class PagamentoRepository {
      * Lista pagamentos PIX
      */
     public List<PagamentoPix> findAllPix() {
-        TypedQuery<PagamentoPix> query = entityManager.createQuery(
+        TypedQuery<PagamentoPix> query = getEntityManager().createQuery(
             "SELECT p FROM PagamentoPix p ORDER BY p.id", PagamentoPix.class);
         return query.getResultList();
     }
@@ -129,7 +145,7 @@ public class PagamentoRepository {
      */
     public Optional<PagamentoPix> findPixByTxid(String txid) {
         try {
-            TypedQuery<PagamentoPix> query = entityManager.createQuery(
+            TypedQuery<PagamentoPix> query = getEntityManager().createQuery(
                 "SELECT p FROM PagamentoPix p WHERE p.txid = :txid", PagamentoPix.class);
             query.setParameter("txid", txid);
             PagamentoPix pagamento = query.getSingleResult();
@@ -145,7 +161,7 @@ public class PagamentoRepository {
      * Lista pagamentos Boleto
      */
     public List<PagamentoBoleto> findAllBoleto() {
-        TypedQuery<PagamentoBoleto> query = entityManager.createQuery(
+        TypedQuery<PagamentoBoleto> query = getEntityManager().createQuery(
             "SELECT p FROM PagamentoBoleto p ORDER BY p.id", PagamentoBoleto.class);
         return query.getResultList();
     }
@@ -155,7 +171,7 @@ public class PagamentoRepository {
      */
     public Optional<PagamentoBoleto> findBoletoByLinhaDigitavel(String linhaDigitavel) {
         try {
-            TypedQuery<PagamentoBoleto> query = entityManager.createQuery(
+            TypedQuery<PagamentoBoleto> query = getEntityManager().createQuery(
                 "SELECT p FROM PagamentoBoleto p WHERE p.linhaDigitavel = :linhaDigitavel", PagamentoBoleto.class);
             query.setParameter("linhaDigitavel", linhaDigitavel);
             PagamentoBoleto pagamento = query.getSingleResult();
@@ -171,7 +187,7 @@ public class PagamentoRepository {
      * Lista pagamentos Cartão
      */
     public List<PagamentoCartao> findAllCartao() {
-        TypedQuery<PagamentoCartao> query = entityManager.createQuery(
+        TypedQuery<PagamentoCartao> query = getEntityManager().createQuery(
             "SELECT p FROM PagamentoCartao p ORDER BY p.id", PagamentoCartao.class);
         return query.getResultList();
     }
@@ -180,7 +196,7 @@ public class PagamentoRepository {
      * Lista pagamentos por bandeira
      */
     public List<PagamentoCartao> findCartaoByBandeira(String bandeira) {
-        TypedQuery<PagamentoCartao> query = entityManager.createQuery(
+        TypedQuery<PagamentoCartao> query = getEntityManager().createQuery(
             "SELECT p FROM PagamentoCartao p WHERE p.bandeira = :bandeira ORDER BY p.id", PagamentoCartao.class);
         query.setParameter("bandeira", bandeira);
         return query.getResultList();
@@ -190,9 +206,10 @@ public class PagamentoRepository {
      * Remove pagamento por ID
      */
     public void deleteById(UUID id) {
-        Pagamento pagamento = entityManager.find(Pagamento.class, id);
+        EntityManager em = getEntityManagerParaEscrita();
+        Pagamento pagamento = em.find(Pagamento.class, id);
         if (pagamento != null) {
-            entityManager.remove(pagamento);
+            em.remove(pagamento);
         }
     }
 }
\ No newline at end of file
@@ -1,28 +1,46 @@
 package com.ecommerce.repository;
 
 import com.ecommerce.domain.PedidoItem;
+import com.ecommerce.config.DatabaseConfig;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.TypedQuery;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
 public class PedidoItemRepository {
     
-    private final EntityManager entityManager;
+    // Não armazena mais EntityManager fixo - usa o do request atual
+    private final EntityManager defaultEntityManager;
     
-    public PedidoItemRepository(EntityManager entityManager) {
-        this.entityManager = entityManager;
+    public PedidoItemRepository(EntityManager defaultEntityManager) {
+        this.defaultEntityManager = defaultEntityManager;
+    }
+    
+    /**
+     * Obtém o EntityManager apropriado (do request atual se disponível)
+     */
+    private EntityManager getEntityManager() {
+        return DatabaseConfig.getEntityManagerOrDefault(defaultEntityManager);
+    }
+    
+    /**
+     * Obtém o EntityManager para gravações (transação do request garantida, flush só no commit)
+     */
+    private EntityManager getEntityManagerParaEscrita() {
+        return DatabaseConfig.getEntityManagerParaEscrita();
     }
     
     public PedidoItem save(PedidoItem pedidoItem) {
+        EntityManager em = getEntityManagerParaEscrita();
         try {
             if (pedidoItem.getId() == null) {
-                pedidoItem.setId(UUID.randomUUID());
-                entityManager.persist(pedidoItem);
+                em.persist(pedidoItem);
             } else {
-                pedidoItem = entityManager.merge(pedidoItem);
+                pedidoItem = em.merge(pedidoItem);
             }
             return pedidoItem;
         } catch (Exception e) {
@@ -31,21 +49,36 @@ public class PedidoItemRepository {
     }
     
     public Optional<PedidoItem> findById(UUID id) {
-        PedidoItem pedidoItem = entityManager.find(PedidoItem.class, id);
+        PedidoItem pedidoItem = getEntityManager().find(PedidoItem.class, id);
         return Optional.ofNullable(pedidoItem);
     }
     
+    /**
+     * Quantidade vendida por produto, somando os itens de todos os pedidos
+     */
+    public Map<UUID, Long> sumQuantidadePorProduto() {
+        List<Object[]> linhas = getEntityManager().createQuery(
+            "SELECT pi.produtoId, SUM(pi.quantidade) FROM PedidoItem pi GROUP BY pi.produtoId", Object[].class)
+            .getResultList();
+        Map<UUID, Long> vendas = new HashMap<>(linhas.size() * 2);
+        for (Object[] linha : linhas) {
+            vendas.put((UUID) linha[0], ((Number) linha[1]).longValue());
+        }
+        return vendas;
+    }
+    
     public List<PedidoItem> findByPedidoId(UUID pedidoId) {
-        TypedQuery<PedidoItem> query = entityManager.createQuery(
+        TypedQuery<PedidoItem> query = getEntityManager().createQuery(
             "SELECT pi FROM PedidoItem pi WHERE pi.pedidoId = :pedidoId", PedidoItem.class);
         query.setParameter("pedidoId", pedidoId);
         return query.getResultList();
     }
     
     public void deleteById(UUID id) {
-        PedidoItem pedidoItem = entityManager.find(PedidoItem.class, id);
+        EntityManager em = getEntityManagerParaEscrita();
+        PedidoItem pedidoItem = em.find(PedidoItem.class, id);
         if (pedidoItem != null) {
-            entityManager.remove(pedidoItem);
+            em.remove(pedidoItem);
         }
     }
 }
\ No newline at end of file
@@ -3,9 +3,11 @@ package com.ecommerce.repository;
 import com.ecommerce.domain.Cliente;
 import com.ecommerce.domain.Pedido;
 import com.ecommerce.domain.StatusPedido;
+import com.ecommerce.config.DatabaseConfig;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.TypedQuery;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -27,32 +29,32 @@ public class PedidoRepository {
      * Obtém o EntityManager apropriado (do request atual se disponível)
      */
     private EntityManager getEntityManager() {
-        try {
-            // Tenta obter o EntityManager do request atual (com transação ativa)
-            return com.ecommerce.config.DatabaseConfig.getEntityManager();
-        } catch (IllegalStateException e) {
-            // Se não houver request ativo, usa o default (para testes ou operações fora de request)
-            return defaultEntityManager;
-        }
+        return DatabaseConfig.getEntityManagerOrDefault(defaultEntityManager);
     }
     
     /**
-     * Salva ou atualiza um pedido (transação gerenciada pelo TransactionFilter)
+     * Obtém o EntityManager para gravações (transação do request garantida, flush só no commit)
+     */
+    private EntityManager getEntityManagerParaEscrita() {
+        return DatabaseConfig.getEntityManagerParaEscrita();
+    }
+    
+    /**
+     * Salva ou atualiza um pedido (transação gerenciada pelo TransactionFilter).
+     * Pedido novo com itens (cascade) só é registrado: o INSERT do pedido e os dos itens,
+     * em lote, saem no flush do commit junto com as demais escritas do request.
      */
     public Pedido save(Pedido pedido) {
-        EntityManager em = getEntityManager();
+        EntityManager em = getEntityManagerParaEscrita();
         try {
             if (pedido.getId() == null) {
-                // NÃO definir ID manualmente - deixar @GeneratedValue gerar
+                // NÃO definir ID manualmente - deixar @IdentificadorGerado gerar (no persist, sem ida ao banco)
                 em.persist(pedido);
             } else {
                 pedido = em.merge(pedido);
             }
             
-            // Garantir que as mudanças sejam refletidas imediatamente
-            em.flush();
-            
-            System.out.println("✅ PEDIDO: Pedido salvo com ID: " + pedido.getId() + " - Valor: " + pedido.getValorTotal());
+            System.out.println("✅ PEDIDO: Pedido registrado com ID: " + pedido.getId() + " - Valor: " + pedido.getValorTotal());
             return pedido;
         } catch (Exception e) {
             System.err.println("❌ PEDIDO: Erro ao salvar pedido: " + e.getMessage());
@@ -69,6 +71,17 @@ public class PedidoRepository {
         return Optional.ofNullable(pedido);
     }
     
+    /**
+     * Busca apenas a versão (@Version) do pedido, sem carregar entidade nem itens
+     */
+    public Optional<Long> findVersionById(UUID id) {
+        List<Long> versoes = getEntityManager().createQuery(
+            "SELECT p.version FROM Pedido p WHERE p.id = :id", Long.class)
+            .setParameter("id", id)
+            .getResultList();
+        return versoes.isEmpty() ? Optional.empty() : Optional.ofNullable(versoes.get(0));
+    }
+    
     /**
      * Busca pedido com itens carregados
      */
@@ -189,6 +202,38 @@ public class PedidoRepository {
         return query.getSingleResult();
     }
     
+    /**
+     * Soma o total dos pedidos de um status direto no banco (sem carregar os pedidos)
+     */
+    public BigDecimal sumTotalByStatus(StatusPedido status) {
+        TypedQuery<BigDecimal> query = getEntityManager().createQuery(
+            "SELECT COALESCE(SUM(p.total), 0) FROM Pedido p WHERE p.status = :status", BigDecimal.class);
+        query.setParameter("status", status);
+        return query.getSingleResult();
+    }
+    
+    /**
+     * Conta os clientes distintos com pedidos de um status
+     */
+    public long countDistinctClienteIdByStatus(StatusPedido status) {
+        TypedQuery<Long> query = getEntityManager().createQuery(
+            "SELECT COUNT(DISTINCT p.clienteId) FROM Pedido p WHERE p.status = :status", Long.class);
+        query.setParameter("status", status);
+        return query.getSingleResult();
+    }
+    
+    /**
+     * Quantidade e soma do total dos pedidos de um status, agrupadas por cliente
+     * (cada linha: clienteId, quantidade, soma do total)
+     */
+    public List<Object[]> resumoPorClienteByStatus(StatusPedido status) {
+        return getEntityManager().createQuery(
+            "SELECT p.clienteId, COUNT(p), COALESCE(SUM(p.total), 0) FROM Pedido p " +
+            "WHERE p.status = :status GROUP BY p.clienteId", Object[].class)
+            .setParameter("status", status)
+            .getResultList();
+    }
+    
     /**
      * Conta pedidos por cliente
      */
@@ -212,7 +257,7 @@ public class PedidoRepository {
      * Remove pedido por ID
      */
     public void deleteById(UUID id) {
-        EntityManager em = getEntityManager();
+        EntityManager em = getEntityManagerParaEscrita();
         Pedido pedido = em.find(Pedido.class, id);
         if (pedido != null) {
             em.remove(pedido);
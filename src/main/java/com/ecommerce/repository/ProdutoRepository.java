@@ -2,11 +2,13 @@ package com.ecommerce.repository;
 
 import com.ecommerce.domain.Categoria;
 import com.ecommerce.domain.Produto;
+import com.ecommerce.config.DatabaseConfig;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.NoResultException;
 import jakarta.persistence.TypedQuery;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -16,44 +18,44 @@ import java.util.UUID;
  */
 public class ProdutoRepository {
     
-    private final EntityManager entityManager;
+    // Não armazena mais EntityManager fixo - usa o do request atual
+    private final EntityManager defaultEntityManager;
     
-    public ProdutoRepository(EntityManager entityManager) {
-        this.entityManager = entityManager;
+    public ProdutoRepository(EntityManager defaultEntityManager) {
+        this.defaultEntityManager = defaultEntityManager;
+    }
+    
+    /**
+     * Obtém o EntityManager apropriado (do request atual se disponível)
+     */
+    private EntityManager getEntityManager() {
+        return DatabaseConfig.getEntityManagerOrDefault(defaultEntityManager);
+    }
+    
+    /**
+     * Obtém o EntityManager para gravações (transação do request garantida, flush só no commit)
+     */
+    private EntityManager getEntityManagerParaEscrita() {
+        return DatabaseConfig.getEntityManagerParaEscrita();
     }
     
     /**
      * Salva ou atualiza um produto
      */
     public Produto save(Produto produto) {
-        boolean needsTransaction = !entityManager.getTransaction().isActive();
-        if (needsTransaction) {
-            entityManager.getTransaction().begin();
-        }
-        
-        try {
-            // Use merge for both new and existing entities - more flexible than persist
-            produto = entityManager.merge(produto);
-            entityManager.flush(); // Force INSERT/UPDATE to show in logs
-            
-            if (needsTransaction) {
-                entityManager.getTransaction().commit();
-            }
-            
+        EntityManager em = getEntityManagerParaEscrita();
+        if (produto.getId() == null) {
+            em.persist(produto);
             return produto;
-        } catch (Exception e) {
-            if (needsTransaction && entityManager.getTransaction().isActive()) {
-                entityManager.getTransaction().rollback();
-            }
-            throw e;
         }
+        return em.merge(produto);
     }
     
     /**
      * Busca produto por ID
      */
     public Optional<Produto> findById(UUID id) {
-        Produto produto = entityManager.find(Produto.class, id);
+        Produto produto = getEntityManager().find(Produto.class, id);
         return Optional.ofNullable(produto);
     }
     
@@ -62,7 +64,7 @@ public class ProdutoRepository {
      */
     public Optional<Produto> findByCodigoBarras(String codigoBarras) {
         try {
-            TypedQuery<Produto> query = entityManager.createQuery(
+            TypedQuery<Produto> query = getEntityManager().createQuery(
                 "SELECT p FROM Produto p WHERE p.codigoBarras = :codigoBarras", Produto.class);
             query.setParameter("codigoBarras", codigoBarras);
             Produto produto = query.getSingleResult();
@@ -76,7 +78,7 @@ public class ProdutoRepository {
      * Lista produtos por categoria
      */
     public List<Produto> findByCategoria(Categoria categoria) {
-        TypedQuery<Produto> query = entityManager.createQuery(
+        TypedQuery<Produto> query = getEntityManager().createQuery(
             "SELECT p FROM Produto p WHERE p.categoria = :categoria ORDER BY p.nome", Produto.class);
         query.setParameter("categoria", categoria);
         return query.getResultList();
@@ -86,7 +88,7 @@ public class ProdutoRepository {
      * Lista produtos por categoria ID
      */
     public List<Produto> findByCategoriaId(UUID categoriaId) {
-        TypedQuery<Produto> query = entityManager.createQuery(
+        TypedQuery<Produto> query = getEntityManager().createQuery(
             "SELECT p FROM Produto p WHERE p.categoria.id = :categoriaId ORDER BY p.nome", Produto.class);
         query.setParameter("categoriaId", categoriaId);
         return query.getResultList();
@@ -96,7 +98,7 @@ public class ProdutoRepository {
      * Busca produtos por nome (busca parcial)
      */
     public List<Produto> findByNomeContaining(String nome) {
-        TypedQuery<Produto> query = entityManager.createQuery(
+        TypedQuery<Produto> query = getEntityManager().createQuery(
             "SELECT p FROM Produto p WHERE LOWER(p.nome) LIKE LOWER(:nome) ORDER BY p.nome", Produto.class);
         query.setParameter("nome", "%" + nome + "%");
         return query.getResultList();
@@ -106,7 +108,7 @@ public class ProdutoRepository {
      * Lista produtos por faixa de preço
      */
     public List<Produto> findByPrecoRange(BigDecimal precoMin, BigDecimal precoMax) {
-        TypedQuery<Produto> query = entityManager.createQuery(
+        TypedQuery<Produto> query = getEntityManager().createQuery(
             "SELECT p FROM Produto p WHERE p.preco BETWEEN :precoMin AND :precoMax ORDER BY p.preco", Produto.class);
         query.setParameter("precoMin", precoMin);
         query.setParameter("precoMax", precoMax);
@@ -117,16 +119,38 @@ public class ProdutoRepository {
      * Lista todos os produtos
      */
     public List<Produto> findAll() {
-        TypedQuery<Produto> query = entityManager.createQuery(
+        TypedQuery<Produto> query = getEntityManager().createQuery(
             "SELECT p FROM Produto p ORDER BY p.nome", Produto.class);
         return query.getResultList();
     }
     
+    /**
+     * Busca os produtos dos IDs informados em uma única consulta (IDs inexistentes são ignorados)
+     */
+    public List<Produto> findByIds(Collection<UUID> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        TypedQuery<Produto> query = getEntityManager().createQuery(
+            "SELECT p FROM Produto p WHERE p.id IN :ids", Produto.class);
+        query.setParameter("ids", ids);
+        return query.getResultList();
+    }
+    
+    /**
+     * Lista todos os produtos com a categoria já carregada (usado para montar o snapshot do catálogo)
+     */
+    public List<Produto> findAllWithCategoria() {
+        TypedQuery<Produto> query = getEntityManager().createQuery(
+            "SELECT p FROM Produto p LEFT JOIN FETCH p.categoria ORDER BY p.nome", Produto.class);
+        return query.getResultList();
+    }
+    
     /**
      * Verifica se existe produto com código de barras
      */
     public boolean existsByCodigoBarras(String codigoBarras) {
-        TypedQuery<Long> query = entityManager.createQuery(
+        TypedQuery<Long> query = getEntityManager().createQuery(
             "SELECT COUNT(p) FROM Produto p WHERE p.codigoBarras = :codigoBarras", Long.class);
         query.setParameter("codigoBarras", codigoBarras);
         return query.getSingleResult() > 0;
@@ -136,7 +160,7 @@ public class ProdutoRepository {
      * Conta produtos por categoria
      */
     public long countByCategoria(UUID categoriaId) {
-        TypedQuery<Long> query = entityManager.createQuery(
+        TypedQuery<Long> query = getEntityManager().createQuery(
             "SELECT COUNT(p) FROM Produto p WHERE p.categoria.id = :categoriaId", Long.class);
         query.setParameter("categoriaId", categoriaId);
         return query.getSingleResult();
@@ -146,14 +170,15 @@ public class ProdutoRepository {
      * Remove produto por ID
      */
     public void deleteById(UUID id) {
-        Produto produto = entityManager.find(Produto.class, id);
+        EntityManager em = getEntityManagerParaEscrita();
+        Produto produto = em.find(Produto.class, id);
         if (produto != null) {
-            entityManager.remove(produto);
+            em.remove(produto);
         }
     }
     
     public long count() {
-        TypedQuery<Long> query = entityManager.createQuery(
+        TypedQuery<Long> query = getEntityManager().createQuery(
             "SELECT COUNT(p) FROM Produto p", Long.class);
         return query.getSingleResult();
     }
@@ -2,6 +2,7 @@ package com.ecommerce.repository;
 
 import com.ecommerce.domain.UserModel;
 import com.ecommerce.domain.Role;
+import com.ecommerce.config.DatabaseConfig;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.NoResultException;
 import jakarta.persistence.TypedQuery;
@@ -15,22 +16,37 @@ import java.util.UUID;
  */
 public class UserRepository {
     
-    private final EntityManager entityManager;
+    // Não armazena mais EntityManager fixo - usa o do request atual
+    private final EntityManager defaultEntityManager;
     
-    public UserRepository(EntityManager entityManager) {
-        this.entityManager = entityManager;
+    public UserRepository(EntityManager defaultEntityManager) {
+        this.defaultEntityManager = defaultEntityManager;
+    }
+    
+    /**
+     * Obtém o EntityManager apropriado (do request atual se disponível)
+     */
+    private EntityManager getEntityManager() {
+        return DatabaseConfig.getEntityManagerOrDefault(defaultEntityManager);
+    }
+    
+    /**
+     * Obtém o EntityManager para gravações (transação do request garantida, flush só no commit)
+     */
+    private EntityManager getEntityManagerParaEscrita() {
+        return DatabaseConfig.getEntityManagerParaEscrita();
     }
     
     /**
      * Salva ou atualiza um usuário
      */
     public UserModel save(UserModel user) {
+        EntityManager em = getEntityManagerParaEscrita();
         if (user.getId() == null) {
-            user.setId(UUID.randomUUID());
-            entityManager.persist(user);
+            em.persist(user);
             return user;
         } else {
-            return entityManager.merge(user);
+            return em.merge(user);
         }
     }
     
@@ -38,7 +54,7 @@ public class UserRepository {
      * Busca usuário por ID
      */
     public Optional<UserModel> findById(UUID id) {
-        UserModel user = entityManager.find(UserModel.class, id);
+        UserModel user = getEntityManager().find(UserModel.class, id);
         return Optional.ofNullable(user);
     }
     
@@ -47,7 +63,7 @@ public class UserRepository {
      */
     public Optional<UserModel> findByEmail(String email) {
         try {
-            TypedQuery<UserModel> query = entityManager.createQuery(
+            TypedQuery<UserModel> query = getEntityManager().createQuery(
                 "SELECT u FROM UserModel u WHERE u.email = :email", UserModel.class);
             query.setParameter("email", email);
             UserModel user = query.getSingleResult();
@@ -61,7 +77,7 @@ public class UserRepository {
      * Busca usuários ativos por role
      */
     public List<UserModel> findActiveByRole(Role role) {
-        TypedQuery<UserModel> query = entityManager.createQuery(
+        TypedQuery<UserModel> query = getEntityManager().createQuery(
             "SELECT u FROM UserModel u WHERE u.role = :role AND u.isActive = true", UserModel.class);
         query.setParameter("role", role);
         return query.getResultList();
@@ -71,7 +87,7 @@ public class UserRepository {
      * Verifica se existe usuário com email
      */
     public boolean existsByEmail(String email) {
-        TypedQuery<Long> query = entityManager.createQuery(
+        TypedQuery<Long> query = getEntityManager().createQuery(
             "SELECT COUNT(u) FROM UserModel u WHERE u.email = :email", Long.class);
         query.setParameter("email", email);
         return query.getSingleResult() > 0;
@@ -81,7 +97,7 @@ public class UserRepository {
      * Lista todos os usuários ativos
      */
     public List<UserModel> findAllActive() {
-        TypedQuery<UserModel> query = entityManager.createQuery(
+        TypedQuery<UserModel> query = getEntityManager().createQuery(
             "SELECT u FROM UserModel u WHERE u.isActive = true ORDER BY u.createdAt DESC", UserModel.class);
         return query.getResultList();
     }
@@ -90,9 +106,10 @@ public class UserRepository {
      * Remove usuário por ID
      */
     public void deleteById(UUID id) {
-        UserModel user = entityManager.find(UserModel.class, id);
+        EntityManager em = getEntityManagerParaEscrita();
+        UserModel user = em.find(UserModel.class, id);
         if (user != null) {
-            entityManager.remove(user);
+            em.remove(user);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,152 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.config.DatabaseConfig;
+import com.ecommerce.domain.Identificadores;
+import com.ecommerce.domain.Money;
+import com.ecommerce.domain.StatusPedido;
+import com.ecommerce.domain.VendaAgregada;
+import com.ecommerce.domain.VendaAgregada.Granularidade;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Repositório das vendas pré-agregadas (tabela vendas_agregadas)
+ */
+public class VendaAgregadaRepository {
+    
+    private final EntityManager defaultEntityManager;
+    
+    public VendaAgregadaRepository(EntityManager defaultEntityManager) {
+        this.defaultEntityManager = defaultEntityManager;
+    }
+    
+    /**
+     * Variação a somar em uma linha agregada (valores negativos descontam)
+     */
+    public record Variacao(Granularidade granularidade, Instant inicio, StatusPedido status, String metodoPagamento,
+                           long pedidos, long receitaCentavos, long itens) {
+    }
+    
+    /**
+     * Ponto da série: totais de um período para um status e método de pagamento
+     */
+    public record Ponto(Instant inicio, StatusPedido status, String metodoPagamento,
+                        long pedidos, BigDecimal receita, long itens) {
+    }
+    
+    // Ordem fixa de gravação: transações concorrentes travam as linhas na mesma ordem (sem deadlock)
+    private static final Comparator<Variacao> ORDEM_GRAVACAO = Comparator
+        .comparing(Variacao::granularidade)
+        .thenComparing(Variacao::inicio)
+        .thenComparing(Variacao::status)
+        .thenComparing(Variacao::metodoPagamento);
+    
+    /**
+     * Obtém o EntityManager apropriado (do request atual se disponível)
+     */
+    private EntityManager getEntityManager() {
+        return DatabaseConfig.getEntityManagerOrDefault(defaultEntityManager);
+    }
+    
+    /**
+     * Obtém o EntityManager para gravações (transação do request garantida, flush só no commit)
+     */
+    private EntityManager getEntityManagerParaEscrita() {
+        return DatabaseConfig.getEntityManagerParaEscrita();
+    }
+    
+    /**
+     * Soma as variações nas linhas agregadas com um UPSERT em lote JDBC, na transação atual (sem
+     * antecipar o flush das entidades pendentes). Chamado fora dos requests, pela gravação
+     * periódica de MetricasPedidos: a linha fica travada só durante essa transação curta.
+     */
+    public void registrar(List<Variacao> variacoes) {
+        if (variacoes.isEmpty()) {
+            return;
+        }
+        List<Variacao> ordenadas = variacoes.stream().sorted(ORDEM_GRAVACAO).toList();
+        getEntityManagerParaEscrita().unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement upsert = connection.prepareStatement(
+                     "INSERT INTO vendas_agregadas (id, granularidade, inicio, status, metodo_pagamento, pedidos, receita, itens) " +
+                     "VALUES (?, ?, ?, ?, ?, ?, ?, ?) " +
+                     "ON CONFLICT (granularidade, inicio, status, metodo_pagamento) DO UPDATE SET " +
+                     "pedidos = vendas_agregadas.pedidos + EXCLUDED.pedidos, " +
+                     "receita = vendas_agregadas.receita + EXCLUDED.receita, " +
+                     "itens = vendas_agregadas.itens + EXCLUDED.itens")) {
+                for (Variacao variacao : ordenadas) {
+                    upsert.setObject(1, Identificadores.novo());
+                    upsert.setString(2, variacao.granularidade().name());
+                    upsert.setObject(3, OffsetDateTime.ofInstant(variacao.inicio(), ZoneOffset.UTC));
+                    upsert.setString(4, variacao.status().name());
+                    upsert.setString(5, variacao.metodoPagamento());
+                    upsert.setLong(6, variacao.pedidos());
+                    upsert.setBigDecimal(7, Money.toBigDecimal(variacao.receitaCentavos()));
+                    upsert.setLong(8, variacao.itens());
+                    upsert.addBatch();
+                }
+                upsert.executeBatch();
+            }
+        });
+    }
+    
+    /**
+     * Linhas agregadas do período [de, ate), em ordem de início (períodos sem pedidos não aparecem)
+     */
+    public List<Ponto> serie(Granularidade granularidade, Instant de, Instant ate) {
+        List<Object[]> linhas = getEntityManager().createQuery(
+            "SELECT v.inicio, v.status, v.metodoPagamento, SUM(v.pedidos), SUM(v.receita), SUM(v.itens) " +
+            "FROM VendaAgregada v WHERE v.granularidade = :granularidade AND v.inicio >= :de AND v.inicio < :ate " +
+            "GROUP BY v.inicio, v.status, v.metodoPagamento HAVING SUM(v.pedidos) <> 0 " +
+            "ORDER BY v.inicio, v.status, v.metodoPagamento", Object[].class)
+            .setParameter("granularidade", granularidade)
+            .setParameter("de", de)
+            .setParameter("ate", ate)
+            .getResultList();
+        return linhas.stream()
+            .map(linha -> new Ponto((Instant) linha[0], (StatusPedido) linha[1], (String) linha[2],
+                ((Number) linha[3]).longValue(), (BigDecimal) linha[4], ((Number) linha[5]).longValue()))
+            .toList();
+    }
+    
+    /**
+     * Verifica se ainda não há nenhuma linha agregada
+     */
+    public boolean isVazia() {
+        return getEntityManager().createQuery("SELECT v.id FROM VendaAgregada v", Object.class)
+            .setMaxResults(1)
+            .getResultList()
+            .isEmpty();
+    }
+    
+    /**
+     * Recalcula a agregação de uma granularidade a partir de pedidos e pedido_itens (carga inicial
+     * de uma base que já tem pedidos). Os períodos são truncados no fuso informado.
+     *
+     * @return Quantidade de linhas agregadas gravadas
+     */
+    public int reconstruir(Granularidade granularidade, ZoneId zona) {
+        return getEntityManagerParaEscrita().createNativeQuery(
+            "INSERT INTO vendas_agregadas (id, granularidade, inicio, status, metodo_pagamento, pedidos, receita, itens) " +
+            "SELECT gen_random_uuid(), :granularidade, s.inicio, s.status, s.metodo_pagamento, " +
+            "COUNT(*), SUM(s.total), COALESCE(SUM(s.itens), 0) FROM (" +
+            "SELECT date_trunc(:unidade, p.created_at, :zona) AS inicio, p.status, " +
+            "COALESCE(p.metodo_pagamento, :semMetodo) AS metodo_pagamento, p.total, " +
+            "(SELECT SUM(i.quantidade) FROM pedido_itens i WHERE i.pedido_id = p.id) AS itens " +
+            "FROM pedidos p) s GROUP BY s.inicio, s.status, s.metodo_pagamento " +
+            "ON CONFLICT (granularidade, inicio, status, metodo_pagamento) DO NOTHING")
+            .setParameter("granularidade", granularidade.name())
+            .setParameter("unidade", granularidade == Granularidade.HORA ? "hour" : "day")
+            .setParameter("zona", zona.getId())
+            .setParameter("semMetodo", VendaAgregada.SEM_METODO)
+            .executeUpdate();
+    }
+}
@@ -1,117 +1,86 @@
 package com.ecommerce.service;
 
-import com.ecommerce.domain.Carrinho;
 import com.ecommerce.domain.Cliente;
-import com.ecommerce.domain.ItemCarrinho;
-import com.ecommerce.domain.Produto;
-import com.ecommerce.domain.UserModel;
+import com.ecommerce.domain.Money;
 import com.ecommerce.dto.request.ItemCarrinhoRequestDTO;
 import com.ecommerce.dto.response.CarrinhoResponseDTO;
 import com.ecommerce.dto.response.ItemCarrinhoResponseDTO;
-import com.ecommerce.mapper.CarrinhoMapper;
-import com.ecommerce.mapper.ItemCarrinhoMapper;
-import com.ecommerce.repository.CarrinhoRepository;
-import com.ecommerce.repository.ClienteRepository;
-import com.ecommerce.repository.ItemCarrinhoRepository;
+import com.ecommerce.dto.response.ProdutoResponseDTO;
+import com.ecommerce.mapper.ProdutoMapper;
 import com.ecommerce.repository.ProdutoRepository;
-import com.ecommerce.repository.UserRepository;
+import com.ecommerce.service.CarrinhosEmMemoria.Conteudo;
+import com.ecommerce.service.CarrinhosEmMemoria.Linha;
+import com.ecommerce.service.CarrinhosEmMemoria.Totais;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
 /**
  * Serviço para gerenciamento do carrinho de compras
  * Responsável por adicionar, remover e gerenciar itens do carrinho
+ *
+ * Os carrinhos vivem em CarrinhosEmMemoria (gravação assíncrona no banco); os dados dos
+ * produtos vêm do snapshot do catálogo, então montar o carrinho não consulta o banco.
  */
 public class CarrinhoService {
     
-    private final CarrinhoRepository carrinhoRepository;
-    private final ItemCarrinhoRepository itemCarrinhoRepository;
-    private final ClienteRepository clienteRepository;
+    private static final int QUANTIDADE_MAXIMA_ITEM = 999;
+    private static final int MAXIMO_ITENS_POR_LOTE = 100;
+    
+    private final CarrinhosEmMemoria carrinhos;
     private final ProdutoRepository produtoRepository;
-    private final UserRepository userRepository;
-    private final CarrinhoMapper carrinhoMapper;
-    private final ItemCarrinhoMapper itemCarrinhoMapper;
+    private final ProdutoMapper produtoMapper;
+    private final CatalogoService catalogoService;
+    private final ClienteResolver clienteResolver;
     
-    public CarrinhoService(CarrinhoRepository carrinhoRepository,
-                          ItemCarrinhoRepository itemCarrinhoRepository,
-                          ClienteRepository clienteRepository,
+    public CarrinhoService(CarrinhosEmMemoria carrinhos,
                           ProdutoRepository produtoRepository,
-                          UserRepository userRepository,
-                          CarrinhoMapper carrinhoMapper,
-                          ItemCarrinhoMapper itemCarrinhoMapper) {
-        this.carrinhoRepository = carrinhoRepository;
-        this.itemCarrinhoRepository = itemCarrinhoRepository;
-        this.clienteRepository = clienteRepository;
+                          ProdutoMapper produtoMapper,
+                          CatalogoService catalogoService,
+                          ClienteResolver clienteResolver) {
+        this.carrinhos = carrinhos;
         this.produtoRepository = produtoRepository;
-        this.userRepository = userRepository;
-        this.carrinhoMapper = carrinhoMapper;
-        this.itemCarrinhoMapper = itemCarrinhoMapper;
+        this.produtoMapper = produtoMapper;
+        this.catalogoService = catalogoService;
+        this.clienteResolver = clienteResolver;
     }
     
     /**
      * Busca ou cria carrinho do cliente (usando ID efetivo do cliente)
-     * 
+     *
      * @param clienteId O ID do cliente
      * @return O carrinho do cliente
      */
     public CarrinhoResponseDTO getOrCreateCarrinho(UUID clienteId) {
-        return getOrCreateCarrinhoInternal(clienteId);
+        return findOrCreateByUserId(clienteId);
     }
     
     /**
      * Busca ou cria carrinho por userId - sempre retorna um carrinho válido
-     * 
+     *
      * @param userId O ID do usuário
      * @return O carrinho do usuário
      */
     public CarrinhoResponseDTO findOrCreateByUserId(UUID userId) {
-        return getOrCreateCarrinhoInternal(userId);
+        Cliente cliente = resolveCliente(userId);
+        return toResponseDTO(carrinhos.obter(cliente.getId()));
     }
     
     /**
-     * Resolve Cliente baseado no userId, garantindo sempre o mesmo Cliente por usuário.
-     * Sempre resolve User ID → User → Cliente por email.
-     * 
-     * @param userId O ID do usuário
-     * @return O cliente correspondente ao usuário
-     * @throws RuntimeException se o usuário não for encontrado
+     * Resolve Cliente baseado no userId (vínculo em cache no ClienteResolver)
      */
     private Cliente resolveCliente(UUID userId) {
-        // Buscar usuário primeiro
-        Optional<UserModel> userOpt = userRepository.findById(userId);
-        if (userOpt.isEmpty()) {
-            throw new RuntimeException("Usuário não encontrado");
-        }
-        
-        UserModel user = userOpt.get();
-        
-        // Buscar cliente existente por email (garante unicidade)
-        Optional<Cliente> clientePorEmailOpt = clienteRepository.findByEmail(user.getEmail());
-        if (clientePorEmailOpt.isPresent()) {
-            // Para evitar entidade desanexada, buscar novamente pelo ID no contexto atual
-            Cliente clienteExistente = clientePorEmailOpt.get();
-            return clienteRepository.findById(clienteExistente.getId())
-                .orElseThrow(() -> new RuntimeException("Cliente não encontrado"));
-        }
-        
-        // Criar novo cliente (ID será gerado automaticamente)
-        Cliente cliente = new Cliente();
-        cliente.setEmail(user.getEmail());
-        cliente.setNome(user.getEmail().split("@")[0]);
-        
-        Cliente savedCliente = clienteRepository.save(cliente);
-        
-        // Para garantir que está no contexto correto, buscar novamente pelo ID
-        return clienteRepository.findById(savedCliente.getId())
-            .orElseThrow(() -> new RuntimeException("Erro ao criar cliente"));
+        return clienteResolver.resolver(userId);
     }
     
     /**
      * Adiciona item ao carrinho (método legado)
-     * 
+     *
      * @param clienteId O ID do cliente
      * @param requestDTO Os dados do item a adicionar
      * @return O item adicionado
@@ -123,55 +92,14 @@ public class CarrinhoService {
             throw new RuntimeException("Quantidade deve ser maior que zero");
         }
         
-        // Busca o produto
-        Optional<Produto> produtoOpt = produtoRepository.findById(requestDTO.getProdutoId());
-        if (produtoOpt.isEmpty()) {
-            throw new RuntimeException("Produto não encontrado");
-        }
-        
-        Produto produto = produtoOpt.get();
+        ProdutoResponseDTO produto = buscarProduto(requestDTO.getProdutoId())
+                .orElseThrow(() -> new RuntimeException("Produto não encontrado"));
         
-        // Resolve o cliente efetivo e busca/cria carrinho
         Cliente cliente = resolveCliente(clienteId);
-        UUID effectiveClienteId = cliente.getId();
-        
-        System.out.println("🛒 DEBUG addItem - UserId: " + clienteId + ", ClienteId: " + effectiveClienteId);
-        
-        // Busca carrinho existente usando o ID do cliente resolvido
-        Optional<Carrinho> carrinhoOpt = carrinhoRepository.findByClienteId(effectiveClienteId);
-        Carrinho carrinho;
-        
-        if (carrinhoOpt.isEmpty()) {
-            // Cria novo carrinho
-            carrinho = new Carrinho();
-            carrinho.setCliente(cliente);
-            carrinho = carrinhoRepository.save(carrinho);
-            System.out.println("🆕 DEBUG: Novo carrinho criado: " + carrinho.getId());
-        } else {
-            carrinho = carrinhoOpt.get();
-            System.out.println("✅ DEBUG: Carrinho existente encontrado: " + carrinho.getId());
-        }
-        
-        // Verifica se item já existe no carrinho
-        Optional<ItemCarrinho> itemExistente = itemCarrinhoRepository
-                .findByCarrinhoIdAndProdutoId(carrinho.getId(), produto.getId());
-        
-        ItemCarrinho item;
-        if (itemExistente.isPresent()) {
-            // Atualiza quantidade do item existente
-            item = itemExistente.get();
-            item.setQuantidade(item.getQuantidade() + requestDTO.getQuantidade());
-        } else {
-            // Cria novo item
-            item = new ItemCarrinho();
-            item.setCarrinho(carrinho);
-            item.setProduto(produto);
-            item.setQuantidade(requestDTO.getQuantidade());
-        }
+        Conteudo conteudo = carrinhos.adicionar(cliente.getId(), produto.getId(),
+                requestDTO.getQuantidade(), Integer.MAX_VALUE);
         
-        ItemCarrinho savedItem = itemCarrinhoRepository.save(item);
-        
-        return itemCarrinhoMapper.toResponseDTO(savedItem);
+        return toItemResponseDTO(conteudo.linhaDoProduto(produto.getId()).orElseThrow(), produto);
     }
     
     /**
@@ -182,56 +110,50 @@ public class CarrinhoService {
      * @return CarrinhoResponseDTO com carrinho atualizado
      */
     public CarrinhoResponseDTO addItem(UUID userId, UUID produtoId, Integer quantidade) {
-        // Busca o produto
-        Optional<Produto> produtoOpt = produtoRepository.findById(produtoId);
-        if (produtoOpt.isEmpty()) {
+        if (buscarProduto(produtoId).isEmpty()) {
             throw new IllegalArgumentException("Produto não encontrado");
         }
         
-        Produto produto = produtoOpt.get();
-        
-        // Resolve o cliente efetivo e busca/cria carrinho
         Cliente cliente = resolveCliente(userId);
-        UUID effectiveClienteId = cliente.getId();
-        
-        // Busca carrinho existente usando o ID do cliente resolvido
-        Optional<Carrinho> carrinhoOpt = carrinhoRepository.findByClienteId(effectiveClienteId);
-        Carrinho carrinho;
-        
-        if (carrinhoOpt.isEmpty()) {
-            // Cria novo carrinho
-            carrinho = new Carrinho();
-            carrinho.setCliente(cliente);
-            carrinho = carrinhoRepository.save(carrinho);
-        } else {
-            carrinho = carrinhoOpt.get();
+        // Soma à quantidade existente, limitada a 999
+        return toResponseDTO(carrinhos.adicionar(cliente.getId(), produtoId, quantidade, QUANTIDADE_MAXIMA_ITEM));
+    }
+    
+    /**
+     * Define em lote as quantidades de vários produtos e retorna o carrinho recalculado.
+     * Quantidade 0 remove o item e acima de 999 é limitada a 999; um produto repetido na lista
+     * fica com a última quantidade. Tudo é validado antes de alterar o carrinho, e as alterações
+     * são aplicadas juntas (a gravação no banco é um único upsert por carrinho).
+     *
+     * @throws IllegalArgumentException se a lista for inválida ou algum produto não existir
+     */
+    public CarrinhoResponseDTO upsertItens(UUID userId, List<ItemCarrinhoRequestDTO> itens) {
+        if (itens == null || itens.isEmpty()) {
+            throw new IllegalArgumentException("Lista de itens é obrigatória");
+        }
+        if (itens.size() > MAXIMO_ITENS_POR_LOTE) {
+            throw new IllegalArgumentException("Máximo de " + MAXIMO_ITENS_POR_LOTE + " itens por requisição");
         }
         
-        // Verifica se item já existe no carrinho
-        Optional<ItemCarrinho> itemExistente = itemCarrinhoRepository
-                .findByCarrinhoIdAndProdutoId(carrinho.getId(), produto.getId());
-        
-        ItemCarrinho item;
-        if (itemExistente.isPresent()) {
-            // Atualiza quantidade do item existente (soma)
-            item = itemExistente.get();
-            int novaQuantidade = item.getQuantidade() + quantidade;
-            if (novaQuantidade > 999) {
-                novaQuantidade = 999;
+        Map<UUID, Integer> quantidades = new LinkedHashMap<>();
+        for (ItemCarrinhoRequestDTO item : itens) {
+            if (item == null || item.getProdutoId() == null) {
+                throw new IllegalArgumentException("ID do produto é obrigatório");
+            }
+            if (item.getQuantidade() == null || item.getQuantidade() < 0) {
+                throw new IllegalArgumentException("Quantidade inválida para o produto " + item.getProdutoId());
+            }
+            quantidades.put(item.getProdutoId(), Math.min(item.getQuantidade(), QUANTIDADE_MAXIMA_ITEM));
+        }
+        for (Map.Entry<UUID, Integer> entrada : quantidades.entrySet()) {
+            // Remover um produto que saiu do catálogo continua permitido
+            if (entrada.getValue() > 0 && buscarProduto(entrada.getKey()).isEmpty()) {
+                throw new IllegalArgumentException("Produto não encontrado: " + entrada.getKey());
             }
-            item.setQuantidade(novaQuantidade);
-        } else {
-            // Cria novo item
-            item = new ItemCarrinho();
-            item.setCarrinho(carrinho);
-            item.setProduto(produto);
-            item.setQuantidade(quantidade);
         }
         
-        itemCarrinhoRepository.save(item);
-        
-        // Retorna carrinho completo atualizado
-        return findOrCreateByUserId(userId);
+        Cliente cliente = resolveCliente(userId);
+        return toResponseDTO(carrinhos.definirItens(cliente.getId(), quantidades));
     }
     
     /**
@@ -243,71 +165,33 @@ public class CarrinhoService {
             throw new RuntimeException("Quantidade deve ser maior que zero");
         }
         
-        // Resolve cliente efetivo
+        // Só encontra o item no carrinho do próprio cliente
         Cliente cliente = resolveCliente(clienteId);
-        UUID effectiveClienteId = cliente.getId();
-        
-        // Busca item
-        Optional<ItemCarrinho> itemOpt = itemCarrinhoRepository.findById(itemId);
-        if (itemOpt.isEmpty()) {
-            throw new RuntimeException("Item não encontrado");
-        }
-        
-        ItemCarrinho item = itemOpt.get();
+        Conteudo conteudo = carrinhos.definirQuantidade(cliente.getId(), itemId, requestDTO.getQuantidade());
         
-        // Verifica se item pertence ao cliente (usando ID efetivo)
-        if (!item.getCarrinho().getCliente().getId().equals(effectiveClienteId)) {
-            throw new RuntimeException("Item não pertence ao cliente");
-        }
-        
-        // Atualiza quantidade
-        item.setQuantidade(requestDTO.getQuantidade());
-        
-        ItemCarrinho savedItem = itemCarrinhoRepository.save(item);
-        
-        return itemCarrinhoMapper.toResponseDTO(savedItem);
+        Linha linha = conteudo.linhas().stream()
+                .filter(l -> l.itemId().equals(itemId))
+                .findFirst()
+                .orElseThrow(() -> new RuntimeException("Item não encontrado"));
+        return toItemResponseDTO(linha, buscarProduto(linha.produtoId()).orElse(null));
     }
     
-    
     /**
      * Remove item do carrinho por produtoId
      * @param userId ID do usuário (do JWT)
      * @param produtoId ID do produto a remover
      */
     public void removeItem(UUID userId, UUID produtoId) {
-        // Resolve cliente efetivo
         Cliente cliente = resolveCliente(userId);
-        UUID effectiveClienteId = cliente.getId();
-        
-        // Busca carrinho do cliente
-        Optional<Carrinho> carrinhoOpt = carrinhoRepository.findByClienteId(effectiveClienteId);
-        if (carrinhoOpt.isPresent()) {
-            Carrinho carrinho = carrinhoOpt.get();
-            
-            // Busca item no carrinho pelo produtoId
-            Optional<ItemCarrinho> itemOpt = itemCarrinhoRepository
-                    .findByCarrinhoIdAndProdutoId(carrinho.getId(), produtoId);
-            
-            if (itemOpt.isPresent()) {
-                // Remove o item
-                itemCarrinhoRepository.deleteById(itemOpt.get().getId());
-            }
-        }
+        carrinhos.remover(cliente.getId(), produtoId);
     }
     
     /**
      * Limpa carrinho do cliente
      */
     public void clearCarrinho(UUID clienteId) {
-        // Resolve cliente efetivo
         Cliente cliente = resolveCliente(clienteId);
-        UUID effectiveClienteId = cliente.getId();
-        
-        Optional<Carrinho> carrinhoOpt = carrinhoRepository.findByClienteId(effectiveClienteId);
-        if (carrinhoOpt.isPresent()) {
-            // Remove todos os itens do carrinho
-            itemCarrinhoRepository.deleteByCarrinhoId(carrinhoOpt.get().getId());
-        }
+        carrinhos.esvaziar(cliente.getId());
     }
     
     /**
@@ -315,25 +199,8 @@ public class CarrinhoService {
      */
     public BigDecimal calcularValorTotal(UUID clienteId) {
         try {
-            // Resolve cliente efetivo (pode falhar para usuários novos)
-            Cliente cliente = resolveCliente(clienteId);
-            UUID effectiveClienteId = cliente.getId();
-            
-            Optional<Carrinho> carrinhoOpt = carrinhoRepository.findByClienteIdWithItens(effectiveClienteId);
-            if (carrinhoOpt.isEmpty()) {
-                return BigDecimal.ZERO;
-            }
-            
-            Carrinho carrinho = carrinhoOpt.get();
-            
-            // Verifica se há itens no carrinho (evita NullPointerException)
-            if (carrinho.getItens() == null || carrinho.getItens().isEmpty()) {
-                return BigDecimal.ZERO;
-            }
-            
-            return carrinho.getItens().stream()
-                    .map(item -> item.getProduto().getPreco().multiply(BigDecimal.valueOf(item.getQuantidade())))
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+            // Total mantido pelo carrinho a cada alteração: sem percorrer itens nem produtos
+            return totais(clienteId).subtotal().toBigDecimal();
         } catch (RuntimeException e) {
             // Para usuários novos sem Cliente, retorna zero (carrinho vazio)
             return BigDecimal.ZERO;
@@ -345,23 +212,7 @@ public class CarrinhoService {
      */
     public int contarItens(UUID clienteId) {
         try {
-            // Resolve cliente efetivo (pode falhar para usuários novos)
-            Cliente cliente = resolveCliente(clienteId);
-            UUID effectiveClienteId = cliente.getId();
-            
-            Optional<Carrinho> carrinhoOpt = carrinhoRepository.findByClienteIdWithItens(effectiveClienteId);
-            if (carrinhoOpt.isEmpty()) {
-                return 0;
-            }
-            
-            Carrinho carrinho = carrinhoOpt.get();
-            if (carrinho.getItens() == null || carrinho.getItens().isEmpty()) {
-                return 0;
-            }
-            
-            return carrinho.getItens().stream()
-                    .mapToInt(ItemCarrinho::getQuantidade)
-                    .sum();
+            return totais(clienteId).quantidade();
         } catch (RuntimeException e) {
             // Para usuários novos sem Cliente, retorna zero (carrinho vazio)
             return 0;
@@ -369,86 +220,78 @@ public class CarrinhoService {
     }
     
     /**
-     * Lista itens do carrinho (carregando produtos para mapeamento correto)
+     * Lista itens do carrinho
      */
     public List<ItemCarrinhoResponseDTO> getItens(UUID clienteId) {
         try {
-            // Resolve cliente efetivo (pode falhar para usuários novos)
-            Cliente cliente = resolveCliente(clienteId);
-            UUID effectiveClienteId = cliente.getId();
-            
-            Optional<Carrinho> carrinhoOpt = carrinhoRepository.findByClienteIdWithItens(effectiveClienteId);
-            if (carrinhoOpt.isEmpty()) {
-                return List.of();
-            }
-            
-            Carrinho carrinho = carrinhoOpt.get();
-            
-            // Verifica se há itens no carrinho (evita NullPointerException)
-            if (carrinho.getItens() == null || carrinho.getItens().isEmpty()) {
-                return List.of();
-            }
-            
-            return carrinho.getItens().stream()
-                    .map(itemCarrinhoMapper::toResponseDTO)
-                    .toList();
+            return findOrCreateByUserId(clienteId).getItens();
         } catch (RuntimeException e) {
             // Para usuários novos sem Cliente, retorna lista vazia (carrinho vazio)
             return List.of();
         }
     }
     
+    private Totais totais(UUID userId) {
+        Cliente cliente = resolveCliente(userId);
+        return carrinhos.obter(cliente.getId()).totais();
+    }
+    
     /**
-     * Método interno para buscar ou criar carrinho e retornar DTO completo
+     * Produto do snapshot do catálogo; cai no banco se o snapshot ainda não o conhece
      */
-    private CarrinhoResponseDTO getOrCreateCarrinhoInternal(UUID clienteId) {
-        // Resolve cliente efetivo (pode criar Cliente baseado em User se necessário)
-        Cliente cliente = resolveCliente(clienteId);
-        UUID effectiveClienteId = cliente.getId();
-        
-        // Busca carrinho existente usando o ID do cliente resolvido
-        Optional<Carrinho> carrinhoOpt = carrinhoRepository.findByClienteId(effectiveClienteId);
-        Carrinho carrinho;
-        
-        if (carrinhoOpt.isEmpty()) {
-            // Cria novo carrinho
-            carrinho = new Carrinho();
-
-            carrinho.setCliente(cliente);
-            carrinho = carrinhoRepository.save(carrinho);
-        } else {
-            carrinho = carrinhoOpt.get();
+    private Optional<ProdutoResponseDTO> buscarProduto(UUID produtoId) {
+        if (produtoId == null) {
+            return Optional.empty();
         }
-        
-        // Recarrega carrinho com itens e produtos para garantir que estão incluídos no response
-        Carrinho carrinhoComItens = carrinhoRepository.findByIdWithItens(carrinho.getId())
-                .orElse(carrinho);
-        
-        // Se não conseguiu carregar itens, inicializa lista vazia
-        if (carrinhoComItens.getItens() == null) {
-            System.out.println("🚨 DEBUG: findByIdWithItens retornou carrinho sem itens! Inicializando lista vazia...");
-            carrinhoComItens.setItens(new java.util.ArrayList<>());
+        Optional<ProdutoResponseDTO> produto = catalogoService.getSnapshot().findProdutoById(produtoId);
+        if (produto.isPresent()) {
+            return produto;
         }
-        
-        // Debug: verificar estado do carrinho antes do mapeamento
-        System.out.println("🔍 DEBUG: Carrinho antes do mapeamento:");
-        System.out.println("  - ID: " + carrinhoComItens.getId());
-        System.out.println("  - Itens: " + (carrinhoComItens.getItens() != null ? 
-            carrinhoComItens.getItens().size() + " itens" : "NULL"));
-        if (carrinhoComItens.getItens() != null && !carrinhoComItens.getItens().isEmpty()) {
-            System.out.println("  - Primeiro item: " + carrinhoComItens.getItens().get(0).getProduto().getNome());
+        return produtoRepository.findById(produtoId).map(produtoMapper::toResponseDTO);
+    }
+    
+    /**
+     * Monta o DTO do carrinho com os mesmos campos do CarrinhoMapper; os totais já vêm prontos
+     */
+    private CarrinhoResponseDTO toResponseDTO(Conteudo conteudo) {
+        List<ItemCarrinhoResponseDTO> itens = new ArrayList<>(conteudo.linhas().size());
+        for (Linha linha : conteudo.linhas()) {
+            if (linha.precoUnitario() == null) {
+                // Produto removido do catálogo: não há preço para exibir (nem entra nos totais)
+                continue;
+            }
+            itens.add(toItemResponseDTO(linha, catalogoService.getSnapshot().findProdutoById(linha.produtoId()).orElse(null)));
         }
         
-        CarrinhoResponseDTO response = carrinhoMapper.toResponseDTO(carrinhoComItens);
-        
-        // Debug: verificar estado do DTO após mapeamento
-        System.out.println("📋 DEBUG: DTO após mapeamento:");
-        System.out.println("  - ID: " + response.getId());
-        System.out.println("  - Itens: " + (response.getItens() != null ? 
-            response.getItens().size() + " itens" : "NULL"));
-        System.out.println("  - ValorTotal: " + response.getValorTotal());
-        System.out.println("  - TotalItens: " + response.getTotalItens());
-        
-        return response;
+        Totais totais = conteudo.totais();
+        CarrinhoResponseDTO dto = new CarrinhoResponseDTO();
+        dto.setId(conteudo.id());
+        dto.setClienteId(conteudo.clienteId());
+        dto.setUserId(conteudo.clienteId());
+        dto.setItens(itens);
+        dto.setValorTotal(totais.subtotal());
+        dto.setTotalValor(totais.subtotal());
+        dto.setTotalItens(totais.quantidade());
+        dto.setTotalQuantidade(totais.quantidade());
+        return dto;
+    }
+    
+    private ItemCarrinhoResponseDTO toItemResponseDTO(Linha linha, ProdutoResponseDTO produto) {
+        ItemCarrinhoResponseDTO item = new ItemCarrinhoResponseDTO();
+        item.setId(linha.itemId());
+        item.setQuantidade(linha.quantidade());
+        if (produto != null) {
+            // Cópia: o DTO do snapshot é compartilhado entre requests
+            ProdutoResponseDTO produtoDto = new ProdutoResponseDTO();
+            produtoDto.setId(produto.getId());
+            produtoDto.setNome(produto.getNome());
+            // Mesmo preço usado nos totais do carrinho
+            produtoDto.setPreco(linha.precoUnitario() != null ? linha.precoUnitario().toBigDecimal() : produto.getPreco());
+            produtoDto.setCodigoBarras(produto.getCodigoBarras());
+            produtoDto.setCategoriaId(produto.getCategoriaId());
+            item.setProduto(produtoDto);
+            item.setSubtotal(Money.toBigDecimal(Money.multiplicar(Money.centavos(produtoDto.getPreco()), linha.quantidade())));
+        }
+        return item;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,603 @@
+package com.ecommerce.service;
+
+import com.ecommerce.config.DatabaseConfig;
+import com.ecommerce.config.RequestPersistenceContext;
+import com.ecommerce.domain.Identificadores;
+import com.ecommerce.domain.Money;
+import com.ecommerce.repository.CarrinhoRepository;
+import com.ecommerce.repository.CarrinhoRepository.EstadoCarrinho;
+import com.ecommerce.repository.CarrinhoRepository.ItemEstado;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Carrinhos ativos mantidos em memória, com gravação assíncrona (write-behind).
+ *
+ * Os carrinhos ficam em um mapa particionado por cliente (SHARDS partes, cada uma com seu
+ * conjunto de carrinhos pendentes de gravação). As alterações são aplicadas em memória sob o
+ * monitor do próprio carrinho, o que mantém a ordem por carrinho sem travar os demais; leituras
+ * (itens, total, contagem) não vão ao banco.
+ *
+ * Cada carrinho mantém seus totais (itens, quantidade, subtotal) atualizados a cada alteração
+ * de item, com o preço do snapshot do catálogo guardado na linha. As contas são em centavos
+ * (long, sem alocar BigDecimal). Quando o catálogo muda de versão, o carrinho é reprecificado
+ * uma vez no próximo acesso.
+ *
+ * Uma thread própria grava os carrinhos alterados em lotes de até CARRINHOS_POR_LOTE, cada lote
+ * em uma transação: o estado completo de cada carrinho (itens e totais) substitui o do banco.
+ * O checkout monta o pedido com o conteúdo em memória e grava o carrinho esvaziado na própria
+ * transação do request, junto com o pedido (prepararCheckout). Um
+ * carrinho que não está em memória (primeiro acesso, reinício) é carregado do banco, e os
+ * carrinhos gravados e sem uso por OCIOSIDADE_MAXIMA são descartados da memória.
+ *
+ * Falhas de gravação: erros transitórios (banco fora do ar, timeout) mantêm os carrinhos
+ * pendentes e pausam a gravação com espera crescente (até PAUSA_MAXIMA), sem limite de
+ * tentativas. Só um erro que não tem como dar certo na nova tentativa (violação de integridade,
+ * ex.: cliente removido) conta para o descarte; após MAXIMO_FALHAS_PERMANENTES o carrinho sai
+ * da memória e o conteúdo perdido é registrado no log.
+ *
+ * O estado em memória é local ao nó: com mais de uma instância, as requisições de um cliente
+ * precisam chegar sempre à mesma (sessão fixa no balanceador).
+ */
+public class CarrinhosEmMemoria {
+    
+    static final int SHARDS = 64;
+    static final int CARRINHOS_POR_LOTE = 200;
+    private static final long INTERVALO_GRAVACAO_MS = 250;
+    private static final Duration OCIOSIDADE_MAXIMA = Duration.ofMinutes(30);
+    private static final Duration PAUSA_MAXIMA = Duration.ofSeconds(30);
+    // Falhas permanentes seguidas gravando o carrinho sozinho (ex.: cliente removido) antes de descartá-lo
+    static final int MAXIMO_FALHAS_PERMANENTES = 3;
+    
+    private final CarrinhoRepository carrinhoRepository;
+    private final CatalogoService catalogoService;
+    private final Duration ociosidadeMaxima;
+    // Pausa da gravação após erro transitório
+    private volatile long pausaAte = System.nanoTime();
+    private volatile int falhasTransitorias;
+    private final Shard[] shards = new Shard[SHARDS];
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "carrinhos-write-behind");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    public CarrinhosEmMemoria(CarrinhoRepository carrinhoRepository, CatalogoService catalogoService) {
+        this(carrinhoRepository, catalogoService, OCIOSIDADE_MAXIMA);
+    }
+    
+    /**
+     * Construtor com o tempo de ociosidade para descarte da memória informado (testes)
+     */
+    public CarrinhosEmMemoria(CarrinhoRepository carrinhoRepository, CatalogoService catalogoService,
+                              Duration ociosidadeMaxima) {
+        this.carrinhoRepository = carrinhoRepository;
+        this.catalogoService = catalogoService;
+        this.ociosidadeMaxima = ociosidadeMaxima;
+        for (int i = 0; i < SHARDS; i++) {
+            shards[i] = new Shard();
+        }
+        executor.scheduleWithFixedDelay(() -> gravarPendentes(false),
+            INTERVALO_GRAVACAO_MS, INTERVALO_GRAVACAO_MS, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Item do carrinho: ID estável (o mesmo gravado em itens_carrinho), produto, quantidade e
+     * preço unitário do catálogo (nulo se o produto saiu do catálogo; o item não entra nos totais)
+     */
+    public record Linha(UUID itemId, UUID produtoId, int quantidade, Money precoUnitario) {
+        
+        public long subtotalCentavos() {
+            return precoUnitario == null ? 0L : Money.multiplicar(precoUnitario.centavos(), quantidade);
+        }
+    }
+    
+    /**
+     * Totais do carrinho: itens com preço, soma das quantidades e subtotal
+     */
+    public record Totais(int itens, int quantidade, Money subtotal) {
+    }
+    
+    /**
+     * Cópia imutável do conteúdo de um carrinho em um instante
+     */
+    public record Conteudo(UUID id, UUID clienteId, List<Linha> linhas, Totais totais) {
+        
+        public Optional<Linha> linhaDoProduto(UUID produtoId) {
+            return linhas.stream().filter(linha -> linha.produtoId().equals(produtoId)).findFirst();
+        }
+    }
+    
+    private static final class Shard {
+        final ConcurrentHashMap<UUID, CarrinhoAtivo> carrinhos = new ConcurrentHashMap<>();
+        final Set<UUID> pendentes = ConcurrentHashMap.newKeySet();
+    }
+    
+    /**
+     * Carrinho em memória. Linhas e totais só mudam sob o monitor do carrinho, sempre pelos
+     * métodos abaixo, que ajustam os totais pela diferença entre a linha antiga e a nova.
+     */
+    private final class CarrinhoAtivo {
+        final UUID id;
+        final UUID clienteId;
+        // Linhas por produto, na ordem de inclusão
+        final Map<UUID, Linha> linhas = new LinkedHashMap<>();
+        int itens;
+        int quantidade;
+        long subtotal;
+        // Versão do catálogo usada nos preços das linhas
+        long versaoPrecos = -1;
+        long versao;
+        long versaoGravada;
+        long ultimoAcesso = System.nanoTime();
+        boolean descartado;
+        int falhasPermanentes;
+        
+        CarrinhoAtivo(UUID id, UUID clienteId, boolean gravado) {
+            this.id = id;
+            this.clienteId = clienteId;
+            // Carrinho novo começa pendente para que a linha em carrinhos (e o ID) seja gravada
+            this.versao = gravado ? 0 : 1;
+        }
+        
+        boolean pendente() {
+            return versao > versaoGravada;
+        }
+        
+        Linha linha(UUID produtoId) {
+            return linhas.get(produtoId);
+        }
+        
+        Optional<Linha> linhaDoItem(UUID itemId) {
+            return linhas.values().stream().filter(linha -> linha.itemId().equals(itemId)).findFirst();
+        }
+        
+        /**
+         * Inclui ou substitui a linha do produto; quantidade zero (ou menor) remove
+         */
+        void definir(UUID produtoId, int novaQuantidade) {
+            Linha atual = linhas.get(produtoId);
+            if (novaQuantidade <= 0) {
+                remover(produtoId);
+                return;
+            }
+            Linha nova = atual == null
+                ? new Linha(Identificadores.novo(), produtoId, novaQuantidade, preco(produtoId))
+                : new Linha(atual.itemId(), produtoId, novaQuantidade, atual.precoUnitario());
+            substituir(atual, nova);
+        }
+        
+        void remover(UUID produtoId) {
+            Linha atual = linhas.remove(produtoId);
+            if (atual != null) {
+                descontar(atual);
+            }
+        }
+        
+        void limpar() {
+            linhas.clear();
+            itens = 0;
+            quantidade = 0;
+            subtotal = 0;
+        }
+        
+        /**
+         * Atualiza os preços das linhas se o catálogo mudou de versão desde a última vez
+         */
+        boolean reprecificar(long versaoCatalogo) {
+            if (versaoPrecos == versaoCatalogo) {
+                return false;
+            }
+            versaoPrecos = versaoCatalogo;
+            long anterior = subtotal;
+            int itensAnterior = itens;
+            for (Linha atual : List.copyOf(linhas.values())) {
+                Money preco = preco(atual.produtoId());
+                if (!Objects.equals(preco, atual.precoUnitario())) {
+                    substituir(atual, new Linha(atual.itemId(), atual.produtoId(), atual.quantidade(), preco));
+                }
+            }
+            return subtotal != anterior || itens != itensAnterior;
+        }
+        
+        private void substituir(Linha atual, Linha nova) {
+            if (atual != null) {
+                descontar(atual);
+            }
+            linhas.put(nova.produtoId(), nova);
+            if (nova.precoUnitario() != null) {
+                itens++;
+                quantidade += nova.quantidade();
+                subtotal = Money.somar(subtotal, nova.subtotalCentavos());
+            }
+        }
+        
+        private void descontar(Linha linha) {
+            if (linha.precoUnitario() != null) {
+                itens--;
+                quantidade -= linha.quantidade();
+                subtotal = Money.somar(subtotal, -linha.subtotalCentavos());
+            }
+        }
+        
+        Conteudo conteudo() {
+            return new Conteudo(id, clienteId, List.copyOf(linhas.values()), new Totais(itens, quantidade, new Money(subtotal)));
+        }
+        
+        EstadoCarrinho estado() {
+            List<ItemEstado> estadoItens = new ArrayList<>(linhas.size());
+            for (Linha linha : linhas.values()) {
+                estadoItens.add(new ItemEstado(linha.itemId(), linha.produtoId(), linha.quantidade()));
+            }
+            return new EstadoCarrinho(id, clienteId, estadoItens, itens, quantidade, subtotal);
+        }
+    }
+    
+    /**
+     * Conteúdo atual do carrinho do cliente (carregado do banco ou criado vazio no primeiro acesso)
+     */
+    public Conteudo obter(UUID clienteId) {
+        return alterar(clienteId, null);
+    }
+    
+    /**
+     * Soma a quantidade ao item do produto (ou inclui o item), limitada a "maximo"
+     */
+    public Conteudo adicionar(UUID clienteId, UUID produtoId, int quantidade, int maximo) {
+        return alterar(clienteId, carrinho -> {
+            Linha atual = carrinho.linha(produtoId);
+            long soma = (atual == null ? 0L : atual.quantidade()) + quantidade;
+            carrinho.definir(produtoId, (int) Math.min(soma, maximo));
+        });
+    }
+    
+    /**
+     * Define a quantidade de um item pelo seu ID
+     *
+     * @throws RuntimeException se o item não estiver no carrinho do cliente
+     */
+    public Conteudo definirQuantidade(UUID clienteId, UUID itemId, int quantidade) {
+        return alterar(clienteId, carrinho -> {
+            Linha atual = carrinho.linhaDoItem(itemId)
+                .orElseThrow(() -> new RuntimeException("Item não encontrado"));
+            carrinho.definir(atual.produtoId(), quantidade);
+        });
+    }
+    
+    /**
+     * Define de uma vez as quantidades de vários produtos (quantidade zero remove o item).
+     * Todas as alterações são aplicadas juntas: nenhuma leitura vê o carrinho pela metade.
+     */
+    public Conteudo definirItens(UUID clienteId, Map<UUID, Integer> quantidades) {
+        return alterar(clienteId, carrinho -> quantidades.forEach(carrinho::definir));
+    }
+    
+    /**
+     * Remove o item do produto, se existir
+     */
+    public Conteudo remover(UUID clienteId, UUID produtoId) {
+        return alterar(clienteId, carrinho -> carrinho.remover(produtoId));
+    }
+    
+    /**
+     * Remove todos os itens
+     */
+    public Conteudo esvaziar(UUID clienteId) {
+        return alterar(clienteId, CarrinhoAtivo::limpar);
+    }
+    
+    /**
+     * Conteúdo do carrinho para o checkout: o pedido é montado com esta cópia, não com o banco.
+     * O carrinho esvaziado é gravado na transação do request (a mesma conexão do pedido, sem
+     * uma segunda do pool), então o banco só perde os itens se o pedido for gravado. Depois do
+     * commit os itens pedidos saem da memória; itens incluídos durante o checkout permanecem
+     * no carrinho e a thread de write-behind os grava de novo.
+     *
+     * @return o conteúdo pedido (vazio se o carrinho não tem itens; nesse caso nada é gravado)
+     */
+    public Conteudo prepararCheckout(UUID clienteId) {
+        // A limpeza depende do commit do checkout: a transação do request precisa estar aberta
+        DatabaseConfig.getEntityManagerParaEscrita();
+        
+        Conteudo conteudo = obter(clienteId);
+        if (conteudo.linhas().isEmpty()) {
+            // Nada a finalizar; o chamador recusa o checkout
+            return conteudo;
+        }
+        carrinhoRepository.gravarEstados(List.of(new EstadoCarrinho(conteudo.id(), clienteId, List.of(), 0, 0, 0L)));
+        
+        DatabaseConfig.runAfterCommit(() -> alterar(clienteId, atual -> {
+            for (Linha pedida : conteudo.linhas()) {
+                Linha linha = atual.linha(pedida.produtoId());
+                if (linha != null) {
+                    atual.definir(linha.produtoId(), linha.quantidade() - pedida.quantidade());
+                }
+            }
+        }));
+        return conteudo;
+    }
+    
+    /**
+     * Grava todos os carrinhos pendentes e encerra a thread de gravação (desligamento)
+     */
+    public void encerrar() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        sincronizar();
+    }
+    
+    /**
+     * Grava agora todos os carrinhos pendentes, mesmo durante a pausa após erro transitório
+     * (desligamento e testes)
+     */
+    public void sincronizar() {
+        gravarPendentes(true);
+    }
+    
+    /**
+     * Aplica a alteração (ou apenas lê, se nula) sob o monitor do carrinho e devolve o conteúdo resultante
+     */
+    private Conteudo alterar(UUID clienteId, Consumer<CarrinhoAtivo> alteracao) {
+        long versaoCatalogo = catalogoService.getVersao();
+        while (true) {
+            CarrinhoAtivo carrinho = ativo(clienteId);
+            synchronized (carrinho) {
+                if (carrinho.descartado) {
+                    // Descartado por ociosidade entre a busca e o lock: carrega de novo
+                    continue;
+                }
+                carrinho.ultimoAcesso = System.nanoTime();
+                // Totais mudaram só pelo preço: também precisam ir ao banco
+                boolean alterado = carrinho.reprecificar(versaoCatalogo);
+                if (alteracao != null) {
+                    alteracao.accept(carrinho);
+                    alterado = true;
+                }
+                if (alterado) {
+                    carrinho.versao++;
+                    shard(clienteId).pendentes.add(clienteId);
+                }
+                return carrinho.conteudo();
+            }
+        }
+    }
+    
+    private Money preco(UUID produtoId) {
+        return catalogoService.getSnapshot().findProdutoById(produtoId)
+            .map(produto -> Money.of(produto.getPreco()))
+            .orElse(null);
+    }
+    
+    private CarrinhoAtivo ativo(UUID clienteId) {
+        Shard shard = shard(clienteId);
+        CarrinhoAtivo carrinho = shard.carrinhos.get(clienteId);
+        if (carrinho != null) {
+            return carrinho;
+        }
+        // Carregado fora do mapa (sem I/O dentro de computeIfAbsent); em corrida, vence o primeiro
+        CarrinhoAtivo carregado = carregar(clienteId);
+        CarrinhoAtivo existente = shard.carrinhos.putIfAbsent(clienteId, carregado);
+        if (existente != null) {
+            return existente;
+        }
+        if (carregado.pendente()) {
+            shard.pendentes.add(clienteId);
+        }
+        return carregado;
+    }
+    
+    private CarrinhoAtivo carregar(UUID clienteId) {
+        Optional<EstadoCarrinho> estado = carrinhoRepository.carregarEstado(clienteId);
+        if (estado.isEmpty()) {
+            return new CarrinhoAtivo(Identificadores.novo(), clienteId, false);
+        }
+        CarrinhoAtivo carrinho = new CarrinhoAtivo(estado.get().id(), clienteId, true);
+        for (ItemEstado item : estado.get().itens()) {
+            carrinho.linhas.put(item.produtoId(), new Linha(item.id(), item.produtoId(), item.quantidade(), null));
+        }
+        // Preços e totais vêm do catálogo atual; só regrava se os totais do banco ficaram defasados
+        carrinho.reprecificar(catalogoService.getVersao());
+        if (carrinho.itens != estado.get().totalItens()
+                || carrinho.quantidade != estado.get().totalQuantidade()
+                || carrinho.subtotal != estado.get().subtotalCentavos()) {
+            carrinho.versao++;
+        }
+        return carrinho;
+    }
+    
+    private Shard shard(UUID clienteId) {
+        return shards[Math.floorMod(clienteId.hashCode(), SHARDS)];
+    }
+    
+    /**
+     * Rodada da thread de write-behind: grava os pendentes em lotes e descarta carrinhos ociosos.
+     * Durante a pausa após erro transitório a rodada não faz nada (a menos que forçada).
+     */
+    private synchronized void gravarPendentes(boolean forcar) {
+        if (!forcar && System.nanoTime() - pausaAte < 0) {
+            return;
+        }
+        try {
+            List<CarrinhoAtivo> lote = new ArrayList<>(CARRINHOS_POR_LOTE);
+            for (Shard shard : shards) {
+                Iterator<UUID> pendentes = shard.pendentes.iterator();
+                while (pendentes.hasNext()) {
+                    UUID clienteId = pendentes.next();
+                    pendentes.remove();
+                    CarrinhoAtivo carrinho = shard.carrinhos.get(clienteId);
+                    if (carrinho == null) {
+                        continue;
+                    }
+                    lote.add(carrinho);
+                    if (lote.size() == CARRINHOS_POR_LOTE) {
+                        Resultado resultado = gravarLote(lote);
+                        lote.clear();
+                        if (resultado == Resultado.FALHA_TRANSITORIA) {
+                            // Banco indisponível: os demais pendentes esperam a próxima rodada
+                            return;
+                        }
+                    }
+                }
+            }
+            if (!lote.isEmpty()) {
+                gravarLote(lote);
+            }
+            descartarOciosos();
+        } catch (RuntimeException e) {
+            System.err.println("⚠️ CARRINHOS - Erro na rodada de gravação: " + e.getMessage());
+        }
+    }
+    
+    private enum Resultado {
+        GRAVADO,
+        // Banco indisponível, timeout etc.: a mesma gravação pode dar certo depois
+        FALHA_TRANSITORIA,
+        // Violação de integridade: repetir a mesma gravação não resolve
+        FALHA_PERMANENTE
+    }
+    
+    /**
+     * Grava um lote. Se o lote falhar por erro permanente, grava carrinho a carrinho para que um
+     * carrinho com problema não bloqueie os demais; erro transitório pausa a gravação sem tocar
+     * nos carrinhos.
+     */
+    private Resultado gravarLote(List<CarrinhoAtivo> lote) {
+        Resultado resultado = gravar(lote);
+        if (resultado == Resultado.FALHA_PERMANENTE && lote.size() > 1) {
+            for (CarrinhoAtivo carrinho : lote) {
+                if (gravar(List.of(carrinho)) == Resultado.FALHA_TRANSITORIA) {
+                    return Resultado.FALHA_TRANSITORIA;
+                }
+            }
+            return Resultado.GRAVADO;
+        }
+        return resultado;
+    }
+    
+    /**
+     * Grava o estado atual dos carrinhos pendentes da lista em uma transação própria. Em caso de
+     * falha os carrinhos voltam a ficar pendentes (ou, após MAXIMO_FALHAS_PERMANENTES falhas
+     * permanentes do carrinho sozinho, são descartados).
+     */
+    private Resultado gravar(List<CarrinhoAtivo> carrinhos) {
+        List<CarrinhoAtivo> gravando = new ArrayList<>(carrinhos.size());
+        List<EstadoCarrinho> estados = new ArrayList<>(carrinhos.size());
+        List<Long> versoes = new ArrayList<>(carrinhos.size());
+        for (CarrinhoAtivo carrinho : carrinhos) {
+            synchronized (carrinho) {
+                if (carrinho.pendente()) {
+                    gravando.add(carrinho);
+                    estados.add(carrinho.estado());
+                    versoes.add(carrinho.versao);
+                }
+            }
+        }
+        if (estados.isEmpty()) {
+            return Resultado.GRAVADO;
+        }
+        
+        try {
+            DatabaseConfig.executeInNewContext(RequestPersistenceContext.Modo.ESCRITA, "gravação de carrinhos", () -> {
+                carrinhoRepository.gravarEstados(estados);
+                return null;
+            });
+        } catch (RuntimeException e) {
+            boolean permanente = isFalhaPermanente(e);
+            System.err.println("⚠️ CARRINHOS - Falha " + (permanente ? "permanente" : "transitória") + " ao gravar "
+                + estados.size() + " carrinho(s): " + e.getMessage());
+            for (CarrinhoAtivo carrinho : gravando) {
+                if (permanente && carrinhos.size() == 1 && ++carrinho.falhasPermanentes >= MAXIMO_FALHAS_PERMANENTES) {
+                    descartar(carrinho);
+                } else {
+                    shard(carrinho.clienteId).pendentes.add(carrinho.clienteId);
+                }
+            }
+            if (!permanente) {
+                pausar();
+                return Resultado.FALHA_TRANSITORIA;
+            }
+            return Resultado.FALHA_PERMANENTE;
+        }
+        
+        for (int i = 0; i < gravando.size(); i++) {
+            CarrinhoAtivo carrinho = gravando.get(i);
+            synchronized (carrinho) {
+                carrinho.versaoGravada = Math.max(carrinho.versaoGravada, versoes.get(i));
+                carrinho.falhasPermanentes = 0;
+            }
+        }
+        falhasTransitorias = 0;
+        return Resultado.GRAVADO;
+    }
+    
+    /**
+     * Espera crescente após erro transitório: INTERVALO_GRAVACAO_MS dobrando até PAUSA_MAXIMA
+     */
+    private void pausar() {
+        long pausaMs = Math.min(INTERVALO_GRAVACAO_MS << Math.min(falhasTransitorias, 16), PAUSA_MAXIMA.toMillis());
+        falhasTransitorias++;
+        pausaAte = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(pausaMs);
+    }
+    
+    /**
+     * Violação de integridade (SQLState classe 23, ex.: FK do cliente removido): repetir não resolve
+     */
+    static boolean isFalhaPermanente(Throwable erro) {
+        for (Throwable causa = erro; causa != null; causa = causa.getCause()) {
+            if (causa instanceof SQLException sql && sql.getSQLState() != null && sql.getSQLState().startsWith("23")) {
+                return true;
+            }
+            if (causa.getCause() == causa) {
+                break;
+            }
+        }
+        return false;
+    }
+    
+    private void descartar(CarrinhoAtivo carrinho) {
+        synchronized (carrinho) {
+            StringBuilder itens = new StringBuilder();
+            for (Linha linha : carrinho.linhas.values()) {
+                itens.append(itens.isEmpty() ? "" : ", ").append(linha.produtoId()).append(" x").append(linha.quantidade());
+            }
+            System.err.println("❌ CARRINHOS - Carrinho " + carrinho.id + " do cliente " + carrinho.clienteId
+                + " descartado após " + carrinho.falhasPermanentes + " falhas permanentes de gravação; itens perdidos: ["
+                + itens + "]");
+            carrinho.descartado = true;
+            shard(carrinho.clienteId).carrinhos.remove(carrinho.clienteId, carrinho);
+        }
+    }
+    
+    private void descartarOciosos() {
+        long limite = System.nanoTime() - ociosidadeMaxima.toNanos();
+        for (Shard shard : shards) {
+            for (CarrinhoAtivo carrinho : shard.carrinhos.values()) {
+                synchronized (carrinho) {
+                    if (!carrinho.pendente() && carrinho.ultimoAcesso - limite < 0) {
+                        carrinho.descartado = true;
+                        shard.carrinhos.remove(carrinho.clienteId, carrinho);
+                    }
+                }
+            }
+        }
+    }
+}
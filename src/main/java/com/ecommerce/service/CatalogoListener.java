@@ -0,0 +1,29 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.response.ProdutoResponseDTO;
+
+import java.util.UUID;
+
+/**
+ * Estruturas derivadas do catálogo (índices de busca etc.) que acompanham as escritas.
+ *
+ * Os eventos são entregues pelo CatalogoService depois do commit e antes de o novo snapshot
+ * ser publicado, um de cada vez e na mesma ordem das versões.
+ */
+public interface CatalogoListener {
+
+    /**
+     * Catálogo recarregado por completo (inicialização ou alteração em categorias)
+     */
+    void catalogoRecarregado(CatalogoSnapshot snapshot);
+
+    /**
+     * Produto criado ou atualizado
+     */
+    void produtoSalvo(ProdutoResponseDTO produto);
+
+    /**
+     * Produto removido
+     */
+    void produtoRemovido(UUID produtoId);
+}
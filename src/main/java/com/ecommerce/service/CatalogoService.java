@@ -0,0 +1,168 @@
+package com.ecommerce.service;
+
+import com.ecommerce.config.DatabaseConfig;
+import com.ecommerce.config.RequestPersistenceContext;
+import com.ecommerce.dto.response.CategoriaResponseDTO;
+import com.ecommerce.dto.response.ProdutoResponseDTO;
+import com.ecommerce.mapper.CategoriaMapper;
+import com.ecommerce.mapper.ProdutoMapper;
+import com.ecommerce.repository.CategoriaRepository;
+import com.ecommerce.repository.ProdutoRepository;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+
+/**
+ * Mantém o snapshot imutável do catálogo que atende as leituras públicas de produtos e categorias.
+ *
+ * O snapshot é montado na inicialização e substituído atomicamente (copy-on-write) depois do
+ * commit de cada escrita em ProdutoService/CategoriaService. Leitores nunca bloqueiam: apenas
+ * leem a referência volátil atual. Escritores são serializados para que as versões sejam
+ * monotônicas.
+ */
+public class CatalogoService {
+
+    private final ProdutoRepository produtoRepository;
+    private final CategoriaRepository categoriaRepository;
+    private final ProdutoMapper produtoMapper;
+    private final CategoriaMapper categoriaMapper;
+
+    private final AtomicLong versao = new AtomicLong();
+    // ReentrantLock em vez de synchronized: a recarga faz I/O e não deve prender virtual threads
+    private final ReentrantLock escrita = new ReentrantLock();
+    private volatile CatalogoSnapshot snapshot;
+    private final List<CatalogoListener> listeners = new CopyOnWriteArrayList<>();
+
+    public CatalogoService(ProdutoRepository produtoRepository,
+                           CategoriaRepository categoriaRepository,
+                           ProdutoMapper produtoMapper,
+                           CategoriaMapper categoriaMapper) {
+        this.produtoRepository = produtoRepository;
+        this.categoriaRepository = categoriaRepository;
+        this.produtoMapper = produtoMapper;
+        this.categoriaMapper = categoriaMapper;
+    }
+
+    /**
+     * Registra uma estrutura derivada do catálogo. Se o catálogo já estiver carregado,
+     * o listener recebe o snapshot atual imediatamente.
+     */
+    public void adicionarListener(CatalogoListener listener) {
+        escrita.lock();
+        try {
+            listeners.add(listener);
+            if (snapshot != null) {
+                listener.catalogoRecarregado(snapshot);
+            }
+        } finally {
+            escrita.unlock();
+        }
+    }
+    
+    /**
+     * Snapshot atual do catálogo (montado sob demanda se ainda não existir)
+     */
+    public CatalogoSnapshot getSnapshot() {
+        CatalogoSnapshot atual = snapshot;
+        if (atual == null) {
+            atual = recarregar();
+        }
+        return atual;
+    }
+
+    /**
+     * Versão atual do catálogo (muda a cada escrita em produtos ou categorias)
+     */
+    public long getVersao() {
+        return getSnapshot().getVersao();
+    }
+
+    /**
+     * Recarrega o catálogo inteiro do banco, em um contexto de persistência próprio
+     */
+    public CatalogoSnapshot recarregar() {
+        escrita.lock();
+        try {
+            long inicio = System.nanoTime();
+            CatalogoSnapshot novo = DatabaseConfig.executeInNewContext(
+                RequestPersistenceContext.Modo.SOMENTE_LEITURA, "recarga do catálogo", () -> {
+                    List<ProdutoResponseDTO> produtos = produtoRepository.findAllWithCategoria().stream()
+                        .map(produtoMapper::toResponseDTO)
+                        .toList();
+                    List<CategoriaResponseDTO> categorias = categoriaRepository.findAll().stream()
+                        .map(categoriaMapper::toResponseDTO)
+                        .toList();
+                    return CatalogoSnapshot.construir(versao.incrementAndGet(), produtos, categorias, inicio);
+                });
+            notificar(listener -> listener.catalogoRecarregado(novo));
+            snapshot = novo;
+            System.out.println("📚 Catálogo carregado - versão " + novo.getVersao() + ": "
+                + novo.getTotalProdutos() + " produtos, " + novo.getTotalCategorias()
+                + " categorias em " + novo.getDuracaoConstrucaoMs() + "ms");
+            return novo;
+        } finally {
+            escrita.unlock();
+        }
+    }
+
+    /**
+     * Registra um produto criado/atualizado; aplicado ao snapshot após o commit do request
+     */
+    public void produtoSalvo(ProdutoResponseDTO produto) {
+        DatabaseConfig.runAfterCommit(() -> aplicar(novaVersao -> getSnapshot().comProduto(novaVersao, produto),
+            listener -> listener.produtoSalvo(produto)));
+    }
+
+    /**
+     * Registra a remoção de um produto; aplicada ao snapshot após o commit do request
+     */
+    public void produtoRemovido(UUID produtoId) {
+        DatabaseConfig.runAfterCommit(() -> aplicar(novaVersao -> getSnapshot().semProduto(novaVersao, produtoId),
+            listener -> listener.produtoRemovido(produtoId)));
+    }
+
+    /**
+     * Registra alteração em categorias. Como o nome da categoria é embutido nos produtos,
+     * o catálogo é recarregado por completo (escritas em categorias são raras).
+     */
+    public void categoriasAlteradas() {
+        DatabaseConfig.runAfterCommit(this::recarregar);
+    }
+
+    private void aplicar(LongFunction<CatalogoSnapshot> alteracao, Consumer<CatalogoListener> evento) {
+        escrita.lock();
+        try {
+            if (snapshot == null) {
+                recarregar();
+                return;
+            }
+            CatalogoSnapshot novo = alteracao.apply(versao.incrementAndGet());
+            notificar(evento);
+            snapshot = novo;
+            System.out.println("📚 Catálogo atualizado - versão " + novo.getVersao()
+                + " em " + novo.getDuracaoConstrucaoMs() + "ms");
+        } finally {
+            escrita.unlock();
+        }
+    }
+    
+    /**
+     * Entrega o evento a cada listener (chamado com o lock de escrita, preservando a ordem das versões).
+     * Roda antes de publicar o snapshot: quem lê a versão nova (ex.: CatalogoResponseCache) já
+     * encontra os índices atualizados. A falha de um listener não impede os demais nem a publicação.
+     */
+    private void notificar(Consumer<CatalogoListener> evento) {
+        for (CatalogoListener listener : listeners) {
+            try {
+                evento.accept(listener);
+            } catch (RuntimeException e) {
+                System.err.println("⚠️ Erro ao atualizar " + listener.getClass().getSimpleName() + ": " + e.getMessage());
+            }
+        }
+    }
+}
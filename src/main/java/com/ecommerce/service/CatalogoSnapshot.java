@@ -0,0 +1,213 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.response.CategoriaResponseDTO;
+import com.ecommerce.dto.response.ProdutoResponseDTO;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Fotografia imutável do catálogo (produtos e categorias) usada nas leituras públicas.
+ *
+ * Nunca é alterada depois de construída: cada escrita no catálogo gera uma nova
+ * instância (copy-on-write) que substitui a anterior de forma atômica no CatalogoService.
+ * Os DTOs são compartilhados entre requests e não devem ser modificados por quem os lê.
+ */
+public final class CatalogoSnapshot {
+
+    private static final Comparator<ProdutoResponseDTO> POR_NOME =
+        Comparator.comparing(ProdutoResponseDTO::getNome, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(p -> p.getId().toString());
+
+    private static final Comparator<ProdutoResponseDTO> POR_PRECO =
+        Comparator.comparing(ProdutoResponseDTO::getPreco, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(POR_NOME);
+
+    private static final Comparator<CategoriaResponseDTO> CATEGORIA_POR_NOME =
+        Comparator.comparing(CategoriaResponseDTO::getNome, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(c -> c.getId().toString());
+
+    private final long versao;
+    private final Instant construidoEm;
+    private final long duracaoConstrucaoMs;
+
+    private final Map<UUID, ProdutoResponseDTO> produtosPorId;
+    private final Map<String, ProdutoResponseDTO> produtosPorCodigo;
+    private final Map<UUID, List<ProdutoResponseDTO>> produtosPorCategoria;
+    private final List<ProdutoResponseDTO> produtosPorNome;
+    private final List<ProdutoResponseDTO> produtosPorPreco;
+
+    private final Map<UUID, CategoriaResponseDTO> categoriasPorId;
+    private final Map<String, CategoriaResponseDTO> categoriasPorNome;
+    private final List<CategoriaResponseDTO> categorias;
+
+    // Montado no primeiro uso; duas threads podem montar ao mesmo tempo, o resultado é o mesmo
+    private volatile IndiceFacetas facetas;
+
+    private CatalogoSnapshot(long versao, Map<UUID, ProdutoResponseDTO> produtos,
+                             Map<UUID, CategoriaResponseDTO> categorias, long inicioNanos) {
+        this.versao = versao;
+
+        List<ProdutoResponseDTO> porNome = new ArrayList<>(produtos.values());
+        porNome.sort(POR_NOME);
+        List<ProdutoResponseDTO> porPreco = new ArrayList<>(porNome);
+        porPreco.sort(POR_PRECO);
+
+        Map<String, ProdutoResponseDTO> porCodigo = new HashMap<>(produtos.size() * 2);
+        Map<UUID, List<ProdutoResponseDTO>> porCategoria = new HashMap<>();
+        for (ProdutoResponseDTO produto : porNome) {
+            porCodigo.put(produto.getCodigoBarras(), produto);
+            UUID categoriaId = categoriaIdDe(produto);
+            if (categoriaId != null) {
+                porCategoria.computeIfAbsent(categoriaId, id -> new ArrayList<>()).add(produto);
+            }
+        }
+        porCategoria.replaceAll((id, lista) -> List.copyOf(lista));
+
+        List<CategoriaResponseDTO> categoriasOrdenadas = new ArrayList<>(categorias.values());
+        categoriasOrdenadas.sort(CATEGORIA_POR_NOME);
+        Map<String, CategoriaResponseDTO> categoriasNome = new HashMap<>();
+        for (CategoriaResponseDTO categoria : categoriasOrdenadas) {
+            categoriasNome.put(categoria.getNome(), categoria);
+        }
+
+        this.produtosPorId = Map.copyOf(produtos);
+        this.produtosPorCodigo = Collections.unmodifiableMap(porCodigo);
+        this.produtosPorCategoria = Collections.unmodifiableMap(porCategoria);
+        this.produtosPorNome = List.copyOf(porNome);
+        this.produtosPorPreco = List.copyOf(porPreco);
+        this.categoriasPorId = Map.copyOf(categorias);
+        this.categoriasPorNome = Collections.unmodifiableMap(categoriasNome);
+        this.categorias = List.copyOf(categoriasOrdenadas);
+
+        this.construidoEm = Instant.now();
+        this.duracaoConstrucaoMs = (System.nanoTime() - inicioNanos) / 1_000_000;
+    }
+
+    /**
+     * Constrói um snapshot completo a partir dos dados carregados do banco
+     */
+    static CatalogoSnapshot construir(long versao, Collection<ProdutoResponseDTO> produtos,
+                                      Collection<CategoriaResponseDTO> categorias, long inicioNanos) {
+        Map<UUID, ProdutoResponseDTO> produtosPorId = new HashMap<>(produtos.size() * 2);
+        for (ProdutoResponseDTO produto : produtos) {
+            produtosPorId.put(produto.getId(), produto);
+        }
+        Map<UUID, CategoriaResponseDTO> categoriasPorId = new HashMap<>();
+        for (CategoriaResponseDTO categoria : categorias) {
+            categoriasPorId.put(categoria.getId(), categoria);
+        }
+        return new CatalogoSnapshot(versao, produtosPorId, categoriasPorId, inicioNanos);
+    }
+
+    /**
+     * Novo snapshot com o produto incluído ou substituído
+     */
+    CatalogoSnapshot comProduto(long novaVersao, ProdutoResponseDTO produto) {
+        long inicio = System.nanoTime();
+        Map<UUID, ProdutoResponseDTO> produtos = new HashMap<>(produtosPorId);
+        produtos.put(produto.getId(), produto);
+        return new CatalogoSnapshot(novaVersao, produtos, categoriasPorId, inicio);
+    }
+
+    /**
+     * Novo snapshot sem o produto informado
+     */
+    CatalogoSnapshot semProduto(long novaVersao, UUID produtoId) {
+        long inicio = System.nanoTime();
+        Map<UUID, ProdutoResponseDTO> produtos = new HashMap<>(produtosPorId);
+        produtos.remove(produtoId);
+        return new CatalogoSnapshot(novaVersao, produtos, categoriasPorId, inicio);
+    }
+
+    private static UUID categoriaIdDe(ProdutoResponseDTO produto) {
+        if (produto.getCategoria() != null) {
+            return produto.getCategoria().getId();
+        }
+        return produto.getCategoriaId();
+    }
+
+    public long getVersao() {
+        return versao;
+    }
+
+    public Instant getConstruidoEm() {
+        return construidoEm;
+    }
+
+    public long getDuracaoConstrucaoMs() {
+        return duracaoConstrucaoMs;
+    }
+
+    public List<ProdutoResponseDTO> getProdutos() {
+        return produtosPorNome;
+    }
+
+    public Optional<ProdutoResponseDTO> findProdutoById(UUID id) {
+        return Optional.ofNullable(produtosPorId.get(id));
+    }
+
+    public Optional<ProdutoResponseDTO> findProdutoByCodigoBarras(String codigoBarras) {
+        return Optional.ofNullable(produtosPorCodigo.get(codigoBarras));
+    }
+
+    public List<ProdutoResponseDTO> findProdutosByCategoria(UUID categoriaId) {
+        return produtosPorCategoria.getOrDefault(categoriaId, List.of());
+    }
+
+    /**
+     * Produtos com preço entre min e max (inclusive), em ordem de preço - busca binária
+     */
+    public List<ProdutoResponseDTO> findProdutosByPrecoRange(BigDecimal precoMin, BigDecimal precoMax) {
+        int inicio = primeiroIndiceComPrecoMaiorOuIgual(precoMin);
+        int fim = inicio;
+        while (fim < produtosPorPreco.size() && produtosPorPreco.get(fim).getPreco().compareTo(precoMax) <= 0) {
+            fim++;
+        }
+        return produtosPorPreco.subList(inicio, fim);
+    }
+
+    private int primeiroIndiceComPrecoMaiorOuIgual(BigDecimal preco) {
+        int baixo = 0;
+        int alto = produtosPorPreco.size();
+        while (baixo < alto) {
+            int meio = (baixo + alto) >>> 1;
+            if (produtosPorPreco.get(meio).getPreco().compareTo(preco) < 0) {
+                baixo = meio + 1;
+            } else {
+                alto = meio;
+            }
+        }
+        return baixo;
+    }
+
+    public int getTotalProdutos() {
+        return produtosPorId.size();
+    }
+
+    public List<CategoriaResponseDTO> getCategorias() {
+        return categorias;
+    }
+
+    public Optional<CategoriaResponseDTO> findCategoriaById(UUID id) {
+        return Optional.ofNullable(categoriasPorId.get(id));
+    }
+
+    public Optional<CategoriaResponseDTO> findCategoriaByNome(String nome) {
+        return Optional.ofNullable(categoriasPorNome.get(nome));
+    }
+
+    public int getTotalCategorias() {
+        return categoriasPorId.size();
+    }
+
+    IndiceFacetas getFacetas() {
+        IndiceFacetas atual = facetas;
+        if (atual == null) {
+            atual = new IndiceFacetas(produtosPorNome, categorias);
+            facetas = atual;
+        }
+        return atual;
+    }
+}
@@ -19,13 +19,16 @@ public class CategoriaService {
     private final CategoriaRepository categoriaRepository;
     private final ProdutoRepository produtoRepository;
     private final CategoriaMapper categoriaMapper;
+    private final CatalogoService catalogoService;
     
     public CategoriaService(CategoriaRepository categoriaRepository, 
                            ProdutoRepository produtoRepository,
-                           CategoriaMapper categoriaMapper) {
+                           CategoriaMapper categoriaMapper,
+                           CatalogoService catalogoService) {
         this.categoriaRepository = categoriaRepository;
         this.produtoRepository = produtoRepository;
         this.categoriaMapper = categoriaMapper;
+        this.catalogoService = catalogoService;
     }
     
     /**
@@ -41,33 +44,30 @@ public class CategoriaService {
         Categoria categoria = categoriaMapper.toEntity(requestDTO);
         
         Categoria savedCategoria = categoriaRepository.save(categoria);
+        catalogoService.categoriasAlteradas();
         
         return categoriaMapper.toResponseDTO(savedCategoria);
     }
     
     /**
-     * Busca categoria por ID
+     * Busca categoria por ID (snapshot do catálogo)
      */
     public Optional<CategoriaResponseDTO> findById(UUID id) {
-        return categoriaRepository.findById(id)
-                .map(categoriaMapper::toResponseDTO);
+        return catalogoService.getSnapshot().findCategoriaById(id);
     }
     
     /**
-     * Busca categoria por nome
+     * Busca categoria por nome (snapshot do catálogo)
      */
     public Optional<CategoriaResponseDTO> findByNome(String nome) {
-        return categoriaRepository.findByNome(nome)
-                .map(categoriaMapper::toResponseDTO);
+        return catalogoService.getSnapshot().findCategoriaByNome(nome);
     }
     
     /**
-     * Lista todas as categorias
+     * Lista todas as categorias (snapshot do catálogo)
      */
     public List<CategoriaResponseDTO> findAll() {
-        return categoriaRepository.findAll().stream()
-                .map(categoriaMapper::toResponseDTO)
-                .toList();
+        return catalogoService.getSnapshot().getCategorias();
     }
     
     /**
@@ -91,6 +91,7 @@ public class CategoriaService {
         categoriaMapper.updateEntity(requestDTO, categoria);
         
         Categoria savedCategoria = categoriaRepository.save(categoria);
+        catalogoService.categoriasAlteradas();
         
         return categoriaMapper.toResponseDTO(savedCategoria);
     }
@@ -111,20 +112,21 @@ public class CategoriaService {
         }
         
         categoriaRepository.deleteById(id);
+        catalogoService.categoriasAlteradas();
     }
     
     /**
      * Conta total de categorias
      */
     public long count() {
-        return categoriaRepository.count();
+        return catalogoService.getSnapshot().getTotalCategorias();
     }
     
     /**
      * Verifica se categoria existe
      */
     public boolean exists(UUID id) {
-        return categoriaRepository.findById(id).isPresent();
+        return catalogoService.getSnapshot().findCategoriaById(id).isPresent();
     }
     
     /**
@@ -0,0 +1,127 @@
+package com.ecommerce.service;
+
+import com.ecommerce.config.DatabaseConfig;
+import com.ecommerce.domain.Cliente;
+import com.ecommerce.domain.UserModel;
+import com.ecommerce.repository.ClienteRepository;
+import com.ecommerce.repository.UserRepository;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Resolve o Cliente de um usuário autenticado (User ID → User → Cliente por email), criando-o
+ * no primeiro acesso. Compartilhado por carrinho, pedidos e endereços.
+ *
+ * O vínculo userId → clienteId fica em um cache LRU limitado e com expiração: no caminho
+ * quente (adicionar ao carrinho, checkout) o Cliente volta como referência do EntityManager,
+ * sem nenhuma consulta; os campos só são carregados se alguém chegar a lê-los. O vínculo é
+ * invalidado após o commit de qualquer alteração de email ou conta do usuário ou do cliente.
+ */
+public class ClienteResolver {
+
+    static final int MAX_ENTRADAS = 10_000;
+    static final Duration TTL = Duration.ofMinutes(30);
+
+    private final UserRepository userRepository;
+    private final ClienteRepository clienteRepository;
+    private final Map<UUID, Vinculo> vinculos = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<UUID, Vinculo> maisAntigo) {
+            return size() > MAX_ENTRADAS;
+        }
+    };
+
+    public ClienteResolver(UserRepository userRepository, ClienteRepository clienteRepository) {
+        this.userRepository = userRepository;
+        this.clienteRepository = clienteRepository;
+    }
+
+    private record Vinculo(UUID clienteId, long expiraEm) {
+    }
+
+    /**
+     * Resolve Cliente baseado no userId, garantindo sempre o mesmo Cliente por usuário.
+     *
+     * @param userId O ID do usuário
+     * @return O cliente correspondente ao usuário
+     * @throws RuntimeException se o usuário não for encontrado
+     */
+    public Cliente resolver(UUID userId) {
+        UUID clienteId = buscarVinculo(userId);
+        if (clienteId != null) {
+            return clienteRepository.getReference(clienteId);
+        }
+
+        Optional<UserModel> userOpt = userRepository.findById(userId);
+        if (userOpt.isEmpty()) {
+            throw new RuntimeException("Usuário não encontrado");
+        }
+        UserModel user = userOpt.get();
+
+        // Buscar cliente existente por email (garante unicidade)
+        Optional<Cliente> clientePorEmailOpt = clienteRepository.findByEmail(user.getEmail());
+        if (clientePorEmailOpt.isPresent()) {
+            Cliente cliente = clientePorEmailOpt.get();
+            registrarVinculo(userId, cliente.getId());
+            return cliente;
+        }
+
+        // Criar novo cliente com o ID do usuário, como no registro (UserService.createUser);
+        // o vínculo só vale se a criação for gravada
+        System.out.println("🛍️ CLIENTE - Criando novo cliente para usuário: " + user.getEmail());
+        Cliente cliente = new Cliente();
+        cliente.setId(userId);
+        cliente.setEmail(user.getEmail());
+        cliente.setNome(user.getEmail().split("@")[0]);
+        Cliente savedCliente = clienteRepository.save(cliente);
+        UUID novoClienteId = savedCliente.getId();
+        DatabaseConfig.runAfterCommit(() -> registrarVinculo(userId, novoClienteId));
+        return savedCliente;
+    }
+
+    /**
+     * Descarta o vínculo de um usuário (email alterado, conta desativada ou removida)
+     */
+    public void invalidarUsuario(UUID userId) {
+        DatabaseConfig.runAfterCommit(() -> {
+            synchronized (vinculos) {
+                vinculos.remove(userId);
+            }
+        });
+    }
+
+    /**
+     * Descarta os vínculos que apontam para um cliente (email alterado ou cliente removido)
+     */
+    public void invalidarCliente(UUID clienteId) {
+        DatabaseConfig.runAfterCommit(() -> {
+            synchronized (vinculos) {
+                vinculos.values().removeIf(vinculo -> vinculo.clienteId().equals(clienteId));
+            }
+        });
+    }
+
+    private UUID buscarVinculo(UUID userId) {
+        synchronized (vinculos) {
+            Vinculo vinculo = vinculos.get(userId);
+            if (vinculo == null) {
+                return null;
+            }
+            if (System.nanoTime() - vinculo.expiraEm() >= 0) {
+                vinculos.remove(userId);
+                return null;
+            }
+            return vinculo.clienteId();
+        }
+    }
+
+    private void registrarVinculo(UUID userId, UUID clienteId) {
+        synchronized (vinculos) {
+            vinculos.put(userId, new Vinculo(clienteId, System.nanoTime() + TTL.toNanos()));
+        }
+    }
+}
@@ -17,11 +17,14 @@ public class ClienteService {
     
     private final ClienteRepository clienteRepository;
     private final ClienteMapper clienteMapper;
+    private final ClienteResolver clienteResolver;
     
     public ClienteService(ClienteRepository clienteRepository,
-                         ClienteMapper clienteMapper) {
+                         ClienteMapper clienteMapper,
+                         ClienteResolver clienteResolver) {
         this.clienteRepository = clienteRepository;
         this.clienteMapper = clienteMapper;
+        this.clienteResolver = clienteResolver;
     }
     
     /**
@@ -44,7 +47,6 @@ public class ClienteService {
         
         // Cria novo cliente
         Cliente cliente = clienteMapper.toEntity(requestDTO);
-        cliente.setId(UUID.randomUUID());
         
         Cliente savedCliente = clienteRepository.save(cliente);
         
@@ -127,6 +129,11 @@ public class ClienteService {
             throw new RuntimeException("Email é obrigatório");
         }
         
+        // Email alterado: o vínculo usuário → cliente (resolvido por email) deixa de valer
+        if (!requestDTO.getEmail().equals(cliente.getEmail())) {
+            clienteResolver.invalidarCliente(id);
+        }
+        
         // Atualiza dados
         clienteMapper.updateEntity(requestDTO, cliente);
         
@@ -147,6 +154,7 @@ public class ClienteService {
         // TODO: Verificar se cliente possui pedidos ou carrinho antes de excluir
         
         clienteRepository.deleteById(id);
+        clienteResolver.invalidarCliente(id);
     }
     
     /**
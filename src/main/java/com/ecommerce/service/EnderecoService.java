@@ -3,14 +3,12 @@ package com.ecommerce.service;
 import com.ecommerce.domain.Cliente;
 import com.ecommerce.domain.Endereco;
 import com.ecommerce.domain.Pedido;
-import com.ecommerce.domain.UserModel;
 import com.ecommerce.dto.request.EnderecoRequestDTO;
 import com.ecommerce.dto.response.EnderecoResponseDTO;
 import com.ecommerce.mapper.EnderecoMapper;
 import com.ecommerce.repository.ClienteRepository;
 import com.ecommerce.repository.EnderecoRepository;
 import com.ecommerce.repository.PedidoRepository;
-import com.ecommerce.repository.UserRepository;
 import jakarta.transaction.Transactional;
 
 import java.util.List;
@@ -25,18 +23,18 @@ public class EnderecoService {
     
     private final EnderecoRepository enderecoRepository;
     private final ClienteRepository clienteRepository;
-    private final UserRepository userRepository;
+    private final ClienteResolver clienteResolver;
     private final PedidoRepository pedidoRepository;
     private final EnderecoMapper enderecoMapper;
     
     public EnderecoService(EnderecoRepository enderecoRepository,
                           ClienteRepository clienteRepository,
-                          UserRepository userRepository,
+                          ClienteResolver clienteResolver,
                           PedidoRepository pedidoRepository,
                           EnderecoMapper enderecoMapper) {
         this.enderecoRepository = enderecoRepository;
         this.clienteRepository = clienteRepository;
-        this.userRepository = userRepository;
+        this.clienteResolver = clienteResolver;
         this.pedidoRepository = pedidoRepository;
         this.enderecoMapper = enderecoMapper;
     }
@@ -49,44 +47,14 @@ public class EnderecoService {
     }
     
     /**
-     * Resolve Cliente baseado no userId, garantindo sempre o mesmo Cliente por usuário.
-     * CORREÇÃO: Sempre resolve User ID → User → Cliente por email.
+     * Resolve Cliente baseado no userId (vínculo em cache no ClienteResolver)
      */
     private Cliente resolveCliente(UUID userId) {
-        System.out.println("🔍 ENDERECO DEBUG - Resolvendo Cliente para userId: " + userId);
-        
-        // SEMPRE buscar User primeiro para obter o email
-        if (userRepository != null) {
-            Optional<UserModel> userOpt = userRepository.findById(userId);
-            if (userOpt.isPresent()) {
-                UserModel user = userOpt.get();
-                System.out.println("✅ ENDERECO DEBUG - User encontrado: " + user.getEmail());
-                
-                // Buscar Cliente existente por email (garante unicidade)
-                Optional<Cliente> clientePorEmailOpt = clienteRepository.findByEmail(user.getEmail());
-                if (clientePorEmailOpt.isPresent()) {
-                    Cliente cliente = clientePorEmailOpt.get();
-                    System.out.println("✅ ENDERECO DEBUG - Cliente encontrado por email com ID: " + cliente.getId());
-                    return cliente;
-                }
-                
-                // Se não existe Cliente, criar um novo com ID único
-                System.out.println("🛍️ ENDERECO DEBUG - Criando novo Cliente para User: " + user.getEmail());
-                Cliente cliente = new Cliente();
-                cliente.setId(UUID.randomUUID()); // Gerar novo UUID único para Cliente
-                cliente.setEmail(user.getEmail());
-                cliente.setNome(user.getEmail().split("@")[0]);
-                
-                Cliente savedCliente = clienteRepository.save(cliente);
-                System.out.println("✅ ENDERECO DEBUG - Cliente criado com ID: " + savedCliente.getId());
-                
-                return savedCliente;
-            } else {
-                throw new RuntimeException("Usuário não encontrado com ID: " + userId);
-            }
+        if (clienteResolver != null) {
+            return clienteResolver.resolver(userId);
         }
         
-        // Fallback: Se não há userRepository (apenas para testes)
+        // Fallback: Se não há ClienteResolver (apenas para testes)
         // Tentar buscar Cliente que pode ter sido criado com userId como clienteId (dados legados)
         Optional<Cliente> clienteOpt = clienteRepository.findById(userId);
         if (clienteOpt.isPresent()) {
@@ -154,7 +122,6 @@ public class EnderecoService {
         
         // Cria novo endereço
         Endereco endereco = enderecoMapper.toEntity(dto);
-        endereco.setId(UUID.randomUUID());
         endereco.setCliente(cliente);
         endereco.setCep(cepNormalizado);
         endereco.setEhPadrao(dto.getEhPadrao() != null ? dto.getEhPadrao() : false);
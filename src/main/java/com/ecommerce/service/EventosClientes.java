@@ -0,0 +1,271 @@
+package com.ecommerce.service;
+
+import com.ecommerce.config.DatabaseConfig;
+import com.ecommerce.domain.Pedido;
+import com.ecommerce.domain.StatusPedido;
+import com.ecommerce.dto.response.NotificacaoResponseDTO;
+import io.javalin.http.sse.SseClient;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Registro das conexões SSE (GET /api/eventos) por cliente e envio dos eventos de cada cliente:
+ * notificações novas ("notificacao") e mudanças de status de pedido ("status-pedido").
+ *
+ * Os eventos são publicados só depois do commit da transação que os gerou. Cada conexão tem sua
+ * fila de envio (até MAX_PENDENTES_POR_CONEXAO mensagens), drenada por um pool fixo de
+ * THREADS_ENVIO threads, uma conexão por vez: um cliente lento atrasa só a própria fila. Uma
+ * conexão com a fila cheia, ou com uma escrita parada há mais de TEMPO_MAXIMO_ESCRITA_MS, é
+ * fechada (o cliente reconecta). Uma conexão ociosa não ocupa thread nenhuma (só o registro no
+ * mapa); um comentário a cada INTERVALO_HEARTBEAT_SEGUNDOS mantém proxies abertos e detecta
+ * conexões mortas. Cada cliente tem no máximo MAX_CONEXOES_POR_CLIENTE conexões: uma nova fecha
+ * a mais antiga.
+ */
+public class EventosClientes {
+    
+    static final int MAX_CONEXOES_POR_CLIENTE = 5;
+    static final int MAX_PENDENTES_POR_CONEXAO = 100;
+    private static final int THREADS_ENVIO = 4;
+    private static final long TEMPO_MAXIMO_ESCRITA_MS = 10_000;
+    // Abaixo do idle timeout padrão do Jetty (30s), que fecharia conexões sem tráfego
+    private static final long INTERVALO_HEARTBEAT_SEGUNDOS = 25;
+    private static final Mensagem HEARTBEAT = new Mensagem(null, "ping", null);
+    
+    private final Map<UUID, List<Conexao>> assinantes = new ConcurrentHashMap<>();
+    private final AtomicInteger conexoes = new AtomicInteger();
+    // Heartbeat e verificação de escritas paradas (não escreve nas conexões)
+    private final ScheduledExecutorService agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "eventos-clientes");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService envio = Executors.newFixedThreadPool(THREADS_ENVIO, r -> {
+        Thread thread = new Thread(r, "eventos-clientes-envio");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    public EventosClientes() {
+        agendador.scheduleWithFixedDelay(this::enviarHeartbeat,
+            INTERVALO_HEARTBEAT_SEGUNDOS, INTERVALO_HEARTBEAT_SEGUNDOS, TimeUnit.SECONDS);
+        agendador.scheduleWithFixedDelay(this::fecharEscritasParadas, 1, 1, TimeUnit.SECONDS);
+    }
+    
+    /**
+     * Dados do evento "status-pedido"
+     */
+    public record StatusPedidoEvento(UUID pedidoId, String numero, StatusPedido statusAnterior,
+                                     StatusPedido status, Instant atualizadoEm) {
+    }
+    
+    /**
+     * Mensagem na fila de uma conexão: evento já serializado ou, com evento nulo, um comentário
+     */
+    private record Mensagem(String evento, String dados, String id) {
+    }
+    
+    /**
+     * Conexão SSE com sua fila de envio. No máximo uma tarefa de envio por conexão fica no pool
+     * (agendada), o que mantém a ordem dos eventos da conexão.
+     */
+    private static final class Conexao {
+        final UUID clienteId;
+        final SseClient client;
+        final BlockingQueue<Mensagem> pendentes = new ArrayBlockingQueue<>(MAX_PENDENTES_POR_CONEXAO);
+        final AtomicBoolean agendada = new AtomicBoolean();
+        // Início da escrita em andamento (System.nanoTime), 0 se nenhuma
+        volatile long escrevendoDesde;
+        volatile FutureTask<Void> tarefa;
+        
+        Conexao(UUID clienteId, SseClient client) {
+            this.clienteId = clienteId;
+            this.client = client;
+        }
+    }
+    
+    /**
+     * Registra uma conexão SSE do cliente; ela fica aberta até o cliente desconectar
+     */
+    public void assinar(UUID clienteId, SseClient client) {
+        client.keepAlive();
+        Conexao conexao = new Conexao(clienteId, client);
+        client.onClose(() -> remover(conexao));
+        // Inclusão dentro do compute: não corre com a remoção da lista vazia em remover()
+        List<Conexao> doCliente = assinantes.compute(clienteId, (id, atual) -> {
+            List<Conexao> lista = atual != null ? atual : new CopyOnWriteArrayList<>();
+            lista.add(conexao);
+            return lista;
+        });
+        conexoes.incrementAndGet();
+        while (doCliente.size() > MAX_CONEXOES_POR_CLIENTE) {
+            fechar(doCliente.get(0));
+        }
+    }
+    
+    /**
+     * Publica uma notificação nova para o cliente após o commit
+     */
+    public void publicarNotificacao(NotificacaoResponseDTO notificacao) {
+        DatabaseConfig.runAfterCommit(() -> enviar(notificacao.getClienteId(), "notificacao",
+            notificacao.getId().toString(), notificacao));
+    }
+    
+    /**
+     * Publica a mudança de status de um pedido para o cliente após o commit
+     */
+    public void publicarStatusPedido(Pedido pedido, StatusPedido statusAnterior) {
+        UUID clienteId = pedido.getCliente().getId();
+        StatusPedidoEvento evento = new StatusPedidoEvento(pedido.getId(), pedido.getNumero(), statusAnterior,
+            pedido.getStatus(), pedido.getUpdatedAt() != null ? pedido.getUpdatedAt() : Instant.now());
+        DatabaseConfig.runAfterCommit(() -> enviar(clienteId, "status-pedido", null, evento));
+    }
+    
+    /**
+     * Quantidade de conexões abertas
+     */
+    public int conexoes() {
+        return conexoes.get();
+    }
+    
+    public void encerrar() {
+        agendador.shutdownNow();
+        envio.shutdownNow();
+        assinantes.values().forEach(doCliente -> doCliente.forEach(conexao -> conexao.client.close()));
+        assinantes.clear();
+    }
+    
+    private void enviar(UUID clienteId, String evento, String id, Object dados) {
+        List<Conexao> doCliente = assinantes.get(clienteId);
+        if (doCliente == null || doCliente.isEmpty()) {
+            return;
+        }
+        try {
+            // Serializa uma vez só para todas as conexões do cliente
+            String json = doCliente.get(0).client.ctx().jsonMapper().toJsonString(dados, dados.getClass());
+            Mensagem mensagem = new Mensagem(evento, json, id);
+            for (Conexao conexao : doCliente) {
+                enfileirar(conexao, mensagem);
+            }
+        } catch (Exception e) {
+            System.err.println("⚠️ EVENTOS - Falha ao publicar \"" + evento + "\" para o cliente " + clienteId + ": " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Coloca a mensagem na fila da conexão e agenda o envio. Fila cheia: o cliente não está
+     * acompanhando e a conexão é fechada em vez de acumular eventos.
+     */
+    private void enfileirar(Conexao conexao, Mensagem mensagem) {
+        if (!conexao.pendentes.offer(mensagem)) {
+            System.err.println("⚠️ EVENTOS - Conexão do cliente " + conexao.clienteId + " fechada: "
+                + MAX_PENDENTES_POR_CONEXAO + " eventos pendentes");
+            fechar(conexao);
+            return;
+        }
+        agendar(conexao);
+    }
+    
+    private void agendar(Conexao conexao) {
+        if (!conexao.agendada.compareAndSet(false, true)) {
+            return;
+        }
+        // Tarefa registrada antes de ir para o pool: fecharEscritasParadas sempre cancela a certa
+        FutureTask<Void> tarefa = new FutureTask<>(() -> drenar(conexao), null);
+        conexao.tarefa = tarefa;
+        try {
+            envio.execute(tarefa);
+        } catch (Exception e) {
+            // Pool encerrado (desligamento): os eventos são descartados
+            conexao.agendada.set(false);
+        }
+    }
+    
+    /**
+     * Envia as mensagens pendentes da conexão (thread do pool de envio)
+     */
+    private void drenar(Conexao conexao) {
+        while (true) {
+            Mensagem mensagem;
+            while ((mensagem = conexao.pendentes.poll()) != null) {
+                conexao.escrevendoDesde = System.nanoTime();
+                try {
+                    if (mensagem.evento() == null) {
+                        conexao.client.sendComment(mensagem.dados());
+                    } else {
+                        conexao.client.sendEvent(mensagem.evento(), mensagem.dados(), mensagem.id());
+                    }
+                } catch (Exception e) {
+                    conexao.escrevendoDesde = 0;
+                    fechar(conexao);
+                    return;
+                }
+                conexao.escrevendoDesde = 0;
+            }
+            conexao.agendada.set(false);
+            // Mensagem que chegou entre o último poll e a liberação: esta tarefa mesma a envia
+            if (conexao.pendentes.isEmpty() || !conexao.agendada.compareAndSet(false, true)) {
+                return;
+            }
+        }
+    }
+    
+    private void enviarHeartbeat() {
+        assinantes.values().forEach(doCliente -> doCliente.forEach(conexao -> enfileirar(conexao, HEARTBEAT)));
+    }
+    
+    /**
+     * Fecha as conexões com uma escrita parada há mais de TEMPO_MAXIMO_ESCRITA_MS (cliente que
+     * não lê): a thread de envio é interrompida e volta ao pool
+     */
+    private void fecharEscritasParadas() {
+        long limite = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(TEMPO_MAXIMO_ESCRITA_MS);
+        assinantes.values().forEach(doCliente -> doCliente.forEach(conexao -> {
+            long desde = conexao.escrevendoDesde;
+            if (desde != 0 && desde - limite < 0) {
+                System.err.println("⚠️ EVENTOS - Conexão do cliente " + conexao.clienteId + " fechada: escrita parada há mais de "
+                    + TEMPO_MAXIMO_ESCRITA_MS + "ms");
+                fechar(conexao);
+            }
+        }));
+    }
+    
+    /**
+     * Remove a conexão do registro, interrompe uma escrita em andamento e fecha o stream
+     */
+    private void fechar(Conexao conexao) {
+        remover(conexao);
+        conexao.pendentes.clear();
+        FutureTask<Void> tarefa = conexao.tarefa;
+        if (tarefa != null && conexao.escrevendoDesde != 0) {
+            tarefa.cancel(true);
+        }
+        try {
+            conexao.client.close();
+        } catch (Exception e) {
+            // Conexão já encerrada
+        }
+    }
+    
+    private void remover(Conexao conexao) {
+        assinantes.computeIfPresent(conexao.clienteId, (id, doCliente) -> {
+            if (doCliente.remove(conexao)) {
+                conexoes.decrementAndGet();
+            }
+            return doCliente.isEmpty() ? null : doCliente;
+        });
+    }
+}
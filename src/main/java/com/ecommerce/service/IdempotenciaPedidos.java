@@ -0,0 +1,181 @@
+package com.ecommerce.service;
+
+import com.ecommerce.config.DatabaseConfig;
+import com.ecommerce.dto.response.PedidoResponseDTO;
+import com.ecommerce.mapper.PedidoMapper;
+import com.ecommerce.repository.PedidoRepository;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Controle de idempotência da criação de pedidos (header/campo Idempotency-Key).
+ *
+ * Guarda em memória, por um período (TTL), as chaves já concluídas com o pedido gerado, de modo
+ * que retentativas são respondidas sem consultar o banco. Requisições simultâneas com a mesma
+ * chave não executam o checkout duas vezes: a primeira executa e as demais aguardam o resultado
+ * dela. O resultado só é publicado depois do commit; se a transação for desfeita, quem aguardava
+ * recebe o mesmo erro e a chave fica livre para uma nova tentativa.
+ *
+ * O cache é local ao nó. Uma chave desconhecida aqui ainda é procurada no banco, e a restrição
+ * unique de pedidos.idempotency_key barra a corrida entre nós (409 no TransactionFilter).
+ */
+public class IdempotenciaPedidos {
+
+    static final Duration TTL = Duration.ofHours(24);
+    static final int MAX_CHAVES = 10_000;
+    static final Duration ESPERA_MAXIMA = Duration.ofSeconds(30);
+
+    private final PedidoRepository pedidoRepository;
+    private final PedidoMapper pedidoMapper;
+    private final Duration ttl;
+    private final int maxChaves;
+    private final Duration esperaMaxima;
+    private final ConcurrentHashMap<String, Concluida> concluidas = new ConcurrentHashMap<>();
+    // Ordem de inserção = ordem de expiração (TTL único), usada para descartar as mais antigas
+    private final ConcurrentLinkedQueue<Concluida> ordemExpiracao = new ConcurrentLinkedQueue<>();
+    private final ConcurrentHashMap<String, CompletableFuture<PedidoResponseDTO>> emAndamento = new ConcurrentHashMap<>();
+
+    public IdempotenciaPedidos(PedidoRepository pedidoRepository, PedidoMapper pedidoMapper) {
+        this(pedidoRepository, pedidoMapper, TTL, MAX_CHAVES, ESPERA_MAXIMA);
+    }
+
+    /**
+     * Construtor com TTL, limite de chaves em cache e espera máxima informados (testes)
+     */
+    public IdempotenciaPedidos(PedidoRepository pedidoRepository, PedidoMapper pedidoMapper,
+                               Duration ttl, int maxChaves, Duration esperaMaxima) {
+        this.pedidoRepository = pedidoRepository;
+        this.pedidoMapper = pedidoMapper;
+        this.ttl = ttl;
+        this.maxChaves = maxChaves;
+        this.esperaMaxima = esperaMaxima;
+    }
+
+    /**
+     * Pedido devolvido e se ele já existia (retentativa) ou foi criado nesta requisição
+     */
+    public record Resultado(PedidoResponseDTO pedido, boolean repetido) {
+    }
+
+    /**
+     * Executa a criação do pedido uma única vez por chave. Sem chave, apenas executa.
+     */
+    public Resultado executar(String chave, Supplier<PedidoResponseDTO> criacao) {
+        if (chave == null || chave.isBlank()) {
+            return new Resultado(criacao.get(), false);
+        }
+
+        PedidoResponseDTO concluido = buscarConcluida(chave);
+        if (concluido != null) {
+            System.out.println("✨ IDEMPOTÊNCIA - Chave já concluída, devolvendo pedido " + concluido.getId());
+            return new Resultado(concluido, true);
+        }
+
+        CompletableFuture<PedidoResponseDTO> execucao = new CompletableFuture<>();
+        CompletableFuture<PedidoResponseDTO> existente = emAndamento.putIfAbsent(chave, execucao);
+        if (existente != null) {
+            System.out.println("⏳ IDEMPOTÊNCIA - Chave em processamento, aguardando a requisição original");
+            return new Resultado(aguardar(chave, existente), true);
+        }
+
+        try {
+            // A execução anterior pode ter terminado entre a consulta ao cache e o registro acima;
+            // uma chave desconhecida neste nó ainda pode ter sido gravada por outro nó ou antes de um reinício
+            concluido = buscarConcluida(chave);
+            if (concluido == null) {
+                concluido = pedidoRepository.findByIdempotencyKey(chave)
+                    .map(pedidoMapper::toResponseDTO)
+                    .orElse(null);
+            }
+            if (concluido != null) {
+                concluir(chave, execucao, concluido);
+                return new Resultado(concluido, true);
+            }
+
+            PedidoResponseDTO criado = criacao.get();
+            DatabaseConfig.runAfterCommit(() -> concluir(chave, execucao, criado));
+            DatabaseConfig.runAfterRollback(() -> abandonar(chave, execucao,
+                new RuntimeException("Pedido com esta chave de idempotência não foi gravado")));
+            return new Resultado(criado, false);
+        } catch (RuntimeException e) {
+            abandonar(chave, execucao, e);
+            throw e;
+        }
+    }
+
+    private PedidoResponseDTO aguardar(String chave, CompletableFuture<PedidoResponseDTO> execucao) {
+        try {
+            return execucao.get(esperaMaxima.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause().getMessage(), e.getCause());
+        } catch (TimeoutException e) {
+            // A requisição original não finalizou (ex.: contexto não encerrado): libera a chave
+            emAndamento.remove(chave, execucao);
+            throw new RuntimeException("Pedido com esta chave de idempotência ainda em processamento");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Espera pelo pedido interrompida");
+        }
+    }
+
+    private PedidoResponseDTO buscarConcluida(String chave) {
+        Concluida concluida = concluidas.get(chave);
+        if (concluida == null) {
+            return null;
+        }
+        if (concluida.expirada(System.nanoTime())) {
+            concluidas.remove(chave, concluida);
+            return null;
+        }
+        return concluida.pedido;
+    }
+
+    private void concluir(String chave, CompletableFuture<PedidoResponseDTO> execucao, PedidoResponseDTO pedido) {
+        // Publica no cache antes de liberar a chave: quem chegar depois encontra o pedido
+        Concluida concluida = new Concluida(chave, pedido, System.nanoTime() + ttl.toNanos());
+        concluidas.put(chave, concluida);
+        ordemExpiracao.add(concluida);
+        emAndamento.remove(chave, execucao);
+        execucao.complete(pedido);
+        descartarAntigas(System.nanoTime());
+    }
+
+    private void abandonar(String chave, CompletableFuture<PedidoResponseDTO> execucao, RuntimeException erro) {
+        emAndamento.remove(chave, execucao);
+        execucao.completeExceptionally(erro);
+    }
+
+    private void descartarAntigas(long agora) {
+        Concluida maisAntiga;
+        while ((maisAntiga = ordemExpiracao.peek()) != null
+                && (maisAntiga.expirada(agora) || concluidas.size() > maxChaves)) {
+            maisAntiga = ordemExpiracao.poll();
+            if (maisAntiga != null) {
+                concluidas.remove(maisAntiga.chave, maisAntiga);
+            }
+        }
+    }
+
+    private static final class Concluida {
+        final String chave;
+        final PedidoResponseDTO pedido;
+        final long expiraEm;
+
+        Concluida(String chave, PedidoResponseDTO pedido, long expiraEm) {
+            this.chave = chave;
+            this.pedido = pedido;
+            this.expiraEm = expiraEm;
+        }
+
+        boolean expirada(long agora) {
+            return agora - expiraEm >= 0;
+        }
+    }
+}
@@ -0,0 +1,375 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.response.BuscaProdutosResponseDTO;
+import com.ecommerce.dto.response.ProdutoResponseDTO;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido em memória para a busca de produtos por nome.
+ *
+ * Os nomes são normalizados (minúsculas, sem acentos, só letras e dígitos) e quebrados em
+ * trigramas; cada trigrama aponta para a lista ordenada de ordinais dos produtos que o contêm.
+ * Uma consulta intersecta as listas dos trigramas de cada termo e confere o resultado no nome
+ * normalizado, então "cafe" encontra "Café Torrado" e "torr caf" também.
+ *
+ * Produtos alterados ou removidos só recebem uma marca em "removidos" e, se for o caso, um
+ * ordinal novo no fim; as listas continuam ordenadas sem reescrita. Quando os ordinais mortos
+ * passam de 25% o índice é recompactado.
+ */
+public class IndiceBuscaProdutos implements CatalogoListener {
+
+    private static final int TAMANHO_NGRAMA = 3;
+    private static final double LIMITE_REMOVIDOS = 0.25;
+
+    private static final Pattern DIACRITICOS = Pattern.compile("\\p{M}+");
+    private static final Pattern NAO_ALFANUMERICO = Pattern.compile("[^a-z0-9]+");
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Dados dados = new Dados(0);
+
+    /**
+     * Busca produtos cujo nome contém todos os termos da consulta, do mais relevante para o menos
+     *
+     * @param pagina página a partir de 1
+     * @param tamanho itens por página
+     */
+    public BuscaProdutosResponseDTO buscar(String consulta, int pagina, int tamanho) {
+        String[] termos = termos(normalizar(consulta));
+        if (termos.length == 0) {
+            return new BuscaProdutosResponseDTO(0, pagina, tamanho, List.of());
+        }
+
+        lock.readLock().lock();
+        try {
+            List<Acerto> acertos = dados.acertos(termos);
+            acertos.sort(null);
+            int inicio = (int) Math.min((long) (pagina - 1) * tamanho, acertos.size());
+            int fim = (int) Math.min((long) inicio + tamanho, acertos.size());
+            List<ProdutoResponseDTO> itens = new ArrayList<>(fim - inicio);
+            for (int i = inicio; i < fim; i++) {
+                itens.add(dados.produtos.get(acertos.get(i).ordinal));
+            }
+            return new BuscaProdutosResponseDTO(acertos.size(), pagina, tamanho, itens);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * IDs de todos os produtos que casam com a consulta, sem ordenação (usado como filtro)
+     */
+    public List<UUID> buscarIds(String consulta) {
+        String[] termos = termos(normalizar(consulta));
+        if (termos.length == 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            List<Acerto> acertos = dados.acertos(termos);
+            List<UUID> ids = new ArrayList<>(acertos.size());
+            for (Acerto acerto : acertos) {
+                ids.add(dados.produtos.get(acerto.ordinal).getId());
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Quantidade de produtos indexados (sem contar ordinais removidos)
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return dados.ordinais.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void catalogoRecarregado(CatalogoSnapshot snapshot) {
+        // Montado fora do lock: as buscas continuam no índice antigo até a troca
+        Dados novos = Dados.de(snapshot.getProdutos());
+        lock.writeLock().lock();
+        try {
+            dados = novos;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void produtoSalvo(ProdutoResponseDTO produto) {
+        lock.writeLock().lock();
+        try {
+            dados.remover(produto.getId());
+            dados.adicionar(produto);
+            compactarSeNecessario();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void produtoRemovido(UUID produtoId) {
+        lock.writeLock().lock();
+        try {
+            dados.remover(produtoId);
+            compactarSeNecessario();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void compactarSeNecessario() {
+        if (dados.mortos > 64 && dados.mortos > dados.produtos.size() * LIMITE_REMOVIDOS) {
+            List<ProdutoResponseDTO> vivos = new ArrayList<>(dados.ordinais.size());
+            for (int ordinal = dados.removidos.nextClearBit(0); ordinal < dados.produtos.size();
+                 ordinal = dados.removidos.nextClearBit(ordinal + 1)) {
+                vivos.add(dados.produtos.get(ordinal));
+            }
+            dados = Dados.de(vivos);
+        }
+    }
+
+    /**
+     * Minúsculas, sem acentos (NFD + remoção das marcas) e com qualquer outro caractere virando espaço
+     */
+    static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String semAcentos = DIACRITICOS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return NAO_ALFANUMERICO.matcher(semAcentos.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    private static String[] termos(String normalizado) {
+        return normalizado.isEmpty() ? new String[0] : normalizado.split(" ");
+    }
+
+    /**
+     * Estado do índice; só é lido ou alterado com o lock correspondente
+     */
+    private static final class Dados {
+        final List<ProdutoResponseDTO> produtos;
+        final List<String> nomes;
+        final Map<UUID, Integer> ordinais;
+        final BitSet removidos = new BitSet();
+        int mortos;
+        final Map<String, ListaOrdinais> trigramas;
+
+        Dados(int capacidade) {
+            produtos = new ArrayList<>(capacidade);
+            nomes = new ArrayList<>(capacidade);
+            ordinais = new HashMap<>(capacidade * 2);
+            trigramas = new HashMap<>();
+        }
+
+        static Dados de(Collection<ProdutoResponseDTO> produtos) {
+            Dados dados = new Dados(produtos.size());
+            for (ProdutoResponseDTO produto : produtos) {
+                dados.adicionar(produto);
+            }
+            return dados;
+        }
+
+        void adicionar(ProdutoResponseDTO produto) {
+            int ordinal = produtos.size();
+            String nome = normalizar(produto.getNome());
+            produtos.add(produto);
+            nomes.add(nome);
+            ordinais.put(produto.getId(), ordinal);
+            for (String palavra : termos(nome)) {
+                for (int i = 0; i + TAMANHO_NGRAMA <= palavra.length(); i++) {
+                    ListaOrdinais lista = trigramas.computeIfAbsent(
+                        palavra.substring(i, i + TAMANHO_NGRAMA), t -> new ListaOrdinais());
+                    // Ordinais crescem monotonicamente: basta não repetir o último
+                    if (lista.ultimo() != ordinal) {
+                        lista.adicionar(ordinal);
+                    }
+                }
+            }
+        }
+
+        void remover(UUID produtoId) {
+            Integer ordinal = ordinais.remove(produtoId);
+            if (ordinal != null) {
+                removidos.set(ordinal);
+                mortos++;
+            }
+        }
+
+        /**
+         * Produtos vivos cujo nome contém todos os termos, com pontuação (ainda sem ordenar)
+         */
+        List<Acerto> acertos(String[] termos) {
+            List<Acerto> acertos = new ArrayList<>();
+            int[] candidatos = candidatos(termos);
+            if (candidatos == null) {
+                // Só termos curtos (menos de 3 letras): não há trigrama, confere todos os produtos
+                for (int ordinal = removidos.nextClearBit(0); ordinal < produtos.size();
+                     ordinal = removidos.nextClearBit(ordinal + 1)) {
+                    avaliar(ordinal, termos, acertos);
+                }
+            } else {
+                for (int ordinal : candidatos) {
+                    if (!removidos.get(ordinal)) {
+                        avaliar(ordinal, termos, acertos);
+                    }
+                }
+            }
+            return acertos;
+        }
+
+        /**
+         * Ordinais que contêm todos os trigramas dos termos com 3+ letras, ou null se não houver tais termos
+         */
+        int[] candidatos(String[] termos) {
+            List<ListaOrdinais> listas = new ArrayList<>();
+            for (String termo : termos) {
+                for (int i = 0; i + TAMANHO_NGRAMA <= termo.length(); i++) {
+                    ListaOrdinais lista = trigramas.get(termo.substring(i, i + TAMANHO_NGRAMA));
+                    if (lista == null) {
+                        return new int[0];
+                    }
+                    listas.add(lista);
+                }
+            }
+            if (listas.isEmpty()) {
+                return null;
+            }
+
+            // Começa pela lista mais curta: o resultado só diminui
+            listas.sort(Comparator.comparingInt(ListaOrdinais::tamanho));
+            int[] resultado = listas.get(0).copia();
+            int tamanho = resultado.length;
+            for (int i = 1; i < listas.size() && tamanho > 0; i++) {
+                tamanho = listas.get(i).reter(resultado, tamanho);
+            }
+            return Arrays.copyOf(resultado, tamanho);
+        }
+
+        /**
+         * Confere o nome e registra o acerto com sua pontuação
+         */
+        void avaliar(int ordinal, String[] termos, List<Acerto> acertos) {
+            String nome = nomes.get(ordinal);
+            int pontos = 0;
+            for (String termo : termos) {
+                int melhor = pontuar(nome, termo);
+                if (melhor == 0) {
+                    return;
+                }
+                pontos += melhor;
+            }
+            if (nome.startsWith(termos[0])) {
+                pontos += 2;
+            }
+            acertos.add(new Acerto(ordinal, pontos, nome));
+        }
+
+        /**
+         * 3 = palavra inteira, 2 = início de palavra, 1 = meio de palavra, 0 = não contém
+         */
+        private static int pontuar(String nome, String termo) {
+            int melhor = 0;
+            int posicao = nome.indexOf(termo);
+            while (posicao >= 0 && melhor < 3) {
+                boolean inicio = posicao == 0 || nome.charAt(posicao - 1) == ' ';
+                int fim = posicao + termo.length();
+                boolean palavraInteira = inicio && (fim == nome.length() || nome.charAt(fim) == ' ');
+                melhor = Math.max(melhor, palavraInteira ? 3 : inicio ? 2 : 1);
+                posicao = nome.indexOf(termo, posicao + 1);
+            }
+            return melhor;
+        }
+    }
+
+    /**
+     * Produto encontrado; ordem natural = maior pontuação, depois nome mais curto, depois alfabética
+     */
+    private record Acerto(int ordinal, int pontos, String nome) implements Comparable<Acerto> {
+        @Override
+        public int compareTo(Acerto outro) {
+            if (pontos != outro.pontos) {
+                return Integer.compare(outro.pontos, pontos);
+            }
+            if (nome.length() != outro.nome.length()) {
+                return Integer.compare(nome.length(), outro.nome.length());
+            }
+            int porNome = nome.compareTo(outro.nome);
+            return porNome != 0 ? porNome : Integer.compare(ordinal, outro.ordinal);
+        }
+    }
+
+    /**
+     * Lista crescente de ordinais em um int[] (sem boxing)
+     */
+    private static final class ListaOrdinais {
+        private int[] valores = new int[4];
+        private int tamanho;
+
+        void adicionar(int ordinal) {
+            if (tamanho == valores.length) {
+                valores = Arrays.copyOf(valores, tamanho * 2);
+            }
+            valores[tamanho++] = ordinal;
+        }
+
+        int ultimo() {
+            return tamanho == 0 ? -1 : valores[tamanho - 1];
+        }
+
+        int tamanho() {
+            return tamanho;
+        }
+
+        int[] copia() {
+            return Arrays.copyOf(valores, tamanho);
+        }
+
+        /**
+         * Mantém em alvo[0..n) apenas os ordinais presentes nesta lista (merge de listas ordenadas)
+         *
+         * @return novo tamanho útil de alvo
+         */
+        int reter(int[] alvo, int n) {
+            int saida = 0;
+            if ((long) n * 16 < tamanho) {
+                // Alvo bem menor (trigrama comum): busca binária em vez de percorrer a lista inteira
+                int de = 0;
+                for (int i = 0; i < n && de < tamanho; i++) {
+                    int posicao = Arrays.binarySearch(valores, de, tamanho, alvo[i]);
+                    if (posicao >= 0) {
+                        alvo[saida++] = alvo[i];
+                        de = posicao + 1;
+                    } else {
+                        de = -posicao - 1;
+                    }
+                }
+                return saida;
+            }
+            int i = 0;
+            int j = 0;
+            while (i < n && j < tamanho) {
+                if (alvo[i] < valores[j]) {
+                    i++;
+                } else if (alvo[i] > valores[j]) {
+                    j++;
+                } else {
+                    alvo[saida++] = alvo[i];
+                    i++;
+                    j++;
+                }
+            }
+            return saida;
+        }
+    }
+}
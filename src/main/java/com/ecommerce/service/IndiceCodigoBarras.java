@@ -0,0 +1,330 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.response.ProdutoResponseDTO;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Índice código de barras → produto para a leitura dos scanners de loja.
+ *
+ * Códigos numéricos de até 17 dígitos (EAN-8, EAN-13, UPC, GTIN-14) viram um long que guarda
+ * o valor e a quantidade de dígitos, para "0012" e "12" não colidirem. Esse long é a chave de
+ * uma tabela de endereçamento aberto (sondagem linear, long[] de chaves e int[] de posições),
+ * então a consulta não cria objetos nem faz boxing. Leituras usam leitura otimista do
+ * StampedLock e só bloqueiam se uma escrita acontecer no meio.
+ *
+ * Chaves e posições ficam juntas em uma Tabela de arrays de tamanho fixo, alterados no lugar
+ * sob o lock de escrita do StampedLock; no redimensionamento só a referência é trocada por uma
+ * Tabela nova, então uma leitura otimista nunca combina as chaves novas com as posições antigas.
+ *
+ * Códigos que não cabem nesse formato retornam -1 em codificar e ficam com o snapshot do catálogo.
+ */
+public class IndiceCodigoBarras implements CatalogoListener {
+
+    private static final long VAZIO = 0L;
+    private static final int MAX_DIGITOS = 17;
+    private static final int CAPACIDADE_INICIAL = 1024;
+
+    private final StampedLock lock = new StampedLock();
+
+    // chaves[i] == VAZIO indica posição livre; posicoes[i] aponta para produtos[]
+    private volatile Tabela tabela = new Tabela(CAPACIDADE_INICIAL);
+    private int ocupadas;
+
+    // Produtos em posições estáveis; posições liberadas são reaproveitadas
+    private ProdutoResponseDTO[] produtos = new ProdutoResponseDTO[CAPACIDADE_INICIAL / 2];
+    private int[] livres = new int[16];
+    private int totalLivres;
+    private int proximaPosicao;
+
+    // Só usado nas escritas: chave atual de cada produto indexado
+    private final Map<UUID, Long> chavePorProduto = new HashMap<>();
+
+    /**
+     * Arrays da tabela hash, sempre do mesmo tamanho (o conteúdo muda sob o lock de escrita)
+     */
+    private static final class Tabela {
+        final long[] chaves;
+        final int[] posicoes;
+
+        Tabela(int capacidade) {
+            this.chaves = new long[capacidade];
+            this.posicoes = new int[capacidade];
+        }
+    }
+
+    /**
+     * Produto com o código informado, ou null se não estiver no índice
+     */
+    public ProdutoResponseDTO buscar(String codigoBarras) {
+        long chave = codificar(codigoBarras);
+        if (chave < 0) {
+            return null;
+        }
+
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                ProdutoResponseDTO produto = buscar(chave, tabela, produtos);
+                if (lock.validate(stamp)) {
+                    return produto;
+                }
+            } catch (RuntimeException e) {
+                // Leitura concorrente com uma escrita viu estado intermediário: refaz com o lock
+            }
+        }
+
+        stamp = lock.readLock();
+        try {
+            return buscar(chave, tabela, produtos);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Indica se o código pode ser atendido por este índice (numérico, até 17 dígitos)
+     */
+    public static boolean suportado(String codigoBarras) {
+        return codificar(codigoBarras) >= 0;
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return ocupadas;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public void catalogoRecarregado(CatalogoSnapshot snapshot) {
+        long stamp = lock.writeLock();
+        try {
+            int capacidade = CAPACIDADE_INICIAL;
+            while (capacidade < snapshot.getTotalProdutos() * 2) {
+                capacidade <<= 1;
+            }
+            tabela = new Tabela(capacidade);
+            ocupadas = 0;
+            produtos = new ProdutoResponseDTO[Math.max(capacidade / 2, 1)];
+            totalLivres = 0;
+            proximaPosicao = 0;
+            chavePorProduto.clear();
+            for (ProdutoResponseDTO produto : snapshot.getProdutos()) {
+                incluir(produto);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void produtoSalvo(ProdutoResponseDTO produto) {
+        long stamp = lock.writeLock();
+        try {
+            excluir(produto.getId());
+            incluir(produto);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void produtoRemovido(UUID produtoId) {
+        long stamp = lock.writeLock();
+        try {
+            excluir(produtoId);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Sondagem linear a partir do hash. Pode rodar sem lock (leitura otimista): usa apenas as
+     * referências recebidas (chaves e posições do mesmo tamanho), limita o número de passos e
+     * confere a posição antes de acessar produtos.
+     */
+    private static ProdutoResponseDTO buscar(long chave, Tabela tabela, ProdutoResponseDTO[] produtos) {
+        long[] chaves = tabela.chaves;
+        int[] posicoes = tabela.posicoes;
+        int mascara = chaves.length - 1;
+        int i = hash(chave) & mascara;
+        for (int passos = 0; passos < chaves.length; passos++) {
+            long atual = chaves[i];
+            if (atual == VAZIO) {
+                return null;
+            }
+            if (atual == chave) {
+                int posicao = posicoes[i];
+                return posicao >= 0 && posicao < produtos.length ? produtos[posicao] : null;
+            }
+            i = (i + 1) & mascara;
+        }
+        return null;
+    }
+
+    private void incluir(ProdutoResponseDTO produto) {
+        long chave = codificar(produto.getCodigoBarras());
+        if (chave < 0) {
+            return;
+        }
+        if ((ocupadas + 1) * 2 > tabela.chaves.length) {
+            redimensionar(tabela.chaves.length * 2);
+        }
+
+        int posicao = alocarPosicao();
+        produtos[posicao] = produto;
+
+        long[] chaves = tabela.chaves;
+        int[] posicoes = tabela.posicoes;
+        int mascara = chaves.length - 1;
+        int i = hash(chave) & mascara;
+        while (chaves[i] != VAZIO && chaves[i] != chave) {
+            i = (i + 1) & mascara;
+        }
+        if (chaves[i] == chave) {
+            // Código ainda associado a outro produto (troca de códigos entre produtos): o mais recente vence
+            liberarPosicao(posicoes[i]);
+        } else {
+            ocupadas++;
+        }
+        chaves[i] = chave;
+        posicoes[i] = posicao;
+        chavePorProduto.put(produto.getId(), chave);
+    }
+
+    private void excluir(UUID produtoId) {
+        Long chave = chavePorProduto.remove(produtoId);
+        if (chave == null) {
+            return;
+        }
+
+        long[] chaves = tabela.chaves;
+        int[] posicoes = tabela.posicoes;
+        int mascara = chaves.length - 1;
+        int i = hash(chave) & mascara;
+        while (chaves[i] != VAZIO) {
+            if (chaves[i] == chave) {
+                ProdutoResponseDTO atual = produtos[posicoes[i]];
+                if (atual != null && !atual.getId().equals(produtoId)) {
+                    return; // código já reassociado a outro produto
+                }
+                liberarPosicao(posicoes[i]);
+                removerDaTabela(i);
+                return;
+            }
+            i = (i + 1) & mascara;
+        }
+    }
+
+    /**
+     * Remoção com deslocamento para trás: puxa para o buraco as chaves seguintes do mesmo
+     * agrupamento que ficariam inalcançáveis, sem precisar de marcas de "removido".
+     */
+    private void removerDaTabela(int buraco) {
+        long[] chaves = tabela.chaves;
+        int[] posicoes = tabela.posicoes;
+        int mascara = chaves.length - 1;
+        int i = buraco;
+        while (true) {
+            i = (i + 1) & mascara;
+            long chave = chaves[i];
+            if (chave == VAZIO) {
+                break;
+            }
+            int ideal = hash(chave) & mascara;
+            // A chave em i pode ir para o buraco se o buraco estiver entre a posição ideal dela e i
+            boolean podeMover = buraco <= i
+                ? (ideal <= buraco || ideal > i)
+                : (ideal <= buraco && ideal > i);
+            if (podeMover) {
+                chaves[buraco] = chave;
+                posicoes[buraco] = posicoes[i];
+                buraco = i;
+            }
+        }
+        chaves[buraco] = VAZIO;
+        posicoes[buraco] = 0;
+        ocupadas--;
+    }
+
+    private void redimensionar(int capacidade) {
+        long[] chavesAntigas = tabela.chaves;
+        int[] posicoesAntigas = tabela.posicoes;
+        Tabela nova = new Tabela(capacidade);
+        long[] novasChaves = nova.chaves;
+        int[] novasPosicoes = nova.posicoes;
+        int mascara = capacidade - 1;
+        for (int j = 0; j < chavesAntigas.length; j++) {
+            long chave = chavesAntigas[j];
+            if (chave != VAZIO) {
+                int i = hash(chave) & mascara;
+                while (novasChaves[i] != VAZIO) {
+                    i = (i + 1) & mascara;
+                }
+                novasChaves[i] = chave;
+                novasPosicoes[i] = posicoesAntigas[j];
+            }
+        }
+        tabela = nova;
+    }
+
+    private int alocarPosicao() {
+        if (totalLivres > 0) {
+            return livres[--totalLivres];
+        }
+        if (proximaPosicao == produtos.length) {
+            produtos = Arrays.copyOf(produtos, produtos.length * 2);
+        }
+        return proximaPosicao++;
+    }
+
+    private void liberarPosicao(int posicao) {
+        produtos[posicao] = null;
+        if (totalLivres == livres.length) {
+            livres = Arrays.copyOf(livres, livres.length * 2);
+        }
+        livres[totalLivres++] = posicao;
+    }
+
+    /**
+     * Valor numérico com a quantidade de dígitos nos 5 bits baixos; -1 se o código não for suportado
+     */
+    static long codificar(String codigoBarras) {
+        if (codigoBarras == null) {
+            return -1;
+        }
+        int digitos = codigoBarras.length();
+        if (digitos == 0 || digitos > MAX_DIGITOS) {
+            return -1;
+        }
+        long valor = 0;
+        for (int i = 0; i < digitos; i++) {
+            char c = codigoBarras.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            valor = valor * 10 + (c - '0');
+        }
+        return (valor << 5) | digitos;
+    }
+
+    /**
+     * Mistura dos bits (finalizador do MurmurHash3) para espalhar códigos sequenciais
+     */
+    private static int hash(long chave) {
+        long h = chave;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+}
@@ -0,0 +1,211 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.response.CategoriaResponseDTO;
+import com.ecommerce.dto.response.FacetasResponseDTO;
+import com.ecommerce.dto.response.ProdutoResponseDTO;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * Bitmaps de facetas (categoria e faixa de preço) sobre os ordinais de um CatalogoSnapshot.
+ *
+ * O ordinal de um produto é sua posição na lista ordenada por nome, então percorrer os bits
+ * de um resultado já devolve os produtos em ordem alfabética. Filtrar é um AND entre bitmaps e
+ * contar uma faceta é o popcount do AND com o bitmap da faceta, palavra a palavra.
+ * Imutável: montado uma vez por versão do catálogo.
+ */
+final class IndiceFacetas {
+
+    private static final BigDecimal[] LIMITES_FAIXAS = {
+        BigDecimal.ZERO, new BigDecimal("25"), new BigDecimal("50"), new BigDecimal("100"),
+        new BigDecimal("250"), new BigDecimal("500"), new BigDecimal("1000")
+    };
+
+    private final List<ProdutoResponseDTO> produtos;
+    private final Map<UUID, Integer> ordinais;
+    private final int palavras;
+    private final long[] todos;
+
+    private final List<CategoriaResponseDTO> categorias;
+    private final Map<UUID, long[]> porCategoria;
+    private final long[][] porFaixa;
+
+    private final int[] ordemPreco;
+    private final BigDecimal[] precosOrdenados;
+
+    IndiceFacetas(List<ProdutoResponseDTO> produtosPorNome, List<CategoriaResponseDTO> categorias) {
+        this.produtos = produtosPorNome;
+        this.categorias = categorias;
+        int n = produtosPorNome.size();
+        this.palavras = (n + 63) >>> 6;
+        this.todos = new long[palavras];
+        this.ordinais = new HashMap<>(n * 2);
+        this.porCategoria = new HashMap<>();
+        this.porFaixa = new long[LIMITES_FAIXAS.length][palavras];
+
+        List<Integer> comPreco = new ArrayList<>(n);
+        for (int ordinal = 0; ordinal < n; ordinal++) {
+            ProdutoResponseDTO produto = produtosPorNome.get(ordinal);
+            ordinais.put(produto.getId(), ordinal);
+            marcar(todos, ordinal);
+
+            UUID categoriaId = produto.getCategoria() != null ? produto.getCategoria().getId() : produto.getCategoriaId();
+            if (categoriaId != null) {
+                marcar(porCategoria.computeIfAbsent(categoriaId, id -> new long[palavras]), ordinal);
+            }
+            if (produto.getPreco() != null) {
+                marcar(porFaixa[faixaDe(produto.getPreco())], ordinal);
+                comPreco.add(ordinal);
+            }
+        }
+
+        comPreco.sort(Comparator.comparing(ordinal -> produtosPorNome.get(ordinal).getPreco()));
+        this.ordemPreco = new int[comPreco.size()];
+        this.precosOrdenados = new BigDecimal[comPreco.size()];
+        for (int i = 0; i < ordemPreco.length; i++) {
+            ordemPreco[i] = comPreco.get(i);
+            precosOrdenados[i] = produtosPorNome.get(ordemPreco[i]).getPreco();
+        }
+    }
+
+    /**
+     * Aplica os filtros (null = sem filtro) e conta as facetas.
+     * Cada faceta é contada com os demais filtros, mas não com o dela mesma, para que o cliente
+     * veja quantos produtos teria ao trocar de categoria ou de faixa.
+     *
+     * @param idsPorNome produtos que casam com o filtro de nome, ou null se não houver filtro
+     */
+    FacetasResponseDTO consultar(Collection<UUID> categoriaIds, BigDecimal precoMin, BigDecimal precoMax,
+                                 Collection<UUID> idsPorNome, int pagina, int tamanho) {
+        long[] filtroCategoria = categoriaIds == null || categoriaIds.isEmpty() ? null : bitmapCategorias(categoriaIds);
+        long[] filtroPreco = precoMin == null && precoMax == null ? null : bitmapPreco(precoMin, precoMax);
+        long[] filtroNome = idsPorNome == null ? null : bitmapIds(idsPorNome);
+
+        long[] semCategoria = combinar(filtroNome, filtroPreco);
+        List<FacetasResponseDTO.Categoria> facetasCategoria = new ArrayList<>(categorias.size());
+        for (CategoriaResponseDTO categoria : categorias) {
+            long[] bitmap = porCategoria.get(categoria.getId());
+            int quantidade = bitmap == null ? 0 : contar(bitmap, semCategoria);
+            facetasCategoria.add(new FacetasResponseDTO.Categoria(categoria.getId(), categoria.getNome(), quantidade));
+        }
+
+        long[] semPreco = combinar(filtroNome, filtroCategoria);
+        List<FacetasResponseDTO.FaixaPreco> facetasPreco = new ArrayList<>(LIMITES_FAIXAS.length);
+        for (int faixa = 0; faixa < LIMITES_FAIXAS.length; faixa++) {
+            BigDecimal max = faixa + 1 < LIMITES_FAIXAS.length ? LIMITES_FAIXAS[faixa + 1] : null;
+            facetasPreco.add(new FacetasResponseDTO.FaixaPreco(LIMITES_FAIXAS[faixa], max, contar(porFaixa[faixa], semPreco)));
+        }
+
+        long[] resultado = combinar(semCategoria, filtroCategoria);
+        int total = 0;
+        for (long palavra : resultado) {
+            total += Long.bitCount(palavra);
+        }
+
+        // Percorre os bits em ordem (= ordem por nome) pulando as páginas anteriores
+        long pular = (long) (pagina - 1) * tamanho;
+        List<ProdutoResponseDTO> itens = new ArrayList<>(Math.min(tamanho, total));
+        BitSet bits = BitSet.valueOf(resultado);
+        for (int ordinal = bits.nextSetBit(0); ordinal >= 0 && itens.size() < tamanho; ordinal = bits.nextSetBit(ordinal + 1)) {
+            if (pular > 0) {
+                pular--;
+            } else {
+                itens.add(produtos.get(ordinal));
+            }
+        }
+
+        return new FacetasResponseDTO(total, pagina, tamanho, itens, facetasCategoria, facetasPreco);
+    }
+
+    private long[] bitmapCategorias(Collection<UUID> categoriaIds) {
+        long[] bitmap = new long[palavras];
+        for (UUID categoriaId : categoriaIds) {
+            long[] categoria = porCategoria.get(categoriaId);
+            if (categoria != null) {
+                for (int i = 0; i < palavras; i++) {
+                    bitmap[i] |= categoria[i];
+                }
+            }
+        }
+        return bitmap;
+    }
+
+    /**
+     * Produtos com preço em [min, max] (extremos opcionais) - busca binária na ordem por preço
+     */
+    private long[] bitmapPreco(BigDecimal precoMin, BigDecimal precoMax) {
+        int inicio = precoMin == null ? 0 : primeiroIndice(precoMin, false);
+        int fim = precoMax == null ? ordemPreco.length : primeiroIndice(precoMax, true);
+        long[] bitmap = new long[palavras];
+        for (int i = inicio; i < fim; i++) {
+            marcar(bitmap, ordemPreco[i]);
+        }
+        return bitmap;
+    }
+
+    private long[] bitmapIds(Collection<UUID> ids) {
+        long[] bitmap = new long[palavras];
+        for (UUID id : ids) {
+            Integer ordinal = ordinais.get(id);
+            if (ordinal != null) {
+                marcar(bitmap, ordinal);
+            }
+        }
+        return bitmap;
+    }
+
+    /**
+     * Primeiro índice com preço >= valor (ou > valor, se incluirIguais)
+     */
+    private int primeiroIndice(BigDecimal valor, boolean incluirIguais) {
+        int baixo = 0;
+        int alto = precosOrdenados.length;
+        while (baixo < alto) {
+            int meio = (baixo + alto) >>> 1;
+            int comparacao = precosOrdenados[meio].compareTo(valor);
+            if (comparacao < 0 || (incluirIguais && comparacao == 0)) {
+                baixo = meio + 1;
+            } else {
+                alto = meio;
+            }
+        }
+        return baixo;
+    }
+
+    /**
+     * AND de todos os filtros informados, partindo do bitmap com todos os produtos
+     */
+    private long[] combinar(long[]... filtros) {
+        long[] resultado = todos.clone();
+        for (long[] filtro : filtros) {
+            if (filtro != null) {
+                for (int i = 0; i < palavras; i++) {
+                    resultado[i] &= filtro[i];
+                }
+            }
+        }
+        return resultado;
+    }
+
+    private int contar(long[] a, long[] b) {
+        int total = 0;
+        for (int i = 0; i < palavras; i++) {
+            total += Long.bitCount(a[i] & b[i]);
+        }
+        return total;
+    }
+
+    private static int faixaDe(BigDecimal preco) {
+        for (int faixa = LIMITES_FAIXAS.length - 1; faixa > 0; faixa--) {
+            if (preco.compareTo(LIMITES_FAIXAS[faixa]) >= 0) {
+                return faixa;
+            }
+        }
+        return 0;
+    }
+
+    private static void marcar(long[] bitmap, int ordinal) {
+        bitmap[ordinal >>> 6] |= 1L << ordinal;
+    }
+}
@@ -0,0 +1,339 @@
+package com.ecommerce.service;
+
+import com.ecommerce.config.DatabaseConfig;
+import com.ecommerce.config.RequestPersistenceContext;
+import com.ecommerce.domain.Money;
+import com.ecommerce.domain.Pedido;
+import com.ecommerce.domain.PedidoItem;
+import com.ecommerce.domain.StatusPedido;
+import com.ecommerce.domain.VendaAgregada;
+import com.ecommerce.domain.VendaAgregada.Granularidade;
+import com.ecommerce.repository.PedidoRepository;
+import com.ecommerce.repository.VendaAgregadaRepository;
+import com.ecommerce.repository.VendaAgregadaRepository.Variacao;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Métricas de pedidos para o painel administrativo, mantidas em memória.
+ *
+ * Cada criação ou mudança de status de pedido é registrada aqui (registrarTransicao) e aplicada
+ * depois do commit: contadores LongAdder para pedidos, pedidos pagos e faturamento (em centavos)
+ * e um mapa dos clientes com pedidos pagos (quantidade por cliente). A leitura (resumo) não
+ * consulta o banco e custa o mesmo qualquer que seja o número de pedidos.
+ *
+ * A cada INTERVALO_RECONCILIACAO_MS os valores são recalculados com agregações SQL e substituem
+ * os da memória, o que corrige alterações feitas fora da aplicação. As transições aplicadas
+ * enquanto a consulta roda são reaplicadas sobre o resultado; uma transição com commit antes da
+ * consulta e aplicação depois dela pode contar em dobro até a próxima reconciliação.
+ *
+ * Para gráficos, cada transição também atualiza as vendas pré-agregadas por hora e por dia
+ * (vendas_agregadas); a série lê essas linhas em vez de pedidos. As variações não são gravadas
+ * na transação do pedido (a linha da hora atual seria disputada por todos os checkouts): depois
+ * do commit elas são somadas em memória por linha e a thread de métricas as grava a cada
+ * INTERVALO_GRAVACAO_VENDAS_MS, em uma transação própria com um upsert por linha alterada. A
+ * série fica até esse intervalo atrás dos pedidos; variações ainda não gravadas se perdem se o
+ * processo morrer sem encerrar().
+ */
+public class MetricasPedidos {
+    
+    private static final long INTERVALO_RECONCILIACAO_MS = TimeUnit.MINUTES.toMillis(5);
+    private static final long INTERVALO_GRAVACAO_VENDAS_MS = 1000;
+    // Limite do intervalo de uma consulta da série, por granularidade
+    private static final Duration MAXIMO_SERIE_HORA = Duration.ofDays(93);
+    private static final Duration MAXIMO_SERIE_DIA = Duration.ofDays(3 * 366);
+    // Fuso usado para truncar os períodos (o mesmo do servidor, como na numeração de pedidos)
+    private static final ZoneId ZONA = ZoneId.systemDefault();
+    
+    private final PedidoRepository pedidoRepository;
+    private final VendaAgregadaRepository vendaAgregadaRepository;
+    // Leitura: aplicação de transições (concorrentes entre si); escrita: troca do estado na reconciliação
+    private final ReentrantReadWriteLock troca = new ReentrantReadWriteLock();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "metricas-reconciliacao");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile Estado estado = new Estado();
+    // Transições aplicadas durante uma reconciliação em andamento (nulo fora dela)
+    private Queue<Transicao> transicoesDuranteReconciliacao;
+    private volatile Instant reconciliadoEm;
+    // Variações das vendas agregadas com commit e ainda não gravadas, somadas por linha (monitor: o próprio mapa)
+    private final Map<ChaveVenda, Variacao> vendasPendentes = new HashMap<>();
+    
+    public MetricasPedidos(PedidoRepository pedidoRepository, VendaAgregadaRepository vendaAgregadaRepository) {
+        this.pedidoRepository = pedidoRepository;
+        this.vendaAgregadaRepository = vendaAgregadaRepository;
+        carregarVendasAgregadas();
+        reconciliar();
+        executor.scheduleWithFixedDelay(this::reconciliar,
+            INTERVALO_RECONCILIACAO_MS, INTERVALO_RECONCILIACAO_MS, TimeUnit.MILLISECONDS);
+        executor.scheduleWithFixedDelay(this::gravarVendas,
+            INTERVALO_GRAVACAO_VENDAS_MS, INTERVALO_GRAVACAO_VENDAS_MS, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Valores atuais das métricas (reconciliadoEm nulo se a reconciliação ainda não rodou)
+     */
+    public record Resumo(long pedidos, long pedidosPagos, long clientesPagantes, BigDecimal faturamento,
+                         Instant reconciliadoEm) {
+    }
+    
+    /**
+     * Criação (anterior nulo) ou mudança de status de um pedido
+     */
+    private record Transicao(UUID clienteId, long centavos, StatusPedido anterior, StatusPedido novo) {
+    }
+    
+    /**
+     * Linha de vendas_agregadas (chave única da tabela)
+     */
+    private record ChaveVenda(Granularidade granularidade, Instant inicio, StatusPedido status, String metodoPagamento) {
+    }
+    
+    private static final class Estado {
+        final LongAdder pedidos = new LongAdder();
+        final LongAdder pedidosPagos = new LongAdder();
+        final LongAdder faturamentoCentavos = new LongAdder();
+        // Pedidos pagos por cliente; o cliente sai do mapa quando a contagem chega a zero
+        final ConcurrentHashMap<UUID, Long> pagosPorCliente = new ConcurrentHashMap<>();
+        
+        void aplicar(Transicao transicao) {
+            if (transicao.anterior() == null) {
+                pedidos.increment();
+            }
+            if (transicao.anterior() == StatusPedido.PAGO) {
+                ajustarPagos(transicao.clienteId(), -1, -transicao.centavos());
+            }
+            if (transicao.novo() == StatusPedido.PAGO) {
+                ajustarPagos(transicao.clienteId(), 1, transicao.centavos());
+            }
+        }
+        
+        void ajustarPagos(UUID clienteId, long quantidade, long centavos) {
+            pedidosPagos.add(quantidade);
+            faturamentoCentavos.add(centavos);
+            pagosPorCliente.compute(clienteId, (id, atual) -> {
+                long novo = (atual != null ? atual : 0) + quantidade;
+                return novo > 0 ? novo : null;
+            });
+        }
+    }
+    
+    /**
+     * Registra a criação (anterior nulo) ou a mudança de status de um pedido. Nada vai ao banco
+     * na transação do request: depois do commit os contadores em memória são atualizados e as
+     * variações das vendas agregadas entram na fila de gravação.
+     */
+    public void registrarTransicao(Pedido pedido, StatusPedido anterior) {
+        if (pedido.getStatus() == anterior) {
+            return;
+        }
+        long centavos = Money.of(pedido.getTotal()).centavos();
+        List<Variacao> variacoes = variacoes(pedido, anterior, centavos);
+        Transicao transicao = new Transicao(pedido.getClienteId(), centavos, anterior, pedido.getStatus());
+        DatabaseConfig.runAfterCommit(() -> {
+            aplicar(transicao);
+            acumularVendas(variacoes);
+        });
+    }
+    
+    /**
+     * Série de vendas no intervalo [de, ate) a partir das linhas pré-agregadas
+     *
+     * @throws IllegalArgumentException se o intervalo for inválido ou longo demais para a granularidade
+     */
+    public List<VendaAgregadaRepository.Ponto> serie(Granularidade granularidade, Instant de, Instant ate) {
+        if (!de.isBefore(ate)) {
+            throw new IllegalArgumentException("'de' deve ser anterior a 'ate'");
+        }
+        Duration maximo = granularidade == Granularidade.HORA ? MAXIMO_SERIE_HORA : MAXIMO_SERIE_DIA;
+        if (Duration.between(de, ate).compareTo(maximo) > 0) {
+            throw new IllegalArgumentException("Intervalo máximo para granularidade " + granularidade
+                + ": " + maximo.toDays() + " dias");
+        }
+        return vendaAgregadaRepository.serie(granularidade, inicioDoPeriodo(de, granularidade), ate);
+    }
+    
+    public Resumo resumo() {
+        Estado atual = estado;
+        return new Resumo(atual.pedidos.sum(), atual.pedidosPagos.sum(), atual.pagosPorCliente.size(),
+            Money.toBigDecimal(atual.faturamentoCentavos.sum()), reconciliadoEm);
+    }
+    
+    /**
+     * Recalcula as métricas no banco e substitui as da memória
+     */
+    public void reconciliar() {
+        troca.writeLock().lock();
+        try {
+            transicoesDuranteReconciliacao = new ConcurrentLinkedQueue<>();
+        } finally {
+            troca.writeLock().unlock();
+        }
+        
+        Estado novo = null;
+        try {
+            long inicio = System.nanoTime();
+            novo = DatabaseConfig.executeInNewContext(RequestPersistenceContext.Modo.SOMENTE_LEITURA,
+                "reconciliação das métricas de pedidos", this::carregar);
+            System.out.println("📊 MÉTRICAS - Reconciliadas com o banco em "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio) + "ms");
+        } catch (Exception e) {
+            System.err.println("⚠️ MÉTRICAS - Falha na reconciliação (valores em memória mantidos): " + e.getMessage());
+        } finally {
+            troca.writeLock().lock();
+            try {
+                if (novo != null) {
+                    transicoesDuranteReconciliacao.forEach(novo::aplicar);
+                    estado = novo;
+                    reconciliadoEm = Instant.now();
+                }
+                transicoesDuranteReconciliacao = null;
+            } finally {
+                troca.writeLock().unlock();
+            }
+        }
+    }
+    
+    /**
+     * Encerra a thread de métricas e grava as variações de vendas pendentes (desligamento)
+     */
+    public void encerrar() {
+        executor.shutdownNow();
+        gravarVendas();
+    }
+    
+    /**
+     * Grava as variações de vendas acumuladas, uma por linha agregada, em uma transação própria.
+     * Se a gravação falhar, elas voltam para a fila e vão na próxima rodada.
+     */
+    public synchronized void gravarVendas() {
+        List<Variacao> lote;
+        synchronized (vendasPendentes) {
+            if (vendasPendentes.isEmpty()) {
+                return;
+            }
+            lote = new ArrayList<>(vendasPendentes.values());
+            vendasPendentes.clear();
+        }
+        // Descontos e somas que se anularam (ex.: pedido criado e pago na mesma rodada) não geram upsert
+        List<Variacao> alteradas = lote.stream()
+            .filter(variacao -> variacao.pedidos() != 0 || variacao.receitaCentavos() != 0 || variacao.itens() != 0)
+            .toList();
+        try {
+            DatabaseConfig.executeInNewContext(RequestPersistenceContext.Modo.ESCRITA, "gravação das vendas agregadas", () -> {
+                vendaAgregadaRepository.registrar(alteradas);
+                return null;
+            });
+        } catch (Exception e) {
+            System.err.println("⚠️ MÉTRICAS - Falha ao gravar " + alteradas.size()
+                + " linhas de vendas agregadas (nova tentativa na próxima rodada): " + e.getMessage());
+            acumularVendas(alteradas);
+        }
+    }
+    
+    /**
+     * Soma as variações às pendentes de gravação, por linha agregada
+     */
+    private void acumularVendas(List<Variacao> variacoes) {
+        synchronized (vendasPendentes) {
+            for (Variacao variacao : variacoes) {
+                vendasPendentes.merge(new ChaveVenda(variacao.granularidade(), variacao.inicio(), variacao.status(),
+                    variacao.metodoPagamento()), variacao, MetricasPedidos::somar);
+            }
+        }
+    }
+    
+    private static Variacao somar(Variacao a, Variacao b) {
+        return new Variacao(a.granularidade(), a.inicio(), a.status(), a.metodoPagamento(),
+            a.pedidos() + b.pedidos(), Money.somar(a.receitaCentavos(), b.receitaCentavos()), a.itens() + b.itens());
+    }
+    
+    /**
+     * Carga inicial das vendas agregadas a partir dos pedidos existentes (tabela ainda vazia)
+     */
+    private void carregarVendasAgregadas() {
+        try {
+            DatabaseConfig.executeInNewContext(RequestPersistenceContext.Modo.ESCRITA, "carga das vendas agregadas", () -> {
+                if (vendaAgregadaRepository.isVazia() && pedidoRepository.count() > 0) {
+                    int linhas = 0;
+                    for (Granularidade granularidade : Granularidade.values()) {
+                        linhas += vendaAgregadaRepository.reconstruir(granularidade, ZONA);
+                    }
+                    System.out.println("📊 MÉTRICAS - Vendas agregadas carregadas dos pedidos: " + linhas + " linhas");
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            System.err.println("⚠️ MÉTRICAS - Falha na carga das vendas agregadas: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Variações das linhas agregadas (hora e dia) para uma transição: desconta do status
+     * anterior e soma no novo
+     */
+    private List<Variacao> variacoes(Pedido pedido, StatusPedido anterior, long centavos) {
+        Instant criadoEm = pedido.getCreatedAt() != null ? pedido.getCreatedAt() : Instant.now();
+        String metodo = pedido.getMetodoPagamento() != null ? pedido.getMetodoPagamento().name() : VendaAgregada.SEM_METODO;
+        long itens = pedido.getItens().stream().mapToLong(PedidoItem::getQuantidade).sum();
+        List<Variacao> variacoes = new ArrayList<>(4);
+        for (Granularidade granularidade : Granularidade.values()) {
+            Instant inicio = inicioDoPeriodo(criadoEm, granularidade);
+            if (anterior != null) {
+                variacoes.add(new Variacao(granularidade, inicio, anterior, metodo, -1, -centavos, -itens));
+            }
+            variacoes.add(new Variacao(granularidade, inicio, pedido.getStatus(), metodo, 1, centavos, itens));
+        }
+        return variacoes;
+    }
+    
+    private static Instant inicioDoPeriodo(Instant instante, Granularidade granularidade) {
+        return instante.atZone(ZONA)
+            .truncatedTo(granularidade == Granularidade.HORA ? ChronoUnit.HOURS : ChronoUnit.DAYS)
+            .toInstant();
+    }
+    
+    private Estado carregar() {
+        Estado novo = new Estado();
+        novo.pedidos.add(pedidoRepository.count());
+        List<Object[]> pagos = pedidoRepository.resumoPorClienteByStatus(StatusPedido.PAGO);
+        for (Object[] linha : pagos) {
+            long quantidade = ((Number) linha[1]).longValue();
+            novo.pedidosPagos.add(quantidade);
+            novo.faturamentoCentavos.add(Money.centavos((BigDecimal) linha[2]));
+            novo.pagosPorCliente.put((UUID) linha[0], quantidade);
+        }
+        return novo;
+    }
+    
+    private void aplicar(Transicao transicao) {
+        troca.readLock().lock();
+        try {
+            estado.aplicar(transicao);
+            if (transicoesDuranteReconciliacao != null) {
+                transicoesDuranteReconciliacao.add(transicao);
+            }
+        } finally {
+            troca.readLock().unlock();
+        }
+    }
+}
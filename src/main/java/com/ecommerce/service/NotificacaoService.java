@@ -21,11 +21,17 @@ public class NotificacaoService {
     
     private final NotificacaoRepository notificacaoRepository;
     private final NotificacaoMapper notificacaoMapper;
+    private final RetencaoNotificacoes retencao;
+    private final EventosClientes eventos;
     
     public NotificacaoService(NotificacaoRepository notificacaoRepository,
-                             NotificacaoMapper notificacaoMapper) {
+                             NotificacaoMapper notificacaoMapper,
+                             RetencaoNotificacoes retencao,
+                             EventosClientes eventos) {
         this.notificacaoRepository = notificacaoRepository;
         this.notificacaoMapper = notificacaoMapper;
+        this.retencao = retencao;
+        this.eventos = eventos;
     }
     
     /**
@@ -43,7 +49,6 @@ public class NotificacaoService {
         );
         
         Notificacao notificacao = new Notificacao();
-        notificacao.setId(UUID.randomUUID());
         notificacao.setCliente(cliente);
         notificacao.setPedido(pedido);
         notificacao.setTipo(Notificacao.TipoNotificacao.CONFIRMACAO);
@@ -52,7 +57,9 @@ public class NotificacaoService {
         
         Notificacao savedNotificacao = notificacaoRepository.save(notificacao);
         
-        return notificacaoMapper.toResponseDTO(savedNotificacao);
+        NotificacaoResponseDTO dto = notificacaoMapper.toResponseDTO(savedNotificacao);
+        eventos.publicarNotificacao(dto);
+        return dto;
     }
     
     /**
@@ -67,7 +74,6 @@ public class NotificacaoService {
         String mensagem = gerarMensagemStatus(pedido, novoStatus);
         
         Notificacao notificacao = new Notificacao();
-        notificacao.setId(UUID.randomUUID());
         notificacao.setCliente(cliente);
         notificacao.setPedido(pedido);
         notificacao.setTipo(Notificacao.TipoNotificacao.STATUS);
@@ -76,7 +82,9 @@ public class NotificacaoService {
         
         Notificacao savedNotificacao = notificacaoRepository.save(notificacao);
         
-        return notificacaoMapper.toResponseDTO(savedNotificacao);
+        NotificacaoResponseDTO dto = notificacaoMapper.toResponseDTO(savedNotificacao);
+        eventos.publicarNotificacao(dto);
+        return dto;
     }
     
     /**
@@ -184,13 +192,27 @@ public class NotificacaoService {
     }
     
     /**
-     * Remove notificações antigas para limpeza automática
+     * Solicita a remoção das notificações antigas; a limpeza roda em segundo plano, em lotes
      * 
      * @param daysOld Número de dias de idade para exclusão
+     * @return Progresso da limpeza agendada (ou da que já estava em andamento)
      */
-    public void removeOldNotifications(int daysOld) {
-        LocalDateTime cutoffDate = LocalDateTime.now().minusDays(daysOld);
-        notificacaoRepository.deleteOlderThan(cutoffDate);
+    public RetencaoNotificacoes.Progresso removeOldNotifications(int daysOld) {
+        return retencao.solicitar(daysOld);
+    }
+    
+    /**
+     * Progresso da última limpeza de notificações (nulo se nenhuma rodou ainda)
+     */
+    public RetencaoNotificacoes.Progresso getProgressoLimpeza() {
+        return retencao.progresso();
+    }
+    
+    /**
+     * Total de notificações removidas pela retenção desde o início do processo
+     */
+    public long getTotalRemovidasLimpeza() {
+        return retencao.totalRemovidas();
     }
     
     /**
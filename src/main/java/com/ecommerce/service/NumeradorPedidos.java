@@ -0,0 +1,108 @@
+package com.ecommerce.service;
+
+import com.ecommerce.config.DatabaseConfig;
+import com.ecommerce.config.RequestPersistenceContext;
+import com.ecommerce.repository.NumeracaoPedidoRepository;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Numeração de pedidos no formato PED-YYYYMMDD-NNNN, única entre nós e reinícios (hi/lo).
+ *
+ * Cada nó reserva no banco blocos de números do dia (numeracao_pedidos) e os distribui da
+ * memória sem lock: um getAndIncrement por pedido e uma ida ao banco a cada TAMANHO_BLOCO
+ * pedidos. A reserva é gravada em transação própria, então um checkout desfeito apenas deixa
+ * um buraco na sequência, sem risco de repetir número. A numeração recomeça a cada dia e passa
+ * de 4 dígitos se o dia tiver mais de 9999 pedidos. O contador de um dia sem linha em
+ * numeracao_pedidos (ex.: dia da implantação) começa depois do maior número do dia já gravado
+ * em pedidos, e não em 1.
+ */
+public class NumeradorPedidos {
+
+    static final int TAMANHO_BLOCO = 50;
+    private static final DateTimeFormatter FORMATO_DIA = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private final NumeracaoPedidoRepository numeracaoRepository;
+    private final Clock relogio;
+    // ReentrantLock e não synchronized: a reserva vai ao banco, e um virtual thread bloqueado
+    // dentro de synchronized prende a thread portadora
+    private final ReentrantLock reserva = new ReentrantLock();
+    private volatile Bloco bloco = new Bloco(LocalDate.MIN, 1, 0);
+
+    public NumeradorPedidos(NumeracaoPedidoRepository numeracaoRepository) {
+        this(numeracaoRepository, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Construtor com o relógio que define o dia da numeração informado (testes)
+     */
+    public NumeradorPedidos(NumeracaoPedidoRepository numeracaoRepository, Clock relogio) {
+        this.numeracaoRepository = numeracaoRepository;
+        this.relogio = relogio;
+    }
+
+    /**
+     * Próximo número de pedido do dia
+     */
+    public String proximo() {
+        LocalDate hoje = LocalDate.now(relogio);
+        while (true) {
+            Bloco atual = bloco;
+            if (atual.dia.equals(hoje)) {
+                long numero = atual.proximo.getAndIncrement();
+                if (numero <= atual.ultimo) {
+                    return prefixo(hoje) + String.format("%04d", numero);
+                }
+            }
+            reservar(atual, hoje);
+        }
+    }
+
+    /**
+     * Troca o bloco esgotado (ou de outro dia) por um novo. Só uma thread reserva: as demais
+     * esperam e, ao entrar, encontram o bloco já trocado.
+     */
+    private void reservar(Bloco esgotado, LocalDate dia) {
+        reserva.lock();
+        try {
+            if (bloco != esgotado) {
+                return;
+            }
+            boolean novoDia = !esgotado.dia.equals(dia);
+            long primeiro = DatabaseConfig.executeInNewContext(RequestPersistenceContext.Modo.ESCRITA,
+                "reserva de números de pedido", () -> {
+                    if (novoDia) {
+                        numeracaoRepository.iniciarDia(dia, prefixo(dia));
+                    }
+                    return numeracaoRepository.reservarBloco(dia, TAMANHO_BLOCO);
+                });
+            bloco = new Bloco(dia, primeiro, primeiro + TAMANHO_BLOCO - 1);
+            System.out.println("🔢 Números de pedido reservados: " + primeiro + " a " + bloco.ultimo + " (" + dia + ")");
+        } finally {
+            reserva.unlock();
+        }
+    }
+
+    /**
+     * Parte fixa dos números do dia: PED-YYYYMMDD-
+     */
+    private static String prefixo(LocalDate dia) {
+        return "PED-" + dia.format(FORMATO_DIA) + "-";
+    }
+
+    private static final class Bloco {
+        final LocalDate dia;
+        final AtomicLong proximo;
+        final long ultimo;
+
+        Bloco(LocalDate dia, long primeiro, long ultimo) {
+            this.dia = dia;
+            this.proximo = new AtomicLong(primeiro);
+            this.ultimo = ultimo;
+        }
+    }
+}
@@ -30,16 +30,22 @@ public class PagamentoService {
     private final PedidoRepository pedidoRepository;
     private final PagamentoMapper pagamentoMapper;
     private final NotificacaoService notificacaoService;
+    private final MetricasPedidos metricas;
+    private final EventosClientes eventos;
     private StripePaymentService stripePaymentService; // Lazy initialization
     
     public PagamentoService(PagamentoRepository pagamentoRepository,
                            PedidoRepository pedidoRepository,
                            PagamentoMapper pagamentoMapper,
-                           NotificacaoService notificacaoService) {
+                           NotificacaoService notificacaoService,
+                           MetricasPedidos metricas,
+                           EventosClientes eventos) {
         this.pagamentoRepository = pagamentoRepository;
         this.pedidoRepository = pedidoRepository;
         this.pagamentoMapper = pagamentoMapper;
         this.notificacaoService = notificacaoService;
+        this.metricas = metricas;
+        this.eventos = eventos;
         // StripePaymentService inicializado apenas quando necessário
     }
     
@@ -62,7 +68,6 @@ public class PagamentoService {
         
         // Cria pagamento PIX
         PagamentoPix pagamento = new PagamentoPix();
-        pagamento.setId(UUID.randomUUID());
         pagamento.setPedido(pedido);
         pagamento.setValor(requestDTO.getValor());
         
@@ -87,8 +92,11 @@ public class PagamentoService {
             Pagamento savedPagamento = pagamentoRepository.save(pagamento);
             
             // Atualiza status do pedido para PAGO
+            StatusPedido statusAnterior = pedido.getStatus();
             pedido.setStatus(StatusPedido.PAGO);
             pedidoRepository.save(pedido);
+            metricas.registrarTransicao(pedido, statusAnterior);
+            eventos.publicarStatusPedido(pedido, statusAnterior);
             
             // Envia notificação
             notificacaoService.criarNotificacaoStatus(pedido.getCliente(), pedido, StatusPedido.PAGO);
@@ -109,7 +117,6 @@ public class PagamentoService {
         
         // Cria pagamento boleto
         PagamentoBoleto pagamento = new PagamentoBoleto();
-        pagamento.setId(UUID.randomUUID());
         pagamento.setPedido(pedido);
         pagamento.setValor(requestDTO.getValor());
         
@@ -158,6 +165,8 @@ public class PagamentoService {
         // Atualiza status do pedido para PAGO
         pedido.setStatus(StatusPedido.PAGO);
         pedidoRepository.save(pedido);
+        metricas.registrarTransicao(pedido, StatusPedido.PROCESSANDO);
+        eventos.publicarStatusPedido(pedido, StatusPedido.PROCESSANDO);
         
         // Envia notificação
         notificacaoService.criarNotificacaoStatus(pedido.getCliente(), pedido, StatusPedido.PAGO);
@@ -0,0 +1,139 @@
+package com.ecommerce.service;
+
+import com.ecommerce.config.DatabaseConfig;
+import com.ecommerce.config.RequestPersistenceContext;
+import com.ecommerce.repository.NotificacaoParticaoRepository;
+import com.ecommerce.repository.NotificacaoParticaoRepository.Particao;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Partições mensais da tabela notificacoes: conversão da tabela criada pelo Hibernate em tabela
+ * particionada, criação antecipada das partições dos próximos MESES_A_FRENTE meses e remoção de
+ * partições inteiras na retenção (DETACH + DROP em vez de DELETE linha a linha).
+ *
+ * Partição do mês M: notificacoes_pAAAAMM, criado_em em [1º dia de M, 1º dia de M+1). Linhas fora
+ * das partições mensais (se o job ficar parado por meses) vão para notificacoes_padrao.
+ */
+public class ParticoesNotificacoes {
+    
+    static final int MESES_A_FRENTE = 3;
+    private static final DateTimeFormatter SUFIXO = DateTimeFormatter.ofPattern("yyyyMM");
+    
+    private final NotificacaoParticaoRepository particaoRepository;
+    
+    public ParticoesNotificacoes(NotificacaoParticaoRepository particaoRepository) {
+        this.particaoRepository = particaoRepository;
+    }
+    
+    /**
+     * Converte a tabela para particionada (se ainda não for) e cria as partições que faltam.
+     * Falhas são registradas e não impedem a subida: sem partições a retenção volta a apagar em lotes.
+     */
+    public void preparar() {
+        try {
+            boolean convertida = DatabaseConfig.executeInNewContext(RequestPersistenceContext.Modo.ESCRITA,
+                "particionamento de notificações", () -> {
+                    if (particaoRepository.isParticionada()) {
+                        return false;
+                    }
+                    particaoRepository.converterParaParticionada(inicioDoMes(YearMonth.now().plusMonths(1)));
+                    return true;
+                });
+            if (convertida) {
+                System.out.println("🗂️ PARTIÇÕES - Tabela notificacoes convertida para particionamento mensal (dados atuais em "
+                    + NotificacaoParticaoRepository.PARTICAO_LEGADO + ")");
+            }
+        } catch (Exception e) {
+            System.err.println("⚠️ PARTIÇÕES - Falha ao particionar notificacoes: " + e.getMessage());
+            return;
+        }
+        garantirParticoes();
+    }
+    
+    /**
+     * Cria as partições mensais que faltam até MESES_A_FRENTE meses à frente, além da partição padrão
+     *
+     * @return Quantidade de partições criadas
+     */
+    public int garantirParticoes() {
+        try {
+            int criadas = DatabaseConfig.executeInNewContext(RequestPersistenceContext.Modo.ESCRITA,
+                "criação de partições de notificações", () -> {
+                    if (!particaoRepository.isParticionada()) {
+                        return 0;
+                    }
+                    List<Particao> particoes = particaoRepository.listarParticoes();
+                    if (particoes.stream().noneMatch(Particao::padrao)) {
+                        particaoRepository.criarParticaoPadrao();
+                    }
+                    YearMonth ultimo = YearMonth.now().plusMonths(MESES_A_FRENTE);
+                    YearMonth mes = proximoMesSemParticao(particoes);
+                    int total = 0;
+                    for (; !mes.isAfter(ultimo); mes = mes.plusMonths(1)) {
+                        particaoRepository.criarParticao(nomeParticao(mes), inicioDoMes(mes), inicioDoMes(mes.plusMonths(1)));
+                        total++;
+                    }
+                    return total;
+                });
+            if (criadas > 0) {
+                System.out.println("🗂️ PARTIÇÕES - " + criadas + " partições mensais de notificações criadas");
+            }
+            return criadas;
+        } catch (Exception e) {
+            System.err.println("⚠️ PARTIÇÕES - Falha ao criar partições de notificações: " + e.getMessage());
+            return 0;
+        }
+    }
+    
+    /**
+     * Remove (DETACH + DROP) as partições mensais cujas linhas são todas anteriores ao limite.
+     * A partição padrão nunca é removida; o que sobrar antes do limite fica para o DELETE em lotes.
+     *
+     * @return Nomes das partições removidas
+     */
+    public List<String> removerAnterioresA(LocalDateTime limite) {
+        List<Particao> particoes = DatabaseConfig.executeInNewContext(RequestPersistenceContext.Modo.SOMENTE_LEITURA,
+            "listagem de partições de notificações", () ->
+                particaoRepository.isParticionada() ? particaoRepository.listarParticoes() : List.<Particao>of());
+        List<String> removidas = new ArrayList<>();
+        for (Particao particao : particoes) {
+            if (particao.padrao() || particao.fim() == null || particao.fim().isAfter(limite)) {
+                continue;
+            }
+            // Uma transação por partição: o lock exclusivo da tabela dura só um DETACH/DROP
+            DatabaseConfig.executeInNewContext(RequestPersistenceContext.Modo.ESCRITA,
+                "remoção de partição de notificações", () -> {
+                    particaoRepository.removerParticao(particao.nome());
+                    return null;
+                });
+            removidas.add(particao.nome());
+        }
+        return removidas;
+    }
+    
+    /**
+     * Primeiro mês depois do maior limite superior das partições existentes (ou o mês atual)
+     */
+    private static YearMonth proximoMesSemParticao(List<Particao> particoes) {
+        YearMonth atual = YearMonth.now();
+        YearMonth proximo = particoes.stream()
+            .filter(particao -> !particao.padrao() && particao.fim() != null)
+            .map(particao -> YearMonth.from(particao.fim().minusNanos(1)).plusMonths(1))
+            .max(YearMonth::compareTo)
+            .orElse(atual);
+        return proximo.isBefore(atual) ? atual : proximo;
+    }
+    
+    static String nomeParticao(YearMonth mes) {
+        return NotificacaoParticaoRepository.TABELA + "_p" + SUFIXO.format(mes);
+    }
+    
+    private static LocalDateTime inicioDoMes(YearMonth mes) {
+        return mes.atDay(1).atStartOfDay();
+    }
+}
@@ -12,15 +12,17 @@ import com.ecommerce.dto.response.PedidoResponseDTO;
 import com.ecommerce.mapper.PedidoMapper;
 import com.ecommerce.repository.*;
 import com.ecommerce.repository.PedidoItemRepository;
+import com.ecommerce.service.CarrinhosEmMemoria.Conteudo;
+import com.ecommerce.service.CarrinhosEmMemoria.Linha;
 
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Serviço para gerenciamento de pedidos
@@ -35,12 +37,16 @@ public class PedidoService {
     private final ItemCarrinhoRepository itemCarrinhoRepository;
     private final ItemPedidoRepository itemPedidoRepository;
     private final PedidoItemRepository pedidoItemRepository;
-    private final UserRepository userRepository;
+    private final ClienteResolver clienteResolver;
     private final PedidoMapper pedidoMapper;
     private final NotificacaoService notificacaoService;
     private final CarrinhoService carrinhoService;
+    private final CarrinhosEmMemoria carrinhos;
     private final ProdutoRepository produtoRepository;
-    private final AtomicInteger sequenciaNumero = new AtomicInteger(1);
+    private final NumeradorPedidos numeradorPedidos;
+    private final IdempotenciaPedidos idempotencia;
+    private final MetricasPedidos metricas;
+    private final EventosClientes eventos;
     
     public PedidoService(PedidoRepository pedidoRepository,
                         ClienteRepository clienteRepository,
@@ -49,11 +55,16 @@ public class PedidoService {
                         ItemCarrinhoRepository itemCarrinhoRepository,
                         ItemPedidoRepository itemPedidoRepository,
                         PedidoItemRepository pedidoItemRepository,
-                        UserRepository userRepository,
+                        ClienteResolver clienteResolver,
                         PedidoMapper pedidoMapper,
                         NotificacaoService notificacaoService,
                         CarrinhoService carrinhoService,
-                        ProdutoRepository produtoRepository) {
+                        CarrinhosEmMemoria carrinhos,
+                        ProdutoRepository produtoRepository,
+                        NumeradorPedidos numeradorPedidos,
+                        IdempotenciaPedidos idempotencia,
+                        MetricasPedidos metricas,
+                        EventosClientes eventos) {
         this.pedidoRepository = pedidoRepository;
         this.clienteRepository = clienteRepository;
         this.enderecoRepository = enderecoRepository;
@@ -61,99 +72,23 @@ public class PedidoService {
         this.itemCarrinhoRepository = itemCarrinhoRepository;
         this.itemPedidoRepository = itemPedidoRepository;
         this.pedidoItemRepository = pedidoItemRepository;
-        this.userRepository = userRepository;
+        this.clienteResolver = clienteResolver;
         this.pedidoMapper = pedidoMapper;
         this.notificacaoService = notificacaoService;
         this.carrinhoService = carrinhoService;
+        this.carrinhos = carrinhos;
         this.produtoRepository = produtoRepository;
+        this.numeradorPedidos = numeradorPedidos;
+        this.idempotencia = idempotencia;
+        this.metricas = metricas;
+        this.eventos = eventos;
     }
     
     /**
-     * Resolve Cliente baseado no userId, garantindo sempre o mesmo Cliente por usuário.
-     * Sempre resolve User ID → User → Cliente por email.
-     * 
-     * @param userId O ID do usuário
-     * @return O cliente correspondente ao usuário
-     * @throws RuntimeException se o usuário não for encontrado
+     * Resolve Cliente baseado no userId (vínculo em cache no ClienteResolver)
      */
     private Cliente resolveCliente(UUID userId) {
-        System.out.println("🔍 PEDIDO DEBUG - Resolvendo cliente para userId: " + userId);
-        
-        // Buscar usuário primeiro
-        Optional<UserModel> userOpt = userRepository.findById(userId);
-        if (userOpt.isEmpty()) {
-            throw new RuntimeException("Usuário não encontrado");
-        }
-        
-        UserModel user = userOpt.get();
-        System.out.println("✅ PEDIDO DEBUG - Usuário encontrado: " + user.getEmail());
-        
-        // Buscar cliente existente por email (garante unicidade)
-        Optional<Cliente> clientePorEmailOpt = clienteRepository.findByEmail(user.getEmail());
-        if (clientePorEmailOpt.isPresent()) {
-            Cliente clienteExistente = clientePorEmailOpt.get();
-            System.out.println("✅ PEDIDO DEBUG - Cliente encontrado por email com ID: " + clienteExistente.getId());
-            // Para evitar entidade desanexada, buscar novamente pelo ID no contexto atual
-            return clienteRepository.findById(clienteExistente.getId())
-                .orElseThrow(() -> new RuntimeException("Cliente não encontrado"));
-        }
-        
-        // Criar novo cliente com UUID único
-        System.out.println("🛍️ PEDIDO DEBUG - Criando novo cliente para usuário: " + user.getEmail());
-        Cliente cliente = new Cliente();
-        cliente.setId(UUID.randomUUID()); // Gerar novo UUID único para cliente
-        cliente.setEmail(user.getEmail());
-        cliente.setNome(user.getEmail().split("@")[0]);
-        
-        Cliente savedCliente = clienteRepository.save(cliente);
-        System.out.println("✅ PEDIDO DEBUG - Cliente criado com ID: " + savedCliente.getId());
-        
-        // Para garantir que está no contexto correto, buscar novamente pelo ID
-        return clienteRepository.findById(savedCliente.getId())
-            .orElseThrow(() -> new RuntimeException("Erro ao criar cliente"));
-    }
-    
-    /**
-     * Resolve Cliente baseado no userId usando repositórios transacionais.
-     * 
-     * @param userId O ID do usuário
-     * @param txUserRepository Repositório de usuário transacional
-     * @param txClienteRepository Repositório de cliente transacional
-     * @return O cliente correspondente ao usuário
-     */
-    private Cliente resolveClienteTransactional(UUID userId, UserRepository txUserRepository, ClienteRepository txClienteRepository) {
-        System.out.println("🔍 PEDIDO TX DEBUG - Resolvendo cliente (transacional) para userId: " + userId);
-        
-        // Buscar usuário primeiro
-        Optional<UserModel> userOpt = txUserRepository.findById(userId);
-        if (userOpt.isEmpty()) {
-            throw new RuntimeException("Usuário não encontrado");
-        }
-        
-        UserModel user = userOpt.get();
-        System.out.println("✅ PEDIDO TX DEBUG - Usuário encontrado: " + user.getEmail());
-        
-        // Buscar cliente existente por email (garante unicidade)
-        Optional<Cliente> clientePorEmailOpt = txClienteRepository.findByEmail(user.getEmail());
-        if (clientePorEmailOpt.isPresent()) {
-            Cliente clienteExistente = clientePorEmailOpt.get();
-            System.out.println("✅ PEDIDO TX DEBUG - Cliente encontrado por email com ID: " + clienteExistente.getId());
-            return txClienteRepository.findById(clienteExistente.getId())
-                .orElseThrow(() -> new RuntimeException("Cliente não encontrado"));
-        }
-        
-        // Criar novo cliente com UUID único
-        System.out.println("🛍️ PEDIDO TX DEBUG - Criando novo cliente para usuário: " + user.getEmail());
-        Cliente cliente = new Cliente();
-        cliente.setId(UUID.randomUUID()); // Gerar novo UUID único para cliente
-        cliente.setEmail(user.getEmail());
-        cliente.setNome(user.getEmail().split("@")[0]);
-        
-        Cliente savedCliente = txClienteRepository.save(cliente);
-        System.out.println("✅ PEDIDO TX DEBUG - Cliente criado com ID: " + savedCliente.getId());
-        
-        return txClienteRepository.findById(savedCliente.getId())
-            .orElseThrow(() -> new RuntimeException("Erro ao criar cliente"));
+        return clienteResolver.resolver(userId);
     }
     
     /**
@@ -166,16 +101,13 @@ public class PedidoService {
      */
     @Transactional
     public PedidoResponseDTO confirmarPedido(UUID clienteId, PedidoRequestDTO requestDTO) {
+        return idempotencia.executar(requestDTO.getIdempotencyKey(),
+            () -> registrarConfirmacao(clienteId, requestDTO)).pedido();
+    }
+    
+    private PedidoResponseDTO registrarConfirmacao(UUID clienteId, PedidoRequestDTO requestDTO) {
         System.out.println("🔄 PEDIDO DEBUG - Iniciando confirmação de pedido para clienteId: " + clienteId);
         
-        if (requestDTO.getIdempotencyKey() != null && !requestDTO.getIdempotencyKey().isBlank()) {
-            Optional<Pedido> existingPedido = pedidoRepository.findByIdempotencyKey(requestDTO.getIdempotencyKey());
-            if (existingPedido.isPresent()) {
-                System.out.println("✨ PEDIDO INFO - Chave de idempotência encontrada, retornando pedido existente: " + existingPedido.get().getId());
-                return pedidoMapper.toResponseDTO(existingPedido.get());
-            }
-        }
-        
         // Resolve cliente corretamente (User ID → Cliente por email)
         Cliente cliente = resolveCliente(clienteId);
         System.out.println("✅ PEDIDO DEBUG - Cliente resolvido: " + cliente.getId());
@@ -195,23 +127,21 @@ public class PedidoService {
         }
         
         // Busca carrinho com itens usando o ID do cliente
-        Optional<Carrinho> carrinhoOpt = carrinhoRepository.findByClienteIdWithItens(cliente.getId());
-        if (carrinhoOpt.isEmpty() || carrinhoOpt.get().getItens().isEmpty()) {
+        // O carrinho vive em memória: o pedido sai do conteúdo entregue ao checkout, não do banco
+        Conteudo carrinho = carrinhos.prepararCheckout(cliente.getId());
+        if (carrinho.linhas().isEmpty()) {
             throw new RuntimeException("Carrinho vazio ou não encontrado");
         }
+        System.out.println("✅ PEDIDO DEBUG - Carrinho encontrado com " + carrinho.linhas().size() + " itens");
         
-        Carrinho carrinho = carrinhoOpt.get();
-        System.out.println("✅ PEDIDO DEBUG - Carrinho encontrado com " + carrinho.getItens().size() + " itens");
-        
-        // Calcula valor total
-        BigDecimal valorTotal = calcularValorTotal(carrinho);
+        // Cria o pedido com os itens do carrinho; o total sai da mesma passada pelos itens
+        Pedido pedido = new Pedido();
+        BigDecimal valorTotal = adicionarItensDoCarrinho(pedido, carrinho);
         if (valorTotal.compareTo(BigDecimal.ZERO) <= 0) {
             throw new RuntimeException("Valor do pedido deve ser maior que zero");
         }
         
-        // Cria o pedido - ID será gerado automaticamente
-        Pedido pedido = new Pedido();
-        // ID será gerado automaticamente pelo @GeneratedValue
+        // ID será gerado automaticamente pelo @IdentificadorGerado
         pedido.setCliente(cliente);
         pedido.setClienteId(cliente.getId());
         pedido.setEnderecoEntrega(endereco);
@@ -223,47 +153,15 @@ public class PedidoService {
             pedido.setIdempotencyKey(requestDTO.getIdempotencyKey());
         }
         
-        // Salva o pedido primeiro para obter o ID gerado
-        Pedido savedPedido = pedidoRepository.save(pedido);
-        System.out.println("💾 PEDIDO DEBUG - Pedido salvo com ID gerado: " + savedPedido.getId() + " com valor: R$ " + valorTotal);
-        System.out.println("✅ PEDIDO DEBUG - Pedido salvo com sucesso");
-        
-        // Cria os itens do pedido
-        for (ItemCarrinho itemCarrinho : carrinho.getItens()) {
-            // Recarrega o produto da sessão atual para evitar entidade desanexada
-            Produto produto = produtoRepository.findById(itemCarrinho.getProduto().getId())
-                .orElseThrow(() -> new RuntimeException("Produto não encontrado: " + itemCarrinho.getProduto().getId()));
-            
-            PedidoItem pedidoItem = new PedidoItem();
-            // ID será gerado automaticamente
-            pedidoItem.setProduto(produto);
-            pedidoItem.setProdutoId(produto.getId());
-            pedidoItem.setNome(produto.getNome());
-            pedidoItem.setQuantidade(itemCarrinho.getQuantidade());
-            pedidoItem.setPrecoUnitario(produto.getPreco());
-            pedidoItem.setSubtotal(produto.getPreco()
-                    .multiply(BigDecimal.valueOf(itemCarrinho.getQuantidade())));
-            
-            // Usa o método addItem para manter a relação bidirecional
-            savedPedido.addItem(pedidoItem);
-        }
-        // Salva novamente para persistir os itens em cascata
-        pedidoRepository.save(savedPedido);
-        System.out.println("✅ PEDIDO DEBUG - " + carrinho.getItens().size() + " itens do pedido salvos");
-        
-        // Limpa o carrinho após criar o pedido
-        carrinhoService.clearCarrinho(clienteId);
-        System.out.println("✅ PEDIDO DEBUG - Carrinho foi limpo");
+        // Grava pedido, itens, limpeza do carrinho e notificação de uma vez
+        Pedido savedPedido = gravarCheckout(pedido, cliente);
+        System.out.println("💾 PEDIDO DEBUG - Pedido registrado com ID: " + savedPedido.getId() + " com valor: R$ " + valorTotal);
         
         // Registra informações do pedido
         System.out.println("📊 PEDIDO INFO - ID: " + savedPedido.getId());
         System.out.println("📊 PEDIDO INFO - Cliente ID: " + cliente.getId());
         System.out.println("📊 PEDIDO INFO - Total: R$ " + valorTotal);
-        System.out.println("📊 PEDIDO INFO - Quantidade de itens: " + carrinho.getItens().size());
-        
-        // Envia notificação de confirmação ao cliente
-        notificacaoService.criarNotificacaoConfirmacao(cliente, savedPedido);
-        System.out.println("✅ PEDIDO DEBUG - Notificação enviada");
+        System.out.println("📊 PEDIDO INFO - Quantidade de itens: " + carrinho.linhas().size());
         
         PedidoResponseDTO response = pedidoMapper.toResponseDTO(savedPedido);
         System.out.println("✅ PEDIDO DEBUG - DTO mapeado, retornando response");
@@ -284,6 +182,16 @@ public class PedidoService {
                 .map(pedidoMapper::toResponseDTO);
     }
     
+    /**
+     * Versão atual do pedido, usada como ETag sem montar o DTO
+     * 
+     * @param id O ID do pedido
+     * @return A versão do pedido ou vazio se não existir
+     */
+    public Optional<Long> findVersion(UUID id) {
+        return pedidoRepository.findVersionById(id);
+    }
+    
     /**
      * Lista pedidos do cliente
      * 
@@ -354,6 +262,8 @@ public class PedidoService {
         }
         
         Pedido savedPedido = pedidoRepository.save(pedido);
+        metricas.registrarTransicao(savedPedido, statusAnterior);
+        eventos.publicarStatusPedido(savedPedido, statusAnterior);
         
         notificacaoService.criarNotificacaoStatus(pedido.getCliente(), savedPedido, novoStatus);
         
@@ -388,6 +298,7 @@ public class PedidoService {
         }
         
         Pedido pedido = pedidoOpt.get();
+        StatusPedido statusAnterior = pedido.getStatus();
         
         if (!pedido.getCliente().getId().equals(clienteId)) {
             throw new RuntimeException("Pedido não pertence ao cliente");
@@ -405,6 +316,8 @@ public class PedidoService {
         pedido.setCanceledAt(Instant.now());
         pedido.setUpdatedAt(Instant.now());
         Pedido savedPedido = pedidoRepository.save(pedido);
+        metricas.registrarTransicao(savedPedido, statusAnterior);
+        eventos.publicarStatusPedido(savedPedido, statusAnterior);
         
         notificacaoService.criarNotificacaoStatus(pedido.getCliente(), savedPedido, StatusPedido.CANCELADO);
         
@@ -435,12 +348,61 @@ public class PedidoService {
     }
     
     /**
-     * Calcula valor total do carrinho
+     * Cria os itens do pedido a partir do conteúdo do carrinho entregue ao checkout, com snapshot
+     * de nome e preço. Os produtos vêm de uma única consulta (IN); item cujo produto saiu do
+     * catálogo fica fora do pedido, como já fica fora dos totais do carrinho.
+     * 
+     * As contas são feitas em centavos (long) e convertidas para BigDecimal só ao gravar.
+     * 
+     * @return Soma dos subtotais
+     * @throws RuntimeException se nenhum item do carrinho tiver produto
+     */
+    private BigDecimal adicionarItensDoCarrinho(Pedido pedido, Conteudo carrinho) {
+        Map<UUID, Produto> produtos = new HashMap<>();
+        for (Produto produto : produtoRepository.findByIds(carrinho.linhas().stream().map(Linha::produtoId).toList())) {
+            produtos.put(produto.getId(), produto);
+        }
+        
+        long totalCentavos = 0;
+        for (Linha linha : carrinho.linhas()) {
+            Produto produto = produtos.get(linha.produtoId());
+            if (produto == null) {
+                continue;
+            }
+            
+            PedidoItem pedidoItem = new PedidoItem();
+            pedidoItem.setProduto(produto);
+            pedidoItem.setProdutoId(produto.getId());
+            pedidoItem.setNome(produto.getNome());
+            pedidoItem.setQuantidade(linha.quantidade());
+            pedidoItem.setPrecoUnitario(produto.getPreco());
+            long subtotal = Money.multiplicar(Money.centavos(produto.getPreco()), linha.quantidade());
+            pedidoItem.setSubtotal(Money.toBigDecimal(subtotal));
+            
+            // Usa o método addItem para manter a relação bidirecional
+            pedido.addItem(pedidoItem);
+            totalCentavos = Money.somar(totalCentavos, subtotal);
+        }
+        if (pedido.getItens() == null || pedido.getItens().isEmpty()) {
+            throw new RuntimeException("Carrinho vazio ou não encontrado");
+        }
+        return Money.toBigDecimal(totalCentavos);
+    }
+    
+    /**
+     * Grava o checkout: registra pedido, itens e notificação. O carrinho já foi esvaziado no banco
+     * por prepararCheckout, na mesma transação. Os INSERTs saem juntos no flush do commit, com os
+     * itens em lote JDBC; uma violação de restrição (ex.: chave de idempotência repetida) vira
+     * resposta de erro no TransactionFilter.
      */
-    private BigDecimal calcularValorTotal(Carrinho carrinho) {
-        return carrinho.getItens().stream()
-                .map(item -> item.getProduto().getPreco().multiply(BigDecimal.valueOf(item.getQuantidade())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    private Pedido gravarCheckout(Pedido pedido, Cliente cliente) {
+        if (pedido.getNumero() == null) {
+            pedido.setNumero(gerarNumeroPedido());
+        }
+        Pedido savedPedido = pedidoRepository.save(pedido);
+        metricas.registrarTransicao(savedPedido, null);
+        notificacaoService.criarNotificacaoConfirmacao(cliente, savedPedido);
+        return savedPedido;
     }
     
     /**
@@ -448,6 +410,11 @@ public class PedidoService {
      */
     @Transactional
     public PedidoResponseDTO confirmarPedido(UUID clienteId, ConfirmarPedidoRequestDTO request) {
+        return idempotencia.executar(request.getIdempotencyKey(),
+            () -> registrarConfirmacao(clienteId, request)).pedido();
+    }
+    
+    private PedidoResponseDTO registrarConfirmacao(UUID clienteId, ConfirmarPedidoRequestDTO request) {
         System.out.println("🔄 PEDIDO - Confirmando pedido com nova estrutura de payload");
         
         // Validações de entrada
@@ -462,15 +429,6 @@ public class PedidoService {
             }
         }
         
-        // Verifica idempotência
-        if (request.getIdempotencyKey() != null && !request.getIdempotencyKey().isBlank()) {
-            Optional<Pedido> existingPedido = pedidoRepository.findByIdempotencyKey(request.getIdempotencyKey());
-            if (existingPedido.isPresent()) {
-                System.out.println("✨ PEDIDO - Chave de idempotência encontrada, retornando pedido existente");
-                return pedidoMapper.toResponseDTO(existingPedido.get());
-            }
-        }
-        
         // Resolve cliente
         Cliente cliente = resolveCliente(clienteId);
         System.out.println("✅ PEDIDO - Cliente resolvido: " + cliente.getId());
@@ -484,16 +442,15 @@ public class PedidoService {
         Endereco endereco = enderecoOpt.get();
         
         // Busca carrinho
-        Optional<Carrinho> carrinhoOpt = carrinhoRepository.findByClienteIdWithItens(cliente.getId());
-        if (carrinhoOpt.isEmpty() || carrinhoOpt.get().getItens().isEmpty()) {
+        // O carrinho vive em memória: o pedido sai do conteúdo entregue ao checkout, não do banco
+        Conteudo carrinho = carrinhos.prepararCheckout(cliente.getId());
+        if (carrinho.linhas().isEmpty()) {
             throw new RuntimeException("Carrinho vazio ou não encontrado");
         }
         
-        Carrinho carrinho = carrinhoOpt.get();
-        BigDecimal valorTotal = calcularValorTotal(carrinho);
-        
-        // Cria pedido
+        // Cria pedido com os itens do carrinho; o total sai da mesma passada pelos itens
         Pedido pedido = new Pedido();
+        BigDecimal valorTotal = adicionarItensDoCarrinho(pedido, carrinho);
         pedido.setCliente(cliente);
         pedido.setClienteId(cliente.getId());
         pedido.setEnderecoEntrega(endereco);
@@ -522,37 +479,9 @@ public class PedidoService {
             System.out.println("🧾 PEDIDO - Pagamento com boleto, pedido marcado como PROCESSANDO");
         }
         
-        // Salva pedido
-        Pedido savedPedido = pedidoRepository.save(pedido);
-        System.out.println("✅ PEDIDO - Pedido salvo com ID: " + savedPedido.getId());
-        
-        // Cria os itens do pedido
-        for (ItemCarrinho itemCarrinho : carrinho.getItens()) {
-            // Recarrega o produto da sessão atual para evitar entidade desanexada
-            Produto produto = produtoRepository.findById(itemCarrinho.getProduto().getId())
-                .orElseThrow(() -> new RuntimeException("Produto não encontrado: " + itemCarrinho.getProduto().getId()));
-            
-            PedidoItem pedidoItem = new PedidoItem();
-            pedidoItem.setProduto(produto);
-            pedidoItem.setProdutoId(produto.getId());
-            pedidoItem.setNome(produto.getNome());
-            pedidoItem.setQuantidade(itemCarrinho.getQuantidade());
-            pedidoItem.setPrecoUnitario(produto.getPreco());
-            pedidoItem.setSubtotal(produto.getPreco().multiply(BigDecimal.valueOf(itemCarrinho.getQuantidade())));
-            
-            // Usa o método addItem para manter a relação bidirecional
-            savedPedido.addItem(pedidoItem);
-        }
-        // Salva novamente para persistir os itens em cascata
-        pedidoRepository.save(savedPedido);
-        
-        // Limpa o carrinho - passa o User ID original, não o Cliente ID
-        carrinhoService.clearCarrinho(clienteId);
-        System.out.println("🧹 PEDIDO - Carrinho limpo");
-        
-        // Envia notificação
-        notificacaoService.criarNotificacaoConfirmacao(cliente, savedPedido);
-        System.out.println("✅ PEDIDO - Notificação enviada");
+        // Grava pedido, itens, limpeza do carrinho e notificação
+        Pedido savedPedido = gravarCheckout(pedido, cliente);
+        System.out.println("✅ PEDIDO - Pedido registrado com ID: " + savedPedido.getId());
         
         return pedidoMapper.toResponseDTO(savedPedido);
     }
@@ -562,17 +491,13 @@ public class PedidoService {
      */
     @Transactional
     public PedidoResponseDTO confirmarPedido(UUID clienteId, UUID enderecoId, SimulacaoPagamentoResponseDTO simulacao, String idempotencyKey) {
+        return idempotencia.executar(idempotencyKey,
+            () -> registrarConfirmacao(clienteId, enderecoId, simulacao, idempotencyKey)).pedido();
+    }
+    
+    private PedidoResponseDTO registrarConfirmacao(UUID clienteId, UUID enderecoId, SimulacaoPagamentoResponseDTO simulacao, String idempotencyKey) {
         System.out.println("🔄 PEDIDO - Confirmando pedido com simulação de pagamento");
         
-        // Verifica idempotência
-        if (idempotencyKey != null && !idempotencyKey.isBlank()) {
-            Optional<Pedido> existingPedido = pedidoRepository.findByIdempotencyKey(idempotencyKey);
-            if (existingPedido.isPresent()) {
-                System.out.println("✨ PEDIDO - Chave de idempotência encontrada, retornando pedido existente");
-                return pedidoMapper.toResponseDTO(existingPedido.get());
-            }
-        }
-        
         // Resolve cliente
         Cliente cliente = resolveCliente(clienteId);
         System.out.println("✅ PEDIDO - Cliente resolvido: " + cliente.getId());
@@ -586,21 +511,21 @@ public class PedidoService {
         Endereco endereco = enderecoOpt.get();
         
         // Busca carrinho
-        Optional<Carrinho> carrinhoOpt = carrinhoRepository.findByClienteIdWithItens(cliente.getId());
-        if (carrinhoOpt.isEmpty() || carrinhoOpt.get().getItens().isEmpty()) {
+        // O carrinho vive em memória: o pedido sai do conteúdo entregue ao checkout, não do banco
+        Conteudo carrinho = carrinhos.prepararCheckout(cliente.getId());
+        if (carrinho.linhas().isEmpty()) {
             throw new RuntimeException("Carrinho vazio ou não encontrado");
         }
         
-        Carrinho carrinho = carrinhoOpt.get();
-        BigDecimal valorTotal = calcularValorTotal(carrinho);
+        // Cria pedido com os itens do carrinho; o total sai da mesma passada pelos itens
+        Pedido pedido = new Pedido();
+        BigDecimal valorTotal = adicionarItensDoCarrinho(pedido, carrinho);
         
         // Valida valor com simulação
         if (simulacao.getValor().compareTo(valorTotal) != 0) {
             throw new RuntimeException("Valor da simulação não confere com o valor do carrinho");
         }
         
-        // Cria pedido
-        Pedido pedido = new Pedido();
         pedido.setCliente(cliente);
         pedido.setClienteId(cliente.getId());
         pedido.setEnderecoEntrega(endereco);
@@ -635,38 +560,10 @@ public class PedidoService {
             pedido.setIdempotencyKey(idempotencyKey);
         }
         
-        // Salva pedido
-        Pedido savedPedido = pedidoRepository.save(pedido);
-        System.out.println("💾 PEDIDO - Pedido salvo: " + savedPedido.getNumero() + " com status: " + savedPedido.getStatus());
-        
-        // Cria os itens do pedido
-        for (ItemCarrinho itemCarrinho : carrinho.getItens()) {
-            // Recarrega o produto da sessão atual para evitar entidade desanexada
-            Produto produto = produtoRepository.findById(itemCarrinho.getProduto().getId())
-                .orElseThrow(() -> new RuntimeException("Produto não encontrado: " + itemCarrinho.getProduto().getId()));
-            
-            PedidoItem pedidoItem = new PedidoItem();
-            pedidoItem.setProduto(produto);
-            pedidoItem.setProdutoId(produto.getId());
-            pedidoItem.setNome(produto.getNome());
-            pedidoItem.setQuantidade(itemCarrinho.getQuantidade());
-            pedidoItem.setPrecoUnitario(produto.getPreco());
-            pedidoItem.setSubtotal(produto.getPreco()
-                    .multiply(BigDecimal.valueOf(itemCarrinho.getQuantidade())));
-            
-            // Usa o método addItem para manter a relação bidirecional
-            savedPedido.addItem(pedidoItem);
-        }
-        // Salva novamente para persistir os itens em cascata
-        pedidoRepository.save(savedPedido);
-        System.out.println("✅ PEDIDO - " + carrinho.getItens().size() + " itens salvos");
-        
-        // Limpa carrinho
-        carrinhoService.clearCarrinho(clienteId);
-        System.out.println("🧑 PEDIDO - Carrinho limpo");
-        
-        // Envia notificação
-        notificacaoService.criarNotificacaoConfirmacao(cliente, savedPedido);
+        // Grava pedido, itens, limpeza do carrinho e notificação
+        Pedido savedPedido = gravarCheckout(pedido, cliente);
+        System.out.println("💾 PEDIDO - Pedido registrado: " + savedPedido.getNumero() + " com status: " + savedPedido.getStatus()
+            + " e " + carrinho.linhas().size() + " itens");
         
         // Retorna pedido completo
         PedidoResponseDTO response = pedidoMapper.toResponseDTO(savedPedido);
@@ -675,33 +572,13 @@ public class PedidoService {
     }
     
     /**
-     * Gera número único para o pedido no formato PED-YYYYMMDD-XXXX
+     * Gera número único para o pedido no formato PED-YYYYMMDD-XXXX (blocos reservados no banco)
      */
     private String gerarNumeroPedido() {
-        LocalDateTime agora = LocalDateTime.now();
-        String data = agora.format(DateTimeFormatter.ofPattern("yyyyMMdd"));
-        int sequencia = sequenciaNumero.getAndIncrement();
-        
-        // Se passou para o próximo dia, reinicia a sequência
-        if (sequencia > 9999) {
-            sequenciaNumero.set(1);
-            sequencia = sequenciaNumero.getAndIncrement();
-        }
-        
-        return String.format("PED-%s-%04d", data, sequencia);
+        return numeradorPedidos.proximo();
     }
     
     
-    /**
-     * Verifica se existe pedido com a idempotency key fornecida
-     */
-    public boolean existePedidoComIdempotencyKey(String idempotencyKey) {
-        if (idempotencyKey == null || idempotencyKey.isBlank()) {
-            return false;
-        }
-        return pedidoRepository.findByIdempotencyKey(idempotencyKey).isPresent();
-    }
-    
     /**
      * Lista pedidos do cliente - CORRIGIDO para resolver Cliente a partir do userId
      */
@@ -736,43 +613,36 @@ public class PedidoService {
     }
     
     public BigDecimal getTotalFaturamento() {
-        return pedidoRepository.findByStatus(StatusPedido.PAGO).stream()
-                .map(p -> p.getTotal() != null ? p.getTotal() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return pedidoRepository.sumTotalByStatus(StatusPedido.PAGO);
     }
     
     public long countClientesPagos() {
-        return pedidoRepository.findByStatus(StatusPedido.PAGO).stream()
-                .map(Pedido::getClienteId)
-                .distinct()
-                .count();
+        return pedidoRepository.countDistinctClienteIdByStatus(StatusPedido.PAGO);
     }
     
+    /**
+     * Finaliza o carrinho do usuário em um pedido. O resultado indica se a chave de
+     * idempotência já tinha gerado um pedido (retentativa) ou se ele foi criado agora.
+     */
     @Transactional
-    public PedidoResponseDTO finalizarCarrinho(UUID userId, String idempotencyKey) {
+    public IdempotenciaPedidos.Resultado finalizarCarrinho(UUID userId, String idempotencyKey) {
+        return idempotencia.executar(idempotencyKey, () -> registrarFinalizacao(userId, idempotencyKey));
+    }
+    
+    private PedidoResponseDTO registrarFinalizacao(UUID userId, String idempotencyKey) {
         System.out.println("🛒 CHECKOUT - Iniciando finalização do carrinho para userId: " + userId);
         
-        // Verificar idempotência
-        if (idempotencyKey != null && !idempotencyKey.isBlank()) {
-            Optional<Pedido> existingPedido = pedidoRepository.findByIdempotencyKey(idempotencyKey);
-            if (existingPedido.isPresent()) {
-                System.out.println("✅ CHECKOUT - Idempotency key encontrada, retornando pedido existente");
-                return pedidoMapper.toResponseDTO(existingPedido.get());
-            }
-        }
-        
         // Resolver cliente
         Cliente cliente = resolveCliente(userId);
         System.out.println("✅ CHECKOUT - Cliente resolvido: " + cliente.getId());
         
         // Carregar carrinho
-        Optional<Carrinho> carrinhoOpt = carrinhoRepository.findByClienteIdWithItens(cliente.getId());
-        if (carrinhoOpt.isEmpty() || carrinhoOpt.get().getItens().isEmpty()) {
+        // O carrinho vive em memória: o pedido sai do conteúdo entregue ao checkout, não do banco
+        Conteudo carrinho = carrinhos.prepararCheckout(cliente.getId());
+        if (carrinho.linhas().isEmpty()) {
             throw new RuntimeException("Carrinho vazio ou não encontrado");
         }
-        
-        Carrinho carrinho = carrinhoOpt.get();
-        System.out.println("✅ CHECKOUT - Carrinho encontrado com " + carrinho.getItens().size() + " itens");
+        System.out.println("✅ CHECKOUT - Carrinho encontrado com " + carrinho.linhas().size() + " itens");
         
         // Criar pedido
         Pedido pedido = new Pedido();
@@ -781,38 +651,15 @@ public class PedidoService {
         pedido.setStatus(StatusPedido.NOVO);
         pedido.setIdempotencyKey(idempotencyKey);
         
-        BigDecimal total = BigDecimal.ZERO;
-        
         // Criar itens do pedido com snapshot dos dados
-        for (ItemCarrinho itemCarrinho : carrinho.getItens()) {
-            PedidoItem pedidoItem = new PedidoItem();
-            pedidoItem.setProdutoId(itemCarrinho.getProduto().getId());
-            pedidoItem.setNome(itemCarrinho.getProduto().getNome());
-            pedidoItem.setPrecoUnitario(itemCarrinho.getProduto().getPreco());
-            pedidoItem.setQuantidade(itemCarrinho.getQuantidade());
-            pedidoItem.setSubtotal(itemCarrinho.getProduto().getPreco()
-                    .multiply(BigDecimal.valueOf(itemCarrinho.getQuantidade())));
-            
-            // Usar método auxiliar que configura relacionamento bidirecional
-            pedido.addItem(pedidoItem);
-            
-            total = total.add(pedidoItem.getSubtotal());
-        }
-        
+        BigDecimal total = adicionarItensDoCarrinho(pedido, carrinho);
         pedido.setTotal(total);
         pedido.setValorTotal(total);
         
-        // Persistir pedido com itens (cascade deve cuidar dos itens)
-        Pedido savedPedido = pedidoRepository.save(pedido);
+        // Pedido com itens (cascade), limpeza do carrinho e notificação vão no mesmo flush
+        Pedido savedPedido = gravarCheckout(pedido, cliente);
         System.out.println("✅ CHECKOUT - Pedido criado: " + savedPedido.getId() + " com total: R$ " + total);
         
-        // Limpar carrinho
-        carrinhoService.clearCarrinho(userId);
-        System.out.println("✅ CHECKOUT - Carrinho limpo");
-        
-        // Enviar notificação
-        notificacaoService.criarNotificacaoConfirmacao(cliente, savedPedido);
-        
         return pedidoMapper.toResponseDTO(savedPedido);
     }
     
@@ -820,17 +667,14 @@ public class PedidoService {
     public PedidoResponseDTO criarPedido(PedidoRequestDTO requestDTO) {
         // Se origem for carrinho, usar finalizarCarrinho
         if ("carrinho".equals(requestDTO.getOrigem())) {
-            return finalizarCarrinho(requestDTO.getClienteId(), requestDTO.getIdempotencyKey());
+            return finalizarCarrinho(requestDTO.getClienteId(), requestDTO.getIdempotencyKey()).pedido();
         }
         
         // Caso contrário, usar lógica existente
-        if (requestDTO.getIdempotencyKey() != null && !requestDTO.getIdempotencyKey().isBlank()) {
-            Optional<Pedido> existingPedido = pedidoRepository.findByIdempotencyKey(requestDTO.getIdempotencyKey());
-            if (existingPedido.isPresent()) {
-                return pedidoMapper.toResponseDTO(existingPedido.get());
-            }
-        }
-        
+        return idempotencia.executar(requestDTO.getIdempotencyKey(), () -> registrarPedido(requestDTO)).pedido();
+    }
+    
+    private PedidoResponseDTO registrarPedido(PedidoRequestDTO requestDTO) {
         Cliente cliente = resolveCliente(requestDTO.getClienteId());
         
         Pedido pedido = new Pedido();
@@ -839,7 +683,7 @@ public class PedidoService {
         pedido.setStatus(StatusPedido.NOVO);
         pedido.setIdempotencyKey(requestDTO.getIdempotencyKey());
         
-        BigDecimal total = BigDecimal.ZERO;
+        long totalCentavos = 0;
         if (requestDTO.getItens() != null && !requestDTO.getItens().isEmpty()) {
             for (ItemPedidoDTO item : requestDTO.getItens()) {
                 PedidoItem pedidoItem = new PedidoItem();
@@ -847,14 +691,16 @@ public class PedidoService {
                 pedidoItem.setNome(item.getNome() != null ? item.getNome() : "Produto");
                 pedidoItem.setQuantidade(item.getQuantidade());
                 pedidoItem.setPrecoUnitario(item.getPrecoUnitario());
-                pedidoItem.setSubtotal(item.getPrecoUnitario().multiply(BigDecimal.valueOf(item.getQuantidade())));
+                long subtotal = Money.multiplicar(Money.centavos(item.getPrecoUnitario()), item.getQuantidade());
+                pedidoItem.setSubtotal(Money.toBigDecimal(subtotal));
                 
                 // Usar método auxiliar que configura relacionamento bidirecional
                 pedido.addItem(pedidoItem);
                 
-                total = total.add(pedidoItem.getSubtotal());
+                totalCentavos = Money.somar(totalCentavos, subtotal);
             }
         }
+        BigDecimal total = Money.toBigDecimal(totalCentavos);
         
         pedido.setValorTotal(total);
         pedido.setTotal(total);
@@ -864,10 +710,13 @@ public class PedidoService {
             pedido.setEnderecoEntrega(enderecoOpt.orElse(null));
         }
         
-        // Persistir pedido com itens
-        Pedido savedPedido = pedidoRepository.save(pedido);
+        pedido.setNumero(gerarNumeroPedido());
         
-        carrinhoService.clearCarrinho(requestDTO.getClienteId());
+        // Limpa o carrinho do cliente com um único DELETE e registra pedido com itens
+        carrinhos.prepararCheckout(cliente.getId());
+        itemCarrinhoRepository.deleteByClienteId(cliente.getId());
+        Pedido savedPedido = pedidoRepository.save(pedido);
+        metricas.registrarTransicao(savedPedido, null);
         
         notificacaoService.criarNotificacaoConfirmacao(cliente, savedPedido);
         
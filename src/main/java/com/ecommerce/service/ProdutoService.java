@@ -3,12 +3,18 @@ package com.ecommerce.service;
 import com.ecommerce.domain.Categoria;
 import com.ecommerce.domain.Produto;
 import com.ecommerce.dto.request.ProdutoRequestDTO;
+import com.ecommerce.dto.response.BuscaProdutosResponseDTO;
+import com.ecommerce.dto.response.CodigosBarrasResponseDTO;
+import com.ecommerce.dto.response.FacetasResponseDTO;
 import com.ecommerce.dto.response.ProdutoResponseDTO;
+import com.ecommerce.dto.response.SugestaoResponseDTO;
 import com.ecommerce.mapper.ProdutoMapper;
 import com.ecommerce.repository.CategoriaRepository;
 import com.ecommerce.repository.ProdutoRepository;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -21,13 +27,25 @@ public class ProdutoService {
     private final ProdutoRepository produtoRepository;
     private final CategoriaRepository categoriaRepository;
     private final ProdutoMapper produtoMapper;
+    private final CatalogoService catalogoService;
+    private final IndiceBuscaProdutos indiceBusca;
+    private final SugestoesService sugestoesService;
+    private final IndiceCodigoBarras indiceCodigos;
     
     public ProdutoService(ProdutoRepository produtoRepository,
                          CategoriaRepository categoriaRepository,
-                         ProdutoMapper produtoMapper) {
+                         ProdutoMapper produtoMapper,
+                         CatalogoService catalogoService,
+                         IndiceBuscaProdutos indiceBusca,
+                         SugestoesService sugestoesService,
+                         IndiceCodigoBarras indiceCodigos) {
         this.produtoRepository = produtoRepository;
         this.categoriaRepository = categoriaRepository;
         this.produtoMapper = produtoMapper;
+        this.catalogoService = catalogoService;
+        this.indiceBusca = indiceBusca;
+        this.sugestoesService = sugestoesService;
+        this.indiceCodigos = indiceCodigos;
     }
     
     /**
@@ -52,46 +70,105 @@ public class ProdutoService {
         
         // Cria novo produto
         Produto produto = produtoMapper.toEntity(requestDTO);
-        produto.setId(UUID.randomUUID());
         produto.setCategoria(categoriaOpt.get());
         
         Produto savedProduto = produtoRepository.save(produto);
         
-        return produtoMapper.toResponseDTO(savedProduto);
+        ProdutoResponseDTO response = produtoMapper.toResponseDTO(savedProduto);
+        catalogoService.produtoSalvo(response);
+        return response;
     }
     
     /**
-     * Busca produto por ID
+     * Busca produto por ID (snapshot do catálogo)
      */
     public Optional<ProdutoResponseDTO> findById(UUID id) {
-        return produtoRepository.findById(id)
-                .map(produtoMapper::toResponseDTO);
+        return catalogoService.getSnapshot().findProdutoById(id);
     }
     
     /**
-     * Busca produto por código de barras
+     * Busca produto por código de barras (snapshot do catálogo)
      */
     public Optional<ProdutoResponseDTO> findByCodigoBarras(String codigoBarras) {
-        return produtoRepository.findByCodigoBarras(codigoBarras)
-                .map(produtoMapper::toResponseDTO);
+        if (IndiceCodigoBarras.suportado(codigoBarras)) {
+            return Optional.ofNullable(indiceCodigos.buscar(codigoBarras));
+        }
+        // Códigos não numéricos ou longos demais ficam só no snapshot do catálogo
+        return catalogoService.getSnapshot().findProdutoByCodigoBarras(codigoBarras);
+    }
+    
+    /**
+     * Busca em lote por código de barras (lote de leituras do scanner).
+     * Códigos repetidos são consultados uma vez; a ordem das leituras é preservada.
+     */
+    public CodigosBarrasResponseDTO findByCodigosBarras(List<String> codigos) {
+        if (codigos == null || codigos.isEmpty()) {
+            throw new IllegalArgumentException("Lista de códigos é obrigatória");
+        }
+        if (codigos.size() > 500) {
+            throw new IllegalArgumentException("Máximo de 500 códigos por consulta");
+        }
+        
+        List<ProdutoResponseDTO> encontrados = new ArrayList<>(codigos.size());
+        List<String> naoEncontrados = new ArrayList<>();
+        for (String codigo : new LinkedHashSet<>(codigos)) {
+            Optional<ProdutoResponseDTO> produto = findByCodigoBarras(codigo);
+            if (produto.isPresent()) {
+                encontrados.add(produto.get());
+            } else {
+                naoEncontrados.add(codigo);
+            }
+        }
+        return new CodigosBarrasResponseDTO(encontrados, naoEncontrados);
     }
     
     /**
-     * Lista produtos por categoria
+     * Lista produtos por categoria (snapshot do catálogo)
      */
     public List<ProdutoResponseDTO> findByCategoria(UUID categoriaId) {
-        return produtoRepository.findByCategoriaId(categoriaId).stream()
-                .map(produtoMapper::toResponseDTO)
-                .toList();
+        return catalogoService.getSnapshot().findProdutosByCategoria(categoriaId);
+    }
+    
+    /**
+     * Busca produtos por nome no índice invertido (sem acentos, todos os termos, por relevância)
+     */
+    public BuscaProdutosResponseDTO buscar(String nome, int pagina, int tamanho) {
+        if (pagina < 1) {
+            throw new IllegalArgumentException("Página deve ser maior ou igual a 1");
+        }
+        if (tamanho < 1 || tamanho > 100) {
+            throw new IllegalArgumentException("Tamanho deve ser entre 1 e 100");
+        }
+        
+        return indiceBusca.buscar(nome, pagina, tamanho);
+    }
+    
+    /**
+     * Navegação facetada: filtra por categorias, faixa de preço e nome (todos opcionais)
+     * e devolve a página pedida com as contagens por categoria e por faixa de preço
+     */
+    public FacetasResponseDTO navegar(List<UUID> categoriaIds, BigDecimal precoMin, BigDecimal precoMax,
+                                      String nome, int pagina, int tamanho) {
+        if (pagina < 1) {
+            throw new IllegalArgumentException("Página deve ser maior ou igual a 1");
+        }
+        if (tamanho < 1 || tamanho > 100) {
+            throw new IllegalArgumentException("Tamanho deve ser entre 1 e 100");
+        }
+        if (precoMin != null && precoMax != null && precoMin.compareTo(precoMax) > 0) {
+            throw new IllegalArgumentException("Preço mínimo não pode ser maior que preço máximo");
+        }
+        
+        List<UUID> idsPorNome = nome == null || nome.isBlank() ? null : indiceBusca.buscarIds(nome);
+        return catalogoService.getSnapshot().getFacetas()
+            .consultar(categoriaIds, precoMin, precoMax, idsPorNome, pagina, tamanho);
     }
     
     /**
-     * Busca produtos por nome (busca parcial)
+     * Sugestões de autocompletar (produtos e categorias) para o prefixo digitado
      */
-    public List<ProdutoResponseDTO> findByNome(String nome) {
-        return produtoRepository.findByNomeContaining(nome).stream()
-                .map(produtoMapper::toResponseDTO)
-                .toList();
+    public List<SugestaoResponseDTO> sugerir(String prefixo, int limite) {
+        return sugestoesService.sugerir(prefixo, limite);
     }
     
     /**
@@ -102,18 +179,14 @@ public class ProdutoService {
             throw new RuntimeException("Preço mínimo não pode ser maior que preço máximo");
         }
         
-        return produtoRepository.findByPrecoRange(precoMin, precoMax).stream()
-                .map(produtoMapper::toResponseDTO)
-                .toList();
+        return catalogoService.getSnapshot().findProdutosByPrecoRange(precoMin, precoMax);
     }
     
     /**
-     * Lista todos os produtos
+     * Lista todos os produtos (snapshot do catálogo)
      */
     public List<ProdutoResponseDTO> findAll() {
-        return produtoRepository.findAll().stream()
-                .map(produtoMapper::toResponseDTO)
-                .toList();
+        return catalogoService.getSnapshot().getProdutos();
     }
     
     /**
@@ -150,7 +223,9 @@ public class ProdutoService {
         
         Produto savedProduto = produtoRepository.save(produto);
         
-        return produtoMapper.toResponseDTO(savedProduto);
+        ProdutoResponseDTO response = produtoMapper.toResponseDTO(savedProduto);
+        catalogoService.produtoSalvo(response);
+        return response;
     }
     
     /**
@@ -165,13 +240,14 @@ public class ProdutoService {
         // TODO: Verificar se produto está em carrinhos ou pedidos ativos
         
         produtoRepository.deleteById(id);
+        catalogoService.produtoRemovido(id);
     }
     
     /**
      * Verifica se produto existe
      */
     public boolean exists(UUID id) {
-        return produtoRepository.findById(id).isPresent();
+        return catalogoService.getSnapshot().findProdutoById(id).isPresent();
     }
     
     /**
@@ -182,6 +258,6 @@ public class ProdutoService {
     }
     
     public long count() {
-        return produtoRepository.count();
+        return catalogoService.getSnapshot().getTotalProdutos();
     }
 }
\ No newline at end of file
@@ -0,0 +1,176 @@
+package com.ecommerce.service;
+
+import com.ecommerce.config.DatabaseConfig;
+import com.ecommerce.config.RequestPersistenceContext;
+import com.ecommerce.repository.NotificacaoRepository;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Retenção de notificações: primeiro remove as partições mensais inteiramente anteriores ao prazo
+ * de retenção (DETACH + DROP, sem gerar DELETE linha a linha); o que sobrar antes do prazo (a parte
+ * do mês que o limite corta e a partição padrão) é removido em lotes limitados (DELETE de até
+ * TAMANHO_LOTE linhas por transação), com uma pausa entre lotes para não disputar I/O e locks com
+ * o tráfego normal.
+ *
+ * Roda em uma thread própria a cada INTERVALO_EXECUCAO_HORAS com o prazo de NOTIFICACOES_RETENCAO_DIAS
+ * (padrão 90 dias) e também sob demanda (solicitar); cada execução periódica também cria as partições
+ * dos meses seguintes. Só uma limpeza roda por vez: um pedido feito
+ * durante uma limpeza em andamento devolve o progresso dela. O progresso da última limpeza e o total
+ * removido desde o início do processo ficam disponíveis em progresso() e totalRemovidas().
+ */
+public class RetencaoNotificacoes {
+    
+    static final int TAMANHO_LOTE = 5_000;
+    private static final long PAUSA_ENTRE_LOTES_MS = 200;
+    private static final long INTERVALO_EXECUCAO_HORAS = 6;
+    private static final int RETENCAO_PADRAO_DIAS = 90;
+    
+    private final NotificacaoRepository notificacaoRepository;
+    private final ParticoesNotificacoes particoes;
+    private final int retencaoDias;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "retencao-notificacoes");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicReference<Progresso> progresso = new AtomicReference<>();
+    private final LongAdder totalRemovidas = new LongAdder();
+    private volatile boolean encerrado;
+    
+    public RetencaoNotificacoes(NotificacaoRepository notificacaoRepository, ParticoesNotificacoes particoes) {
+        this.notificacaoRepository = notificacaoRepository;
+        this.particoes = particoes;
+        this.retencaoDias = getRetencaoDias();
+        particoes.preparar();
+        executor.scheduleWithFixedDelay(() -> {
+            particoes.garantirParticoes();
+            solicitar(retencaoDias);
+        }, INTERVALO_EXECUCAO_HORAS, INTERVALO_EXECUCAO_HORAS, TimeUnit.HOURS);
+    }
+    
+    public enum Estado {
+        EM_ANDAMENTO,
+        CONCLUIDA,
+        FALHOU
+    }
+    
+    /**
+     * Progresso de uma limpeza: notificações criadas antes de "limite" são removidas. "removidas"
+     * conta só as linhas apagadas em lotes; as partições removidas inteiras ficam em particoesRemovidas.
+     */
+    public record Progresso(Estado estado, int dias, LocalDateTime limite, List<String> particoesRemovidas,
+                            long removidas, int lotes, Instant iniciadaEm, Instant concluidaEm, String erro) {
+        
+        Progresso comParticoesRemovidas(List<String> nomes) {
+            return new Progresso(estado, dias, limite, List.copyOf(nomes), removidas, lotes,
+                iniciadaEm, null, null);
+        }
+        
+        Progresso avancar(int removidasNoLote) {
+            return new Progresso(estado, dias, limite, particoesRemovidas, removidas + removidasNoLote, lotes + 1,
+                iniciadaEm, null, null);
+        }
+        
+        Progresso finalizar(Estado estadoFinal, String mensagemErro) {
+            return new Progresso(estadoFinal, dias, limite, particoesRemovidas, removidas, lotes,
+                iniciadaEm, Instant.now(), mensagemErro);
+        }
+    }
+    
+    /**
+     * Agenda a remoção das notificações com mais de "dias" dias, a menos que uma limpeza já esteja
+     * em andamento (nesse caso nada é agendado)
+     *
+     * @return O progresso da limpeza agendada ou da que já estava em andamento
+     */
+    public Progresso solicitar(int dias) {
+        while (true) {
+            Progresso atual = progresso.get();
+            if (atual != null && atual.estado() == Estado.EM_ANDAMENTO) {
+                return atual;
+            }
+            Progresso novo = new Progresso(Estado.EM_ANDAMENTO, dias, LocalDateTime.now().minusDays(dias),
+                List.of(), 0, 0, Instant.now(), null, null);
+            if (progresso.compareAndSet(atual, novo)) {
+                executor.execute(() -> executar(novo.limite()));
+                return novo;
+            }
+        }
+    }
+    
+    /**
+     * Progresso da limpeza em andamento ou da última concluída (nulo se nenhuma rodou ainda)
+     */
+    public Progresso progresso() {
+        return progresso.get();
+    }
+    
+    /**
+     * Total de notificações removidas em lotes desde o início do processo (sem as partições removidas)
+     */
+    public long totalRemovidas() {
+        return totalRemovidas.sum();
+    }
+    
+    public void encerrar() {
+        encerrado = true;
+        executor.shutdownNow();
+    }
+    
+    private void executar(LocalDateTime limite) {
+        long inicio = System.nanoTime();
+        try {
+            List<String> particoesRemovidas = particoes.removerAnterioresA(limite);
+            progresso.updateAndGet(atual -> atual.comParticoesRemovidas(particoesRemovidas));
+            if (!particoesRemovidas.isEmpty()) {
+                System.out.println("🧹 RETENÇÃO - Partições de notificações removidas: " + String.join(", ", particoesRemovidas));
+            }
+            while (!encerrado) {
+                int removidas = DatabaseConfig.executeInNewContext(RequestPersistenceContext.Modo.ESCRITA,
+                    "retenção de notificações", () -> notificacaoRepository.deleteLoteCriadasAntesDe(limite, TAMANHO_LOTE));
+                totalRemovidas.add(removidas);
+                progresso.updateAndGet(atual -> atual.avancar(removidas));
+                if (removidas < TAMANHO_LOTE) {
+                    break;
+                }
+                Thread.sleep(PAUSA_ENTRE_LOTES_MS);
+            }
+            Progresso fim = progresso.updateAndGet(atual -> atual.finalizar(Estado.CONCLUIDA, null));
+            if (fim.removidas() > 0) {
+                System.out.println("🧹 RETENÇÃO - " + fim.removidas() + " notificações anteriores a " + limite
+                    + " removidas em " + fim.lotes() + " lotes ("
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio) + "ms)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            progresso.updateAndGet(atual -> atual.finalizar(Estado.FALHOU, "Interrompida"));
+        } catch (Exception e) {
+            System.err.println("⚠️ RETENÇÃO - Falha na limpeza de notificações: " + e.getMessage());
+            progresso.updateAndGet(atual -> atual.finalizar(Estado.FALHOU, e.getMessage()));
+        }
+    }
+    
+    /**
+     * Prazo de retenção do job periódico (NOTIFICACOES_RETENCAO_DIAS, padrão 90)
+     */
+    private static int getRetencaoDias() {
+        String dias = System.getenv("NOTIFICACOES_RETENCAO_DIAS");
+        if (dias == null || dias.isBlank()) {
+            return RETENCAO_PADRAO_DIAS;
+        }
+        try {
+            return Math.max(1, Integer.parseInt(dias.trim()));
+        } catch (NumberFormatException e) {
+            System.err.println("⚠️ NOTIFICACOES_RETENCAO_DIAS inválido (" + dias + "), usando " + RETENCAO_PADRAO_DIAS);
+            return RETENCAO_PADRAO_DIAS;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.ecommerce.service;
+
+import com.ecommerce.config.DatabaseConfig;
+import com.ecommerce.config.RequestPersistenceContext;
+import com.ecommerce.dto.response.CategoriaResponseDTO;
+import com.ecommerce.dto.response.ProdutoResponseDTO;
+import com.ecommerce.dto.response.SugestaoResponseDTO;
+import com.ecommerce.repository.PedidoItemRepository;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Autocompletar de nomes de produtos e categorias, ordenado por quantidade vendida.
+ *
+ * As consultas leem uma TrieSugestoes imutável por uma referência volátil, sem lock.
+ * Escritas no catálogo só atualizam o mapa de produtos e agendam a reconstrução em uma
+ * thread própria; vários eventos seguidos viram uma única reconstrução. As vendas por produto
+ * são relidas do banco a cada recarga do catálogo e periodicamente.
+ */
+public class SugestoesService implements CatalogoListener {
+
+    private static final long ATRASO_RECONSTRUCAO_MS = 200;
+    private static final long INTERVALO_VENDAS_MINUTOS = 15;
+
+    private final PedidoItemRepository pedidoItemRepository;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "sugestoes-trie");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<UUID, ProdutoResponseDTO> produtos = new ConcurrentHashMap<>();
+    private volatile List<CategoriaResponseDTO> categorias = List.of();
+    private volatile Map<UUID, Long> vendas = Map.of();
+    private final AtomicBoolean reconstrucaoAgendada = new AtomicBoolean();
+    private final AtomicBoolean vendasDesatualizadas = new AtomicBoolean(true);
+    private volatile TrieSugestoes trie = TrieSugestoes.vazia();
+
+    public SugestoesService(PedidoItemRepository pedidoItemRepository) {
+        this.pedidoItemRepository = pedidoItemRepository;
+        executor.scheduleWithFixedDelay(() -> {
+            vendasDesatualizadas.set(true);
+            agendarReconstrucao();
+        }, INTERVALO_VENDAS_MINUTOS, INTERVALO_VENDAS_MINUTOS, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Sugestões para o prefixo digitado (sem diferenciar maiúsculas nem acentos)
+     */
+    public List<SugestaoResponseDTO> sugerir(String prefixo, int limite) {
+        if (limite < 1 || limite > TrieSugestoes.K) {
+            throw new IllegalArgumentException("Limite deve ser entre 1 e " + TrieSugestoes.K);
+        }
+        return trie.sugerir(IndiceBuscaProdutos.normalizar(prefixo), limite);
+    }
+
+    @Override
+    public void catalogoRecarregado(CatalogoSnapshot snapshot) {
+        Map<UUID, ProdutoResponseDTO> novos = new HashMap<>();
+        for (ProdutoResponseDTO produto : snapshot.getProdutos()) {
+            novos.put(produto.getId(), produto);
+        }
+        produtos.keySet().retainAll(novos.keySet());
+        produtos.putAll(novos);
+        categorias = snapshot.getCategorias();
+        vendasDesatualizadas.set(true);
+        agendarReconstrucao();
+    }
+
+    @Override
+    public void produtoSalvo(ProdutoResponseDTO produto) {
+        produtos.put(produto.getId(), produto);
+        agendarReconstrucao();
+    }
+
+    @Override
+    public void produtoRemovido(UUID produtoId) {
+        produtos.remove(produtoId);
+        agendarReconstrucao();
+    }
+
+    /**
+     * Reconstrói imediatamente, na thread chamadora (usado na inicialização)
+     */
+    public void reconstruirAgora() {
+        reconstruir();
+    }
+
+    private void agendarReconstrucao() {
+        if (reconstrucaoAgendada.compareAndSet(false, true)) {
+            executor.schedule(this::reconstruir, ATRASO_RECONSTRUCAO_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized void reconstruir() {
+        // Liberado antes de ler o estado: eventos que chegarem durante a montagem agendam outra
+        reconstrucaoAgendada.set(false);
+        try {
+            long inicio = System.nanoTime();
+            if (vendasDesatualizadas.getAndSet(false)) {
+                vendas = DatabaseConfig.executeInNewContext(RequestPersistenceContext.Modo.SOMENTE_LEITURA,
+                    "vendas para sugestões", pedidoItemRepository::sumQuantidadePorProduto);
+            }
+            Map<UUID, Long> vendasAtuais = vendas;
+
+            List<TrieSugestoes.Entrada> entradas = new ArrayList<>(produtos.size() + categorias.size());
+            Map<UUID, Long> vendasPorCategoria = new HashMap<>();
+            for (ProdutoResponseDTO produto : produtos.values()) {
+                long vendidos = vendasAtuais.getOrDefault(produto.getId(), 0L);
+                entradas.add(new TrieSugestoes.Entrada(IndiceBuscaProdutos.normalizar(produto.getNome()),
+                    new SugestaoResponseDTO(produto.getNome(), "PRODUTO", produto.getId(), vendidos)));
+                UUID categoriaId = produto.getCategoria() != null ? produto.getCategoria().getId() : produto.getCategoriaId();
+                if (categoriaId != null) {
+                    vendasPorCategoria.merge(categoriaId, vendidos, Long::sum);
+                }
+            }
+            for (CategoriaResponseDTO categoria : categorias) {
+                entradas.add(new TrieSugestoes.Entrada(IndiceBuscaProdutos.normalizar(categoria.getNome()),
+                    new SugestaoResponseDTO(categoria.getNome(), "CATEGORIA", categoria.getId(),
+                        vendasPorCategoria.getOrDefault(categoria.getId(), 0L))));
+            }
+
+            trie = TrieSugestoes.construir(entradas);
+            System.out.println("🔤 Sugestões reconstruídas: " + trie.size() + " nomes em "
+                + (System.nanoTime() - inicio) / 1_000_000 + "ms");
+        } catch (RuntimeException e) {
+            vendasDesatualizadas.set(true);
+            System.err.println("⚠️ Erro ao reconstruir sugestões: " + e.getMessage());
+        }
+    }
+}
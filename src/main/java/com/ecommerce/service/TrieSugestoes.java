@@ -0,0 +1,226 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.response.SugestaoResponseDTO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Trie compacta (radix) e imutável de nomes normalizados, codificada em arrays primitivos.
+ *
+ * As chaves ficam ordenadas em um array; cada nó cobre o intervalo [inicio, fim) das chaves que
+ * começam pelo seu prefixo, e os filhos de um nó ocupam posições contíguas (busca binária pelo
+ * rótulo). Cadeias sem ramificação são comprimidas, então há no máximo 2n nós.
+ * Nós com muitas chaves guardam o top-k por vendas já calculado; os demais varrem o intervalo.
+ */
+final class TrieSugestoes {
+
+    static final int K = 10;
+    private static final int LIMIAR_TOP_PRONTO = 32;
+
+    private static final TrieSugestoes VAZIA = new TrieSugestoes(new String[0], new SugestaoResponseDTO[0],
+        new long[0], new int[0], new int[0], new int[0], new int[0], new int[0], new char[0], new int[0][]);
+
+    private final String[] chaves;
+    private final SugestaoResponseDTO[] sugestoes;
+    private final long[] pesos;
+
+    private final int[] inicio;
+    private final int[] fim;
+    private final int[] profundidade;
+    private final int[] primeiroFilho;
+    private final int[] quantidadeFilhos;
+    private final char[] rotulo;
+    private final int[][] topPronto;
+
+    private TrieSugestoes(String[] chaves, SugestaoResponseDTO[] sugestoes, long[] pesos,
+                          int[] inicio, int[] fim, int[] profundidade, int[] primeiroFilho,
+                          int[] quantidadeFilhos, char[] rotulo, int[][] topPronto) {
+        this.chaves = chaves;
+        this.sugestoes = sugestoes;
+        this.pesos = pesos;
+        this.inicio = inicio;
+        this.fim = fim;
+        this.profundidade = profundidade;
+        this.primeiroFilho = primeiroFilho;
+        this.quantidadeFilhos = quantidadeFilhos;
+        this.rotulo = rotulo;
+        this.topPronto = topPronto;
+    }
+
+    /**
+     * Entrada a indexar: chave já normalizada e a sugestão (cujas vendas definem o ranking)
+     */
+    record Entrada(String chave, SugestaoResponseDTO sugestao) {
+    }
+
+    static TrieSugestoes vazia() {
+        return VAZIA;
+    }
+
+    static TrieSugestoes construir(List<Entrada> entradas) {
+        List<Entrada> ordenadas = new ArrayList<>(entradas.size());
+        for (Entrada entrada : entradas) {
+            if (!entrada.chave().isEmpty()) {
+                ordenadas.add(entrada);
+            }
+        }
+        int n = ordenadas.size();
+        if (n == 0) {
+            return VAZIA;
+        }
+        ordenadas.sort(Comparator.comparing(Entrada::chave));
+
+        String[] chaves = new String[n];
+        SugestaoResponseDTO[] sugestoes = new SugestaoResponseDTO[n];
+        long[] pesos = new long[n];
+        for (int i = 0; i < n; i++) {
+            chaves[i] = ordenadas.get(i).chave();
+            sugestoes[i] = ordenadas.get(i).sugestao();
+            pesos[i] = sugestoes[i].getVendas();
+        }
+
+        int capacidade = 2 * n + 1;
+        int[] inicio = new int[capacidade];
+        int[] fim = new int[capacidade];
+        int[] profundidade = new int[capacidade];
+        int[] primeiroFilho = new int[capacidade];
+        int[] quantidadeFilhos = new int[capacidade];
+        char[] rotulo = new char[capacidade];
+        int[][] topPronto = new int[capacidade][];
+
+        // Nós processados em ordem de criação; cada nó reserva um bloco contíguo para os filhos
+        inicio[0] = 0;
+        fim[0] = n;
+        int total = 1;
+        for (int no = 0; no < total; no++) {
+            int de = inicio[no];
+            int ate = fim[no];
+            // Chaves ordenadas: o prefixo comum do intervalo é o da primeira com a última
+            int lcp = prefixoComum(chaves[de], chaves[ate - 1]);
+            profundidade[no] = lcp;
+
+            int i = de;
+            while (i < ate && chaves[i].length() == lcp) {
+                i++; // chaves que terminam neste nó
+            }
+            primeiroFilho[no] = total;
+            while (i < ate) {
+                char c = chaves[i].charAt(lcp);
+                int j = i + 1;
+                while (j < ate && chaves[j].charAt(lcp) == c) {
+                    j++;
+                }
+                inicio[total] = i;
+                fim[total] = j;
+                rotulo[total] = c;
+                total++;
+                i = j;
+            }
+            quantidadeFilhos[no] = total - primeiroFilho[no];
+
+            if (ate - de > LIMIAR_TOP_PRONTO) {
+                topPronto[no] = selecionarTop(pesos, de, ate);
+            }
+        }
+
+        return new TrieSugestoes(chaves, sugestoes, pesos,
+            Arrays.copyOf(inicio, total), Arrays.copyOf(fim, total), Arrays.copyOf(profundidade, total),
+            Arrays.copyOf(primeiroFilho, total), Arrays.copyOf(quantidadeFilhos, total),
+            Arrays.copyOf(rotulo, total), Arrays.copyOf(topPronto, total));
+    }
+
+    /**
+     * Até "limite" sugestões cujas chaves começam com o prefixo (já normalizado), por vendas
+     */
+    List<SugestaoResponseDTO> sugerir(String prefixo, int limite) {
+        if (chaves.length == 0 || prefixo.isEmpty()) {
+            return List.of();
+        }
+
+        int no = 0;
+        int conferido = 0;
+        while (true) {
+            // Confere os caracteres comprimidos na aresta até este nó
+            String referencia = chaves[inicio[no]];
+            int ate = Math.min(prefixo.length(), profundidade[no]);
+            for (int i = conferido; i < ate; i++) {
+                if (referencia.charAt(i) != prefixo.charAt(i)) {
+                    return List.of();
+                }
+            }
+            if (prefixo.length() <= profundidade[no]) {
+                break;
+            }
+            int filho = filho(no, prefixo.charAt(profundidade[no]));
+            if (filho < 0) {
+                return List.of();
+            }
+            conferido = profundidade[no] + 1;
+            no = filho;
+        }
+
+        int[] melhores = topPronto[no] != null ? topPronto[no] : selecionarTop(pesos, inicio[no], fim[no]);
+        int quantidade = Math.min(limite, melhores.length);
+        List<SugestaoResponseDTO> resultado = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            resultado.add(sugestoes[melhores[i]]);
+        }
+        return resultado;
+    }
+
+    int size() {
+        return chaves.length;
+    }
+
+    private int filho(int no, char c) {
+        int baixo = primeiroFilho[no];
+        int alto = baixo + quantidadeFilhos[no] - 1;
+        while (baixo <= alto) {
+            int meio = (baixo + alto) >>> 1;
+            if (rotulo[meio] < c) {
+                baixo = meio + 1;
+            } else if (rotulo[meio] > c) {
+                alto = meio - 1;
+            } else {
+                return meio;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Índices das K chaves de maior peso em [de, ate); empate fica com a ordem alfabética
+     */
+    private static int[] selecionarTop(long[] pesos, int de, int ate) {
+        int[] melhores = new int[Math.min(K, ate - de)];
+        int n = 0;
+        for (int i = de; i < ate; i++) {
+            int posicao;
+            if (n < melhores.length) {
+                posicao = n++;
+            } else if (pesos[i] > pesos[melhores[n - 1]]) {
+                posicao = n - 1;
+            } else {
+                continue;
+            }
+            while (posicao > 0 && pesos[melhores[posicao - 1]] < pesos[i]) {
+                melhores[posicao] = melhores[posicao - 1];
+                posicao--;
+            }
+            melhores[posicao] = i;
+        }
+        return melhores;
+    }
+
+    private static int prefixoComum(String a, String b) {
+        int limite = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < limite && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+}
@@ -29,13 +29,16 @@ public class UserService {
     private final UserMapper userMapper;
     private final JwtService jwtService;
     private final ClienteRepository clienteRepository;
+    private final ClienteResolver clienteResolver;
     
     public UserService(UserRepository userRepository, UserMapper userMapper, 
-                      JwtService jwtService, ClienteRepository clienteRepository) {
+                      JwtService jwtService, ClienteRepository clienteRepository,
+                      ClienteResolver clienteResolver) {
         this.userRepository = userRepository;
         this.userMapper = userMapper;
         this.jwtService = jwtService;
         this.clienteRepository = clienteRepository;
+        this.clienteResolver = clienteResolver;
     }
     
     /**
@@ -105,7 +108,6 @@ public class UserService {
         
         // Cria novo usuário
         UserModel user = new UserModel();
-        user.setId(UUID.randomUUID());
         user.setEmail(email);
         user.setPasswordHash(hashPassword(password));
         user.setRole(Role.valueOf(role.toUpperCase()));
@@ -185,6 +187,7 @@ public class UserService {
         UserModel user = userOpt.get();
         user.setIsActive(false);
         userRepository.save(user);
+        clienteResolver.invalidarUsuario(userId);
     }
     
     /**
@@ -37,9 +37,11 @@ function authHeaders() {
 }
 
 // Fetch wrapper with auth handling
+// Uses the browser HTTP cache: read endpoints answer with ETag + Cache-Control: no-cache,
+// so the browser revalidates with If-None-Match and reuses the cached body on 304
 async function apiFetch(url, options = {}) {
     const config = { 
-        cache: 'no-store', 
+        cache: 'no-cache', 
         ...options, 
         headers: { ...(options.headers || {}), ...authHeaders() } 
     };
@@ -49,7 +51,7 @@ async function apiFetch(url, options = {}) {
     if (response.status === 401) {
         if (url.includes('/api/auth/login') || url.includes('/api/auth/register')) return response;
         
-        const retry = await fetch(url + (url.includes('?') ? '&' : '?') + 'retry=' + Date.now(), config);
+        const retry = await fetch(url, config);
         
         if (retry.status === 401) { 
             Auth.clear(); 
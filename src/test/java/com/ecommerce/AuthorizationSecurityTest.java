@@ -284,6 +284,59 @@ class AuthorizationSecurityTest {
         });
     }
 
+    @Test
+    @DisplayName("Cliente recém-registrado deve acessar o próprio pedido")
+    void clienteRegistradoDeveAcessarProprioPedido() {
+        JavalinTest.test(app, (server, client) -> {
+            // O registro de CUSTOMER cria o Cliente com o mesmo ID do usuário
+            String email = "novo-" + Long.toString(System.nanoTime(), 36) + "@security.test";
+            Response registerResponse = client.post("/auth/register", Map.of(
+                "email", email,
+                "password", "123456",
+                "role", "CUSTOMER"
+            ));
+            assertThat(registerResponse.code()).isEqualTo(201);
+            Map<String, Object> usuario = objectMapper.readValue(
+                registerResponse.body().string(), Map.class);
+            UUID clienteId = UUID.fromString((String) usuario.get("id"));
+            
+            Response login = client.post("/auth/login", Map.of(
+                "email", email,
+                "password", "123456"
+            ));
+            Map<String, Object> loginResult = objectMapper.readValue(
+                login.body().string(), Map.class);
+            String token = (String) loginResult.get("token");
+            
+            Response itemResponse = client.post("/carrinho/" + clienteId + "/itens",
+                Map.of("produtoId", produtoId.toString(), "quantidade", 1), builder ->
+                builder.header("Authorization", "Bearer " + token));
+            assertThat(itemResponse.code()).isEqualTo(201);
+            
+            Response enderecoResponse = client.post("/clientes/" + clienteId + "/enderecos",
+                Map.of("rua", "Rua B", "cidade", "Cidade B", "cep", "12345-678", "numero", "200"), builder ->
+                builder.header("Authorization", "Bearer " + token));
+            assertThat(enderecoResponse.code()).isEqualTo(201);
+            Map<String, Object> endereco = objectMapper.readValue(
+                enderecoResponse.body().string(), Map.class);
+            
+            Response pedidoResponse = client.post("/pedidos/" + clienteId,
+                Map.of("enderecoId", endereco.get("id")), builder ->
+                builder.header("Authorization", "Bearer " + token));
+            assertThat(pedidoResponse.code()).isEqualTo(201);
+            Map<String, Object> pedido = objectMapper.readValue(
+                pedidoResponse.body().string(), Map.class);
+            
+            // A validação de propriedade compara o cliente do pedido com o usuário do JWT
+            Response proprioPedido = client.get("/pedidos/" + pedido.get("id"), builder ->
+                builder.header("Authorization", "Bearer " + token));
+            assertThat(proprioPedido.code()).isEqualTo(200);
+            Map<String, Object> lido = objectMapper.readValue(
+                proprioPedido.body().string(), Map.class);
+            assertThat(((Map<String, Object>) lido.get("cliente")).get("id")).isEqualTo(clienteId.toString());
+        });
+    }
+
     @Test
     @DisplayName("Deve validar tokens JWT inválidos")
     void deveValidarTokensJWTInvalidos() {
@@ -0,0 +1,147 @@
+package com.ecommerce;
+
+import com.ecommerce.config.DatabaseConfig;
+import com.ecommerce.config.RequestPersistenceContext;
+import com.ecommerce.domain.Categoria;
+import com.ecommerce.domain.Produto;
+import com.ecommerce.dto.response.ProdutoResponseDTO;
+import com.ecommerce.repository.ProdutoRepository;
+import com.ecommerce.service.IndiceBuscaProdutos;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.*;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Benchmark da busca por nome: índice invertido de trigramas contra a consulta JPQL real de
+ * ProdutoRepository.findByNomeContaining ("LOWER(nome) LIKE LOWER('%x%')") no PostgreSQL.
+ *
+ * Grava PRODUTOS produtos em uma categoria própria e apaga tudo no final; fica fora do "test"
+ * padrão (./gradlew benchmark). Só imprime os tempos: não há asserção de tempo.
+ */
+@Tag("benchmark")
+class BuscaProdutosBenchmarkTest {
+
+    private static final int PRODUTOS = 20_000;
+    private static final int POR_TRANSACAO = 1_000;
+    private static final int REPETICOES = 20;
+    private static final List<String> CONSULTAS = List.of("arroz", "serra azul", "mascavo", "ouro fino 250g", "desnatado");
+
+    private static final ProdutoRepository produtoRepository = new ProdutoRepository(null);
+    private static final IndiceBuscaProdutos indice = new IndiceBuscaProdutos();
+    private static final Set<UUID> idsDoBenchmark = new HashSet<>();
+    private static UUID categoriaId;
+
+    @BeforeAll
+    static void setupAll() {
+        DatabaseConfig.initialize();
+        long sufixo = System.nanoTime();
+        categoriaId = DatabaseConfig.executeInNewContext(RequestPersistenceContext.Modo.ESCRITA, "categoria do benchmark", () -> {
+            Categoria categoria = new Categoria();
+            categoria.setNome("Busca benchmark " + Long.toString(sufixo, 36));
+            DatabaseConfig.getEntityManager().persist(categoria);
+            return categoria.getId();
+        });
+
+        Random random = new Random(42);
+        long base = sufixo % 1_000_000L;
+        for (int lote = 0; lote < PRODUTOS / POR_TRANSACAO; lote++) {
+            final int primeiro = lote * POR_TRANSACAO;
+            List<Produto> gravados = DatabaseConfig.executeInNewContext(RequestPersistenceContext.Modo.ESCRITA, "produtos do benchmark", () -> {
+                EntityManager em = DatabaseConfig.getEntityManager();
+                Categoria categoria = em.getReference(Categoria.class, categoriaId);
+                List<Produto> lista = new ArrayList<>(POR_TRANSACAO);
+                for (int i = primeiro; i < primeiro + POR_TRANSACAO; i++) {
+                    Produto produto = new Produto();
+                    produto.setNome(IndiceBuscaProdutosTest.nomeAleatorio(random));
+                    produto.setPreco(BigDecimal.TEN);
+                    produto.setCodigoBarras(String.format("8%06d%06d", base, i));
+                    produto.setCategoria(categoria);
+                    em.persist(produto);
+                    lista.add(produto);
+                }
+                return lista;
+            });
+            for (Produto produto : gravados) {
+                idsDoBenchmark.add(produto.getId());
+                indice.produtoSalvo(dto(produto));
+            }
+        }
+    }
+
+    @AfterAll
+    static void tearDownAll() {
+        if (categoriaId == null) {
+            return;
+        }
+        DatabaseConfig.executeInNewContext(RequestPersistenceContext.Modo.ESCRITA, "limpeza do benchmark", () -> {
+            EntityManager em = DatabaseConfig.getEntityManager();
+            em.createQuery("DELETE FROM Produto p WHERE p.categoria.id = :categoriaId")
+                .setParameter("categoriaId", categoriaId)
+                .executeUpdate();
+            em.createQuery("DELETE FROM Categoria c WHERE c.id = :categoriaId")
+                .setParameter("categoriaId", categoriaId)
+                .executeUpdate();
+            return null;
+        });
+    }
+
+    @Test
+    @DisplayName("Deve comparar o índice com a consulta LIKE de findByNomeContaining no banco")
+    void deveCompararIndiceComConsultaLike() {
+        // Mesmos produtos nos dois caminhos (só os do benchmark: o banco pode ter outros)
+        for (String consulta : CONSULTAS) {
+            long doBenchmark = buscarNoBanco(consulta).stream().filter(idsDoBenchmark::contains).count();
+            assertThat((long) indice.buscar(consulta, 1, 20).getTotal()).as("total para '%s'", consulta).isEqualTo(doBenchmark);
+        }
+
+        // Aquecimento do JIT e do cache do banco
+        for (int i = 0; i < 3; i++) {
+            for (String consulta : CONSULTAS) {
+                indice.buscar(consulta, 1, 20);
+                buscarNoBanco(consulta);
+            }
+        }
+
+        long inicioLike = System.nanoTime();
+        for (int i = 0; i < REPETICOES; i++) {
+            for (String consulta : CONSULTAS) {
+                buscarNoBanco(consulta);
+            }
+        }
+        long nanosLike = System.nanoTime() - inicioLike;
+
+        long inicioIndice = System.nanoTime();
+        for (int i = 0; i < REPETICOES; i++) {
+            for (String consulta : CONSULTAS) {
+                indice.buscar(consulta, 1, 20);
+            }
+        }
+        long nanosIndice = System.nanoTime() - inicioIndice;
+
+        int buscas = REPETICOES * CONSULTAS.size();
+        System.out.printf("🔎 Busca com %d produtos do benchmark - findByNomeContaining: %.3f ms/busca | índice: %.3f ms/busca%n",
+            PRODUTOS, nanosLike / 1e6 / buscas, nanosIndice / 1e6 / buscas);
+    }
+
+    /**
+     * IDs devolvidos por findByNomeContaining, em uma transação só de leitura como a de um GET
+     */
+    private static List<UUID> buscarNoBanco(String consulta) {
+        return DatabaseConfig.executeInNewContext(RequestPersistenceContext.Modo.SOMENTE_LEITURA, "busca do benchmark", () ->
+            produtoRepository.findByNomeContaining(consulta).stream().map(Produto::getId).toList());
+    }
+
+    private static ProdutoResponseDTO dto(Produto produto) {
+        ProdutoResponseDTO dto = new ProdutoResponseDTO();
+        dto.setId(produto.getId());
+        dto.setNome(produto.getNome());
+        dto.setPreco(produto.getPreco());
+        dto.setCodigoBarras(produto.getCodigoBarras());
+        dto.setCategoriaId(categoriaId);
+        return dto;
+    }
+}
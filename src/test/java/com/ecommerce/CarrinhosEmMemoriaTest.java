@@ -0,0 +1,281 @@
+package com.ecommerce;
+
+import com.ecommerce.config.DatabaseConfig;
+import com.ecommerce.dto.response.ProdutoResponseDTO;
+import com.ecommerce.repository.CarrinhoRepository;
+import com.ecommerce.repository.CarrinhoRepository.EstadoCarrinho;
+import com.ecommerce.service.CarrinhosEmMemoria;
+import com.ecommerce.service.CarrinhosEmMemoria.Conteudo;
+import com.ecommerce.service.CarrinhosEmMemoria.Linha;
+import com.ecommerce.service.CatalogoService;
+import com.ecommerce.service.CatalogoSnapshot;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Testes dos carrinhos em memória com write-behind (sem banco: repositório e catálogo simulados).
+ * O "banco" é o mapa estadosGravados, com o último estado gravado de cada cliente.
+ */
+class CarrinhosEmMemoriaTest {
+
+    private static final BigDecimal PRECO = new BigDecimal("10.50");
+
+    private final Map<UUID, EstadoCarrinho> estadosGravados = new ConcurrentHashMap<>();
+    private CarrinhoRepository carrinhoRepository;
+    private CatalogoService catalogoService;
+    private final List<CarrinhosEmMemoria> instancias = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        catalogoService = mock(CatalogoService.class);
+        CatalogoSnapshot snapshot = mock(CatalogoSnapshot.class);
+        when(catalogoService.getVersao()).thenReturn(1L);
+        when(catalogoService.getSnapshot()).thenReturn(snapshot);
+        when(snapshot.findProdutoById(any())).thenAnswer(invocation -> {
+            ProdutoResponseDTO produto = new ProdutoResponseDTO();
+            produto.setId(invocation.getArgument(0));
+            produto.setPreco(PRECO);
+            return Optional.of(produto);
+        });
+        carrinhoRepository = repositorio();
+    }
+
+    @AfterEach
+    void tearDown() {
+        instancias.forEach(CarrinhosEmMemoria::encerrar);
+    }
+
+    @Test
+    @DisplayName("O último estado gravado deve ser o conteúdo final do carrinho, mesmo com alterações concorrentes")
+    void deveGravarNaOrdemDasAlteracoes() throws Exception {
+        CarrinhosEmMemoria carrinhos = novaInstancia(carrinhoRepository, Duration.ofMinutes(30));
+        UUID clienteId = UUID.randomUUID();
+        UUID produtoA = UUID.randomUUID();
+        UUID produtoB = UUID.randomUUID();
+
+        carrinhos.adicionar(clienteId, produtoA, 2, 100);
+        carrinhos.adicionar(clienteId, produtoB, 1, 100);
+        carrinhos.remover(clienteId, produtoA);
+        carrinhos.sincronizar();
+        assertThat(estadosGravados.get(clienteId).itens()).extracting(item -> item.produtoId()).containsExactly(produtoB);
+
+        ConcurrentLinkedQueue<Throwable> erros = new ConcurrentLinkedQueue<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 100; i++) {
+                        carrinhos.adicionar(clienteId, produtoA, 1, 10_000);
+                    }
+                } catch (Throwable e) {
+                    erros.add(e);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        carrinhos.sincronizar();
+
+        assertThat(erros).isEmpty();
+        Conteudo conteudo = carrinhos.obter(clienteId);
+        assertThat(conteudo.linhaDoProduto(produtoA)).map(Linha::quantidade).contains(800);
+        assertGravado(conteudo);
+    }
+
+    @Test
+    @DisplayName("Após reinício o carrinho deve ser carregado do banco com o mesmo conteúdo, sem regravar")
+    void deveRecarregarAposReinicio() {
+        CarrinhosEmMemoria antes = novaInstancia(carrinhoRepository, Duration.ofMinutes(30));
+        UUID clienteId = UUID.randomUUID();
+        antes.adicionar(clienteId, UUID.randomUUID(), 3, 100);
+        Conteudo esperado = antes.adicionar(clienteId, UUID.randomUUID(), 2, 100);
+        antes.encerrar();
+        assertGravado(esperado);
+
+        CarrinhoRepository repositorioDepois = repositorio();
+        CarrinhosEmMemoria depois = novaInstancia(repositorioDepois, Duration.ofMinutes(30));
+        Conteudo recarregado = depois.obter(clienteId);
+        depois.sincronizar();
+
+        assertThat(recarregado).isEqualTo(esperado);
+        assertThat(recarregado.totais().quantidade()).isEqualTo(5);
+        assertThat(recarregado.totais().subtotal().centavos()).isEqualTo(5_250L);
+        verify(repositorioDepois, never()).gravarEstados(any());
+    }
+
+    @Test
+    @DisplayName("Carrinho ocioso deve sair da memória depois de gravado e voltar do banco no próximo acesso")
+    void deveDescartarOciososERecarregar() throws Exception {
+        CarrinhosEmMemoria carrinhos = novaInstancia(carrinhoRepository, Duration.ofMillis(1));
+        UUID clienteId = UUID.randomUUID();
+        Conteudo esperado = carrinhos.adicionar(clienteId, UUID.randomUUID(), 4, 100);
+
+        Thread.sleep(20);
+        carrinhos.sincronizar();
+        assertGravado(esperado);
+
+        assertThat(carrinhos.obter(clienteId)).isEqualTo(esperado);
+        verify(carrinhoRepository, times(2)).carregarEstado(clienteId);
+    }
+
+    @Test
+    @DisplayName("Falhas transitórias seguidas não devem descartar o carrinho")
+    void deveManterCarrinhoComFalhasTransitorias() {
+        AtomicInteger falhasRestantes = new AtomicInteger(25);
+        CarrinhoRepository instavel = repositorio();
+        doAnswer(invocation -> {
+            if (falhasRestantes.getAndDecrement() > 0) {
+                throw erro("08006", "conexão com o banco perdida");
+            }
+            List<EstadoCarrinho> estados = invocation.getArgument(0);
+            estados.forEach(estado -> estadosGravados.put(estado.clienteId(), estado));
+            return null;
+        }).when(instavel).gravarEstados(any());
+        CarrinhosEmMemoria carrinhos = novaInstancia(instavel, Duration.ofMinutes(30));
+        UUID clienteId = UUID.randomUUID();
+        Conteudo esperado = carrinhos.adicionar(clienteId, UUID.randomUUID(), 1, 100);
+
+        for (int i = 0; i < 30 && !estadosGravados.containsKey(clienteId); i++) {
+            carrinhos.sincronizar();
+        }
+
+        assertGravado(esperado);
+        assertThat(carrinhos.obter(clienteId)).isEqualTo(esperado);
+    }
+
+    @Test
+    @DisplayName("Falha permanente de um carrinho não deve impedir os demais e deve descartá-lo após as tentativas")
+    void deveDescartarCarrinhoComFalhaPermanente() {
+        UUID clienteRemovido = UUID.randomUUID();
+        CarrinhoRepository comFk = repositorio();
+        doAnswer(invocation -> {
+            List<EstadoCarrinho> estados = invocation.getArgument(0);
+            if (estados.stream().anyMatch(estado -> estado.clienteId().equals(clienteRemovido))) {
+                throw erro("23503", "violação de chave estrangeira");
+            }
+            estados.forEach(estado -> estadosGravados.put(estado.clienteId(), estado));
+            return null;
+        }).when(comFk).gravarEstados(any());
+        CarrinhosEmMemoria carrinhos = novaInstancia(comFk, Duration.ofMinutes(30));
+        UUID clienteId = UUID.randomUUID();
+        Conteudo esperado = carrinhos.adicionar(clienteId, UUID.randomUUID(), 1, 100);
+        Conteudo perdido = carrinhos.adicionar(clienteRemovido, UUID.randomUUID(), 1, 100);
+
+        for (int i = 0; i < 5; i++) {
+            carrinhos.sincronizar();
+        }
+
+        assertGravado(esperado);
+        assertThat(estadosGravados).doesNotContainKey(clienteRemovido);
+        // Descartado: o próximo acesso cria um carrinho novo (o banco não tem o antigo)
+        assertThat(carrinhos.obter(clienteRemovido).id()).isNotEqualTo(perdido.id());
+    }
+
+    @Test
+    @DisplayName("Checkout deve gravar o carrinho vazio na transação do request e, após o commit, manter só os itens incluídos durante o checkout")
+    void deveEntregarCarrinhoAoCheckout() {
+        CarrinhosEmMemoria carrinhos = novaInstancia(carrinhoRepository, Duration.ofMinutes(30));
+        UUID clienteId = UUID.randomUUID();
+        UUID produtoA = UUID.randomUUID();
+        UUID produtoB = UUID.randomUUID();
+        carrinhos.adicionar(clienteId, produtoA, 2, 100);
+
+        List<Runnable> aposCommit = new ArrayList<>();
+        Conteudo pedido;
+        try (MockedStatic<DatabaseConfig> database = Mockito.mockStatic(DatabaseConfig.class, Mockito.CALLS_REAL_METHODS)) {
+            database.when(DatabaseConfig::getEntityManagerParaEscrita).thenReturn(mock(EntityManager.class));
+            database.when(() -> DatabaseConfig.runAfterCommit(any())).thenAnswer(invocation -> {
+                aposCommit.add(invocation.getArgument(0));
+                return null;
+            });
+            pedido = carrinhos.prepararCheckout(clienteId);
+            // O carrinho esvaziado vai na transação do request, sem abrir outra
+            database.verify(() -> DatabaseConfig.executeInNewContext(any(), any(), any()), never());
+        }
+        assertThat(pedido.linhas()).extracting(Linha::produtoId).containsExactly(produtoA);
+        EstadoCarrinho esvaziado = estadosGravados.get(clienteId);
+        assertThat(esvaziado.id()).isEqualTo(pedido.id());
+        assertThat(esvaziado.itens()).isEmpty();
+        assertThat(esvaziado.totalItens()).isZero();
+        assertThat(esvaziado.subtotalCentavos()).isZero();
+        assertThat(aposCommit).hasSize(1);
+
+        // Cliente inclui outro produto e soma ao primeiro enquanto o pedido é finalizado
+        carrinhos.adicionar(clienteId, produtoB, 1, 100);
+        carrinhos.adicionar(clienteId, produtoA, 1, 100);
+        aposCommit.get(0).run();
+        carrinhos.sincronizar();
+
+        Conteudo restante = carrinhos.obter(clienteId);
+        assertThat(restante.linhas()).extracting(Linha::produtoId).containsExactlyInAnyOrder(produtoA, produtoB);
+        assertThat(restante.linhaDoProduto(produtoA)).map(Linha::quantidade).contains(1);
+        assertThat(restante.linhaDoProduto(produtoB)).map(Linha::quantidade).contains(1);
+        assertGravado(restante);
+    }
+
+    /**
+     * Repositório simulado que grava em estadosGravados e carrega de lá
+     */
+    private CarrinhoRepository repositorio() {
+        CarrinhoRepository repositorio = mock(CarrinhoRepository.class);
+        when(repositorio.carregarEstado(any())).thenAnswer(invocation ->
+            Optional.ofNullable(estadosGravados.get(invocation.<UUID>getArgument(0))));
+        doAnswer(invocation -> {
+            List<EstadoCarrinho> estados = invocation.getArgument(0);
+            estados.forEach(estado -> estadosGravados.put(estado.clienteId(), estado));
+            return null;
+        }).when(repositorio).gravarEstados(any());
+        return repositorio;
+    }
+
+    private CarrinhosEmMemoria novaInstancia(CarrinhoRepository repositorio, Duration ociosidadeMaxima) {
+        CarrinhosEmMemoria carrinhos = new CarrinhosEmMemoria(repositorio, catalogoService, ociosidadeMaxima);
+        instancias.add(carrinhos);
+        return carrinhos;
+    }
+
+    private void assertGravado(Conteudo conteudo) {
+        EstadoCarrinho gravado = estadosGravados.get(conteudo.clienteId());
+        assertThat(gravado).isNotNull();
+        assertThat(gravado.id()).isEqualTo(conteudo.id());
+        assertThat(gravado.itens()).extracting(item -> item.id() + ":" + item.produtoId() + ":" + item.quantidade())
+            .containsExactlyElementsOf(conteudo.linhas().stream()
+                .map(linha -> linha.itemId() + ":" + linha.produtoId() + ":" + linha.quantidade()).toList());
+        assertThat(gravado.totalItens()).isEqualTo(conteudo.totais().itens());
+        assertThat(gravado.totalQuantidade()).isEqualTo(conteudo.totais().quantidade());
+        assertThat(gravado.subtotalCentavos()).isEqualTo(conteudo.totais().subtotal().centavos());
+    }
+
+    private static RuntimeException erro(String sqlState, String mensagem) {
+        return new RuntimeException("Falha ao gravar carrinhos", new SQLException(mensagem, sqlState));
+    }
+}
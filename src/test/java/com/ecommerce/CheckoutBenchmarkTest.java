@@ -0,0 +1,124 @@
+package com.ecommerce;
+
+import com.ecommerce.config.DatabaseConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.javalin.Javalin;
+import io.javalin.testtools.HttpClient;
+import io.javalin.testtools.JavalinTest;
+import okhttp3.Response;
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Benchmark do checkout (POST /api/pedidos/checkout) em função do tamanho do carrinho.
+ *
+ * O checkout grava pedido, itens em lote, limpeza do carrinho e notificação em um único flush,
+ * então o tempo deve crescer bem menos que linearmente com o número de itens. Só imprime as
+ * latências (sem asserção de tempo) e fica fora do "test" padrão (./gradlew benchmark).
+ */
+@Tag("benchmark")
+class CheckoutBenchmarkTest {
+
+    private static final int[] TAMANHOS_CARRINHO = {1, 10, 30, 100};
+    private static final int REPETICOES = 5;
+
+    private static Javalin app;
+    private static ObjectMapper objectMapper;
+
+    @BeforeAll
+    static void setupAll() {
+        DatabaseConfig.initialize();
+        app = App.createApp();
+
+        objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+    }
+
+    @AfterAll
+    static void tearDownAll() {
+        if (app != null) {
+            app.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("Deve finalizar carrinhos de vários tamanhos e medir a latência do checkout")
+    void deveMedirLatenciaDoCheckoutPorTamanhoDoCarrinho() {
+        JavalinTest.test(app, (server, client) -> {
+            long sufixo = System.nanoTime();
+            String managerToken = registrarELogar(client, "manager" + sufixo + "@checkout.test", "MANAGER");
+            String customerToken = registrarELogar(client, "cliente" + sufixo + "@checkout.test", "CUSTOMER");
+
+            Response categoriaResponse = client.post("/categorias",
+                Map.of("nome", "Checkout " + sufixo), builder ->
+                builder.header("Authorization", "Bearer " + managerToken));
+            Map<String, Object> categoria = objectMapper.readValue(categoriaResponse.body().string(), Map.class);
+            String categoriaId = (String) categoria.get("id");
+
+            int maiorCarrinho = Arrays.stream(TAMANHOS_CARRINHO).max().orElse(1);
+            long base = System.currentTimeMillis() % 1_000_000L;
+            List<String> produtoIds = new ArrayList<>(maiorCarrinho);
+            for (int i = 0; i < maiorCarrinho; i++) {
+                Response criado = client.post("/produtos", Map.of(
+                    "nome", "Produto checkout " + i,
+                    "preco", 5.0 + i,
+                    "codigoBarras", String.format("7%06d%06d", base, i),
+                    "categoriaId", categoriaId
+                ), builder -> builder.header("Authorization", "Bearer " + managerToken));
+                assertThat(criado.code()).isEqualTo(201);
+                Map<String, Object> produto = objectMapper.readValue(criado.body().string(), Map.class);
+                produtoIds.add((String) produto.get("id"));
+            }
+
+            System.out.println("📊 Checkout por tamanho do carrinho (mediana de " + REPETICOES + " execuções):");
+            for (int tamanho : TAMANHOS_CARRINHO) {
+                long[] tempos = new long[REPETICOES];
+                for (int r = 0; r < REPETICOES; r++) {
+                    for (int i = 0; i < tamanho; i++) {
+                        Response adicionado = client.post("/api/carrinho/item", Map.of(
+                            "produtoId", produtoIds.get(i),
+                            "quantidade", 1 + (i % 3)
+                        ), builder -> builder.header("Authorization", "Bearer " + customerToken));
+                        assertThat(adicionado.code()).isEqualTo(200);
+                    }
+
+                    String chave = "bench-" + sufixo + "-" + tamanho + "-" + r;
+                    long inicio = System.nanoTime();
+                    Response checkout = client.post("/api/pedidos/checkout", Map.of("idempotencyKey", chave),
+                        builder -> builder.header("Authorization", "Bearer " + customerToken));
+                    tempos[r] = System.nanoTime() - inicio;
+
+                    assertThat(checkout.code()).isEqualTo(201);
+                    Map<String, Object> pedido = objectMapper.readValue(checkout.body().string(), Map.class);
+                    assertThat((List<?>) pedido.get("itens")).hasSize(tamanho);
+
+                    Response carrinho = client.get("/api/carrinho",
+                        builder -> builder.header("Authorization", "Bearer " + customerToken));
+                    Map<String, Object> carrinhoAtual = objectMapper.readValue(carrinho.body().string(), Map.class);
+                    assertThat((List<?>) carrinhoAtual.get("itens")).isNullOrEmpty();
+                }
+
+                Arrays.sort(tempos);
+                System.out.printf("   %3d itens: %.1f ms%n", tamanho, tempos[REPETICOES / 2] / 1_000_000.0);
+            }
+        });
+    }
+
+    private String registrarELogar(HttpClient client, String email, String role) throws Exception {
+        client.post("/auth/register", Map.of(
+            "email", email,
+            "password", "123456",
+            "role", role
+        ));
+        Response login = client.post("/auth/login", Map.of(
+            "email", email,
+            "password", "123456"
+        ));
+        Map<String, Object> loginResult = objectMapper.readValue(login.body().string(), Map.class);
+        return (String) loginResult.get("token");
+    }
+}
@@ -0,0 +1,130 @@
+package com.ecommerce;
+
+import com.ecommerce.config.DatabaseConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.javalin.Javalin;
+import io.javalin.testtools.JavalinTest;
+import okhttp3.Response;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Teste de estresse de concorrência: vários requests simultâneos (leituras e escritas)
+ * precisam usar cada um o seu próprio EntityManager, sem compartilhar sessão Hibernate
+ * entre as threads do Jetty.
+ */
+class ConcurrencyStressTest {
+
+    private static final int THREADS = 32;
+    private static final int REQUESTS_POR_THREAD = 20;
+
+    private static Javalin app;
+    private static ObjectMapper objectMapper;
+
+    @BeforeAll
+    static void setupAll() {
+        DatabaseConfig.initialize();
+        app = App.createApp();
+
+        objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+    }
+
+    @AfterAll
+    static void tearDownAll() {
+        if (app != null) {
+            app.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("Deve atender leituras e escritas concorrentes sem misturar sessões")
+    void deveAtenderRequestsConcorrentes() {
+        JavalinTest.test(app, (server, client) -> {
+            client.post("/auth/register", Map.of(
+                "email", "manager@stress.test",
+                "password", "123456",
+                "role", "MANAGER"
+            ));
+            Response login = client.post("/auth/login", Map.of(
+                "email", "manager@stress.test",
+                "password", "123456"
+            ));
+            Map<String, Object> loginResult = objectMapper.readValue(login.body().string(), Map.class);
+            String managerToken = (String) loginResult.get("token");
+
+            Response categoriaResponse = client.post("/categorias",
+                Map.of("nome", "Estresse " + System.nanoTime()), builder ->
+                builder.header("Authorization", "Bearer " + managerToken));
+            Map<String, Object> categoria = objectMapper.readValue(categoriaResponse.body().string(), Map.class);
+            String categoriaId = (String) categoria.get("id");
+
+            ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+            CountDownLatch largada = new CountDownLatch(1);
+            AtomicInteger falhas = new AtomicInteger();
+            AtomicInteger respostasTrocadas = new AtomicInteger();
+            List<Future<?>> tarefas = new ArrayList<>();
+            long base = System.currentTimeMillis() % 1_000_000L;
+
+            for (int t = 0; t < THREADS; t++) {
+                final int thread = t;
+                tarefas.add(executor.submit(() -> {
+                    largada.await();
+                    for (int i = 0; i < REQUESTS_POR_THREAD; i++) {
+                        // Código de barras único de 13 dígitos por thread/iteração
+                        String codigo = String.format("%06d%03d%04d", base, thread, i);
+                        Response criado = client.post("/produtos", Map.of(
+                            "nome", "Produto estresse " + thread + "-" + i,
+                            "preco", 10.0 + i,
+                            "codigoBarras", codigo,
+                            "categoriaId", categoriaId
+                        ), builder -> builder.header("Authorization", "Bearer " + managerToken));
+                        if (criado.code() != 201) {
+                            falhas.incrementAndGet();
+                            continue;
+                        }
+                        Map<String, Object> produto = objectMapper.readValue(criado.body().string(), Map.class);
+                        String produtoId = (String) produto.get("id");
+
+                        Response lido = client.get("/produtos/" + produtoId);
+                        if (lido.code() != 200) {
+                            falhas.incrementAndGet();
+                            continue;
+                        }
+                        Map<String, Object> produtoLido = objectMapper.readValue(lido.body().string(), Map.class);
+                        if (!produtoId.equals(produtoLido.get("id"))) {
+                            respostasTrocadas.incrementAndGet();
+                        }
+
+                        if (client.get("/produtos").code() != 200) {
+                            falhas.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            largada.countDown();
+            for (Future<?> tarefa : tarefas) {
+                tarefa.get(5, TimeUnit.MINUTES);
+            }
+            executor.shutdown();
+
+            assertThat(falhas.get()).isZero();
+            assertThat(respostasTrocadas.get()).isZero();
+
+            Response busca = client.get("/produtos/categoria/" + categoriaId);
+            assertThat(busca.code()).isEqualTo(200);
+            List<?> produtosCategoria = objectMapper.readValue(busca.body().string(), List.class);
+            assertThat(produtosCategoria).hasSize(THREADS * REQUESTS_POR_THREAD);
+        });
+    }
+}
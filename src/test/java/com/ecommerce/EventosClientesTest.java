@@ -0,0 +1,121 @@
+package com.ecommerce;
+
+import com.ecommerce.dto.response.NotificacaoResponseDTO;
+import com.ecommerce.service.EventosClientes;
+import io.javalin.http.Context;
+import io.javalin.http.sse.SseClient;
+import io.javalin.json.JsonMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Testes do envio de eventos SSE (sem servidor: conexões simuladas). Fora de um request o
+ * runAfterCommit executa na hora, então publicar já enfileira o evento.
+ */
+class EventosClientesTest {
+
+    private final CountDownLatch liberarLento = new CountDownLatch(1);
+    private EventosClientes eventos;
+    private Context ctx;
+
+    @BeforeEach
+    void setUp() {
+        eventos = new EventosClientes();
+        JsonMapper jsonMapper = mock(JsonMapper.class);
+        when(jsonMapper.toJsonString(any(), any())).thenReturn("{}");
+        ctx = mock(Context.class);
+        when(ctx.jsonMapper()).thenReturn(jsonMapper);
+    }
+
+    @AfterEach
+    void tearDown() {
+        liberarLento.countDown();
+        eventos.encerrar();
+    }
+
+    @Test
+    @DisplayName("Cliente que não lê não deve atrasar os eventos dos demais")
+    void clienteLentoNaoDeveAtrasarOsDemais() {
+        UUID clienteLento = UUID.randomUUID();
+        UUID clienteRapido = UUID.randomUUID();
+        SseClient lento = conexao();
+        SseClient rapido = conexao();
+        doAnswer(invocation -> {
+            liberarLento.await();
+            return null;
+        }).when(lento).sendEvent(any(), any(), any());
+        eventos.assinar(clienteLento, lento);
+        eventos.assinar(clienteRapido, rapido);
+
+        eventos.publicarNotificacao(notificacao(clienteLento));
+        verify(lento, timeout(1000)).sendEvent(any(), any(), any());
+        eventos.publicarNotificacao(notificacao(clienteRapido));
+
+        verify(rapido, timeout(1000)).sendEvent(any(), any(), any());
+        verify(lento, never()).close();
+    }
+
+    @Test
+    @DisplayName("Conexão com a fila de eventos cheia deve ser fechada e sair do registro")
+    void deveFecharConexaoComFilaCheia() {
+        UUID clienteId = UUID.randomUUID();
+        SseClient lento = conexao();
+        doAnswer(invocation -> {
+            liberarLento.await();
+            return null;
+        }).when(lento).sendEvent(any(), any(), any());
+        eventos.assinar(clienteId, lento);
+        assertThat(eventos.conexoes()).isEqualTo(1);
+
+        eventos.publicarNotificacao(notificacao(clienteId));
+        verify(lento, timeout(1000)).sendEvent(any(), any(), any());
+        for (int i = 0; i < 150; i++) {
+            eventos.publicarNotificacao(notificacao(clienteId));
+        }
+
+        verify(lento, timeout(1000)).close();
+        assertThat(eventos.conexoes()).isZero();
+    }
+
+    @Test
+    @DisplayName("Nova conexão além do limite por cliente deve fechar a mais antiga")
+    void deveFecharConexaoMaisAntiga() {
+        UUID clienteId = UUID.randomUUID();
+        SseClient maisAntiga = conexao();
+        eventos.assinar(clienteId, maisAntiga);
+        for (int i = 0; i < 5; i++) {
+            eventos.assinar(clienteId, conexao());
+        }
+
+        verify(maisAntiga).close();
+        assertThat(eventos.conexoes()).isEqualTo(5);
+    }
+
+    private SseClient conexao() {
+        SseClient client = mock(SseClient.class);
+        when(client.ctx()).thenReturn(ctx);
+        return client;
+    }
+
+    private static NotificacaoResponseDTO notificacao(UUID clienteId) {
+        NotificacaoResponseDTO notificacao = new NotificacaoResponseDTO();
+        notificacao.setId(UUID.randomUUID());
+        notificacao.setClienteId(clienteId);
+        notificacao.setMensagem("Pedido atualizado");
+        return notificacao;
+    }
+}
@@ -0,0 +1,209 @@
+package com.ecommerce;
+
+import com.ecommerce.config.DatabaseConfig;
+import com.ecommerce.dto.response.PedidoResponseDTO;
+import com.ecommerce.mapper.PedidoMapper;
+import com.ecommerce.repository.PedidoRepository;
+import com.ecommerce.service.IdempotenciaPedidos;
+import com.ecommerce.service.IdempotenciaPedidos.Resultado;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Testes do controle de idempotência da criação de pedidos (sem banco: repositório simulado).
+ *
+ * Fora de um request, DatabaseConfig.runAfterCommit executa a ação na hora (a chave é concluída
+ * logo após a criação); os testes que precisam segurar o commit ou desfazer a transação
+ * capturam as ações com um mock estático.
+ */
+class IdempotenciaPedidosTest {
+
+    private PedidoRepository pedidoRepository;
+    private PedidoMapper pedidoMapper;
+    private final AtomicInteger criacoes = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        pedidoRepository = mock(PedidoRepository.class);
+        pedidoMapper = mock(PedidoMapper.class);
+        when(pedidoRepository.findByIdempotencyKey(any())).thenReturn(Optional.empty());
+    }
+
+    @Test
+    @DisplayName("Requisições simultâneas com a mesma chave devem criar o pedido uma vez e receber o mesmo DTO")
+    void deveCriarUmaVezComChamadasSimultaneas() throws Exception {
+        IdempotenciaPedidos idempotencia = novaInstancia(Duration.ofHours(1), 100, Duration.ofSeconds(10));
+        CountDownLatch liberarCriacao = new CountDownLatch(1);
+        Supplier<PedidoResponseDTO> criacao = () -> {
+            try {
+                liberarCriacao.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return novoPedido();
+        };
+
+        ConcurrentLinkedQueue<Resultado> resultados = new ConcurrentLinkedQueue<>();
+        ConcurrentLinkedQueue<Throwable> erros = new ConcurrentLinkedQueue<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 16; t++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    resultados.add(idempotencia.executar("chave-simultanea", criacao));
+                } catch (Throwable e) {
+                    erros.add(e);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        // Dá tempo para as demais encontrarem a chave em andamento antes de liberar a criação
+        Thread.sleep(100);
+        liberarCriacao.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(erros).isEmpty();
+        assertThat(criacoes).hasValue(1);
+        assertThat(resultados).hasSize(16);
+        PedidoResponseDTO pedido = resultados.peek().pedido();
+        assertThat(resultados).allSatisfy(resultado -> assertThat(resultado.pedido()).isSameAs(pedido));
+        assertThat(resultados).filteredOn(resultado -> !resultado.repetido()).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Rollback deve repassar o erro a quem aguardava e liberar a chave para nova tentativa")
+    void deveLiberarChaveNoRollback() throws Exception {
+        IdempotenciaPedidos idempotencia = novaInstancia(Duration.ofHours(1), 100, Duration.ofSeconds(10));
+        List<Runnable> aposRollback = new ArrayList<>();
+        try (MockedStatic<DatabaseConfig> database = Mockito.mockStatic(DatabaseConfig.class)) {
+            database.when(() -> DatabaseConfig.runAfterRollback(any())).thenAnswer(invocation -> {
+                aposRollback.add(invocation.getArgument(0));
+                return null;
+            });
+            Resultado primeiro = idempotencia.executar("chave-rollback", this::novoPedido);
+            assertThat(primeiro.repetido()).isFalse();
+        }
+        assertThat(aposRollback).hasSize(1);
+
+        // Retentativa que chega enquanto a original ainda não terminou fica aguardando
+        AtomicReference<Throwable> erroDaEspera = new AtomicReference<>();
+        Thread espera = new Thread(() -> {
+            try {
+                idempotencia.executar("chave-rollback", this::novoPedido);
+            } catch (Throwable e) {
+                erroDaEspera.set(e);
+            }
+        });
+        espera.start();
+        aguardarEstado(espera, Thread.State.TIMED_WAITING);
+
+        aposRollback.get(0).run();
+        espera.join();
+        assertThat(erroDaEspera.get()).isInstanceOf(RuntimeException.class)
+            .hasMessageContaining("não foi gravado");
+        assertThat(criacoes).hasValue(1);
+
+        Resultado novaTentativa = idempotencia.executar("chave-rollback", this::novoPedido);
+        assertThat(novaTentativa.repetido()).isFalse();
+        assertThat(criacoes).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Quem aguarda uma chave que não conclui deve desistir no tempo máximo e liberar a chave")
+    void deveDesistirDaEsperaNoTempoMaximo() {
+        IdempotenciaPedidos idempotencia = novaInstancia(Duration.ofHours(1), 100, Duration.ofMillis(100));
+        try (MockedStatic<DatabaseConfig> database = Mockito.mockStatic(DatabaseConfig.class)) {
+            // Commit que nunca acontece: a chave fica em andamento
+            idempotencia.executar("chave-presa", this::novoPedido);
+        }
+
+        long inicio = System.nanoTime();
+        assertThatThrownBy(() -> idempotencia.executar("chave-presa", this::novoPedido))
+            .isInstanceOf(RuntimeException.class)
+            .hasMessageContaining("ainda em processamento");
+        assertThat(Duration.ofNanos(System.nanoTime() - inicio)).isGreaterThanOrEqualTo(Duration.ofMillis(100));
+        assertThat(criacoes).hasValue(1);
+
+        Resultado novaTentativa = idempotencia.executar("chave-presa", this::novoPedido);
+        assertThat(novaTentativa.repetido()).isFalse();
+        assertThat(criacoes).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Chave concluída deve ser respondida do cache até expirar o TTL")
+    void deveExpirarChavePeloTtl() throws Exception {
+        IdempotenciaPedidos idempotencia = novaInstancia(Duration.ofMillis(50), 100, Duration.ofSeconds(10));
+
+        Resultado criado = idempotencia.executar("chave-ttl", this::novoPedido);
+        Resultado repetido = idempotencia.executar("chave-ttl", this::novoPedido);
+        assertThat(repetido.repetido()).isTrue();
+        assertThat(repetido.pedido()).isSameAs(criado.pedido());
+        assertThat(criacoes).hasValue(1);
+
+        Thread.sleep(100);
+        Resultado aposTtl = idempotencia.executar("chave-ttl", this::novoPedido);
+        assertThat(aposTtl.repetido()).isFalse();
+        assertThat(criacoes).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Acima do limite de chaves em cache, as concluídas há mais tempo devem ser descartadas")
+    void deveDescartarChavesMaisAntigasAcimaDoLimite() {
+        IdempotenciaPedidos idempotencia = novaInstancia(Duration.ofHours(1), 3, Duration.ofSeconds(10));
+        for (int i = 1; i <= 4; i++) {
+            idempotencia.executar("chave-" + i, this::novoPedido);
+        }
+        assertThat(criacoes).hasValue(4);
+
+        for (int i = 2; i <= 4; i++) {
+            assertThat(idempotencia.executar("chave-" + i, this::novoPedido).repetido()).isTrue();
+        }
+        assertThat(criacoes).hasValue(4);
+
+        // A primeira saiu do cache e não está no banco simulado: é criada de novo
+        assertThat(idempotencia.executar("chave-1", this::novoPedido).repetido()).isFalse();
+        assertThat(criacoes).hasValue(5);
+    }
+
+    private IdempotenciaPedidos novaInstancia(Duration ttl, int maxChaves, Duration esperaMaxima) {
+        return new IdempotenciaPedidos(pedidoRepository, pedidoMapper, ttl, maxChaves, esperaMaxima);
+    }
+
+    private PedidoResponseDTO novoPedido() {
+        criacoes.incrementAndGet();
+        PedidoResponseDTO pedido = new PedidoResponseDTO();
+        pedido.setId(UUID.randomUUID());
+        return pedido;
+    }
+
+    private static void aguardarEstado(Thread thread, Thread.State estado) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (thread.getState() != estado && System.nanoTime() < limite) {
+            Thread.sleep(5);
+        }
+        assertThat(thread.getState()).isEqualTo(estado);
+    }
+}
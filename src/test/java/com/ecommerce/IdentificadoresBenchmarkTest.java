@@ -0,0 +1,152 @@
+package com.ecommerce;
+
+import com.ecommerce.config.DatabaseConfig;
+import com.ecommerce.config.RequestPersistenceContext;
+import com.ecommerce.domain.Cliente;
+import com.ecommerce.domain.Identificadores;
+import com.ecommerce.domain.Notificacao;
+import com.ecommerce.domain.Pedido;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Benchmark de inserção em pedidos e notificacoes com chaves UUIDv4 (aleatórias) e UUIDv7
+ * (ordenadas por tempo). Mede a vazão e o crescimento do índice da chave primária: com v4
+ * cada INSERT cai em uma página qualquer do B-tree e provoca divisões de página.
+ *
+ * Grava no banco real (o tamanho do índice só cresce com commit) e apaga tudo o que criou no
+ * final; fica fora do "test" padrão (./gradlew benchmark).
+ */
+@Tag("benchmark")
+class IdentificadoresBenchmarkTest {
+
+    private static final int PEDIDOS = 20_000;
+    private static final int POR_TRANSACAO = 1_000;
+
+    private static UUID clienteId;
+
+    @BeforeAll
+    static void setupAll() {
+        DatabaseConfig.initialize();
+        clienteId = DatabaseConfig.executeInNewContext(RequestPersistenceContext.Modo.ESCRITA, "cliente do benchmark", () -> {
+            Cliente cliente = new Cliente();
+            cliente.setId(Identificadores.novo());
+            String sufixo = Long.toString(System.nanoTime(), 36);
+            cliente.setNome("Benchmark " + sufixo);
+            cliente.setEmail("benchmark-" + sufixo + "@ids.test");
+            DatabaseConfig.getEntityManager().persist(cliente);
+            return cliente.getId();
+        });
+    }
+
+    @AfterAll
+    static void tearDownAll() {
+        Identificadores.usar(Identificadores::uuidV7);
+        if (clienteId == null) {
+            return;
+        }
+        // Tudo o que o benchmark gravou pende do cliente criado no setup
+        DatabaseConfig.executeInNewContext(RequestPersistenceContext.Modo.ESCRITA, "limpeza do benchmark", () -> {
+            EntityManager em = DatabaseConfig.getEntityManager();
+            em.createQuery("DELETE FROM Notificacao n WHERE n.cliente.id = :clienteId")
+                .setParameter("clienteId", clienteId)
+                .executeUpdate();
+            em.createQuery("DELETE FROM Pedido p WHERE p.clienteId = :clienteId")
+                .setParameter("clienteId", clienteId)
+                .executeUpdate();
+            em.createQuery("DELETE FROM Cliente c WHERE c.id = :clienteId")
+                .setParameter("clienteId", clienteId)
+                .executeUpdate();
+            return null;
+        });
+    }
+
+    @Test
+    @DisplayName("Deve comparar vazão de inserção e tamanho do índice com UUIDv4 e UUIDv7")
+    void deveCompararInsercaoV4ComV7() {
+        Resultado v4 = inserir("v4", Identificadores::uuidV4);
+        Resultado v7 = inserir("v7", Identificadores::uuidV7);
+
+        System.out.println("📊 Inserção de " + PEDIDOS + " pedidos + " + PEDIDOS + " notificações:");
+        System.out.println("   " + v4);
+        System.out.println("   " + v7);
+
+        // Sem asserção de tempo: o benchmark só confere que gravou o que mediu
+        assertThat(contarPedidosDoCliente()).isEqualTo(2L * PEDIDOS);
+    }
+
+    private Resultado inserir(String versao, Supplier<UUID> gerador) {
+        Identificadores.usar(gerador);
+        long indicePedidosAntes = tamanhoIndicePk("pedidos");
+        long indiceNotificacoesAntes = tamanhoIndicePk("notificacoes");
+
+        long inicio = System.nanoTime();
+        for (int lote = 0; lote < PEDIDOS / POR_TRANSACAO; lote++) {
+            final int primeiro = lote * POR_TRANSACAO;
+            DatabaseConfig.executeInNewContext(RequestPersistenceContext.Modo.ESCRITA, "benchmark " + versao, () -> {
+                EntityManager em = DatabaseConfig.getEntityManager();
+                Cliente cliente = em.getReference(Cliente.class, clienteId);
+                for (int i = primeiro; i < primeiro + POR_TRANSACAO; i++) {
+                    Pedido pedido = new Pedido();
+                    pedido.setClienteId(clienteId);
+                    pedido.setNumero("BENCH-" + versao + "-" + clienteId + "-" + i);
+                    pedido.setTotal(BigDecimal.TEN);
+                    pedido.setValorTotal(BigDecimal.TEN);
+                    em.persist(pedido);
+
+                    Notificacao notificacao = new Notificacao();
+                    notificacao.setCliente(cliente);
+                    notificacao.setPedido(pedido);
+                    notificacao.setTipo(Notificacao.TipoNotificacao.CONFIRMACAO);
+                    notificacao.setMensagem("Benchmark " + versao);
+                    notificacao.setCriadoEm(LocalDateTime.now());
+                    em.persist(notificacao);
+                }
+                return null;
+            });
+        }
+        long nanos = System.nanoTime() - inicio;
+
+        return new Resultado(versao, nanos,
+            tamanhoIndicePk("pedidos") - indicePedidosAntes,
+            tamanhoIndicePk("notificacoes") - indiceNotificacoesAntes);
+    }
+
+    private long contarPedidosDoCliente() {
+        return DatabaseConfig.executeInNewContext(RequestPersistenceContext.Modo.SOMENTE_LEITURA, "contagem do benchmark", () ->
+            DatabaseConfig.getEntityManager().createQuery("SELECT COUNT(p) FROM Pedido p WHERE p.clienteId = :clienteId", Long.class)
+                .setParameter("clienteId", clienteId)
+                .getSingleResult());
+    }
+
+    private long tamanhoIndicePk(String tabela) {
+        return DatabaseConfig.executeInNewContext(RequestPersistenceContext.Modo.SOMENTE_LEITURA, "tamanho do índice", () -> {
+            List<?> resultado = DatabaseConfig.getEntityManager().createNativeQuery(
+                "SELECT pg_relation_size(indexrelid) FROM pg_index WHERE indrelid = CAST(:tabela AS regclass) AND indisprimary")
+                .setParameter("tabela", tabela)
+                .getResultList();
+            return resultado.isEmpty() ? 0L : ((Number) resultado.get(0)).longValue();
+        });
+    }
+
+    private record Resultado(String versao, long nanos, long crescimentoIndicePedidos, long crescimentoIndiceNotificacoes) {
+
+        double linhasPorSegundo() {
+            return PEDIDOS * 2 / (nanos / 1_000_000_000.0);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %.0f linhas/s, índice pedidos +%d KB, índice notificacoes +%d KB",
+                versao, linhasPorSegundo(), crescimentoIndicePedidos / 1024, crescimentoIndiceNotificacoes / 1024);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.ecommerce;
+
+import com.ecommerce.domain.Identificadores;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Testes do gerador de identificadores (sem banco)
+ */
+class IdentificadoresTest {
+
+    @Test
+    @DisplayName("UUIDv7 deve ser crescente e ter versão e variante corretas")
+    void deveGerarUuidV7Ordenado() {
+        UUID anterior = Identificadores.uuidV7();
+        for (int i = 0; i < 100_000; i++) {
+            UUID atual = Identificadores.uuidV7();
+            assertThat(atual.version()).isEqualTo(7);
+            assertThat(atual.variant()).isEqualTo(2);
+            // Ordem do PostgreSQL para uuid = comparação de bytes sem sinal
+            assertThat(Long.compareUnsigned(atual.getMostSignificantBits(), anterior.getMostSignificantBits()))
+                .isPositive();
+            anterior = atual;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.ecommerce;
+
+import com.ecommerce.dto.response.BuscaProdutosResponseDTO;
+import com.ecommerce.dto.response.ProdutoResponseDTO;
+import com.ecommerce.service.IndiceBuscaProdutos;
+import org.junit.jupiter.api.*;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Testes do índice de busca por nome (sem banco): mesmos resultados do predicado
+ * "LOWER(nome) LIKE LOWER('%x%')" de ProdutoRepository.findByNomeContaining, além de acentos,
+ * ranking, paginação e escritas incrementais.
+ */
+class IndiceBuscaProdutosTest {
+
+    private static final int PRODUTOS = 5_000;
+
+    private static final String[] TIPOS = {"Café", "Açúcar", "Feijão", "Arroz", "Leite", "Sabão", "Pão",
+        "Macarrão", "Biscoito", "Suco", "Chocolate", "Detergente", "Azeite", "Farinha", "Manteiga"};
+    private static final String[] VARIANTES = {"Integral", "Tradicional", "Orgânico", "Light", "Zero",
+        "Premium", "Extra Forte", "Mascavo", "Parboilizado", "Desnatado", "Morango", "Limão"};
+    private static final String[] MARCAS = {"Bom Dia", "Vale Verde", "Serra Azul", "Campo Real",
+        "Nossa Terra", "Boa Safra", "Ouro Fino", "Primavera"};
+
+    private static IndiceBuscaProdutos indice;
+    private static List<ProdutoResponseDTO> produtos;
+
+    @BeforeAll
+    static void setupAll() {
+        Random random = new Random(42);
+        produtos = new ArrayList<>(PRODUTOS);
+        indice = new IndiceBuscaProdutos();
+        for (int i = 0; i < PRODUTOS; i++) {
+            ProdutoResponseDTO produto = produto(nomeAleatorio(random));
+            produtos.add(produto);
+            indice.produtoSalvo(produto);
+        }
+    }
+
+    @Test
+    @DisplayName("Deve encontrar os mesmos produtos que o LIKE, ignorando acentos")
+    void deveEncontrarMesmosProdutosQueLike() {
+        for (String consulta : List.of("arroz", "vale verde", "parboil", "500g")) {
+            assertThat(indice.buscar(consulta, 1, 20).getTotal())
+                .as("total para '%s'", consulta)
+                .isEqualTo(buscarComoLike(consulta).size());
+        }
+
+        // "cafe" não casa com "Café" no LIKE, mas casa no índice
+        assertThat(buscarComoLike("cafe")).isEmpty();
+        assertThat(indice.buscar("cafe", 1, 20).getTotal()).isEqualTo(buscarComoLike("café").size());
+    }
+
+    @Test
+    @DisplayName("Deve ranquear, paginar e refletir escritas incrementais")
+    void deveRanquearPaginarEAtualizar() {
+        ProdutoResponseDTO produto = produto("Feijão Carioca Especial");
+        indice.produtoSalvo(produto);
+
+        BuscaProdutosResponseDTO resultado = indice.buscar("feijao carioca", 1, 5);
+        assertThat(resultado.getTotal()).isEqualTo(1);
+        assertThat(resultado.getItens()).extracting(ProdutoResponseDTO::getId).containsExactly(produto.getId());
+
+        BuscaProdutosResponseDTO pagina2 = indice.buscar("suco", 2, 10);
+        assertThat(pagina2.getItens()).hasSize(10);
+        assertThat(pagina2.getItens()).doesNotContainAnyElementsOf(indice.buscar("suco", 1, 10).getItens());
+
+        ProdutoResponseDTO renomeado = produto("Feijão Preto Especial");
+        renomeado.setId(produto.getId());
+        indice.produtoSalvo(renomeado);
+        assertThat(indice.buscar("carioca", 1, 5).getTotal()).isZero();
+        assertThat(indice.buscar("feijao preto especial", 1, 5).getItens())
+            .extracting(ProdutoResponseDTO::getNome).containsExactly("Feijão Preto Especial");
+
+        indice.produtoRemovido(produto.getId());
+        assertThat(indice.buscar("feijao preto especial", 1, 5).getTotal()).isZero();
+        assertThat(indice.size()).isEqualTo(PRODUTOS);
+    }
+
+    /**
+     * Mesmo predicado de findByNomeContaining: LOWER(nome) LIKE LOWER('%consulta%')
+     */
+    private static List<ProdutoResponseDTO> buscarComoLike(String consulta) {
+        String padrao = consulta.toLowerCase();
+        List<ProdutoResponseDTO> resultado = new ArrayList<>();
+        for (ProdutoResponseDTO produto : produtos) {
+            if (produto.getNome().toLowerCase().contains(padrao)) {
+                resultado.add(produto);
+            }
+        }
+        return resultado;
+    }
+
+    static String nomeAleatorio(Random random) {
+        return TIPOS[random.nextInt(TIPOS.length)] + " "
+            + VARIANTES[random.nextInt(VARIANTES.length)] + " "
+            + MARCAS[random.nextInt(MARCAS.length)] + " " + (100 + random.nextInt(900)) + "g";
+    }
+
+    private static ProdutoResponseDTO produto(String nome) {
+        ProdutoResponseDTO produto = new ProdutoResponseDTO();
+        produto.setId(UUID.randomUUID());
+        produto.setNome(nome);
+        produto.setPreco(BigDecimal.TEN);
+        produto.setCodigoBarras(String.valueOf(System.nanoTime()));
+        return produto;
+    }
+}
@@ -0,0 +1,99 @@
+package com.ecommerce;
+
+import com.ecommerce.dto.response.ProdutoResponseDTO;
+import com.ecommerce.service.IndiceCodigoBarras;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Testes do índice de códigos de barras (sem banco): inclusão, troca e remoção de códigos e
+ * consultas concorrentes com os redimensionamentos da tabela.
+ */
+class IndiceCodigoBarrasTest {
+
+    @Test
+    @DisplayName("Deve encontrar, reassociar e remover produtos por código")
+    void deveManterCodigos() {
+        IndiceCodigoBarras indice = new IndiceCodigoBarras();
+        ProdutoResponseDTO a = produto("7891000100103");
+        ProdutoResponseDTO b = produto("0012");
+        indice.produtoSalvo(a);
+        indice.produtoSalvo(b);
+
+        assertThat(indice.buscar("7891000100103")).isSameAs(a);
+        assertThat(indice.buscar("0012")).isSameAs(b);
+        assertThat(indice.buscar("12")).isNull();
+        assertThat(indice.buscar("ABC")).isNull();
+
+        a.setCodigoBarras("7891000100110");
+        indice.produtoSalvo(a);
+        assertThat(indice.buscar("7891000100103")).isNull();
+        assertThat(indice.buscar("7891000100110")).isSameAs(a);
+
+        indice.produtoRemovido(b.getId());
+        assertThat(indice.buscar("0012")).isNull();
+        assertThat(indice.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Consultas durante redimensionamentos não devem falhar nem errar o produto")
+    void deveConsultarDuranteRedimensionamento() throws Exception {
+        IndiceCodigoBarras indice = new IndiceCodigoBarras();
+        List<ProdutoResponseDTO> fixos = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            ProdutoResponseDTO produto = produto(String.valueOf(1_000_000_000L + i));
+            fixos.add(produto);
+            indice.produtoSalvo(produto);
+        }
+
+        AtomicBoolean escrevendo = new AtomicBoolean(true);
+        ConcurrentLinkedQueue<Throwable> erros = new ConcurrentLinkedQueue<>();
+        List<Thread> leitores = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread leitor = new Thread(() -> {
+                try {
+                    int i = 0;
+                    while (escrevendo.get()) {
+                        ProdutoResponseDTO esperado = fixos.get(i++ % fixos.size());
+                        ProdutoResponseDTO encontrado = indice.buscar(esperado.getCodigoBarras());
+                        if (encontrado != esperado) {
+                            throw new AssertionError("Produto errado para " + esperado.getCodigoBarras());
+                        }
+                    }
+                } catch (Throwable e) {
+                    erros.add(e);
+                }
+            });
+            leitores.add(leitor);
+            leitor.start();
+        }
+
+        // 200 mil inclusões: a tabela dobra de tamanho várias vezes enquanto os leitores consultam
+        for (int i = 0; i < 200_000; i++) {
+            indice.produtoSalvo(produto(String.valueOf(5_000_000_000L + i)));
+        }
+        escrevendo.set(false);
+        for (Thread leitor : leitores) {
+            leitor.join();
+        }
+
+        assertThat(erros).isEmpty();
+        assertThat(indice.size()).isEqualTo(200_100);
+    }
+
+    private static ProdutoResponseDTO produto(String codigoBarras) {
+        ProdutoResponseDTO produto = new ProdutoResponseDTO();
+        produto.setId(UUID.randomUUID());
+        produto.setNome("Produto " + codigoBarras);
+        produto.setCodigoBarras(codigoBarras);
+        return produto;
+    }
+}
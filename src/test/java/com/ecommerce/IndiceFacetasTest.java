@@ -0,0 +1,230 @@
+package com.ecommerce;
+
+import com.ecommerce.config.DatabaseConfig;
+import com.ecommerce.domain.Categoria;
+import com.ecommerce.domain.Produto;
+import com.ecommerce.dto.response.CategoriaResponseDTO;
+import com.ecommerce.dto.response.FacetasResponseDTO;
+import com.ecommerce.dto.response.ProdutoResponseDTO;
+import com.ecommerce.mapper.CategoriaMapper;
+import com.ecommerce.mapper.ProdutoMapper;
+import com.ecommerce.repository.CategoriaRepository;
+import com.ecommerce.repository.ProdutoRepository;
+import com.ecommerce.service.CatalogoService;
+import com.ecommerce.service.ProdutoService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Testes da navegação facetada (sem banco): o catálogo é carregado de repositórios simulados e
+ * consultado por ProdutoService.navegar, que usa os bitmaps de IndiceFacetas do snapshot.
+ *
+ * Catálogo fixo, com um produto em cada limite das faixas de preço:
+ * Achocolatado 0 (B), Biscoito 24.99 (M), Café 25 (M), Cerveja 49.99 (B), Desinfetante 100 (L),
+ * Detergente 50 (L), Espumante 250 (B), Faqueiro 500 (M), Geladeira 999.99 (M),
+ * Lava-louças 1000 (L), Whisky 5000 (B) - B = Bebidas, L = Limpeza, M = Mercearia.
+ */
+class IndiceFacetasTest {
+
+    private final UUID bebidas = UUID.randomUUID();
+    private final UUID limpeza = UUID.randomUUID();
+    private final UUID mercearia = UUID.randomUUID();
+    private final List<CategoriaResponseDTO> categorias = List.of(
+        categoria(bebidas, "Bebidas"), categoria(limpeza, "Limpeza"), categoria(mercearia, "Mercearia"));
+
+    @Test
+    @DisplayName("Cada faceta deve ser contada com os demais filtros, mas não com o dela mesma")
+    void deveContarFacetasSemOProprioFiltro() {
+        ProdutoService produtoService = servico(catalogoFixo(), categorias);
+
+        FacetasResponseDTO resposta = produtoService.navegar(List.of(bebidas), null, new BigDecimal("50"), null, 1, 20);
+
+        assertThat(nomes(resposta)).containsExactly("Achocolatado", "Cerveja");
+        assertThat(resposta.getTotal()).isEqualTo(2);
+        // Categorias contadas só com o filtro de preço (até 50): Achocolatado, Biscoito, Café, Cerveja, Detergente
+        assertThat(resposta.getCategorias()).extracting(FacetasResponseDTO.Categoria::getNome, FacetasResponseDTO.Categoria::getQuantidade)
+            .containsExactly(
+                tuple("Bebidas", 2),
+                tuple("Limpeza", 1),
+                tuple("Mercearia", 2));
+        // Faixas contadas só com o filtro de categoria: Achocolatado 0, Cerveja 49.99, Espumante 250, Whisky 5000
+        assertThat(resposta.getFaixasPreco()).extracting(FacetasResponseDTO.FaixaPreco::getQuantidade)
+            .containsExactly(1, 1, 0, 0, 1, 0, 1);
+    }
+
+    @Test
+    @DisplayName("Faixas devem ser [min, max) em 0/25/50/100/250/500/1000 e o filtro de preço inclusivo nos dois extremos")
+    void deveRespeitarLimitesDasFaixas() {
+        ProdutoService produtoService = servico(catalogoFixo(), categorias);
+
+        FacetasResponseDTO semFiltro = produtoService.navegar(null, null, null, null, 1, 20);
+        assertThat(semFiltro.getTotal()).isEqualTo(11);
+        assertThat(semFiltro.getFaixasPreco()).extracting(FacetasResponseDTO.FaixaPreco::getMin)
+            .usingElementComparator(BigDecimal::compareTo)
+            .containsExactly(valores("0", "25", "50", "100", "250", "500", "1000"));
+        assertThat(semFiltro.getFaixasPreco()).extracting(FacetasResponseDTO.FaixaPreco::getMax)
+            .usingElementComparator((a, b) -> a == null || b == null ? (a == b ? 0 : 1) : a.compareTo(b))
+            .containsExactly(valores("25", "50", "100", "250", "500", "1000", null));
+        // O valor do limite fica na faixa de cima: 25 em [25, 50), 999.99 em [500, 1000), 1000 em [1000, ∞)
+        assertThat(semFiltro.getFaixasPreco()).extracting(FacetasResponseDTO.FaixaPreco::getQuantidade)
+            .containsExactly(2, 2, 1, 1, 1, 2, 2);
+
+        assertThat(nomes(produtoService.navegar(null, new BigDecimal("25"), new BigDecimal("50"), null, 1, 20)))
+            .containsExactly("Café", "Cerveja", "Detergente");
+        assertThat(nomes(produtoService.navegar(null, new BigDecimal("25.00"), new BigDecimal("49.99"), null, 1, 20)))
+            .containsExactly("Café", "Cerveja");
+        assertThat(nomes(produtoService.navegar(null, new BigDecimal("24.995"), new BigDecimal("999.985"), null, 1, 20)))
+            .containsExactly("Café", "Cerveja", "Desinfetante", "Detergente", "Espumante", "Faqueiro");
+        assertThat(nomes(produtoService.navegar(null, new BigDecimal("1000"), null, null, 1, 20)))
+            .containsExactly("Lava-louças", "Whisky");
+        assertThat(nomes(produtoService.navegar(null, null, BigDecimal.ZERO, null, 1, 20)))
+            .containsExactly("Achocolatado");
+
+        assertThatThrownBy(() -> produtoService.navegar(null, BigDecimal.TEN, BigDecimal.ONE, null, 1, 20))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("categoriaId repetido deve filtrar por qualquer uma das categorias (OR)")
+    void deveCombinarCategoriasComOu() {
+        ProdutoService produtoService = servico(catalogoFixo(), categorias);
+
+        assertThat(nomes(produtoService.navegar(List.of(bebidas, limpeza), null, null, null, 1, 20)))
+            .containsExactly("Achocolatado", "Cerveja", "Desinfetante", "Detergente", "Espumante", "Lava-louças", "Whisky");
+
+        // OR entre categorias, AND com o preço; categoria desconhecida não acrescenta nada
+        FacetasResponseDTO resposta = produtoService.navegar(List.of(bebidas, limpeza, UUID.randomUUID()),
+            null, new BigDecimal("100"), null, 1, 20);
+        assertThat(nomes(resposta)).containsExactly("Achocolatado", "Cerveja", "Desinfetante", "Detergente");
+        assertThat(resposta.getCategorias()).extracting(FacetasResponseDTO.Categoria::getQuantidade)
+            .containsExactly(2, 2, 2);
+    }
+
+    @Test
+    @DisplayName("Deve paginar o resultado em ordem de nome")
+    void devePaginarEmOrdemDeNome() {
+        ProdutoService produtoService = servico(catalogoFixo(), categorias);
+
+        assertThat(nomes(produtoService.navegar(null, null, null, null, 1, 4)))
+            .containsExactly("Achocolatado", "Biscoito", "Café", "Cerveja");
+        assertThat(nomes(produtoService.navegar(null, null, null, null, 2, 4)))
+            .containsExactly("Desinfetante", "Detergente", "Espumante", "Faqueiro");
+        FacetasResponseDTO ultima = produtoService.navegar(null, null, null, null, 3, 4);
+        assertThat(nomes(ultima)).containsExactly("Geladeira", "Lava-louças", "Whisky");
+        assertThat(ultima.getTotal()).isEqualTo(11);
+        FacetasResponseDTO depoisDoFim = produtoService.navegar(null, null, null, null, 4, 4);
+        assertThat(depoisDoFim.getItens()).isEmpty();
+        assertThat(depoisDoFim.getTotal()).isEqualTo(11);
+
+        // Mais de um long por bitmap: 150 produtos cadastrados fora de ordem
+        List<ProdutoResponseDTO> muitos = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            muitos.add(produto(String.format("Produto %03d", i), i % 2 == 0 ? "10" : "30", i % 3 == 0 ? bebidas : mercearia));
+        }
+        Collections.shuffle(muitos, new Random(42));
+        ProdutoService comMuitos = servico(muitos, categorias);
+
+        FacetasResponseDTO pagina = comMuitos.navegar(List.of(bebidas), new BigDecimal("25"), null, null, 2, 10);
+        // Bebidas (múltiplos de 3) com preço 30 (ímpares): 3, 9, 15, ... - a segunda página começa em 63
+        assertThat(pagina.getTotal()).isEqualTo(25);
+        assertThat(nomes(pagina)).containsExactly(
+            "Produto 063", "Produto 069", "Produto 075", "Produto 081", "Produto 087",
+            "Produto 093", "Produto 099", "Produto 105", "Produto 111", "Produto 117");
+        assertThat(nomes(comMuitos.navegar(null, null, null, null, 3, 50))).hasSize(50)
+            .startsWith("Produto 100").endsWith("Produto 149");
+    }
+
+    private List<ProdutoResponseDTO> catalogoFixo() {
+        return List.of(
+            produto("Whisky", "5000", bebidas),
+            produto("Achocolatado", "0", bebidas),
+            produto("Biscoito", "24.99", mercearia),
+            produto("Café", "25.00", mercearia),
+            produto("Cerveja", "49.99", bebidas),
+            produto("Detergente", "50", limpeza),
+            produto("Desinfetante", "100", limpeza),
+            produto("Espumante", "250", bebidas),
+            produto("Faqueiro", "500", mercearia),
+            produto("Geladeira", "999.99", mercearia),
+            produto("Lava-louças", "1000", limpeza));
+    }
+
+    /**
+     * ProdutoService com o catálogo carregado dos produtos e categorias informados
+     */
+    private static ProdutoService servico(List<ProdutoResponseDTO> produtos, List<CategoriaResponseDTO> categorias) {
+        Map<Produto, ProdutoResponseDTO> produtosPorEntidade = new IdentityHashMap<>();
+        for (ProdutoResponseDTO produto : produtos) {
+            produtosPorEntidade.put(new Produto(), produto);
+        }
+        Map<Categoria, CategoriaResponseDTO> categoriasPorEntidade = new IdentityHashMap<>();
+        for (CategoriaResponseDTO categoria : categorias) {
+            categoriasPorEntidade.put(new Categoria(), categoria);
+        }
+
+        ProdutoRepository produtoRepository = mock(ProdutoRepository.class);
+        CategoriaRepository categoriaRepository = mock(CategoriaRepository.class);
+        ProdutoMapper produtoMapper = mock(ProdutoMapper.class);
+        CategoriaMapper categoriaMapper = mock(CategoriaMapper.class);
+        when(produtoRepository.findAllWithCategoria()).thenReturn(new ArrayList<>(produtosPorEntidade.keySet()));
+        when(categoriaRepository.findAll()).thenReturn(new ArrayList<>(categoriasPorEntidade.keySet()));
+        when(produtoMapper.toResponseDTO(any())).thenAnswer(invocation -> produtosPorEntidade.get(invocation.getArgument(0)));
+        when(categoriaMapper.toResponseDTO(any())).thenAnswer(invocation -> categoriasPorEntidade.get(invocation.getArgument(0)));
+
+        CatalogoService catalogoService = new CatalogoService(produtoRepository, categoriaRepository, produtoMapper, categoriaMapper);
+        try (MockedStatic<DatabaseConfig> database = Mockito.mockStatic(DatabaseConfig.class)) {
+            database.when(() -> DatabaseConfig.executeInNewContext(any(), any(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(2).get());
+            catalogoService.recarregar();
+        }
+        return new ProdutoService(produtoRepository, categoriaRepository, produtoMapper, catalogoService, null, null, null);
+    }
+
+    private static ProdutoResponseDTO produto(String nome, String preco, UUID categoriaId) {
+        ProdutoResponseDTO produto = new ProdutoResponseDTO();
+        produto.setId(UUID.randomUUID());
+        produto.setNome(nome);
+        produto.setPreco(new BigDecimal(preco));
+        produto.setCodigoBarras(String.valueOf(System.nanoTime()));
+        produto.setCategoriaId(categoriaId);
+        return produto;
+    }
+
+    private static CategoriaResponseDTO categoria(UUID id, String nome) {
+        CategoriaResponseDTO categoria = new CategoriaResponseDTO();
+        categoria.setId(id);
+        categoria.setNome(nome);
+        return categoria;
+    }
+
+    private static List<String> nomes(FacetasResponseDTO resposta) {
+        return resposta.getItens().stream().map(ProdutoResponseDTO::getNome).toList();
+    }
+
+    private static BigDecimal[] valores(String... valores) {
+        BigDecimal[] resultado = new BigDecimal[valores.length];
+        for (int i = 0; i < valores.length; i++) {
+            resultado[i] = valores[i] == null ? null : new BigDecimal(valores[i]);
+        }
+        return resultado;
+    }
+}
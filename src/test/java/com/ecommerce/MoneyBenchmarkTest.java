@@ -0,0 +1,84 @@
+package com.ecommerce;
+
+import com.ecommerce.domain.Money;
+import org.junit.jupiter.api.*;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Micro-benchmark do cálculo de totais (carrinho e checkout) com BigDecimal e com centavos em long
+ * (Money). Não usa banco: mede só a aritmética e as alocações do laço de soma. Fora do "test"
+ * padrão (./gradlew benchmark); os testes de Money ficam em MoneyTest.
+ */
+@Tag("benchmark")
+class MoneyBenchmarkTest {
+
+    private static final int ITENS = 50;
+    private static final int AQUECIMENTO = 20_000;
+    private static final int ITERACOES = 200_000;
+
+    private static BigDecimal[] precos;
+    private static long[] precosCentavos;
+    private static int[] quantidades;
+
+    @BeforeAll
+    static void setupAll() {
+        Random random = new Random(42);
+        precos = new BigDecimal[ITENS];
+        precosCentavos = new long[ITENS];
+        quantidades = new int[ITENS];
+        for (int i = 0; i < ITENS; i++) {
+            precos[i] = BigDecimal.valueOf(random.nextInt(1_000_000) + 1, 2);
+            precosCentavos[i] = Money.centavos(precos[i]);
+            quantidades[i] = random.nextInt(10) + 1;
+        }
+    }
+
+    @Test
+    @DisplayName("Deve comparar o total do carrinho com BigDecimal e com centavos em long")
+    void deveCompararTotalBigDecimalComCentavos() {
+        for (int i = 0; i < AQUECIMENTO; i++) {
+            totalBigDecimal();
+            totalCentavos();
+        }
+
+        BigDecimal esperado = BigDecimal.ZERO;
+        long inicio = System.nanoTime();
+        for (int i = 0; i < ITERACOES; i++) {
+            esperado = totalBigDecimal();
+        }
+        long nanosBigDecimal = System.nanoTime() - inicio;
+
+        long centavos = 0;
+        inicio = System.nanoTime();
+        for (int i = 0; i < ITERACOES; i++) {
+            centavos = totalCentavos();
+        }
+        long nanosCentavos = System.nanoTime() - inicio;
+
+        System.out.println("📊 Total de carrinho com " + ITENS + " itens (" + ITERACOES + " iterações):");
+        System.out.printf("   BigDecimal: %.1f ns/op%n", (double) nanosBigDecimal / ITERACOES);
+        System.out.printf("   centavos (long): %.1f ns/op%n", (double) nanosCentavos / ITERACOES);
+
+        assertThat(Money.toBigDecimal(centavos)).isEqualByComparingTo(esperado);
+    }
+
+    private BigDecimal totalBigDecimal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < ITENS; i++) {
+            total = total.add(precos[i].multiply(BigDecimal.valueOf(quantidades[i])));
+        }
+        return total;
+    }
+
+    private long totalCentavos() {
+        long total = 0;
+        for (int i = 0; i < ITENS; i++) {
+            total = Money.somar(total, Money.multiplicar(precosCentavos[i], quantidades[i]));
+        }
+        return total;
+    }
+}
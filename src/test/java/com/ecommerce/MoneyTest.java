@@ -0,0 +1,58 @@
+package com.ecommerce;
+
+import com.ecommerce.domain.Money;
+import com.ecommerce.dto.response.CarrinhoResponseDTO;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Testes do valor monetário em centavos: conversão de e para BigDecimal, aritmética e o formato
+ * em JSON do carrinho (o mesmo número decimal de quando os totais eram BigDecimal).
+ */
+class MoneyTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("Money deve converter de e para BigDecimal sem perder centavos")
+    void deveConverterBigDecimal() {
+        assertThat(Money.of(new BigDecimal("19.90")).centavos()).isEqualTo(1990);
+        assertThat(Money.of(new BigDecimal("19.9")).centavos()).isEqualTo(1990);
+        assertThat(Money.of(new BigDecimal("0.005")).centavos()).isEqualTo(1);
+        assertThat(Money.of(null)).isNull();
+        assertThat(new Money(1990).toBigDecimal()).isEqualByComparingTo("19.90");
+        assertThat(new Money(1990).multiplicar(3).somar(new Money(30)).toString()).isEqualTo("60.00");
+        assertThatThrownBy(() -> Money.multiplicar(Long.MAX_VALUE, 2)).isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    @DisplayName("Totais do carrinho devem sair em JSON como número decimal e voltar como Money")
+    void deveSerializarTotaisDoCarrinho() throws Exception {
+        CarrinhoResponseDTO carrinho = new CarrinhoResponseDTO();
+        carrinho.setValorTotal(new Money(1050));
+        carrinho.setTotalValor(Money.ZERO);
+
+        String json = objectMapper.writeValueAsString(carrinho);
+        JsonNode arvore = objectMapper.readTree(json);
+
+        assertThat(arvore.get("valorTotal").isNumber()).isTrue();
+        assertThat(arvore.get("valorTotal").decimalValue()).isEqualByComparingTo("10.50");
+        assertThat(json).contains("\"valorTotal\":10.50").contains("\"totalValor\":0.00");
+        assertThat(objectMapper.readValue(json, CarrinhoResponseDTO.class).getValorTotal()).isEqualTo(new Money(1050));
+    }
+
+    @Test
+    @DisplayName("Desserialização deve aceitar número, texto numérico e nulo")
+    void deveDesserializarComoBigDecimal() throws Exception {
+        assertThat(objectMapper.readValue("19.9", Money.class)).isEqualTo(new Money(1990));
+        assertThat(objectMapper.readValue("\"7.25\"", Money.class)).isEqualTo(new Money(725));
+        assertThat(objectMapper.readValue("{\"valorTotal\":null}", CarrinhoResponseDTO.class).getValorTotal()).isNull();
+    }
+}
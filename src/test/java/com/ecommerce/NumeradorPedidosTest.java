@@ -0,0 +1,221 @@
+package com.ecommerce;
+
+import com.ecommerce.repository.NumeracaoPedidoRepository;
+import com.ecommerce.service.NumeradorPedidos;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Testes da numeração de pedidos (sem banco). O repositório simulado reproduz as consultas de
+ * NumeracaoPedidoRepository: o mapa contadores é a tabela numeracao_pedidos e pedidosGravados
+ * são os números já existentes em pedidos. Como o repositório não abre o EntityManager, o
+ * contexto de executeInNewContext não chega a ir ao banco.
+ */
+class NumeradorPedidosTest {
+
+    private static final Pattern SUFIXO_NUMERICO = Pattern.compile("[0-9]{1,18}");
+    private static final LocalDate DIA = LocalDate.of(2026, 3, 10);
+
+    private final Map<LocalDate, Long> contadores = new HashMap<>();
+    private final List<String> pedidosGravados = new ArrayList<>();
+    private NumeracaoPedidoRepository numeracaoRepository;
+    private RelogioAjustavel relogio;
+
+    @BeforeEach
+    void setUp() {
+        relogio = new RelogioAjustavel(DIA.atTime(12, 0).toInstant(ZoneOffset.UTC));
+        numeracaoRepository = repositorio();
+    }
+
+    @Test
+    @DisplayName("Chamadas concorrentes em dois nós devem esgotar os blocos sem repetir nem pular números")
+    void deveDistribuirBlocosSemRepetirNemPular() throws Exception {
+        NumeradorPedidos noA = new NumeradorPedidos(numeracaoRepository, relogio);
+        NumeradorPedidos noB = new NumeradorPedidos(numeracaoRepository, relogio);
+        ConcurrentLinkedQueue<Long> numerosA = new ConcurrentLinkedQueue<>();
+        ConcurrentLinkedQueue<Long> numerosB = new ConcurrentLinkedQueue<>();
+        ConcurrentLinkedQueue<Throwable> erros = new ConcurrentLinkedQueue<>();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 16; t++) {
+            NumeradorPedidos numerador = t % 2 == 0 ? noA : noB;
+            ConcurrentLinkedQueue<Long> numeros = t % 2 == 0 ? numerosA : numerosB;
+            Thread thread = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 100; i++) {
+                        numeros.add(sequencial(numerador.proximo(), DIA));
+                    }
+                } catch (Throwable e) {
+                    erros.add(e);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(erros).isEmpty();
+        List<Long> todos = new ArrayList<>(numerosA);
+        todos.addAll(numerosB);
+        assertThat(todos).hasSize(1600).doesNotHaveDuplicates();
+        assertThat(todos).allSatisfy(numero -> assertThat(numero).isBetween(1L, 1600L));
+
+        // 800 números por nó = 16 blocos inteiros de 50, cada um contíguo e usado até o fim
+        for (ConcurrentLinkedQueue<Long> numeros : List.of(numerosA, numerosB)) {
+            Map<Long, Integer> porBloco = new HashMap<>();
+            numeros.forEach(numero -> porBloco.merge((numero - 1) / 50, 1, Integer::sum));
+            assertThat(porBloco).hasSize(16);
+            assertThat(porBloco.values()).containsOnly(50);
+        }
+        verify(numeracaoRepository, times(32)).reservarBloco(DIA, 50);
+        verify(numeracaoRepository, times(2)).iniciarDia(DIA, "PED-20260310-");
+    }
+
+    @Test
+    @DisplayName("Na virada do dia a numeração deve recomeçar com um contador novo")
+    void deveRecomecarNaViradaDoDia() {
+        NumeradorPedidos numerador = new NumeradorPedidos(numeracaoRepository, relogio);
+        relogio.ajustar(DIA.atTime(23, 59, 59).toInstant(ZoneOffset.UTC));
+        assertThat(numerador.proximo()).isEqualTo("PED-20260310-0001");
+        assertThat(numerador.proximo()).isEqualTo("PED-20260310-0002");
+
+        LocalDate amanha = DIA.plusDays(1);
+        relogio.ajustar(amanha.atStartOfDay().toInstant(ZoneOffset.UTC));
+        assertThat(numerador.proximo()).isEqualTo("PED-20260311-0001");
+        assertThat(numerador.proximo()).isEqualTo("PED-20260311-0002");
+
+        InOrder ordem = inOrder(numeracaoRepository);
+        ordem.verify(numeracaoRepository).iniciarDia(DIA, "PED-20260310-");
+        ordem.verify(numeracaoRepository).reservarBloco(DIA, 50);
+        ordem.verify(numeracaoRepository).iniciarDia(amanha, "PED-20260311-");
+        ordem.verify(numeracaoRepository).reservarBloco(amanha, 50);
+        // O resto do bloco do dia anterior é descartado, sem nova reserva para ele
+        verify(numeracaoRepository, times(1)).reservarBloco(eq(DIA), anyInt());
+    }
+
+    @Test
+    @DisplayName("Dia sem contador deve continuar depois do maior PED-YYYYMMDD-NNNN já gravado")
+    void deveIniciarDiaPeloMaiorNumeroGravado() {
+        pedidosGravados.addAll(List.of(
+            "PED-20260310-0007",
+            "PED-20260310-0123",
+            "PED-20260310-00A9",   // sufixo não numérico: ignorado
+            "PED-20260309-9999",   // outro dia
+            "PEDIDO-LEGADO-500"));
+        NumeradorPedidos numerador = new NumeradorPedidos(numeracaoRepository, relogio);
+
+        assertThat(numerador.proximo()).isEqualTo("PED-20260310-0124");
+        assertThat(numerador.proximo()).isEqualTo("PED-20260310-0125");
+
+        // Outro nó que sobe no mesmo dia encontra o contador criado e não volta ao maior gravado
+        NumeradorPedidos outroNo = new NumeradorPedidos(numeracaoRepository, relogio);
+        assertThat(outroNo.proximo()).isEqualTo("PED-20260310-0174");
+        verify(numeracaoRepository, times(2)).iniciarDia(DIA, "PED-20260310-");
+    }
+
+    @Test
+    @DisplayName("Acima de 9999 pedidos no dia o número deve passar de 4 dígitos")
+    void devePassarDeQuatroDigitos() {
+        pedidosGravados.add("PED-20260310-9999");
+        NumeradorPedidos numerador = new NumeradorPedidos(numeracaoRepository, relogio);
+
+        assertThat(numerador.proximo()).isEqualTo("PED-20260310-10000");
+        assertThat(sequencial(numerador.proximo(), DIA)).isEqualTo(10001L);
+    }
+
+    /**
+     * Repositório simulado com a semântica das consultas do NumeracaoPedidoRepository
+     */
+    private NumeracaoPedidoRepository repositorio() {
+        NumeracaoPedidoRepository repositorio = mock(NumeracaoPedidoRepository.class);
+        doAnswer(invocation -> {
+            LocalDate dia = invocation.getArgument(0);
+            String prefixo = invocation.getArgument(1);
+            synchronized (contadores) {
+                long maior = pedidosGravados.stream()
+                    .filter(numero -> numero.startsWith(prefixo))
+                    .map(numero -> numero.substring(prefixo.length()))
+                    .filter(sufixo -> SUFIXO_NUMERICO.matcher(sufixo).matches())
+                    .mapToLong(Long::parseLong)
+                    .max()
+                    .orElse(0);
+                // INSERT ... ON CONFLICT (dia) DO NOTHING
+                contadores.putIfAbsent(dia, maior + 1);
+            }
+            return null;
+        }).when(repositorio).iniciarDia(any(), any());
+        when(repositorio.reservarBloco(any(), anyInt())).thenAnswer(invocation -> {
+            LocalDate dia = invocation.getArgument(0);
+            int tamanho = invocation.getArgument(1);
+            synchronized (contadores) {
+                // INSERT ... VALUES (1 + tamanho) ON CONFLICT DO UPDATE SET proximo = proximo + tamanho RETURNING proximo
+                long proximo = contadores.merge(dia, 1L + tamanho, (atual, novo) -> atual + tamanho);
+                return proximo - tamanho;
+            }
+        });
+        return repositorio;
+    }
+
+    private static long sequencial(String numero, LocalDate dia) {
+        String prefixo = "PED-" + dia.toString().replace("-", "") + "-";
+        assertThat(numero).startsWith(prefixo);
+        return Long.parseLong(numero.substring(prefixo.length()));
+    }
+
+    /**
+     * Relógio com o instante ajustado pelo teste (virada do dia)
+     */
+    private static final class RelogioAjustavel extends Clock {
+        private volatile Instant agora;
+
+        RelogioAjustavel(Instant agora) {
+            this.agora = agora;
+        }
+
+        void ajustar(Instant instante) {
+            agora = instante;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return agora;
+        }
+    }
+}
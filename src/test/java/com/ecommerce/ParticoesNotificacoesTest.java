@@ -0,0 +1,104 @@
+package com.ecommerce;
+
+import com.ecommerce.config.DatabaseConfig;
+import com.ecommerce.config.RequestPersistenceContext;
+import com.ecommerce.repository.NotificacaoParticaoRepository;
+import com.ecommerce.repository.NotificacaoParticaoRepository.Particao;
+import com.ecommerce.service.ParticoesNotificacoes;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Conversão da tabela notificacoes criada pelo Hibernate em tabela particionada, no PostgreSQL.
+ *
+ * Roda em um schema próprio (criado pelo hbm2ddl e apagado no final): a conversão troca a
+ * estrutura da tabela e não pode mexer na do schema padrão.
+ */
+class ParticoesNotificacoesTest {
+
+    private static final String SCHEMA = "teste_particoes_" + Long.toString(System.nanoTime(), 36);
+    private static final DateTimeFormatter SUFIXO = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private static NotificacaoParticaoRepository particaoRepository;
+    private static ParticoesNotificacoes particoes;
+
+    @BeforeAll
+    static void setupAll() {
+        DatabaseConfig.initialize(SCHEMA);
+        particaoRepository = new NotificacaoParticaoRepository(null);
+        particoes = new ParticoesNotificacoes(particaoRepository);
+    }
+
+    @AfterAll
+    static void tearDownAll() {
+        try {
+            DatabaseConfig.executeInNewContext(RequestPersistenceContext.Modo.ESCRITA, "limpeza do schema de teste", () ->
+                DatabaseConfig.getEntityManager().createNativeQuery("DROP SCHEMA " + SCHEMA + " CASCADE").executeUpdate());
+        } finally {
+            DatabaseConfig.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Deve particionar a tabela do Hibernate, criar as partições e remover a legado")
+    void deveParticionarTabelaDoHibernate() {
+        assertThat(relkind()).isEqualTo("r");
+
+        particoes.preparar();
+
+        assertThat(relkind()).isEqualTo("p");
+        YearMonth atual = YearMonth.now();
+        LocalDateTime inicioProximoMes = atual.plusMonths(1).atDay(1).atStartOfDay();
+        List<Particao> criadas = listarParticoes();
+        assertThat(criadas).extracting(Particao::nome).containsExactlyInAnyOrder(
+            NotificacaoParticaoRepository.PARTICAO_LEGADO,
+            NotificacaoParticaoRepository.PARTICAO_PADRAO,
+            nomeParticao(atual.plusMonths(1)),
+            nomeParticao(atual.plusMonths(2)),
+            nomeParticao(atual.plusMonths(3)));
+        assertThat(criadas).filteredOn(Particao::padrao).hasSize(1);
+        assertThat(criadas).filteredOn(particao -> particao.nome().equals(NotificacaoParticaoRepository.PARTICAO_LEGADO))
+            .singleElement()
+            .satisfies(legado -> {
+                assertThat(legado.inicio()).isNull();
+                assertThat(legado.fim()).isEqualTo(inicioProximoMes);
+            });
+
+        // Só a legado termina até o início do próximo mês; a padrão nunca é removida
+        assertThat(particoes.removerAnterioresA(inicioProximoMes))
+            .containsExactly(NotificacaoParticaoRepository.PARTICAO_LEGADO);
+        assertThat(listarParticoes()).extracting(Particao::nome)
+            .doesNotContain(NotificacaoParticaoRepository.PARTICAO_LEGADO)
+            .hasSize(4);
+
+        // Segunda subida: nada a converter nem a criar
+        particoes.preparar();
+        assertThat(listarParticoes()).hasSize(4);
+    }
+
+    private static String relkind() {
+        return DatabaseConfig.executeInNewContext(RequestPersistenceContext.Modo.SOMENTE_LEITURA, "tipo da tabela", () ->
+            String.valueOf(DatabaseConfig.getEntityManager().createNativeQuery(
+                    "SELECT c.relkind FROM pg_class c WHERE c.oid = to_regclass(:tabela)")
+                .setParameter("tabela", NotificacaoParticaoRepository.TABELA)
+                .getSingleResult()));
+    }
+
+    private static List<Particao> listarParticoes() {
+        return DatabaseConfig.executeInNewContext(RequestPersistenceContext.Modo.SOMENTE_LEITURA, "partições",
+            particaoRepository::listarParticoes);
+    }
+
+    private static String nomeParticao(YearMonth mes) {
+        return NotificacaoParticaoRepository.TABELA + "_p" + SUFIXO.format(mes);
+    }
+}
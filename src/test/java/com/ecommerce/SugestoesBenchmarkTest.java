@@ -0,0 +1,104 @@
+package com.ecommerce;
+
+import com.ecommerce.dto.response.ProdutoResponseDTO;
+import com.ecommerce.service.SugestoesService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Benchmark do autocompletar: trie de SugestoesService contra a varredura de todos os nomes
+ * (startsWith + ordenação por vendas), com latência por consulta em p50/p99 e o tempo de uma
+ * reconstrução completa da trie.
+ *
+ * Fica fora do "test" padrão (./gradlew benchmark). Só imprime os tempos: não há asserção de tempo.
+ */
+@Tag("benchmark")
+class SugestoesBenchmarkTest {
+
+    private static final int PRODUTOS = 100_000;
+    private static final int CONSULTAS = 20_000;
+    private static final int VARREDURAS = 200;
+
+    @Test
+    @DisplayName("Deve medir a latência das sugestões e comparar com a varredura dos nomes")
+    void deveMedirLatenciaDasSugestoes() {
+        Random random = new Random(42);
+        List<ProdutoResponseDTO> produtos = new ArrayList<>(PRODUTOS);
+        Map<UUID, Long> vendas = new HashMap<>();
+        for (int i = 0; i < PRODUTOS; i++) {
+            ProdutoResponseDTO produto = TrieSugestoesTest.produto(IndiceBuscaProdutosTest.nomeAleatorio(random), null);
+            produtos.add(produto);
+            vendas.put(produto.getId(), (long) random.nextInt(1_000));
+        }
+
+        long inicioConstrucao = System.nanoTime();
+        SugestoesService sugestoes = TrieSugestoesTest.servico(produtos, List.of(), vendas);
+        long nanosConstrucao = System.nanoTime() - inicioConstrucao;
+
+        // Prefixos de 1 a 8 caracteres dos próprios nomes, como digitados no campo de busca
+        String[] prefixos = new String[CONSULTAS];
+        for (int i = 0; i < CONSULTAS; i++) {
+            String nome = semAcentos(produtos.get(random.nextInt(PRODUTOS)).getNome());
+            prefixos[i] = nome.substring(0, 1 + random.nextInt(Math.min(8, nome.length()))).strip();
+        }
+
+        // Mesmo resultado nos dois caminhos (vendas como critério; empates podem trocar de ordem)
+        for (int i = 0; i < 20; i++) {
+            assertThat(sugestoes.sugerir(prefixos[i], 10)).extracting(sugestao -> sugestao.getVendas())
+                .containsExactlyElementsOf(varrer(produtos, vendas, prefixos[i]).stream().map(vendas::get).toList());
+        }
+
+        // Aquecimento do JIT
+        for (String prefixo : prefixos) {
+            sugestoes.sugerir(prefixo, 10);
+        }
+
+        long[] latencias = new long[CONSULTAS];
+        for (int i = 0; i < CONSULTAS; i++) {
+            long inicio = System.nanoTime();
+            sugestoes.sugerir(prefixos[i], 10);
+            latencias[i] = System.nanoTime() - inicio;
+        }
+        Arrays.sort(latencias);
+
+        long inicioVarredura = System.nanoTime();
+        for (int i = 0; i < VARREDURAS; i++) {
+            varrer(produtos, vendas, prefixos[i]);
+        }
+        long nanosVarredura = System.nanoTime() - inicioVarredura;
+
+        System.out.printf("🔤 Sugestões com %d nomes - trie: p50 %.1f µs | p99 %.1f µs | varredura: %.3f ms/consulta | reconstrução: %d ms%n",
+            PRODUTOS, latencias[CONSULTAS / 2] / 1e3, latencias[CONSULTAS * 99 / 100] / 1e3,
+            nanosVarredura / 1e6 / VARREDURAS, nanosConstrucao / 1_000_000);
+    }
+
+    /**
+     * Top 10 por vendas entre os nomes que começam com o prefixo, percorrendo todos
+     */
+    private static List<UUID> varrer(List<ProdutoResponseDTO> produtos, Map<UUID, Long> vendas, String prefixo) {
+        return produtos.stream()
+            .filter(produto -> semAcentos(produto.getNome()).startsWith(prefixo))
+            .sorted(Comparator.comparingLong(produto -> -vendas.get(produto.getId())))
+            .limit(10)
+            .map(ProdutoResponseDTO::getId)
+            .toList();
+    }
+
+    private static String semAcentos(String nome) {
+        return Normalizer.normalize(nome, Normalizer.Form.NFD).replaceAll("\\p{M}", "").toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,145 @@
+package com.ecommerce;
+
+import com.ecommerce.config.DatabaseConfig;
+import com.ecommerce.dto.response.CategoriaResponseDTO;
+import com.ecommerce.dto.response.ProdutoResponseDTO;
+import com.ecommerce.dto.response.SugestaoResponseDTO;
+import com.ecommerce.repository.PedidoItemRepository;
+import com.ecommerce.service.CatalogoSnapshot;
+import com.ecommerce.service.SugestoesService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Testes do autocompletar (sem banco): a trie é montada por SugestoesService a partir de um
+ * catálogo e de vendas simulados.
+ */
+class TrieSugestoesTest {
+
+    @Test
+    @DisplayName("Deve completar o prefixo sem diferenciar maiúsculas nem acentos")
+    void deveCompletarPrefixoIgnorandoAcentos() {
+        ProdutoResponseDTO acucar = produto("Açúcar Cristal 1kg", null);
+        ProdutoResponseDTO acai = produto("Açaí Natural", null);
+        ProdutoResponseDTO arroz = produto("Arroz Branco", null);
+        SugestoesService sugestoes = servico(List.of(acucar, acai, arroz), List.of(), Map.of());
+
+        assertThat(sugestoes.sugerir("acu", 10)).extracting(SugestaoResponseDTO::getId).containsExactly(acucar.getId());
+        assertThat(sugestoes.sugerir("AÇÚ", 10)).extracting(SugestaoResponseDTO::getId).containsExactly(acucar.getId());
+        assertThat(sugestoes.sugerir("ac", 10)).extracting(SugestaoResponseDTO::getId)
+            .containsExactlyInAnyOrder(acucar.getId(), acai.getId());
+        assertThat(sugestoes.sugerir("açúcar cristal 1", 10)).extracting(SugestaoResponseDTO::getTexto)
+            .containsExactly("Açúcar Cristal 1kg");
+        assertThat(sugestoes.sugerir("a", 10)).hasSize(3);
+
+        // Prefixo que diverge no meio de uma aresta comprimida, ou que vai além da chave
+        assertThat(sugestoes.sugerir("acx", 10)).isEmpty();
+        assertThat(sugestoes.sugerir("acuz", 10)).isEmpty();
+        assertThat(sugestoes.sugerir("arroz branco integral", 10)).isEmpty();
+        assertThat(sugestoes.sugerir("feijao", 10)).isEmpty();
+        assertThat(sugestoes.sugerir("", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve ordenar por vendas, com empate em ordem alfabética, e incluir categorias")
+    void deveOrdenarPorVendas() {
+        UUID categoriaId = UUID.randomUUID();
+        ProdutoResponseDTO cafeA = produto("Café Arábica", categoriaId);
+        ProdutoResponseDTO cafeB = produto("Café Bourbon", categoriaId);
+        ProdutoResponseDTO cafeC = produto("Café Conilon", categoriaId);
+        ProdutoResponseDTO cafeD = produto("Café Descafeinado", categoriaId);
+        CategoriaResponseDTO cafes = categoria(categoriaId, "Cafés");
+        Map<UUID, Long> vendas = Map.of(cafeA.getId(), 5L, cafeB.getId(), 20L, cafeC.getId(), 5L);
+        SugestoesService sugestoes = servico(List.of(cafeD, cafeC, cafeB, cafeA), List.of(cafes), vendas);
+
+        List<SugestaoResponseDTO> resultado = sugestoes.sugerir("cafe", 10);
+        assertThat(resultado).extracting(SugestaoResponseDTO::getTexto)
+            .containsExactly("Cafés", "Café Bourbon", "Café Arábica", "Café Conilon", "Café Descafeinado");
+        assertThat(resultado.get(0).getTipo()).isEqualTo("CATEGORIA");
+        assertThat(resultado.get(0).getVendas()).isEqualTo(30L);
+        assertThat(resultado.get(1).getTipo()).isEqualTo("PRODUTO");
+
+        assertThat(sugestoes.sugerir("cafe", 2)).extracting(SugestaoResponseDTO::getTexto)
+            .containsExactly("Cafés", "Café Bourbon");
+        assertThatThrownBy(() -> sugestoes.sugerir("cafe", 11)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> sugestoes.sugerir("cafe", 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Nós com mais de 32 chaves devem devolver o mesmo top-k que a varredura")
+    void deveUsarTopProntoNosNosGrandes() {
+        List<ProdutoResponseDTO> produtos = new ArrayList<>();
+        Map<UUID, Long> vendas = new HashMap<>();
+        for (int i = 0; i < 200; i++) {
+            ProdutoResponseDTO produto = produto(String.format("Feijão %03d", i), null);
+            produtos.add(produto);
+            // Muitos empates: só os pesos de 0 a 6, espalhados pelas chaves
+            vendas.put(produto.getId(), (long) (i % 7));
+        }
+        SugestoesService sugestoes = servico(produtos, List.of(), vendas);
+
+        // "feijao" cobre 200 chaves, "feijao 1" cobre 100 e "feijao 19" só 10 (varredura)
+        for (String prefixo : List.of("f", "feijao", "feijao 1", "feijao 19", "feijao 199")) {
+            List<String> esperado = produtos.stream()
+                .filter(produto -> produto.getNome().replace("ã", "a").toLowerCase().startsWith(prefixo))
+                .sorted(Comparator.<ProdutoResponseDTO>comparingLong(produto -> -vendas.get(produto.getId()))
+                    .thenComparing(produto -> produto.getNome()))
+                .limit(10)
+                .map(ProdutoResponseDTO::getNome)
+                .toList();
+            assertThat(sugestoes.sugerir(prefixo, 10)).as("prefixo '%s'", prefixo)
+                .extracting(SugestaoResponseDTO::getTexto)
+                .containsExactlyElementsOf(esperado);
+        }
+    }
+
+    /**
+     * SugestoesService com a trie já montada para o catálogo e as vendas informados
+     */
+    static SugestoesService servico(List<ProdutoResponseDTO> produtos, List<CategoriaResponseDTO> categorias,
+                                    Map<UUID, Long> vendas) {
+        CatalogoSnapshot snapshot = mock(CatalogoSnapshot.class);
+        when(snapshot.getProdutos()).thenReturn(produtos);
+        when(snapshot.getCategorias()).thenReturn(categorias);
+
+        SugestoesService sugestoes = new SugestoesService(mock(PedidoItemRepository.class));
+        try (MockedStatic<DatabaseConfig> database = Mockito.mockStatic(DatabaseConfig.class)) {
+            database.when(() -> DatabaseConfig.executeInNewContext(any(), any(), any())).thenReturn(vendas);
+            sugestoes.catalogoRecarregado(snapshot);
+            sugestoes.reconstruirAgora();
+        }
+        return sugestoes;
+    }
+
+    static ProdutoResponseDTO produto(String nome, UUID categoriaId) {
+        ProdutoResponseDTO produto = new ProdutoResponseDTO();
+        produto.setId(UUID.randomUUID());
+        produto.setNome(nome);
+        produto.setPreco(BigDecimal.TEN);
+        produto.setCategoriaId(categoriaId);
+        return produto;
+    }
+
+    private static CategoriaResponseDTO categoria(UUID id, String nome) {
+        CategoriaResponseDTO categoria = new CategoriaResponseDTO();
+        categoria.setId(id);
+        categoria.setNome(nome);
+        return categoria;
+    }
+}
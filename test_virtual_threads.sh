@@ -0,0 +1,73 @@
+#!/bin/bash
+
+# Comparação de carga entre platform threads e virtual threads
+#
+# Uso:
+#   1. Suba a API no modo padrão:          ./gradlew run
+#      e rode:                             ./test_virtual_threads.sh platform
+#   2. Suba a API com virtual threads:     VIRTUAL_THREADS=true ./gradlew run   (JDK 21+)
+#      e rode:                             ./test_virtual_threads.sh virtual
+#
+# Variáveis opcionais: BASE_URL, CONCORRENCIA (padrão 200), TOTAL (padrão 2000)
+# Os requests usados (/api/pedidos/me e /api/carrinho) bloqueiam em JDBC, que é
+# justamente o caso em que virtual threads deixam de segurar uma thread do Jetty.
+
+MODO=${1:-"sem-rotulo"}
+BASE_URL=${BASE_URL:-"http://localhost:5000"}
+CONCORRENCIA=${CONCORRENCIA:-200}
+TOTAL=${TOTAL:-2000}
+EMAIL="carga.${MODO}@teste.com"
+SENHA="Carga@123"
+
+# 1. Registrar (se necessário) e fazer login
+echo "1. Preparando usuário de carga ($EMAIL)..."
+curl -s -X POST "$BASE_URL/api/auth/register" \
+  -H "Content-Type: application/json" \
+  -d '{"email": "'$EMAIL'", "password": "'$SENHA'", "role": "CUSTOMER"}' > /dev/null
+
+LOGIN_RESPONSE=$(curl -s -X POST "$BASE_URL/api/auth/login" \
+  -H "Content-Type: application/json" \
+  -d '{"email": "'$EMAIL'", "password": "'$SENHA'"}')
+
+TOKEN=$(echo $LOGIN_RESPONSE | grep -o '"token":"[^"]*' | cut -d'"' -f4)
+
+if [ -z "$TOKEN" ]; then
+    echo "Erro ao fazer login!"
+    echo "Resposta: $LOGIN_RESPONSE"
+    exit 1
+fi
+
+# Aquecimento (cria carrinho/cliente e aquece o JIT)
+for i in $(seq 1 20); do
+    curl -s -o /dev/null -H "Authorization: Bearer $TOKEN" "$BASE_URL/api/carrinho"
+    curl -s -o /dev/null -H "Authorization: Bearer $TOKEN" "$BASE_URL/api/pedidos/me"
+done
+
+# 2. Disparar a carga
+echo -e "\n2. Disparando $TOTAL requests com concorrência $CONCORRENCIA (modo: $MODO)..."
+RESULTADOS=$(mktemp)
+
+INICIO=$(date +%s.%N)
+seq 1 $TOTAL | xargs -P $CONCORRENCIA -I{} sh -c '
+    if [ $(({} % 2)) -eq 0 ]; then ROTA=/api/carrinho; else ROTA=/api/pedidos/me; fi
+    curl -s -o /dev/null -w "%{http_code} %{time_total}\n" \
+      -H "Authorization: Bearer '$TOKEN'" "'$BASE_URL'$ROTA"
+' > "$RESULTADOS"
+FIM=$(date +%s.%N)
+
+# 3. Resumo
+DURACAO=$(echo "$FIM - $INICIO" | bc)
+SUCESSOS=$(awk '$1 == 200' "$RESULTADOS" | wc -l)
+ERROS=$(awk '$1 != 200' "$RESULTADOS" | wc -l)
+P50=$(awk '{print $2}' "$RESULTADOS" | sort -n | awk '{a[NR]=$1} END {print a[int(NR*0.50)]}')
+P95=$(awk '{print $2}' "$RESULTADOS" | sort -n | awk '{a[NR]=$1} END {print a[int(NR*0.95)]}')
+P99=$(awk '{print $2}' "$RESULTADOS" | sort -n | awk '{a[NR]=$1} END {print a[int(NR*0.99)]}')
+
+echo -e "\n3. Resultado ($MODO)"
+echo "Duração total: ${DURACAO}s"
+echo "Throughput:    $(echo "scale=1; $TOTAL / $DURACAO" | bc) req/s"
+echo "Sucessos:      $SUCESSOS"
+echo "Erros:         $ERROS"
+echo "Latência p50:  ${P50}s | p95: ${P95}s | p99: ${P99}s"
+
+rm -f "$RESULTADOS"